@@ -0,0 +1,80 @@
+/*
+ * Copyright (C) 2020-2022, K2N.IO.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA
+ *
+ */
+
+package com.gocypher.cybench.t2b.discovery;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import com.gocypher.cybench.T2BMapper;
+import com.gocypher.cybench.Test2Benchmark;
+import com.gocypher.cybench.t2b.samples.SampleClasses;
+import com.gocypher.cybench.t2b.utils.T2BUtils;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DiscoveryBenchmark {
+
+    @Param({ "100", "1000", "5000" })
+    public int classCount;
+
+    private Path classesDir;
+    private Collection<String> testAnnotations;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        classesDir = SampleClasses.writeClassTree(Files.createTempDirectory("t2b-discovery"), classCount);
+        testAnnotations = new ArrayList<>();
+        for (T2BMapper mapper : Test2Benchmark.T2B_MAPPERS) {
+            testAnnotations.add(mapper.getAnnotation().getName());
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        SampleClasses.delete(classesDir);
+    }
+
+    @Benchmark
+    public Collection<File> getUTClasses() {
+        return T2BUtils.getUTClasses(classesDir.toFile());
+    }
+
+    // Class files walk, test annotations lookup and test classes resolution, as translation discovery does
+    @Benchmark
+    public List<TestClassIndex.Entry> discoverTestClasses() throws Exception {
+        TestClassIndex classIndex = new TestClassIndex(testAnnotations);
+        for (File classFile : T2BUtils.getUTClasses(classesDir.toFile())) {
+            classIndex.scan(classFile.toPath());
+        }
+
+        return classIndex.getTestClasses();
+    }
+}
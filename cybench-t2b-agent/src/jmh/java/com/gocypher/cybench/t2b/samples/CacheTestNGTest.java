@@ -0,0 +1,94 @@
+/*
+ * Copyright (C) 2020-2022, K2N.IO.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA
+ *
+ */
+
+package com.gocypher.cybench.t2b.samples;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertTrue;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+// Synthetic TestNG test class: fixture methods, disabled and exception expecting tests
+public class CacheTestNGTest {
+
+    private ConcurrentMap<String, String> cache;
+    private int capacity;
+
+    @BeforeMethod
+    public void setUp() {
+        capacity = 256;
+        cache = new ConcurrentHashMap<>(capacity);
+        for (int i = 0; i < capacity / 2; i++) {
+            cache.put("key" + i, "value" + i);
+        }
+    }
+
+    @AfterMethod
+    public void tearDown() {
+        cache.clear();
+    }
+
+    @Test
+    public void testGet() {
+        assertEquals(cache.get("key42"), "value42");
+    }
+
+    @Test
+    public void testPutIfAbsent() {
+        cache.putIfAbsent("key1", "other");
+        assertEquals(cache.get("key1"), "value1");
+    }
+
+    @Test
+    public void testCompute() {
+        cache.compute("counter", (k, v) -> v == null ? "1" : String.valueOf(Integer.parseInt(v) + 1));
+        assertNotNull(cache.get("counter"));
+    }
+
+    @Test
+    public void testEvict() {
+        cache.keySet().removeIf(k -> k.endsWith("0"));
+        assertTrue(cache.size() < capacity / 2);
+    }
+
+    @Test(description = "iterates all entries")
+    public void testIterate() {
+        int length = 0;
+        for (String value : cache.values()) {
+            length += value.length();
+        }
+        assertTrue(length > 0);
+    }
+
+    @Test(enabled = false)
+    public void testDisabled() {
+        assertEquals(cache.size(), 0);
+    }
+
+    @Test(expectedExceptions = NullPointerException.class)
+    public void testNullKey() {
+        cache.put(null, "value");
+    }
+}
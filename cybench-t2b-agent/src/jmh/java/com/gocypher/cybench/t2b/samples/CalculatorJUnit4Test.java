@@ -0,0 +1,122 @@
+/*
+ * Copyright (C) 2020-2022, K2N.IO.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA
+ *
+ */
+
+package com.gocypher.cybench.t2b.samples;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Ignore;
+import org.junit.Test;
+
+// Synthetic JUnit 4 test class: state fields, fixture methods, skipped and exception expecting tests
+public class CalculatorJUnit4Test {
+
+    private List<BigDecimal> values;
+    private BigDecimal total;
+    private int scale;
+
+    @Before
+    public void setUp() {
+        values = new ArrayList<>();
+        for (int i = 1; i <= 100; i++) {
+            values.add(BigDecimal.valueOf(i).divide(BigDecimal.valueOf(7), 10, RoundingMode.HALF_UP));
+        }
+        total = BigDecimal.ZERO;
+        scale = 4;
+    }
+
+    @After
+    public void tearDown() {
+        values.clear();
+    }
+
+    @Test
+    public void testSum() {
+        for (BigDecimal value : values) {
+            total = total.add(value);
+        }
+        assertTrue(total.signum() > 0);
+    }
+
+    @Test
+    public void testMultiply() {
+        BigDecimal product = BigDecimal.ONE;
+        for (int i = 0; i < 10; i++) {
+            product = product.multiply(values.get(i)).setScale(scale, RoundingMode.HALF_UP);
+        }
+        assertTrue(product.signum() >= 0);
+    }
+
+    @Test
+    public void testAverage() {
+        for (BigDecimal value : values) {
+            total = total.add(value);
+        }
+        BigDecimal avg = total.divide(BigDecimal.valueOf(values.size()), scale, RoundingMode.HALF_UP);
+        assertTrue(avg.signum() > 0);
+    }
+
+    @Test
+    public void testRounding() {
+        assertEquals(new BigDecimal("0.1429"), values.get(0).setScale(scale, RoundingMode.HALF_UP));
+    }
+
+    @Test
+    public void testCompare() {
+        assertTrue(values.get(10).compareTo(values.get(9)) > 0);
+    }
+
+    @Test
+    public void testPower() {
+        assertEquals(BigDecimal.valueOf(1024), BigDecimal.valueOf(2).pow(10));
+    }
+
+    @Test
+    public void testNegate() {
+        assertEquals(values.get(5).negate().negate(), values.get(5));
+    }
+
+    @Test
+    public void testStripZeros() {
+        assertEquals(new BigDecimal("1E+2"), new BigDecimal("100.000").stripTrailingZeros());
+    }
+
+    @Test(expected = ArithmeticException.class)
+    public void testDivideByZero() {
+        BigDecimal.ONE.divide(BigDecimal.ZERO);
+    }
+
+    @Ignore
+    @Test
+    public void testIgnored() {
+        assertEquals(BigDecimal.ONE, BigDecimal.ZERO);
+    }
+
+    BigDecimal scaled(BigDecimal value, int newScale) {
+        return value.setScale(newScale, RoundingMode.HALF_UP);
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright (C) 2020-2022, K2N.IO.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA
+ *
+ */
+
+package com.gocypher.cybench.t2b.samples;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Disabled;
+import org.junit.jupiter.api.Test;
+
+// Synthetic JUnit 5 test class: package-private tests, fixture methods and disabled test
+class ParserJUnit5Test {
+
+    private static final String CSV = "id,name,price,qty\n1,apple,0.5,10\n2,pear,0.75,4\n3,plum,1.25,7";
+
+    private String input;
+    private Map<String, Integer> header;
+
+    @BeforeEach
+    void setUp() {
+        input = CSV;
+        header = new HashMap<>();
+        String[] columns = CSV.substring(0, CSV.indexOf('\n')).split(",");
+        for (int i = 0; i < columns.length; i++) {
+            header.put(columns[i], i);
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        header.clear();
+    }
+
+    @Test
+    void testSplitLines() {
+        assertEquals(4, input.split("\n").length);
+    }
+
+    @Test
+    void testParseHeader() {
+        assertEquals(Integer.valueOf(2), header.get("price"));
+    }
+
+    @Test
+    void testParseRows() {
+        List<String[]> rows = Arrays.stream(input.split("\n")).skip(1).map(l -> l.split(","))
+                .collect(Collectors.toList());
+        assertEquals(3, rows.size());
+    }
+
+    @Test
+    void testSumColumn() {
+        double sum = Arrays.stream(input.split("\n")).skip(1).map(l -> l.split(",")[header.get("price")])
+                .mapToDouble(Double::parseDouble).sum();
+        assertEquals(2.5, sum, 0.0001);
+    }
+
+    @Test
+    void testTrim() {
+        assertFalse(" apple ".trim().contains(" "));
+    }
+
+    @Test
+    void testJoin() {
+        assertTrue(String.join(";", header.keySet()).contains("qty"));
+    }
+
+    @Disabled("not implemented")
+    @Test
+    void testQuotedValues() {
+        assertEquals("a,b", "\"a,b\"");
+    }
+}
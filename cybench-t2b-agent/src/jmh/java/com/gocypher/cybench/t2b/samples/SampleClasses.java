@@ -0,0 +1,100 @@
+/*
+ * Copyright (C) 2020-2022, K2N.IO.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA
+ *
+ */
+
+package com.gocypher.cybench.t2b.samples;
+
+import java.io.*;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+
+import javassist.bytecode.ClassFile;
+
+// Synthetic inputs of T2B benchmarks
+public final class SampleClasses {
+
+    public static final Class<?>[] TEST_CLASSES = { //
+            CalculatorJUnit4Test.class //
+            , ParserJUnit5Test.class //
+            , CacheTestNGTest.class //
+    };
+    // Test source sets usually also contain helper and fixture classes, that has to be skipped by discovery
+    public static final Class<?>[] NON_TEST_CLASSES = { //
+            SampleClasses.class //
+    };
+
+    private static final int CLASSES_PER_PACKAGE = 25;
+
+    private SampleClasses() {
+    }
+
+    // Writes class files tree of given size: test and non-test sample classes renamed to unique names and spread over
+    // packages like in a real test classes dir
+    public static Path writeClassTree(Path dir, int classCount) throws IOException {
+        Class<?>[] classes = new Class<?>[TEST_CLASSES.length + NON_TEST_CLASSES.length];
+        System.arraycopy(TEST_CLASSES, 0, classes, 0, TEST_CLASSES.length);
+        System.arraycopy(NON_TEST_CLASSES, 0, classes, TEST_CLASSES.length, NON_TEST_CLASSES.length);
+
+        for (int i = 0; i < classCount; i++) {
+            Class<?> sampleClass = classes[i % classes.length];
+            ClassFile classFile = readClassFile(sampleClass);
+            String className = "sample.pkg" + (i / CLASSES_PER_PACKAGE) + "." + sampleClass.getSimpleName() + i;
+            classFile.setName(className);
+            Path classPath = dir.resolve(className.replace('.', File.separatorChar) + ".class");
+            Files.createDirectories(classPath.getParent());
+            try (DataOutputStream out = new DataOutputStream(
+                    new BufferedOutputStream(Files.newOutputStream(classPath)))) {
+                classFile.write(out);
+            }
+        }
+
+        return dir;
+    }
+
+    public static ClassFile readClassFile(Class<?> cls) throws IOException {
+        String resourceName = cls.getName().replace('.', '/') + ".class";
+        try (InputStream is = cls.getClassLoader().getResourceAsStream(resourceName)) {
+            if (is == null) {
+                throw new FileNotFoundException(resourceName);
+            }
+            return new ClassFile(new DataInputStream(new BufferedInputStream(is)));
+        }
+    }
+
+    public static void delete(Path dir) throws IOException {
+        if (dir == null || !Files.exists(dir)) {
+            return;
+        }
+        Files.walkFileTree(dir, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                Files.delete(file);
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult postVisitDirectory(Path subDir, IOException exc) throws IOException {
+                Files.delete(subDir);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+}
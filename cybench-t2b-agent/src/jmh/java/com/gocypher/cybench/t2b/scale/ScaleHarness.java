@@ -0,0 +1,266 @@
+/*
+ * Copyright (C) 2020-2022, K2N.IO.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA
+ *
+ */
+
+package com.gocypher.cybench.t2b.scale;
+
+import java.io.*;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+
+import com.gocypher.cybench.Test2Benchmark;
+import com.gocypher.cybench.t2b.samples.SampleClasses;
+import com.gocypher.cybench.t2b.utils.LogUtils;
+
+// End-to-end translate mode scale harness: generates synthetic test suites of growing size and runs full T2B
+// translation of each one in own JVM, reporting time, peak heap, metaspace and produced benchmarks size
+public class ScaleHarness {
+    private static Logger LOGGER = LogUtils.getLogger(ScaleHarness.class);
+
+    static final String SIZES_ARG = System.getProperty("t2b.scale.sizes", "10,100,1000,10000");
+    static final int METHODS_ARG = Integer.getInteger("t2b.scale.methods", 5);
+    static final int FIELDS_ARG = Integer.getInteger("t2b.scale.fields", 3);
+    static final int NESTED_ARG = Integer.getInteger("t2b.scale.nested", 1);
+    static final boolean FIXTURES_ARG = Boolean.parseBoolean(System.getProperty("t2b.scale.fixtures", "true"));
+    static final String DIR_ARG = System.getProperty("t2b.scale.dir");
+    static final String JVM_ARGS_ARG = System.getProperty("t2b.scale.jvm.args", "");
+    static final boolean KEEP_ARG = Boolean.getBoolean("t2b.scale.keep");
+    // Time per class growth exponent between neighbour sizes, reported as not linear when exceeded
+    static final double MAX_EXPONENT_ARG = Double
+            .parseDouble(System.getProperty("t2b.scale.max.exponent", "1.25"));
+
+    private static final String TRANSLATE_ARG = "translate";
+    private static final String RESULT_FILE = ".scaleResult";
+    private static final String TRANSLATE_LOG = "translate.log";
+
+    public static void main(String... args) throws Exception {
+        if (args.length > 0 && TRANSLATE_ARG.equals(args[0])) {
+            translate(args[1]);
+            return;
+        }
+
+        File baseDir = DIR_ARG == null || DIR_ARG.isEmpty() ? Files.createTempDirectory("t2b-scale").toFile()
+                : new File(DIR_ARG);
+        LOGGER.info("Scale harness dir: {}, sizes: {}, methods: {}, fields: {}, nested: {}, fixtures: {}", baseDir,
+                SIZES_ARG, METHODS_ARG, FIELDS_ARG, NESTED_ARG, FIXTURES_ARG);
+        List<Result> results = new ArrayList<>();
+        for (String size : SIZES_ARG.split(",")) {
+            int classCount = Integer.parseInt(size.trim());
+            File suiteDir = new File(baseDir, "suite-" + classCount);
+            try {
+                results.add(run(suiteDir, classCount));
+            } finally {
+                if (!KEEP_ARG) {
+                    SampleClasses.delete(suiteDir.toPath());
+                }
+            }
+        }
+        report(results, new File(baseDir, "scale-report.csv"));
+    }
+
+    private static Result run(File suiteDir, int classCount) throws Exception {
+        File buildDir = new File(suiteDir, "target");
+        File testDir = new File(buildDir, "test-classes");
+        SyntheticSuiteGenerator.ensureDir(testDir);
+        SyntheticSuiteGenerator.ensureDir(new File(buildDir, "classes"));
+
+        Result result = new Result(classCount);
+        long start = System.nanoTime();
+        result.testMethods = new SyntheticSuiteGenerator(METHODS_ARG, FIELDS_ARG, NESTED_ARG, FIXTURES_ARG)
+                .generate(testDir, classCount);
+        LOGGER.info("Generated {} test classes ({} test methods) in {} ms", classCount, result.testMethods,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+
+        List<String> command = new ArrayList<>();
+        command.add(System.getProperty("java.home") + File.separator + "bin" + File.separator + "java");
+        for (String jvmArg : JVM_ARGS_ARG.trim().split("\\s+")) {
+            if (!jvmArg.isEmpty()) {
+                command.add(jvmArg);
+            }
+        }
+        // T2B configuration is passed to translation as is
+        for (String propName : System.getProperties().stringPropertyNames()) {
+            if (propName.startsWith("t2b.") && !propName.startsWith("t2b.scale.")) {
+                command.add("-D" + propName + "=" + System.getProperty(propName));
+            }
+        }
+        command.add("-Dt2b.build.dir=" + buildDir.getAbsolutePath());
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(ScaleHarness.class.getName());
+        command.add(TRANSLATE_ARG);
+        command.add(new File(suiteDir, RESULT_FILE).getAbsolutePath());
+
+        File logFile = new File(suiteDir, TRANSLATE_LOG);
+        start = System.nanoTime();
+        Process process = new ProcessBuilder(command).directory(suiteDir).redirectErrorStream(true)
+                .redirectOutput(logFile).start();
+        int exitValue = process.waitFor();
+        result.wallMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        if (exitValue != 0) {
+            LOGGER.error("Translation of {} classes failed, exitValue={}, see log: {}", classCount, exitValue,
+                    logFile);
+        }
+
+        Properties props = new Properties();
+        File resultFile = new File(suiteDir, RESULT_FILE);
+        if (resultFile.exists()) {
+            try (Reader rdr = new InputStreamReader(new FileInputStream(resultFile), StandardCharsets.UTF_8)) {
+                props.load(rdr);
+            }
+        }
+        result.translateMillis = Long.parseLong(props.getProperty("translate.millis", "-1"));
+        result.peakHeap = Long.parseLong(props.getProperty("peak.heap", "-1"));
+        result.peakMetaspace = Long.parseLong(props.getProperty("peak.metaspace", "-1"));
+
+        File benchDir = new File(buildDir, "t2b");
+        result.benchmarks = countBenchmarks(new File(benchDir, "META-INF/BenchmarkList"));
+        long[] size = dirSize(benchDir.toPath());
+        result.outputFiles = size[0];
+        result.outputBytes = size[1];
+        LOGGER.info("Translated {} classes: {}", classCount, result);
+
+        return result;
+    }
+
+    // Child JVM: runs whole translation pipeline and stores its resource usage
+    private static void translate(String resultPath) throws Exception {
+        long start = System.nanoTime();
+        Test2Benchmark.main();
+        long translateMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        long peakHeap = 0;
+        long peakMetaspace = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                peakHeap += pool.getPeakUsage().getUsed();
+            } else if (pool.getName().equals("Metaspace")) {
+                peakMetaspace = pool.getPeakUsage().getUsed();
+            }
+        }
+
+        Properties props = new Properties();
+        props.setProperty("translate.millis", String.valueOf(translateMillis));
+        props.setProperty("peak.heap", String.valueOf(peakHeap));
+        props.setProperty("peak.metaspace", String.valueOf(peakMetaspace));
+        try (Writer wrt = new OutputStreamWriter(new FileOutputStream(resultPath), StandardCharsets.UTF_8)) {
+            props.store(wrt, "T2B scale harness translation result");
+        }
+    }
+
+    private static int countBenchmarks(File listFile) throws IOException {
+        if (!listFile.exists()) {
+            return 0;
+        }
+        try (Stream<String> lines = Files.lines(listFile.toPath(), StandardCharsets.UTF_8)) {
+            return (int) lines.filter(l -> !l.trim().isEmpty()).count();
+        }
+    }
+
+    private static long[] dirSize(Path dir) throws IOException {
+        long[] size = new long[2];
+        if (!Files.isDirectory(dir)) {
+            return size;
+        }
+        try (Stream<Path> paths = Files.walk(dir)) {
+            paths.filter(Files::isRegularFile).forEach(p -> {
+                size[0]++;
+                size[1] += p.toFile().length();
+            });
+        }
+        return size;
+    }
+
+    private static void report(List<Result> results, File csvFile) throws IOException {
+        StringBuilder table = new StringBuilder();
+        table.append(String.format("%n%8s %8s %10s %10s %10s %10s %10s %8s %10s %9s%n", "classes", "tests",
+                "benchmarks", "wall ms", "t2b ms", "ms/class", "heap MB", "meta MB", "output MB", "exponent"));
+        try (PrintWriter csv = new PrintWriter(
+                new OutputStreamWriter(new FileOutputStream(csvFile), StandardCharsets.UTF_8))) {
+            csv.println("classes,testMethods,benchmarks,wallMillis,translateMillis,peakHeapBytes,"
+                    + "peakMetaspaceBytes,outputFiles,outputBytes,exponent");
+            Result prev = null;
+            boolean linear = true;
+            for (Result result : results) {
+                double exponent = prev == null ? Double.NaN : result.exponent(prev);
+                if (exponent > MAX_EXPONENT_ARG) {
+                    linear = false;
+                }
+                table.append(String.format("%8d %8d %10d %10d %10d %10.1f %10.1f %8.1f %10.1f %9.2f%n",
+                        result.classCount, result.testMethods, result.benchmarks, result.wallMillis,
+                        result.translateMillis, (double) result.translateMillis / result.classCount,
+                        toMB(result.peakHeap), toMB(result.peakMetaspace), toMB(result.outputBytes), exponent));
+                csv.println(result.classCount + "," + result.testMethods + "," + result.benchmarks + ","
+                        + result.wallMillis + "," + result.translateMillis + "," + result.peakHeap + ","
+                        + result.peakMetaspace + "," + result.outputFiles + "," + result.outputBytes + ","
+                        + (Double.isNaN(exponent) ? "" : String.format(Locale.ROOT, "%.3f", exponent)));
+                prev = result;
+            }
+            LOGGER.info("Translate mode scaling:{}", table);
+            LOGGER.info("Scale report written to: {}", csvFile.getAbsolutePath());
+            if (!linear) {
+                LOGGER.warn("Translation time grows faster than linear: exponent exceeds {}", MAX_EXPONENT_ARG);
+            }
+        }
+    }
+
+    private static double toMB(long bytes) {
+        return bytes / (1024.0 * 1024.0);
+    }
+
+    static class Result {
+        final int classCount;
+        int testMethods;
+        int benchmarks;
+        long wallMillis;
+        long translateMillis;
+        long peakHeap;
+        long peakMetaspace;
+        long outputFiles;
+        long outputBytes;
+
+        Result(int classCount) {
+            this.classCount = classCount;
+        }
+
+        // Growth exponent of translation time: 1 means linear scaling
+        double exponent(Result prev) {
+            if (prev.translateMillis <= 0 || translateMillis <= 0 || prev.classCount == classCount) {
+                return Double.NaN;
+            }
+            return Math.log((double) translateMillis / prev.translateMillis)
+                    / Math.log((double) classCount / prev.classCount);
+        }
+
+        @Override
+        public String toString() {
+            return "testMethods=" + testMethods + ", benchmarks=" + benchmarks + ", wallMillis=" + wallMillis
+                    + ", translateMillis=" + translateMillis + ", peakHeap=" + peakHeap + ", peakMetaspace="
+                    + peakMetaspace + ", outputFiles=" + outputFiles + ", outputBytes=" + outputBytes;
+        }
+    }
+}
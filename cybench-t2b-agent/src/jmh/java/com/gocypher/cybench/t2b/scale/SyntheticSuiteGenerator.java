@@ -0,0 +1,130 @@
+/*
+ * Copyright (C) 2020-2022, K2N.IO.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA
+ *
+ */
+
+package com.gocypher.cybench.t2b.scale;
+
+import java.io.File;
+import java.io.IOException;
+
+import javassist.*;
+import javassist.bytecode.AnnotationsAttribute;
+import javassist.bytecode.ConstPool;
+import javassist.bytecode.annotation.Annotation;
+
+// Generates synthetic test classes suite of JUnit 4, JUnit 5 and TestNG test classes having instance fields,
+// fixture methods and nested test classes
+public class SyntheticSuiteGenerator {
+
+    enum Framework {
+        JUNIT4("org.junit.Test", "org.junit.Before", "org.junit.After"), //
+        JUNIT5("org.junit.jupiter.api.Test", "org.junit.jupiter.api.BeforeEach", "org.junit.jupiter.api.AfterEach"), //
+        TESTNG("org.testng.annotations.Test", "org.testng.annotations.BeforeMethod",
+                "org.testng.annotations.AfterMethod");
+
+        final String testAnnotation;
+        final String setupAnnotation;
+        final String tearDownAnnotation;
+
+        Framework(String testAnnotation, String setupAnnotation, String tearDownAnnotation) {
+            this.testAnnotation = testAnnotation;
+            this.setupAnnotation = setupAnnotation;
+            this.tearDownAnnotation = tearDownAnnotation;
+        }
+    }
+
+    private static final int CLASSES_PER_PACKAGE = 50;
+
+    private final int methodsPerClass;
+    private final int fieldsPerClass;
+    private final int nestedPerClass;
+    private final boolean fixtures;
+
+    public SyntheticSuiteGenerator(int methodsPerClass, int fieldsPerClass, int nestedPerClass, boolean fixtures) {
+        this.methodsPerClass = methodsPerClass;
+        this.fieldsPerClass = fieldsPerClass;
+        this.nestedPerClass = nestedPerClass;
+        this.fixtures = fixtures;
+    }
+
+    // Writes given count of top level test classes (nested ones are not counted) into class files dir, returns count
+    // of generated test methods
+    public int generate(File classDir, int classCount) throws Exception {
+        ClassPool pool = new ClassPool(true);
+        int testMethods = 0;
+        for (int i = 0; i < classCount; i++) {
+            Framework framework = Framework.values()[i % Framework.values().length];
+            String className = "synthetic.pkg" + (i / CLASSES_PER_PACKAGE) + ".Synthetic" + i
+                    + framework.name().charAt(0) + framework.name().substring(1).toLowerCase() + "Test";
+            CtClass testClass = pool.makeClass(className);
+            testMethods += fillTestClass(testClass, framework, i);
+            for (int n = 0; n < nestedPerClass; n++) {
+                CtClass nestedClass = testClass.makeNestedClass("Nested" + n, true);
+                testMethods += fillTestClass(nestedClass, framework, i + n + 1);
+                nestedClass.writeFile(classDir.getPath());
+                nestedClass.detach();
+            }
+            testClass.writeFile(classDir.getPath());
+            testClass.detach();
+        }
+
+        return testMethods;
+    }
+
+    private int fillTestClass(CtClass testClass, Framework framework, int seed) throws Exception {
+        testClass.setModifiers(testClass.getModifiers() | Modifier.PUBLIC);
+        StringBuilder init = new StringBuilder();
+        for (int f = 0; f < fieldsPerClass; f++) {
+            String fieldType = f % 2 == 0 ? "int[]" : "java.util.List";
+            testClass.addField(CtField.make("private " + fieldType + " field" + f + ";", testClass));
+            init.append(f % 2 == 0 //
+                    ? "field" + f + " = new int[" + (16 + f) + "]; for (int i = 0; i < field" + f
+                            + ".length; i++) { field" + f + "[i] = i * " + (seed + 31) + "; }"
+                    : "field" + f + " = new java.util.ArrayList(); field" + f + ".add(\"value" + f + "\");");
+        }
+        testClass.addConstructor(CtNewConstructor.defaultConstructor(testClass));
+
+        if (fixtures) {
+            addMethod(testClass, "public void setUp() {" + init + "}", framework.setupAnnotation);
+            addMethod(testClass, "public void tearDown() { }", framework.tearDownAnnotation);
+        }
+        for (int m = 0; m < methodsPerClass; m++) {
+            addMethod(testClass,
+                    "public void test" + m + "() { long sum = " + m + "; for (int i = 0; i < 64; i++) { sum += i ^ "
+                            + (seed + m) + "; } if (sum < 0) { throw new IllegalStateException(); } }",
+                    framework.testAnnotation);
+        }
+
+        return methodsPerClass;
+    }
+
+    private static void addMethod(CtClass cls, String src, String annotationType) throws CannotCompileException {
+        CtMethod method = CtNewMethod.make(src, cls);
+        ConstPool constPool = cls.getClassFile().getConstPool();
+        AnnotationsAttribute attribute = new AnnotationsAttribute(constPool, AnnotationsAttribute.visibleTag);
+        attribute.addAnnotation(new Annotation(annotationType, constPool));
+        method.getMethodInfo().addAttribute(attribute);
+        cls.addMethod(method);
+    }
+
+    static void ensureDir(File dir) throws IOException {
+        if (!dir.isDirectory() && !dir.mkdirs()) {
+            throw new IOException("Can't create dir: " + dir);
+        }
+    }
+}
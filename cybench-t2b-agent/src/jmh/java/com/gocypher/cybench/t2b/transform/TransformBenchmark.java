@@ -0,0 +1,88 @@
+/*
+ * Copyright (C) 2020-2022, K2N.IO.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA
+ *
+ */
+
+package com.gocypher.cybench.t2b.transform;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.generators.core.ClassInfo;
+import org.openjdk.jmh.generators.core.MethodInfo;
+import org.openjdk.jmh.generators.reflection.T2BClassInfo;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.gocypher.cybench.Test2Benchmark;
+
+import javassist.ClassPool;
+
+// Run with -jvmArgsAppend -Dt2b.transform.engine=classfile to measure class file transformation engine
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class TransformBenchmark {
+
+    @Param({ "com.gocypher.cybench.t2b.samples.CalculatorJUnit4Test",
+            "com.gocypher.cybench.t2b.samples.ParserJUnit5Test",
+            "com.gocypher.cybench.t2b.samples.CacheTestNGTest" })
+    public String testClass;
+
+    private ClassInfo classInfo;
+    private final List<Method> methods = new ArrayList<>();
+    private final List<MethodInfo> methodInfos = new ArrayList<>();
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        Class<?> cls = Class.forName(testClass);
+        classInfo = new T2BClassInfo(cls);
+        for (Method method : cls.getDeclaredMethods()) {
+            methods.add(method);
+        }
+        methodInfos.addAll(classInfo.getMethods());
+    }
+
+    // Altered class is kept by class pool under new name, so every transformation gets own pool, like translation
+    // worker gets its own one
+    @Benchmark
+    public TestClassTransformer doTransform() {
+        TestClassTransformer transformer = new TestClassTransformer(classInfo, new ClassPool(true));
+        transformer.doTransform(Test2Benchmark.T2B_MAPPERS);
+
+        return transformer;
+    }
+
+    @Benchmark
+    public void getSignatureMethod(Blackhole bh) {
+        for (Method method : methods) {
+            bh.consume(AbstractClassTransformer.getSignature(method));
+        }
+    }
+
+    @Benchmark
+    public void getSignatureMethodInfo(Blackhole bh) {
+        for (MethodInfo methodInfo : methodInfos) {
+            bh.consume(AbstractClassTransformer.getSignature(methodInfo));
+        }
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright (C) 2020-2022, K2N.IO.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA
+ *
+ */
+
+package com.gocypher.cybench.t2b.transform.metadata;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.generators.core.ClassInfo;
+import org.openjdk.jmh.generators.core.MethodInfo;
+import org.openjdk.jmh.generators.reflection.T2BClassInfo;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.gocypher.cybench.t2b.samples.SampleClasses;
+
+// Metadata template is loaded from config/metadata.properties (t2b.metadata.cfg.path)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class BenchmarkMetadataBenchmark {
+
+    private final List<ClassInfo> classInfos = new ArrayList<>();
+    private final List<MethodInfo> methodInfos = new ArrayList<>();
+    private final List<Method> methods = new ArrayList<>();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        System.setProperty("t2b.session.id", "jmh-session");
+        for (Class<?> testClass : SampleClasses.TEST_CLASSES) {
+            ClassInfo classInfo = new T2BClassInfo(testClass);
+            classInfos.add(classInfo);
+            methodInfos.addAll(classInfo.getMethods());
+            for (Method method : testClass.getDeclaredMethods()) {
+                methods.add(method);
+            }
+        }
+    }
+
+    @Benchmark
+    public void fillClassMetadata(Blackhole bh) {
+        for (ClassInfo classInfo : classInfos) {
+            bh.consume(BenchmarkMetadata.fillMetadata(classInfo));
+        }
+    }
+
+    @Benchmark
+    public void fillMethodInfoMetadata(Blackhole bh) {
+        for (MethodInfo methodInfo : methodInfos) {
+            bh.consume(BenchmarkMetadata.fillMetadata(methodInfo));
+        }
+    }
+
+    @Benchmark
+    public void fillMethodMetadata(Blackhole bh) {
+        for (Method method : methods) {
+            bh.consume(BenchmarkMetadata.fillMetadata(method));
+        }
+    }
+}
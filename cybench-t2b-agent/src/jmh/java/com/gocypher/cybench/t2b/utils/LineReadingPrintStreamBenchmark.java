@@ -0,0 +1,87 @@
+/*
+ * Copyright (C) 2020-2022, K2N.IO.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA
+ *
+ */
+
+package com.gocypher.cybench.t2b.utils;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class LineReadingPrintStreamBenchmark {
+
+    private static final int OUTPUT_LINES = 200;
+
+    // Write granularity: single bytes (write(int)), buffered stream flushes and whole output at once
+    @Param({ "1", "128", "65536" })
+    public int chunkSize;
+
+    @Param({ "LF", "CRLF" })
+    public String lineSeparator;
+
+    private byte[] output;
+    private LineReadingPrintStream stream;
+    private long consumed;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        // Test output alike: mostly short log lines with occasional long ones (e.g. stack traces, JSON)
+        Random random = new Random(42);
+        String eol = "CRLF".equals(lineSeparator) ? "\r\n" : "\n";
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < OUTPUT_LINES; i++) {
+            int lineLength = random.nextInt(10) == 0 ? 200 + random.nextInt(800) : 20 + random.nextInt(100);
+            sb.append("[main] INFO  test line ").append(i).append(": ");
+            for (int j = 0; j < lineLength; j++) {
+                sb.append((char) ('a' + random.nextInt(26)));
+            }
+            sb.append(eol);
+        }
+        output = sb.toString().getBytes(StandardCharsets.UTF_8);
+        stream = new LineReadingPrintStream(line -> consumed += line.length(), new PrintStream(new OutputStream() {
+            @Override
+            public void write(int b) {
+            }
+        }));
+    }
+
+    @Benchmark
+    public long write() {
+        if (chunkSize == 1) {
+            for (byte b : output) {
+                stream.write(b);
+            }
+        } else {
+            for (int off = 0; off < output.length; off += chunkSize) {
+                stream.write(output, off, Math.min(chunkSize, output.length - off));
+            }
+        }
+
+        return consumed;
+    }
+}
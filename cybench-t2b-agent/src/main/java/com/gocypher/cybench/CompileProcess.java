@@ -21,39 +21,84 @@ package com.gocypher.cybench;
 
 import java.io.*;
 import java.nio.charset.StandardCharsets;
-import java.nio.file.FileSystems;
-import java.nio.file.Files;
-import java.nio.file.PathMatcher;
-import java.nio.file.Paths;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
-import javax.tools.JavaCompiler;
-import javax.tools.ToolProvider;
+import javax.tools.*;
 
 import org.slf4j.Logger;
 import org.slf4j.event.Level;
 
+import com.gocypher.cybench.t2b.stats.TranslationStats;
 import com.gocypher.cybench.t2b.utils.LogUtils;
 import com.gocypher.cybench.t2b.utils.T2BUtils;
 
 public abstract class CompileProcess {
     private static Logger LOGGER = LogUtils.getLogger(CompileProcess.class);
 
+    static final String COMPILE_MODE_API = "api";
+    static final String COMPILE_MODE_MEMORY = "memory";
+    static final String COMPILE_MODE_PROCESS = "process";
+
+    static String getCompileMode() {
+        String mode = System.getProperty("t2b.compile.mode");
+        return mode == null || mode.trim().isEmpty() ? COMPILE_MODE_API : mode.trim().toLowerCase(Locale.ROOT);
+    }
+
+    static boolean isInMemory() {
+        return COMPILE_MODE_MEMORY.equals(getCompileMode());
+    }
+
+    static int getCompileThreads() {
+        return Test2Benchmark.getThreads(System.getProperty("t2b.compile.threads"), "compile", 1);
+    }
+
+    static CompileProcess getCompileProcess() throws Exception {
+        String mode = getCompileMode();
+        int threads = getCompileThreads();
+        switch (mode) {
+        case COMPILE_MODE_MEMORY:
+            return threads > 1 ? new ShardedCompileProcess(threads, true) : new InMemoryCompileProcess();
+        case COMPILE_MODE_PROCESS:
+            return new WindowsCompileProcess();
+        case COMPILE_MODE_API:
+            return threads > 1 ? new ShardedCompileProcess(threads, false) : new APICompileProcess();
+        default:
+            LOGGER.warn("Unknown compile mode '{}', using '{}'", mode, COMPILE_MODE_API);
+            return new APICompileProcess();
+        }
+    }
+
+    static void logDiagnostics(DiagnosticCollector<JavaFileObject> diagnostics) {
+        for (Diagnostic<? extends JavaFileObject> diagnostic : diagnostics.getDiagnostics()) {
+            String source = diagnostic.getSource() == null ? "" : diagnostic.getSource().getName();
+            String message = diagnostic.getMessage(Locale.ROOT);
+            switch (diagnostic.getKind()) {
+            case ERROR:
+                LOGGER.error("{}:{}: {}", source, diagnostic.getLineNumber(), message);
+                break;
+            case WARNING:
+            case MANDATORY_WARNING:
+                LOGGER.warn("{}:{}: {}", source, diagnostic.getLineNumber(), message);
+                break;
+            default:
+                LOGGER.info("{}:{}: {}", source, diagnostic.getLineNumber(), message);
+                break;
+            }
+        }
+    }
+
     static String makeSourcesList() {
         try {
-            PathMatcher matcher = FileSystems.getDefault().getPathMatcher("glob:**/*.java");
-            File f = new File(Test2Benchmark.BENCH_DIR, ".sourceList");
+            File f = new File(Test2Benchmark.getBenchDir(), ".sourceList");
             try (FileOutputStream fos = new FileOutputStream(f)) {
-                Files.walk(Paths.get(Test2Benchmark.BENCH_DIR)) //
-                        .filter(fw -> matcher.matches(fw)) //
-                        .filter(Files::isRegularFile) //
-                        .forEach(fw -> {
-                            try {
-                                fos.write(fw.toAbsolutePath().toString().getBytes(StandardCharsets.UTF_8));
-                                fos.write('\n');
-                            } catch (IOException e) {
-                                e.printStackTrace();
-                            }
-                        });
+                // Only sources generated by this run: unchanged ones are already compiled by incremental translation
+                for (File sourceFile : Test2Benchmark.getGeneratedSources()) {
+                    fos.write(sourceFile.getAbsolutePath().getBytes(StandardCharsets.UTF_8));
+                    fos.write('\n');
+                }
                 fos.flush();
             }
             LOGGER.info("Created sources file: {}", f.getAbsolutePath());
@@ -66,7 +111,7 @@ public abstract class CompileProcess {
         return null;
     }
 
-    public abstract void compile();
+    public abstract boolean compile();
 
     static class APICompileProcess extends CompileProcess {
 
@@ -74,16 +119,210 @@ public abstract class CompileProcess {
         }
 
         @Override
-        public void compile() {
+        public boolean compile() {
             try {
                 String s = CompileProcess.makeSourcesList();
                 JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
                 LOGGER.info("> Compiling T2B generated sources: @{}", s);
-                int exitValue = compiler.run(System.in, System.out, System.err, "@" + s);
+                int exitValue = compiler.run(System.in, System.out, System.err, "-classpath",
+                        Test2Benchmark.getCompileClassPath(), "@" + s);
                 LOGGER.info("< T2B generated sources compilation completed: exitValue={}", exitValue);
+                return exitValue == 0;
+            } catch (Throwable e) {
+                LOGGER.error("T2B generated sources compilation failed", e);
+                return false;
+            }
+        }
+    }
+
+    // Compiles generated sources held in memory and writes class files only after successful compilation
+    static class InMemoryCompileProcess extends CompileProcess {
+
+        public InMemoryCompileProcess() throws Exception {
+        }
+
+        @Override
+        public boolean compile() {
+            try {
+                JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+                if (compiler == null) {
+                    LOGGER.error("No system Java compiler found, make sure T2B runs on JDK");
+                    return false;
+                }
+                DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+                StandardJavaFileManager stdFileManager = compiler.getStandardFileManager(diagnostics, null,
+                        StandardCharsets.UTF_8);
+                try (MemoryJavaFileManager fileManager = new MemoryJavaFileManager(stdFileManager,
+                        Test2Benchmark.getGeneratedSourceCode())) {
+                    List<String> options = new ArrayList<>();
+                    options.add("-proc:none");
+                    // Transformed test classes are stored into benchmarks dir
+                    options.add("-classpath");
+                    options.add(Test2Benchmark.getCompileClassPath());
+                    List<JavaFileObject> units = new ArrayList<>(fileManager.getSources());
+                    LOGGER.info("> Compiling {} T2B generated sources in memory", units.size());
+                    Boolean success = compiler.getTask(null, fileManager, diagnostics, options, null, units).call();
+                    logDiagnostics(diagnostics);
+                    if (!Boolean.TRUE.equals(success)) {
+                        LOGGER.error("< T2B generated sources compilation failed");
+                        return false;
+                    }
+                    int classCount = fileManager.writeClasses(new File(Test2Benchmark.getBenchDir()));
+                    LOGGER.info("< T2B generated sources compilation completed: wrote {} class files", classCount);
+                    return true;
+                }
+            } catch (Throwable e) {
+                LOGGER.error("T2B generated sources compilation failed", e);
+                return false;
+            }
+        }
+    }
+
+    // Compiles generated sources in parallel javac tasks, each shard holding all sources generated for a set of user
+    // benchmark classes. Other shards sources are resolved over source path, but not emitted (-implicit:none).
+    static class ShardedCompileProcess extends CompileProcess {
+        private final int threads;
+        private final boolean inMemory;
+
+        public ShardedCompileProcess(int threads, boolean inMemory) throws Exception {
+            this.threads = threads;
+            this.inMemory = inMemory;
+        }
+
+        // Every javac task pays for own symbol table setup, so user benchmark class groups are balanced into as many
+        // shards as there are threads instead of running a task per group
+        static List<List<String>> makeShards(Collection<List<String>> groups, int shardCount) {
+            List<List<String>> sortedGroups = new ArrayList<>(groups);
+            sortedGroups.sort((g1, g2) -> Integer.compare(g2.size(), g1.size()));
+
+            int count = Math.max(1, Math.min(shardCount, sortedGroups.size()));
+            List<List<String>> shards = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                shards.add(new ArrayList<>());
+            }
+            for (List<String> group : sortedGroups) {
+                List<String> smallest = shards.get(0);
+                for (List<String> shard : shards) {
+                    if (shard.size() < smallest.size()) {
+                        smallest = shard;
+                    }
+                }
+                smallest.addAll(group);
+            }
+
+            return shards;
+        }
+
+        @Override
+        public boolean compile() {
+            JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+            if (compiler == null) {
+                LOGGER.error("No system Java compiler found, make sure T2B runs on JDK");
+                return false;
+            }
+            List<List<String>> shards = makeShards(Test2Benchmark.getGeneratedClassGroups().values(), threads);
+            Map<String, String> sources = inMemory ? Test2Benchmark.getGeneratedSourceCode() : null;
+            // Shards are compiled on pool threads, so translation state is resolved here
+            String benchDir = Test2Benchmark.getBenchDir();
+            String classPath = Test2Benchmark.getCompileClassPath();
+            TranslationStats stats = Test2Benchmark.getStats();
+            Map<String, File> sourceFiles = new HashMap<>();
+            if (!inMemory) {
+                for (List<String> shard : shards) {
+                    for (String className : shard) {
+                        sourceFiles.put(className, Test2Benchmark.getGeneratedSourceFile(className));
+                    }
+                }
+            }
+            LOGGER.info("> Compiling T2B generated sources in {} shards using {} threads", shards.size(), threads);
+
+            ExecutorService executor = Executors.newFixedThreadPool(Math.min(threads, shards.size()));
+            List<Future<ShardResult>> futures = new ArrayList<>(shards.size());
+            try {
+                for (List<String> shard : shards) {
+                    futures.add(executor.submit(() -> {
+                        TranslationStats.Sample sample = new TranslationStats.Sample();
+                        try {
+                            return compileShard(compiler, shard, sources, sourceFiles, benchDir, classPath);
+                        } finally {
+                            stats.addWorkerUsage(sample);
+                        }
+                    }));
+                }
+
+                boolean success = true;
+                List<Map<String, byte[]>> shardClasses = new ArrayList<>(shards.size());
+                for (int i = 0; i < futures.size(); i++) {
+                    ShardResult result;
+                    try {
+                        result = futures.get(i).get();
+                    } catch (Exception exc) {
+                        LOGGER.error("T2B generated sources shard {} compilation failed: {}", i,
+                                exc.getLocalizedMessage());
+                        success = false;
+                        continue;
+                    }
+                    logDiagnostics(result.diagnostics);
+                    LOGGER.info("T2B generated sources shard {} compiled {} sources: success={}", i,
+                            shards.get(i).size(), result.success);
+                    success &= result.success;
+                    shardClasses.add(result.classes);
+                }
+
+                if (success && inMemory) {
+                    int classCount = 0;
+                    for (Map<String, byte[]> classes : shardClasses) {
+                        classCount += MemoryJavaFileManager.writeClasses(new File(benchDir), classes);
+                    }
+                    LOGGER.info("Wrote {} class files", classCount);
+                }
+                LOGGER.info("< T2B generated sources compilation completed: success={}", success);
+                return success;
             } catch (Throwable e) {
                 LOGGER.error("T2B generated sources compilation failed", e);
+                return false;
+            } finally {
+                executor.shutdownNow();
+            }
+        }
+
+        private ShardResult compileShard(JavaCompiler compiler, List<String> classNames, Map<String, String> sources,
+                Map<String, File> sourceFiles, String benchDir, String classPath) throws IOException {
+            ShardResult result = new ShardResult();
+            List<String> options = new ArrayList<>();
+            options.add("-proc:none");
+            options.add("-implicit:none");
+            options.add("-classpath");
+            options.add(classPath);
+
+            StandardJavaFileManager stdFileManager = compiler.getStandardFileManager(result.diagnostics, null,
+                    StandardCharsets.UTF_8);
+            if (inMemory) {
+                try (MemoryJavaFileManager fileManager = new MemoryJavaFileManager(stdFileManager, sources)) {
+                    result.success = Boolean.TRUE.equals(compiler.getTask(null, fileManager, result.diagnostics,
+                            options, null, fileManager.getSources(classNames)).call());
+                    result.classes = fileManager.getClasses();
+                }
+            } else {
+                try (StandardJavaFileManager fileManager = stdFileManager) {
+                    fileManager.setLocation(StandardLocation.SOURCE_PATH,
+                            Collections.singleton(new File(benchDir)));
+                    List<File> shardFiles = new ArrayList<>(classNames.size());
+                    for (String className : classNames) {
+                        shardFiles.add(sourceFiles.get(className));
+                    }
+                    result.success = Boolean.TRUE.equals(compiler.getTask(null, fileManager, result.diagnostics,
+                            options, null, fileManager.getJavaFileObjectsFromFiles(shardFiles)).call());
+                }
             }
+
+            return result;
+        }
+
+        private static class ShardResult {
+            final DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+            boolean success;
+            Map<String, byte[]> classes = Collections.emptyMap();
         }
     }
 
@@ -122,9 +361,9 @@ public abstract class CompileProcess {
         }
 
         private String getClassPath() throws Exception {
-            String cp = T2BUtils.getCurrentClassPath();
+            String cp = T2BUtils.getCurrentClassPath() + File.pathSeparator + Test2Benchmark.getModuleClassPath();
             LOGGER.info("Starting Class Path Listing: >>>>>>>>>>>>>>>>>>>>>>>");
-            String[] cps = classPath.split(File.pathSeparator);
+            String[] cps = cp.split(File.pathSeparator);
             for (String cpe : cps) {
                 LOGGER.info("Class Path Entry: {}", cpe);
             }
@@ -134,12 +373,13 @@ public abstract class CompileProcess {
         }
 
         @Override
-        public void compile() {
+        public boolean compile() {
             try {
                 String s = CompileProcess.makeSourcesList();
-                runProcess(CMD_COMPILE.replace("<CLASSPATH>", "\"" + classPath + "\"") + s);
+                return runProcess(CMD_COMPILE.replace("<CLASSPATH>", "\"" + classPath + "\"") + s) == 0;
             } catch (Throwable e) {
                 LOGGER.error("Cannot run compile", e);
+                return false;
             }
         }
 
@@ -155,7 +395,7 @@ public abstract class CompileProcess {
             }
         }
 
-        static void runProcess(String command) throws Exception {
+        static int runProcess(String command) throws Exception {
             int cmdId = command.hashCode();
             LOGGER.info(">{}> Running command: {}", cmdId, command);
             Process pro = Runtime.getRuntime().exec(command);
@@ -163,6 +403,7 @@ public abstract class CompileProcess {
             printLines(">" + cmdId + "> >> stderr:", pro.getErrorStream(), Level.ERROR);
             pro.waitFor();
             LOGGER.info("<{}< exitValue={}", cmdId, pro.exitValue());
+            return pro.exitValue();
         }
     }
 }
@@ -0,0 +1,200 @@
+/*
+ * Copyright (C) 2020-2022, K2N.IO.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA
+ *
+ */
+
+package com.gocypher.cybench;
+
+import java.io.*;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+import javax.tools.*;
+
+class MemoryJavaFileManager extends ForwardingJavaFileManager<StandardJavaFileManager> {
+    private final Map<String, MemorySource> sources = new LinkedHashMap<>();
+    private final Map<String, MemoryClass> classes = new LinkedHashMap<>();
+
+    MemoryJavaFileManager(StandardJavaFileManager fileManager, Map<String, String> sourcesMap) {
+        super(fileManager);
+
+        for (Map.Entry<String, String> se : sourcesMap.entrySet()) {
+            sources.put(se.getKey(), new MemorySource(se.getKey(), se.getValue()));
+        }
+    }
+
+    Collection<? extends JavaFileObject> getSources() {
+        return sources.values();
+    }
+
+    List<JavaFileObject> getSources(Collection<String> classNames) {
+        List<JavaFileObject> sourceObjects = new ArrayList<>(classNames.size());
+        for (String className : classNames) {
+            MemorySource source = sources.get(className);
+            if (source != null) {
+                sourceObjects.add(source);
+            }
+        }
+
+        return sourceObjects;
+    }
+
+    Map<String, byte[]> getClasses() {
+        Map<String, byte[]> classesMap = new LinkedHashMap<>(classes.size());
+        for (Map.Entry<String, MemoryClass> ce : classes.entrySet()) {
+            classesMap.put(ce.getKey(), ce.getValue().getBytes());
+        }
+
+        return classesMap;
+    }
+
+    int writeClasses(File classDir) throws IOException {
+        return writeClasses(classDir, getClasses());
+    }
+
+    static int writeClasses(File classDir, Map<String, byte[]> classes) throws IOException {
+        for (Map.Entry<String, byte[]> ce : classes.entrySet()) {
+            File classFile = new File(classDir, ce.getKey().replace('.', File.separatorChar) + ".class");
+            File parentDir = classFile.getParentFile();
+            if (!parentDir.exists() && !parentDir.mkdirs()) {
+                throw new IOException("Failed to create dir: " + parentDir);
+            }
+            try (OutputStream os = new FileOutputStream(classFile)) {
+                os.write(ce.getValue());
+            }
+        }
+
+        return classes.size();
+    }
+
+    @Override
+    public JavaFileObject getJavaFileForOutput(Location location, String className, JavaFileObject.Kind kind,
+            FileObject sibling) throws IOException {
+        if (location == StandardLocation.CLASS_OUTPUT && kind == JavaFileObject.Kind.CLASS) {
+            MemoryClass classObject = new MemoryClass(className);
+            synchronized (classes) {
+                classes.put(className, classObject);
+            }
+            return classObject;
+        }
+
+        return super.getJavaFileForOutput(location, className, kind, sibling);
+    }
+
+    @Override
+    public boolean hasLocation(Location location) {
+        return location == StandardLocation.SOURCE_PATH || super.hasLocation(location);
+    }
+
+    @Override
+    public Iterable<JavaFileObject> list(Location location, String packageName, Set<JavaFileObject.Kind> kinds,
+            boolean recurse) throws IOException {
+        if (location == StandardLocation.SOURCE_PATH && kinds.contains(JavaFileObject.Kind.SOURCE)) {
+            // Makes generated sources resolvable by other compilation units, e.g. shared state type classes
+            List<JavaFileObject> packageSources = new ArrayList<>();
+            for (MemorySource source : sources.values()) {
+                if (isInPackage(source.className, packageName, recurse)) {
+                    packageSources.add(source);
+                }
+            }
+            return packageSources;
+        }
+
+        return super.list(location, packageName, kinds, recurse);
+    }
+
+    private static boolean isInPackage(String className, String packageName, boolean recurse) {
+        int lastDot = className.lastIndexOf('.');
+        String classPackage = lastDot < 0 ? "" : className.substring(0, lastDot);
+        return classPackage.equals(packageName) || (recurse && classPackage.startsWith(packageName + "."));
+    }
+
+    @Override
+    public String inferBinaryName(Location location, JavaFileObject file) {
+        if (file instanceof MemorySource) {
+            return ((MemorySource) file).className;
+        }
+        if (file instanceof MemoryClass) {
+            return ((MemoryClass) file).className;
+        }
+
+        return super.inferBinaryName(location, file);
+    }
+
+    @Override
+    public boolean isSameFile(FileObject a, FileObject b) {
+        if (a instanceof MemorySource || b instanceof MemorySource || a instanceof MemoryClass
+                || b instanceof MemoryClass) {
+            return a == b;
+        }
+
+        return super.isSameFile(a, b);
+    }
+
+    private static URI toURI(String className, JavaFileObject.Kind kind) {
+        return URI.create("mem:///" + className.replace('.', '/') + kind.extension);
+    }
+
+    static class MemorySource extends SimpleJavaFileObject {
+        final String className;
+        private final String code;
+
+        MemorySource(String className, String code) {
+            super(toURI(className, Kind.SOURCE), Kind.SOURCE);
+
+            this.className = className;
+            this.code = code;
+        }
+
+        @Override
+        public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+            return code;
+        }
+
+        @Override
+        public InputStream openInputStream() {
+            return new ByteArrayInputStream(code.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    static class MemoryClass extends SimpleJavaFileObject {
+        final String className;
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+        MemoryClass(String className) {
+            super(toURI(className, Kind.CLASS), Kind.CLASS);
+
+            this.className = className;
+        }
+
+        @Override
+        public OutputStream openOutputStream() {
+            bytes.reset();
+            return bytes;
+        }
+
+        @Override
+        public InputStream openInputStream() {
+            return new ByteArrayInputStream(bytes.toByteArray());
+        }
+
+        byte[] getBytes() {
+            return bytes.toByteArray();
+        }
+    }
+}
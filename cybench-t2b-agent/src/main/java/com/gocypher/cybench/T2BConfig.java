@@ -0,0 +1,32 @@
+/*
+ * Copyright (C) 2020-2022, K2N.IO.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA
+ *
+ */
+
+package com.gocypher.cybench;
+
+import java.lang.annotation.*;
+
+// Benchmark configuration of translated test class or method, defined as JMH command line options, e.g.
+// @T2BConfig("-bm avgt -tu us -wi 3 -w 200ms -i 5 -r 200ms -f 1"). Supported options: -bm, -tu, -wi, -w, -wbs, -i,
+// -r, -bs, -f, -t, -to. Method configuration overrides class one, and both override benchmarks configuration template.
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ ElementType.TYPE, ElementType.METHOD })
+@Documented
+public @interface T2BConfig {
+    String value();
+}
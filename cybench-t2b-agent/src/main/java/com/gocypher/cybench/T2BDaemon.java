@@ -0,0 +1,293 @@
+/*
+ * Copyright (C) 2020-2022, K2N.IO.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA
+ *
+ */
+
+package com.gocypher.cybench;
+
+import java.io.*;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+
+import com.gocypher.cybench.t2b.utils.LogUtils;
+
+// Keeps translate mode JVM warm (agent patched JMH, loaded javassist/JMH generator classes, JIT compiled code) and
+// serves translation requests over local socket, one request at a time.
+public class T2BDaemon {
+    private static Logger LOGGER = LogUtils.getLogger(T2BDaemon.class);
+
+    static final String IDLE_TIMEOUT_ARG = System.getProperty("t2b.daemon.idle.timeout");
+    private static final long DEFAULT_IDLE_TIMEOUT = TimeUnit.HOURS.toMillis(3);
+    // Connected client must send whole request within this time, so it can't block daemon
+    private static final int REQUEST_READ_TIMEOUT = (int) TimeUnit.SECONDS.toMillis(30);
+    static final String SYS_PROP_SECRET_DIR = "t2b.daemon.secret.dir";
+    private static final String DEFAULT_SECRET_DIR = System.getProperty("user.home") + File.separator + ".t2b";
+
+    static final String CMD_STOP = "stop";
+    static final String RESPONSE_OK = "OK";
+    static final String RESPONSE_FAILED = "FAILED";
+
+    static final String WORK_DIR_KEY = "t2b.build.dir";
+    static final String TEST_DIR_KEY = "t2b.test.dir";
+    static final String BENCH_DIR_KEY = "t2b.bench.dir";
+    static final String MULTI_MODULE_KEY = "t2b.multi.module";
+    static final String PROPS_DIR_KEY = "t2b.props.dir";
+    static final String SECRET_KEY = "t2b.daemon.secret";
+    static final String T2B_PROPS_PREFIX = "t2b.";
+    static final String DAEMON_PROPS_PREFIX = "t2b.daemon.";
+
+    // Request keys passed as translation arguments, other request entries are applied as system properties
+    private static final Set<String> REQUEST_KEYS = new HashSet<>(Arrays.asList( //
+            WORK_DIR_KEY, TEST_DIR_KEY, BENCH_DIR_KEY, MULTI_MODULE_KEY, PROPS_DIR_KEY //
+    ));
+
+    // Client side: sends translation request built from own system properties, or stop command
+    public static void main(String... args) throws Exception {
+        String portArg = System.getProperty("t2b.daemon.port");
+        if (portArg == null || portArg.isEmpty()) {
+            LOGGER.error("Daemon port is not defined, set system property: t2b.daemon.port");
+            System.exit(2);
+        }
+
+        int port = Integer.parseInt(portArg.trim());
+        Map<String, String> request = new LinkedHashMap<>();
+        request.put(SECRET_KEY, readSecret(port));
+        if (args.length > 0 && args[0].equalsIgnoreCase(CMD_STOP)) {
+            request.put(CMD_STOP, "true");
+        } else {
+            Properties sysProps = System.getProperties();
+            for (String key : new TreeSet<>(sysProps.stringPropertyNames())) {
+                if (key.startsWith(T2B_PROPS_PREFIX) && !key.startsWith(DAEMON_PROPS_PREFIX)) {
+                    request.put(key, sysProps.getProperty(key));
+                }
+            }
+            request.put(PROPS_DIR_KEY, System.getProperty(PROPS_DIR_KEY, System.getProperty("user.dir")));
+        }
+
+        String response = send(port, request);
+        LOGGER.info("T2B daemon response: {}", response);
+        System.exit(response != null && response.startsWith(RESPONSE_OK) ? 0 : 1);
+    }
+
+    static String send(int port, Map<String, String> request) throws IOException {
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), port);
+                BufferedReader in = new BufferedReader(
+                        new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+                Writer out = new BufferedWriter(
+                        new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8))) {
+            for (Map.Entry<String, String> re : request.entrySet()) {
+                out.write(re.getKey() + "=" + re.getValue() + "\n");
+            }
+            out.write("\n");
+            out.flush();
+
+            return in.readLine();
+        }
+    }
+
+    // Server side: called from Test2Benchmark app main when t2b.daemon.port is set
+    static void serve(String portArg) throws IOException {
+        long idleTimeout = getIdleTimeout();
+        try (ServerSocket server = new ServerSocket(Integer.parseInt(portArg.trim()), 50,
+                InetAddress.getLoopbackAddress())) {
+            server.setSoTimeout((int) Math.min(idleTimeout, Integer.MAX_VALUE));
+            File secretFile = getSecretFile(server.getLocalPort());
+            String secret = writeSecret(secretFile);
+            LOGGER.info("T2B daemon listening on port {}, idle timeout {} ms", server.getLocalPort(), idleTimeout);
+            try {
+                boolean running = true;
+                while (running) {
+                    Socket socket;
+                    try {
+                        socket = server.accept();
+                    } catch (SocketTimeoutException exc) {
+                        LOGGER.info("T2B daemon was idle for {} ms, stopping...", idleTimeout);
+                        break;
+                    } catch (IOException exc) {
+                        LOGGER.error("Failed to accept T2B daemon request, reason: {}", exc.getLocalizedMessage());
+                        continue;
+                    }
+                    try (Socket client = socket) {
+                        client.setSoTimeout(REQUEST_READ_TIMEOUT);
+                        running = handle(client, secret);
+                    } catch (SocketTimeoutException exc) {
+                        LOGGER.warn("T2B daemon request was not received in {} ms", REQUEST_READ_TIMEOUT);
+                    } catch (IOException exc) {
+                        LOGGER.error("Failed to handle T2B daemon request, reason: {}", exc.getLocalizedMessage());
+                    }
+                }
+            } finally {
+                Files.deleteIfExists(secretFile.toPath());
+            }
+        }
+        LOGGER.info("T2B daemon stopped");
+    }
+
+    private static boolean handle(Socket socket, String secret) throws IOException {
+        BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+        Writer out = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8));
+        Map<String, String> request = readRequest(in);
+        String requestSecret = request.remove(SECRET_KEY);
+        if (requestSecret == null || !MessageDigest.isEqual(secret.getBytes(StandardCharsets.UTF_8),
+                requestSecret.getBytes(StandardCharsets.UTF_8))) {
+            LOGGER.warn("T2B daemon request rejected: invalid secret");
+            respond(out, RESPONSE_FAILED + " invalid secret");
+            return true;
+        }
+        if (request.containsKey(CMD_STOP)) {
+            LOGGER.info("T2B daemon stop requested");
+            respond(out, RESPONSE_OK + " stopping");
+            return false;
+        }
+
+        long start = System.nanoTime();
+        LOGGER.info("T2B daemon translation requested: {}", request);
+        String response;
+        Map<String, String> daemonProps = applyRequestProperties(request);
+        try {
+            Test2Benchmark.translate(request.get(WORK_DIR_KEY), request.get(TEST_DIR_KEY), request.get(BENCH_DIR_KEY),
+                    Boolean.parseBoolean(request.get(MULTI_MODULE_KEY)), request.get(PROPS_DIR_KEY));
+            response = RESPONSE_OK + " " + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + "ms";
+        } catch (Throwable t) {
+            LOGGER.error("Failure occurred while running T2B daemon translation", t);
+            response = RESPONSE_FAILED + " " + t;
+        } finally {
+            restoreProperties(daemonProps);
+        }
+        respond(out, response);
+
+        return true;
+    }
+
+    // Request options override daemon ones for this translation only, returns daemon values to restore
+    private static Map<String, String> applyRequestProperties(Map<String, String> request) {
+        Map<String, String> daemonProps = new HashMap<>();
+        for (Map.Entry<String, String> re : request.entrySet()) {
+            String key = re.getKey();
+            if (key.startsWith(T2B_PROPS_PREFIX) && !key.startsWith(DAEMON_PROPS_PREFIX)
+                    && !REQUEST_KEYS.contains(key)) {
+                daemonProps.put(key, System.setProperty(key, re.getValue()));
+            }
+        }
+
+        return daemonProps;
+    }
+
+    private static void restoreProperties(Map<String, String> props) {
+        for (Map.Entry<String, String> pe : props.entrySet()) {
+            if (pe.getValue() == null) {
+                System.clearProperty(pe.getKey());
+            } else {
+                System.setProperty(pe.getKey(), pe.getValue());
+            }
+        }
+    }
+
+    private static Map<String, String> readRequest(BufferedReader in) throws IOException {
+        Map<String, String> request = new LinkedHashMap<>();
+        String line;
+        while ((line = in.readLine()) != null && !line.isEmpty()) {
+            int idx = line.indexOf('=');
+            if (idx > 0) {
+                request.put(line.substring(0, idx).trim(), line.substring(idx + 1).trim());
+            } else {
+                request.put(line.trim(), "true");
+            }
+        }
+
+        return request;
+    }
+
+    private static void respond(Writer out, String response) throws IOException {
+        out.write(response.replace('\n', ' ') + "\n");
+        out.flush();
+    }
+
+    // Secret file readable by daemon owner only: request is accepted from client able to read it
+    static File getSecretFile(int port) {
+        return new File(System.getProperty(SYS_PROP_SECRET_DIR, DEFAULT_SECRET_DIR), "daemon-" + port + ".secret");
+    }
+
+    private static String writeSecret(File secretFile) throws IOException {
+        byte[] bytes = new byte[32];
+        new SecureRandom().nextBytes(bytes);
+        StringBuilder secret = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            secret.append(String.format("%02x", b));
+        }
+
+        Path dir = secretFile.getParentFile().toPath();
+        Path file = secretFile.toPath();
+        Files.deleteIfExists(file);
+        if (FileSystems.getDefault().supportedFileAttributeViews().contains("posix")) {
+            if (!Files.isDirectory(dir)) {
+                Files.createDirectories(dir,
+                        PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rwx------")));
+            }
+            Files.createFile(file, PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rw-------")));
+        } else {
+            Files.createDirectories(dir);
+            Files.createFile(file);
+            File f = file.toFile();
+            f.setReadable(false, false);
+            f.setWritable(false, false);
+            f.setReadable(true, true);
+            f.setWritable(true, true);
+        }
+        Files.write(file, secret.toString().getBytes(StandardCharsets.UTF_8));
+        LOGGER.info("T2B daemon secret written to: {}", secretFile);
+
+        return secret.toString();
+    }
+
+    private static String readSecret(int port) throws IOException {
+        File secretFile = getSecretFile(port);
+        if (!secretFile.isFile()) {
+            throw new FileNotFoundException("T2B daemon secret file not found: " + secretFile
+                    + ", check daemon is running on port " + port);
+        }
+        return new String(Files.readAllBytes(secretFile.toPath()), StandardCharsets.UTF_8).trim();
+    }
+
+    private static long getIdleTimeout() {
+        if (IDLE_TIMEOUT_ARG == null || IDLE_TIMEOUT_ARG.isEmpty()) {
+            return DEFAULT_IDLE_TIMEOUT;
+        }
+        try {
+            long minutes = Long.parseLong(IDLE_TIMEOUT_ARG.trim());
+            // 0 stands for no timeout
+            return minutes <= 0 ? 0 : TimeUnit.MINUTES.toMillis(minutes);
+        } catch (NumberFormatException exc) {
+            LOGGER.warn("Invalid daemon idle timeout (minutes): {}, will use {} ms", IDLE_TIMEOUT_ARG,
+                    DEFAULT_IDLE_TIMEOUT);
+            return DEFAULT_IDLE_TIMEOUT;
+        }
+    }
+}
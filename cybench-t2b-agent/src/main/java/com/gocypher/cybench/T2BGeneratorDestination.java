@@ -0,0 +1,94 @@
+/*
+ * Copyright (C) 2020-2022, K2N.IO.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA
+ *
+ */
+
+package com.gocypher.cybench;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.openjdk.jmh.generators.core.FileSystemDestination;
+
+public class T2BGeneratorDestination extends FileSystemDestination {
+    private final File sourceDir;
+    // generated class name -> originating (user benchmark) class name
+    private final Map<String, String> generatedClasses = new LinkedHashMap<>();
+    private final boolean inMemorySources;
+    private final Map<String, StringWriter> sources = new LinkedHashMap<>();
+
+    public T2BGeneratorDestination(File resourceDir, File sourceDir) {
+        this(resourceDir, sourceDir, false);
+    }
+
+    public T2BGeneratorDestination(File resourceDir, File sourceDir, boolean inMemorySources) {
+        super(resourceDir, sourceDir);
+
+        this.sourceDir = sourceDir;
+        this.inMemorySources = inMemorySources;
+    }
+
+    @Override
+    public Writer newClass(String className, String originatingClassName) throws IOException {
+        synchronized (generatedClasses) {
+            generatedClasses.put(className, originatingClassName);
+        }
+        if (inMemorySources) {
+            StringWriter sourceWriter = new StringWriter();
+            synchronized (sources) {
+                sources.put(className, sourceWriter);
+            }
+            return sourceWriter;
+        }
+        return super.newClass(className, originatingClassName);
+    }
+
+    public boolean isInMemorySources() {
+        return inMemorySources;
+    }
+
+    // generated class name -> class source code
+    public Map<String, String> getSources() {
+        Map<String, String> sourcesMap = new LinkedHashMap<>(sources.size());
+        for (Map.Entry<String, StringWriter> se : sources.entrySet()) {
+            sourcesMap.put(se.getKey(), se.getValue().toString());
+        }
+
+        return sourcesMap;
+    }
+
+    public Map<String, String> getGeneratedClasses() {
+        return generatedClasses;
+    }
+
+    public Collection<String> getOriginatingClasses() {
+        return generatedClasses.values();
+    }
+
+    public File getSourceFile(String className) {
+        return new File(sourceDir, className.replace('.', File.separatorChar) + ".java");
+    }
+
+    public boolean hasGeneratedClasses() {
+        return !generatedClasses.isEmpty();
+    }
+}
@@ -23,10 +23,12 @@ import java.lang.annotation.Annotation;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
 
+import org.openjdk.jmh.annotations.Level;
 import org.openjdk.jmh.generators.core.ClassInfo;
 import org.openjdk.jmh.generators.core.MethodInfo;
 
 import com.gocypher.cybench.t2b.transform.AbstractClassTransformer;
+import com.gocypher.cybench.t2b.transform.FixtureLevels;
 
 public abstract class T2BMapper {
 
@@ -68,6 +70,15 @@ public abstract class T2BMapper {
 
     public abstract Class<? extends Annotation> getTearDownAnnotation();
 
+    // Class level fixture annotations (e.g. @BeforeClass), null if test framework has none
+    public Class<? extends Annotation> getClassSetupAnnotation() {
+        return null;
+    }
+
+    public Class<? extends Annotation> getClassTearDownAnnotation() {
+        return null;
+    }
+
     public MethodState isValid(MethodInfo mi) {
         Annotation ann = mi.getAnnotation(annotation);
         if (ann != null) {
@@ -154,7 +165,44 @@ public abstract class T2BMapper {
         return getTearDownAnnotation().equals(ann.getClass());
     }
 
+    public boolean isClassSetupMethod(MethodInfo mi) {
+        return getClassSetupAnnotation() != null && mi.getAnnotation(getClassSetupAnnotation()) != null;
+    }
+
+    public boolean isClassTearDownMethod(MethodInfo mi) {
+        return getClassTearDownAnnotation() != null && mi.getAnnotation(getClassTearDownAnnotation()) != null;
+    }
+
+    // Parameterized test method gets benchmark per argument set, resolved over TestArguments
+    public boolean isParameterized(MethodInfo mi) {
+        return false;
+    }
+
+    // Test factory method gets benchmark per dynamic test it makes, resolved over DynamicTests
+    public boolean isTestFactory(MethodInfo mi) {
+        return false;
+    }
+
+    // JMH command line options test annotation implies for benchmark (e.g. repetitions count as batch size), or null
+    public String getBenchmarkOptions(MethodInfo mi) {
+        return null;
+    }
+
+    public String getBenchmarkOptions(Method mi) {
+        return null;
+    }
+
+    // Class level fixtures run once per trial, per test fixtures run at configured level (invocation by default), so
+    // every benchmark invocation gets fixture state test expects
+    public Level getFixtureLevel(MethodInfo mi) {
+        if (isClassSetupMethod(mi) || isClassTearDownMethod(mi)) {
+            return Level.Trial;
+        }
+
+        return FixtureLevels.getInstance().getLevel(mi.getDeclaringClass().getQualifiedName(), mi.getName());
+    }
+
     public enum MethodState {
-        VALID, NOT_TEST, DISABLED, EXCEPTION_EXPECTED, VISIBILITY
+        VALID, NOT_TEST, DISABLED, EXCEPTION_EXPECTED, VISIBILITY, FILTERED
     }
 }
@@ -0,0 +1,235 @@
+/*
+ * Copyright (C) 2020-2022, K2N.IO.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA
+ *
+ */
+
+package com.gocypher.cybench;
+
+import java.io.File;
+import java.lang.reflect.Field;
+import java.util.*;
+
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.BenchmarkList;
+import org.openjdk.jmh.runner.CompilerHints;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.slf4j.Logger;
+
+import com.gocypher.cybench.t2b.stats.TranslationStats;
+import com.gocypher.cybench.t2b.utils.LogUtils;
+
+// Embedded API: translates tests and runs produced benchmarks within calling JVM, without shell hand-off over
+// `.benchRunProps` file. Benchmark list, compiler hints and class path are handed to JMH runner directly, while
+// benchmarks themselves run in forked VMs (forks = 0 needs translated classes on application class path).
+public class T2BSession {
+    private static Logger LOGGER = LogUtils.getLogger(T2BSession.class);
+
+    private static final String COMPILE_MODE_PROP = "t2b.compile.mode";
+    // Translation and run change JVM wide state (system properties, static JMH fields), so all sessions take turns
+    private static final Object JVM_STATE_LOCK = new Object();
+
+    private static final Field RUNNER_LIST;
+    private static final Field HINTS_DEFAULT_LIST;
+    private static final Field HINTS_FILE;
+
+    static {
+        Field runnerList = null;
+        Field hintsDefaultList = null;
+        Field hintsFile = null;
+        try {
+            runnerList = Runner.class.getDeclaredField("list");
+            runnerList.setAccessible(true);
+            hintsDefaultList = CompilerHints.class.getDeclaredField("defaultList");
+            hintsDefaultList.setAccessible(true);
+            hintsFile = CompilerHints.class.getDeclaredField("hintsFile");
+            hintsFile.setAccessible(true);
+        } catch (Exception exc) {
+            LOGGER.warn("Incompatible JMH version, benchmarks will be resolved from class path, reason: {}",
+                    exc.getLocalizedMessage());
+            runnerList = null;
+        }
+        RUNNER_LIST = runnerList;
+        HINTS_DEFAULT_LIST = hintsDefaultList;
+        HINTS_FILE = hintsFile;
+    }
+
+    private final String workDir;
+    private final String testDir;
+    private final String benchDir;
+    private final boolean multiModule;
+
+    private String runBenchDir;
+    private String runClassPath;
+    private String runJvmArgs;
+    private TranslationStats globalStats;
+    private List<TranslationStats> moduleStats = Collections.emptyList();
+
+    public T2BSession(String workDir) {
+        this(workDir, null, null, false);
+    }
+
+    public T2BSession(String workDir, String testDir, String benchDir, boolean multiModule) {
+        this.workDir = workDir;
+        this.testDir = testDir;
+        this.benchDir = benchDir;
+        this.multiModule = multiModule;
+    }
+
+    public T2BSession translate() throws Exception {
+        synchronized (JVM_STATE_LOCK) {
+            return translateLocked();
+        }
+    }
+
+    private T2BSession translateLocked() throws Exception {
+        // Generated sources are not needed after translation, so compile them in memory unless configured otherwise
+        String compileMode = System.getProperty(COMPILE_MODE_PROP);
+        if (compileMode == null) {
+            System.setProperty(COMPILE_MODE_PROP, CompileProcess.COMPILE_MODE_MEMORY);
+        }
+        runBenchDir = null;
+        try {
+            Test2Benchmark.translate(workDir, testDir, benchDir, multiModule, new Test2Benchmark.TranslationSink() {
+                @Override
+                public void runConfig(String benchDir, String classPath, String jvmArgs) {
+                    runBenchDir = benchDir;
+                    runClassPath = classPath;
+                    runJvmArgs = jvmArgs;
+                }
+
+                @Override
+                public void stats(TranslationStats globalStats, List<TranslationStats> moduleStats) {
+                    T2BSession.this.globalStats = globalStats;
+                    T2BSession.this.moduleStats = moduleStats;
+                }
+            });
+        } finally {
+            if (compileMode == null) {
+                System.clearProperty(COMPILE_MODE_PROP);
+            }
+        }
+        if (runBenchDir == null) {
+            throw new IllegalStateException("No benchmarks translated from: " + workDir);
+        }
+
+        return this;
+    }
+
+    public String getBenchDir() {
+        return runBenchDir;
+    }
+
+    public String getClassPath() {
+        return runClassPath;
+    }
+
+    public String getJvmArgs() {
+        return runJvmArgs;
+    }
+
+    public TranslationStats getStats() {
+        return globalStats;
+    }
+
+    public List<TranslationStats> getModuleStats() {
+        return moduleStats;
+    }
+
+    public BenchmarkList getBenchmarkList() {
+        checkTranslated();
+        return BenchmarkList.fromFile(runBenchDir + "/META-INF/BenchmarkList");
+    }
+
+    public CompilerHints getCompilerHints() {
+        checkTranslated();
+        return CompilerHints.fromFile(runBenchDir + "/META-INF/CompilerHints");
+    }
+
+    public Collection<RunResult> run(String... jmhArgs) throws CommandLineOptionException, RunnerException {
+        return run(new CommandLineOptions(jmhArgs));
+    }
+
+    public Collection<RunResult> run(Options options) throws RunnerException {
+        synchronized (JVM_STATE_LOCK) {
+            return runLocked(options);
+        }
+    }
+
+    private Collection<RunResult> runLocked(Options options) throws RunnerException {
+        checkTranslated();
+        Options runOptions = getRunOptions(options);
+        if (runOptions.getForkCount().orElse(1) == 0) {
+            LOGGER.warn("Benchmarks run in calling VM (forks = 0), translated classes must be on its class path");
+        }
+
+        // JMH forked VMs get class path of calling VM, so prepend translated benchmarks class path to it
+        String prevClassPath = System.getProperty("java.class.path");
+        Object prevHints = null;
+        Object prevHintsFile = null;
+        try {
+            System.setProperty("java.class.path", prevClassPath == null || prevClassPath.isEmpty() ? runClassPath
+                    : runClassPath + File.pathSeparator + prevClassPath);
+            Runner runner = new Runner(runOptions);
+            if (RUNNER_LIST != null) {
+                RUNNER_LIST.set(runner, getBenchmarkList());
+                prevHints = HINTS_DEFAULT_LIST.get(null);
+                prevHintsFile = HINTS_FILE.get(null);
+                HINTS_DEFAULT_LIST.set(null, getCompilerHints());
+                HINTS_FILE.set(null, null);
+            }
+            return runner.run();
+        } catch (IllegalAccessException exc) {
+            throw new RunnerException("Failed to hand translated benchmarks to JMH runner", exc);
+        } finally {
+            System.setProperty("java.class.path", prevClassPath == null ? "" : prevClassPath);
+            if (RUNNER_LIST != null) {
+                try {
+                    HINTS_DEFAULT_LIST.set(null, prevHints);
+                    HINTS_FILE.set(null, prevHintsFile);
+                } catch (IllegalAccessException exc) {
+                    LOGGER.warn("Failed to restore JMH compiler hints, reason: {}", exc.getLocalizedMessage());
+                }
+            }
+        }
+    }
+
+    public Collection<RunResult> translateAndRun(Options options) throws Exception {
+        return translate().run(options);
+    }
+
+    private Options getRunOptions(Options options) {
+        if (runJvmArgs == null || runJvmArgs.isEmpty()) {
+            return options;
+        }
+        // Builder option overrides parent one, so keep JVM args appended by caller
+        List<String> jvmArgsAppend = new ArrayList<>(options.getJvmArgsAppend().orElse(Collections.emptyList()));
+        jvmArgsAppend.add(runJvmArgs);
+
+        return new OptionsBuilder().parent(options).jvmArgsAppend(jvmArgsAppend.toArray(new String[0])).build();
+    }
+
+    private void checkTranslated() {
+        if (runBenchDir == null) {
+            throw new IllegalStateException("Benchmarks are not translated yet, call translate() first");
+        }
+    }
+}
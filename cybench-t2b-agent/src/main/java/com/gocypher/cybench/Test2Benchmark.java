@@ -19,38 +19,59 @@
 
 package com.gocypher.cybench;
 
-import java.io.File;
-import java.io.FileWriter;
-import java.io.IOException;
+import java.io.*;
 import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystem;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.util.ArrayList;
-import java.util.Collection;
-import java.util.Comparator;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.concurrent.*;
 
 import org.openjdk.jmh.generators.core.*;
 import org.openjdk.jmh.generators.reflection.T2BClassInfo;
 import org.openjdk.jmh.runner.BenchmarkList;
+import org.openjdk.jmh.runner.BenchmarkListEntry;
 import org.openjdk.jmh.runner.CompilerHints;
 import org.openjdk.jmh.util.HashMultimap;
 import org.openjdk.jmh.util.Multimap;
 import org.slf4j.Logger;
 
+import com.gocypher.cybench.t2b.discovery.ImpactAnalyzer;
+import com.gocypher.cybench.t2b.discovery.TestClassIndex;
+import com.gocypher.cybench.t2b.discovery.TestFilter;
+import com.gocypher.cybench.t2b.incremental.TranslationManifest;
+import com.gocypher.cybench.t2b.packaging.BenchmarkJarPackager;
+import com.gocypher.cybench.t2b.packaging.SharedArchiveBuilder;
+import com.gocypher.cybench.t2b.stats.TranslationStats;
+import com.gocypher.cybench.t2b.transform.BenchmarkConfig;
+import com.gocypher.cybench.t2b.transform.FixtureLevels;
 import com.gocypher.cybench.t2b.transform.TestClassTransformer;
+import com.gocypher.cybench.t2b.transform.metadata.BenchmarkMetadata;
 import com.gocypher.cybench.t2b.utils.LogUtils;
 import com.gocypher.cybench.t2b.utils.T2BUtils;
 
+import javassist.ClassPool;
+import javassist.LoaderClassPath;
+
 public class Test2Benchmark {
     private static Logger LOGGER = LogUtils.getLogger(Test2Benchmark.class);
 
     static final String WORK_DIR_ARG = System.getProperty("t2b.build.dir");
     static final String TEST_DIR_ARG = System.getProperty("t2b.test.dir");
     static final String BENCH_DIR_ARG = System.getProperty("t2b.bench.dir");
-
-    static String WORK_DIR;
-    static String TEST_DIR;
-    static String BENCH_DIR;
+    static final boolean MULTI_MODULE = Boolean.getBoolean("t2b.multi.module");
+    // Read on every translation, since daemon requests can define own values
+    static final String SYS_PROP_TRANSLATE_THREADS = "t2b.translate.threads";
+    static final String SYS_PROP_INCREMENTAL = "t2b.incremental";
+    static final String SYS_PROP_MODULE_THREADS = "t2b.module.threads";
+    // Main classes dirs or archives of explicitly defined test classes, used by change impact analysis
+    static final String SYS_PROP_MAIN_DIR = "t2b.main.dir";
+    static final String DAEMON_PORT_ARG = System.getProperty("t2b.daemon.port");
 
     public static T2BMapper JUNIT4_MAPPER = new T2BMapper(org.junit.Test.class, org.junit.Ignore.class) {
 
@@ -72,23 +93,50 @@ public class Test2Benchmark {
         public Class<? extends Annotation> getTearDownAnnotation() {
             return org.junit.After.class;
         }
+
+        @Override
+        public Class<? extends Annotation> getClassSetupAnnotation() {
+            return org.junit.BeforeClass.class;
+        }
+
+        @Override
+        public Class<? extends Annotation> getClassTearDownAnnotation() {
+            return org.junit.AfterClass.class;
+        }
     };
-    public static T2BMapper JUNIT5_MAPPER = new T2BMapper(org.junit.jupiter.api.Test.class,
-            org.junit.jupiter.api.Disabled.class) {
+    public static T2BMapper JUNIT5_MAPPER = new JUnit5Mapper(org.junit.jupiter.api.Test.class);
+    public static T2BMapper JUNIT5_PARAMETERIZED_MAPPER = new JUnit5Mapper(
+            org.junit.jupiter.params.ParameterizedTest.class) {
 
         @Override
-        public MethodState isAnnotationSkippable(Annotation ann) {
-            return MethodState.VALID;
+        public boolean isParameterized(MethodInfo mi) {
+            return true;
         }
+    };
+    public static T2BMapper JUNIT5_REPEATED_MAPPER = new JUnit5Mapper(org.junit.jupiter.api.RepeatedTest.class) {
 
+        // Every repetition is single benchmark call: repetitions make batch of single shot benchmark operation, JMH
+        // applies batch size in single shot mode only
         @Override
-        public Class<? extends Annotation> getSetupAnnotation() {
-            return org.junit.jupiter.api.BeforeEach.class;
+        public String getBenchmarkOptions(MethodInfo mi) {
+            return getRepetitionOptions(mi.getAnnotation(org.junit.jupiter.api.RepeatedTest.class));
         }
 
         @Override
-        public Class<? extends Annotation> getTearDownAnnotation() {
-            return org.junit.jupiter.api.AfterEach.class;
+        public String getBenchmarkOptions(Method mi) {
+            return getRepetitionOptions(mi.getAnnotation(org.junit.jupiter.api.RepeatedTest.class));
+        }
+
+        private String getRepetitionOptions(org.junit.jupiter.api.RepeatedTest rAnn) {
+            return rAnn == null || rAnn.value() <= 1 ? null
+                    : "-bm ss -wbs " + rAnn.value() + " -bs " + rAnn.value();
+        }
+    };
+    public static T2BMapper JUNIT5_FACTORY_MAPPER = new JUnit5Mapper(org.junit.jupiter.api.TestFactory.class) {
+
+        @Override
+        public boolean isTestFactory(MethodInfo mi) {
+            return true;
         }
     };
     public static T2BMapper TESTNG_MAPPER = new T2BMapper(org.testng.annotations.Test.class,
@@ -116,28 +164,180 @@ public class Test2Benchmark {
         public Class<? extends Annotation> getTearDownAnnotation() {
             return org.testng.annotations.AfterMethod.class;
         }
+
+        @Override
+        public Class<? extends Annotation> getClassSetupAnnotation() {
+            return org.testng.annotations.BeforeClass.class;
+        }
+
+        @Override
+        public Class<? extends Annotation> getClassTearDownAnnotation() {
+            return org.testng.annotations.AfterClass.class;
+        }
+
+        @Override
+        public boolean isParameterized(MethodInfo mi) {
+            org.testng.annotations.Test tAnn = mi.getAnnotation(org.testng.annotations.Test.class);
+            return tAnn != null && !tAnn.dataProvider().isEmpty();
+        }
+
+        @Override
+        public String getBenchmarkOptions(MethodInfo mi) {
+            return getConcurrencyOptions(mi.getAnnotation(org.testng.annotations.Test.class));
+        }
+
+        @Override
+        public String getBenchmarkOptions(Method mi) {
+            return getConcurrencyOptions(mi.getAnnotation(org.testng.annotations.Test.class));
+        }
+
+        // Test invocations are shared by thread pool: every benchmark thread makes its part of invocations per
+        // single shot operation, and every single invocation has test timeout to complete
+        private String getConcurrencyOptions(org.testng.annotations.Test tAnn) {
+            if (tAnn == null) {
+                return null;
+            }
+            int threads = Math.max(1, Math.min(tAnn.threadPoolSize(), tAnn.invocationCount()));
+            int batchSize = Math.max(1, (tAnn.invocationCount() + threads - 1) / threads);
+
+            StringBuilder sb = new StringBuilder();
+            if (threads > 1) {
+                sb.append(" -t ").append(threads);
+            }
+            if (batchSize > 1) {
+                sb.append(" -bm ss -wbs ").append(batchSize).append(" -bs ").append(batchSize);
+            }
+            if (tAnn.timeOut() > 0) {
+                sb.append(" -to ").append(tAnn.timeOut() * batchSize).append("ms");
+            }
+
+            return sb.length() == 0 ? null : sb.substring(1);
+        }
     };
 
     public static final T2BMapper[] T2B_MAPPERS = new T2BMapper[] { //
             JUNIT4_MAPPER //
             , JUNIT5_MAPPER //
+            , JUNIT5_PARAMETERIZED_MAPPER //
+            , JUNIT5_REPEATED_MAPPER //
+            , JUNIT5_FACTORY_MAPPER //
             , TESTNG_MAPPER //
     };
 
-    static Collection<String> t2bClassPath = new ArrayList<>(3);
+    // JUnit5 test annotations share fixture annotations and have no skipping members
+    static class JUnit5Mapper extends T2BMapper {
+
+        JUnit5Mapper(Class<? extends Annotation> annotation) {
+            super(annotation, org.junit.jupiter.api.Disabled.class);
+        }
+
+        @Override
+        public MethodState isAnnotationSkippable(Annotation ann) {
+            return MethodState.VALID;
+        }
+
+        @Override
+        public Class<? extends Annotation> getSetupAnnotation() {
+            return org.junit.jupiter.api.BeforeEach.class;
+        }
+
+        @Override
+        public Class<? extends Annotation> getTearDownAnnotation() {
+            return org.junit.jupiter.api.AfterEach.class;
+        }
+
+        @Override
+        public Class<? extends Annotation> getClassSetupAnnotation() {
+            return org.junit.jupiter.api.BeforeAll.class;
+        }
+
+        @Override
+        public Class<? extends Annotation> getClassTearDownAnnotation() {
+            return org.junit.jupiter.api.AfterAll.class;
+        }
+    }
+
+    // Translation running on current thread: static entry points called by patched JMH code resolve it
+    private static final ThreadLocal<Test2Benchmark> CURRENT = new ThreadLocal<>();
+    private static Test2Benchmark primary;
+    private static String configHash;
+    // Daemon keeps JMH code patched between translations, patched methods fall through to JMH when not translating
+    private static volatile boolean keepJMHCode;
+    // main classes dirs of all modules, shared by isolated module class loaders
+    private static final Collection<String> sharedClassPath = new LinkedHashSet<>();
+
+    String workDir;
+    String testDir;
+    // test classes dirs and archives
+    final List<File> testPaths = new ArrayList<>();
+    String benchDir;
+    final Collection<String> t2bClassPath = new LinkedHashSet<>(3);
+    private final List<File> mainClassDirs = new ArrayList<>(1);
+    // Module translation uses own class loader instead of adding its entries to application class path
+    private final boolean isolated;
+    private ClassLoader classLoader;
+    private ClassPool classPool;
+    private final ThreadLocal<ClassPool> workerPools = ThreadLocal.withInitial(this::newClassPool);
+    private final Object storeLock = new Object();
+    private boolean generating;
+
     // The code to inject into the JMH methods - call ME and then return MY replacements
-    private static T2BGeneratorSource t2bGeneratorSource;
+    private T2BGeneratorSource t2bGeneratorSource;
+    private T2BGeneratorDestination t2bDestination;
     Collection<ClassInfo> benchmarkClassList;
 
+    private TranslationManifest manifest;
+    private final Map<String, String> changedClassHashes = new LinkedHashMap<>();
+    private final Set<String> staleUserClasses = new HashSet<>();
+    private final List<FileSystem> testArchives = new ArrayList<>();
+    private final TranslationStats stats;
+
     Test2Benchmark() throws IOException {
-        WORK_DIR = initWorkDir();
-        TEST_DIR = initTestDir();
-        BENCH_DIR = initBenchDir();
+        this(WORK_DIR_ARG, TEST_DIR_ARG, BENCH_DIR_ARG, false);
     }
 
-    private String initWorkDir() throws IOException {
+    Test2Benchmark(String workDirArg, String testDirArg, String benchDirArg, boolean isolated) throws IOException {
+        this.isolated = isolated;
+        initConfigHash();
+        workDir = initWorkDir(workDirArg);
+        stats = new TranslationStats(workDir);
+        stats.start(TranslationStats.PHASE_PREPARE);
+        try {
+            testDir = initTestDir(testDirArg);
+            benchDir = initBenchDir(benchDirArg);
+        } finally {
+            stats.end(TranslationStats.PHASE_PREPARE);
+        }
+        if (!isolated) {
+            classLoader = Test2Benchmark.class.getClassLoader();
+            classPool = ClassPool.getDefault();
+        }
+    }
+
+    private static synchronized void initConfigHash() {
+        if (configHash == null) {
+            configHash = TranslationManifest
+                    .computeConfigHash(Test2Benchmark.class.getPackage().getImplementationVersion());
+        }
+    }
+
+    // Daemon serves many translations: configuration files and request properties may change between them
+    private static synchronized void reloadConfig() {
+        configHash = TranslationManifest
+                .computeConfigHash(Test2Benchmark.class.getPackage().getImplementationVersion());
+        TestFilter.reload();
+        FixtureLevels.reload();
+        BenchmarkConfig.reload();
+        BenchmarkMetadata.reload();
+    }
+
+    private static boolean isIncremental() {
+        return Boolean.getBoolean(SYS_PROP_INCREMENTAL);
+    }
+
+    private static String initWorkDir(String workDirArg) throws IOException {
         String workDirPath;
-        if (WORK_DIR_ARG == null || WORK_DIR_ARG.isEmpty()) {
+        if (workDirArg == null || workDirArg.isEmpty()) {
             String udProp = System.getProperty("user.dir");
             if (udProp == null || udProp.isEmpty()) {
                 workDirPath = ".";
@@ -145,7 +345,7 @@ public class Test2Benchmark {
                 workDirPath = udProp;
             }
         } else {
-            workDirPath = WORK_DIR_ARG;
+            workDirPath = workDirArg;
         }
         File workDir = new File(workDirPath);
         workDirPath = workDir.getCanonicalPath();
@@ -154,59 +354,87 @@ public class Test2Benchmark {
         return workDirPath;
     }
 
-    private String initTestDir() throws IOException {
+    private String initTestDir(String testDirArg) throws IOException {
         String testDirPath;
-        if (TEST_DIR_ARG == null || TEST_DIR_ARG.isEmpty()) {
+        if (testDirArg == null || testDirArg.isEmpty()) {
             // Maven layout
-            File testDirMvn = new File(WORK_DIR + "/test-classes");
+            File testDirMvn = new File(workDir + "/test-classes");
             if (testDirMvn.exists()) {
                 testDirPath = testDirMvn.getAbsolutePath();
-                addClassPath(new File(WORK_DIR + "/classes"));
+                addMainClassPath(new File(workDir + "/classes"));
             } else {
                 // Gradle layout
-                File testDirGrd = new File(WORK_DIR + "/classes/java/test");
+                File testDirGrd = new File(workDir + "/classes/java/test");
                 if (testDirGrd.exists()) {
                     testDirPath = testDirGrd.getAbsolutePath();
-                    addClassPath(new File(WORK_DIR + "/classes/java/main"));
+                    addMainClassPath(new File(workDir + "/classes/java/main"));
                 } else {
                     // Use build dir
-                    testDirPath = WORK_DIR;
+                    testDirPath = workDir;
+                    initMainDirs();
                 }
             }
         } else {
-            testDirPath = TEST_DIR_ARG;
+            testDirPath = null;
+            for (String testPath : testDirArg.split(File.pathSeparator)) {
+                if (testPath.trim().isEmpty()) {
+                    continue;
+                }
+                File testFile = new File(testPath.trim()).getCanonicalFile();
+                LOGGER.info("*** Setting Test Classes {} to use: {}",
+                        T2BUtils.isArchive(testFile) ? "archive" : "dir", testFile);
+                addClassPath(testFile);
+                testPaths.add(testFile);
+                if (testDirPath == null) {
+                    testDirPath = testFile.getPath();
+                }
+            }
+            initMainDirs();
+
+            return testDirPath == null ? workDir : testDirPath;
         }
 
         File testDir = new File(testDirPath);
         testDirPath = testDir.getCanonicalPath();
         LOGGER.info("*** Setting Test Classes dir to use: {}", testDirPath);
         addClassPath(testDir.getCanonicalFile());
+        testPaths.add(testDir.getCanonicalFile());
 
         return testDirPath;
     }
 
-    private String initBenchDir() throws IOException {
+    private String initBenchDir(String benchDirArg) throws IOException {
         String benchDirPath;
-        if (BENCH_DIR_ARG == null || BENCH_DIR_ARG.isEmpty()) {
-            if (WORK_DIR.equals(TEST_DIR)) {
-                benchDirPath = TEST_DIR + "/t2b";
+        if (benchDirArg == null || benchDirArg.isEmpty()) {
+            if (workDir.equals(testDir)) {
+                benchDirPath = testDir + "/t2b";
+            } else if (T2BUtils.isArchive(new File(testDir))) {
+                benchDirPath = workDir + "/t2b";
             } else {
-                benchDirPath = TEST_DIR + "/../t2b";
+                benchDirPath = testDir + "/../t2b";
             }
         } else {
-            benchDirPath = BENCH_DIR_ARG;
+            benchDirPath = benchDirArg;
         }
         File benchDir = new File(benchDirPath);
         benchDirPath = benchDir.getCanonicalPath();
         LOGGER.info("*** Setting Benchmarks dir to use: {}", benchDirPath);
         if (benchDir.exists()) {
-            try {
-                LOGGER.info("*** Removing existing benchmarks dir: {}", benchDirPath);
-                Files.walk(benchDir.toPath()).sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
-            } catch (Exception exc) {
-                LOGGER.error("Failed to delete benchmarks dir, reason: {}", exc.getLocalizedMessage());
+            if (isIncremental() && TranslationManifest.isReusable(benchDir, configHash)) {
+                LOGGER.info("*** Reusing existing benchmarks dir for incremental translation: {}", benchDirPath);
+            } else {
+                try {
+                    LOGGER.info("*** Removing existing benchmarks dir: {}", benchDirPath);
+                    Files.walk(benchDir.toPath()).sorted(Comparator.reverseOrder()).map(Path::toFile)
+                            .forEach(File::delete);
+                } catch (Exception exc) {
+                    LOGGER.error("Failed to delete benchmarks dir, reason: {}", exc.getLocalizedMessage());
+                }
             }
         }
+        if (isIncremental()) {
+            manifest = TranslationManifest.load(benchDir);
+        }
         addClassPath(benchDir.getCanonicalFile());
 
         return benchDirPath;
@@ -215,16 +443,45 @@ public class Test2Benchmark {
     public static void main(String... args) throws Exception {
         LOGGER.info("Starting Test2Benchmark transformer app...");
         try {
-            Test2Benchmark test2Benchmark = new Test2Benchmark();
-            test2Benchmark.buildBenchmarks();
+            if (DAEMON_PORT_ARG != null && !DAEMON_PORT_ARG.isEmpty()) {
+                keepJMHCode = true;
+                T2BDaemon.serve(DAEMON_PORT_ARG);
+            } else if (MULTI_MODULE) {
+                buildModulesBenchmarks(WORK_DIR_ARG, BENCH_DIR_ARG, fileSink(null));
+            } else {
+                Test2Benchmark test2Benchmark = new Test2Benchmark();
+                test2Benchmark.buildBenchmarks();
+            }
         } catch (Throwable t) {
             LOGGER.error("Failure occurred while running Test2Benchmark transformer app", t);
         }
     }
 
-    private static void addClassPath(File classDir) {
+    private void initMainDirs() throws IOException {
+        String mainDirArg = System.getProperty(SYS_PROP_MAIN_DIR);
+        if (mainDirArg == null || mainDirArg.isEmpty()) {
+            return;
+        }
+        for (String mainPath : mainDirArg.split(File.pathSeparator)) {
+            if (!mainPath.trim().isEmpty()) {
+                File mainFile = new File(mainPath.trim()).getCanonicalFile();
+                LOGGER.info("*** Setting Main Classes {} to use: {}",
+                        T2BUtils.isArchive(mainFile) ? "archive" : "dir", mainFile);
+                addMainClassPath(mainFile);
+            }
+        }
+    }
+
+    private void addMainClassPath(File classDir) {
+        mainClassDirs.add(classDir);
+        addClassPath(classDir);
+    }
+
+    private void addClassPath(File classDir) {
         try {
-            T2BUtils.addClassPath(classDir);
+            if (!isolated) {
+                T2BUtils.addClassPath(classDir);
+            }
             t2bClassPath.add(classDir.getCanonicalPath());
         } catch (Exception exc) {
             LOGGER.error("Failed to add classpath entry: {}, reason: {}", classDir.getAbsolutePath(),
@@ -232,30 +489,384 @@ public class Test2Benchmark {
         }
     }
 
+    private void initClassLoader(ClassLoader parent) throws IOException {
+        List<URL> urls = new ArrayList<>(t2bClassPath.size());
+        for (String cpEntry : t2bClassPath) {
+            urls.add(new File(cpEntry).toURI().toURL());
+        }
+        classLoader = new URLClassLoader(urls.toArray(new URL[0]), parent);
+        classPool = newClassPool();
+    }
+
+    private ClassPool newClassPool() {
+        ClassPool pool = new ClassPool(true);
+        if (isolated) {
+            pool.insertClassPath(new LoaderClassPath(classLoader));
+        }
+        return pool;
+    }
+
+    static Test2Benchmark current() {
+        Test2Benchmark t2b = CURRENT.get();
+        return t2b == null ? primary : t2b;
+    }
+
+    // Translation requested by daemon: always isolated, since test classes may change between requests
+    static void translate(String workDirArg, String testDirArg, String benchDirArg, boolean multiModule,
+            String propsDir) throws Exception {
+        translate(workDirArg, testDirArg, benchDirArg, multiModule, fileSink(propsDir));
+    }
+
+    // Translation requested by daemon or embedded session, outcome is passed to sink
+    static void translate(String workDirArg, String testDirArg, String benchDirArg, boolean multiModule,
+            TranslationSink sink) throws Exception {
+        reloadConfig();
+        if (multiModule) {
+            buildModulesBenchmarks(workDirArg, benchDirArg, sink);
+            return;
+        }
+
+        sharedClassPath.clear();
+        TranslationStats globalStats = new TranslationStats(null);
+        Test2Benchmark t2b = new Test2Benchmark(workDirArg, testDirArg, benchDirArg, true);
+        t2b.initClassLoader(Test2Benchmark.class.getClassLoader());
+        try {
+            t2b.runInContext(Test2Benchmark::generateBenchmarkList);
+            globalStats.measure(TranslationStats.PHASE_RESTORE, Test2Benchmark::restoreJMHCode);
+            t2b.runInContext(Test2Benchmark::compileBenchmarks);
+            completeTranslation(globalStats, Collections.singletonList(t2b.stats), t2b.benchDir, t2b.t2bClassPath,
+                    sink);
+        } finally {
+            t2b.closeClassLoader();
+        }
+    }
+
+    private static void buildModulesBenchmarks(String workDirArg, String benchDirArg, TranslationSink sink)
+            throws Exception {
+        TranslationStats globalStats = new TranslationStats(null);
+        initConfigHash();
+        sharedClassPath.clear();
+        String workDir = initWorkDir(workDirArg);
+        List<File> moduleDirs = T2BUtils.findModuleBuildDirs(new File(workDir));
+        if (moduleDirs.isEmpty()) {
+            LOGGER.warn("No module build dirs found in: {}", workDir);
+            return;
+        }
+
+        List<Test2Benchmark> modules = new ArrayList<>(moduleDirs.size());
+        for (File moduleDir : moduleDirs) {
+            LOGGER.info("*** Found module build dir: {}", moduleDir);
+            modules.add(new Test2Benchmark(moduleDir.getPath(), null, null, true));
+        }
+        // Test classes are isolated per module, while main classes can be referenced by other modules tests
+        List<URL> sharedUrls = new ArrayList<>();
+        for (Test2Benchmark module : modules) {
+            for (File mainClassDir : module.mainClassDirs) {
+                if (sharedClassPath.add(mainClassDir.getCanonicalPath())) {
+                    sharedUrls.add(mainClassDir.toURI().toURL());
+                }
+            }
+        }
+        URLClassLoader sharedLoader = new URLClassLoader(sharedUrls.toArray(new URL[0]),
+                Test2Benchmark.class.getClassLoader());
+        for (Test2Benchmark module : modules) {
+            module.initClassLoader(sharedLoader);
+        }
+        try {
+            buildModulesBenchmarks(workDir, benchDirArg, sink, modules, globalStats);
+        } finally {
+            for (Test2Benchmark module : modules) {
+                module.closeClassLoader();
+            }
+            sharedLoader.close();
+        }
+    }
+
+    private static void buildModulesBenchmarks(String workDir, String benchDirArg, TranslationSink sink,
+            List<Test2Benchmark> modules, TranslationStats globalStats) throws Exception {
+
+        int threads = getThreads(System.getProperty(SYS_PROP_MODULE_THREADS), "module",
+                Runtime.getRuntime().availableProcessors());
+        LOGGER.info("Translating {} modules using {} threads", modules.size(), threads);
+        ExecutorService modulesExecutor = Executors.newFixedThreadPool(Math.min(threads, modules.size()));
+        try {
+            runModules(modulesExecutor, modules, Test2Benchmark::generateBenchmarkList, "generate benchmarks");
+            // All modules have generated benchmarks at this point, so JMH code can be restored before compilation
+            globalStats.measure(TranslationStats.PHASE_RESTORE, Test2Benchmark::restoreJMHCode);
+            runModules(modulesExecutor, modules, Test2Benchmark::compileBenchmarks, "compile benchmarks");
+        } finally {
+            modulesExecutor.shutdownNow();
+        }
+
+        File combinedDir = new File(benchDirArg == null || benchDirArg.isEmpty() ? workDir + "/t2b" : benchDirArg)
+                .getCanonicalFile();
+        globalStats.measure(TranslationStats.PHASE_COMBINE, () -> writeCombinedBenchmarkList(combinedDir, modules));
+        Collection<String> classPath = new LinkedHashSet<>();
+        classPath.add(combinedDir.getCanonicalPath());
+        classPath.addAll(sharedClassPath);
+        List<TranslationStats> moduleStats = new ArrayList<>(modules.size());
+        for (Test2Benchmark module : modules) {
+            classPath.addAll(module.t2bClassPath);
+            moduleStats.add(module.stats);
+        }
+        completeTranslation(globalStats, moduleStats, combinedDir.getCanonicalPath(), classPath, sink);
+    }
+
+    private interface ModuleStep {
+        void run(Test2Benchmark module) throws Exception;
+    }
+
+    private static void runModules(ExecutorService executor, List<Test2Benchmark> modules, ModuleStep step,
+            String stepName) throws InterruptedException {
+        List<Future<?>> futures = new ArrayList<>(modules.size());
+        for (Test2Benchmark module : modules) {
+            futures.add(executor.submit(() -> {
+                module.runInContext(step);
+                return null;
+            }));
+        }
+        for (int i = 0; i < futures.size(); i++) {
+            try {
+                futures.get(i).get();
+            } catch (ExecutionException exc) {
+                LOGGER.error("Failed to {} for module: {}", stepName, modules.get(i).workDir, exc.getCause());
+            }
+        }
+    }
+
+    private void closeClassLoader() {
+        if (isolated && classLoader instanceof URLClassLoader) {
+            try {
+                ((URLClassLoader) classLoader).close();
+            } catch (IOException exc) {
+                LOGGER.warn("Failed to close class loader of: {}, reason: {}", workDir, exc.getLocalizedMessage());
+            }
+        }
+    }
+
+    private static void restoreJMHCode() {
+        if (!keepJMHCode) {
+            Test2BenchmarkAgent.restoreJMHCode();
+        }
+    }
+
+    private void runInContext(ModuleStep step) throws Exception {
+        Thread thread = Thread.currentThread();
+        ClassLoader prevLoader = thread.getContextClassLoader();
+        CURRENT.set(this);
+        thread.setContextClassLoader(classLoader);
+        try {
+            step.run(this);
+        } finally {
+            thread.setContextClassLoader(prevLoader);
+            CURRENT.remove();
+        }
+    }
+
+    private static void writeCombinedBenchmarkList(File combinedDir, List<Test2Benchmark> modules) {
+        List<BenchmarkListEntry> entries = new ArrayList<>();
+        Set<String> compilerHints = new LinkedHashSet<>();
+        for (Test2Benchmark module : modules) {
+            File listFile = new File(module.benchDir, BenchmarkList.BENCHMARK_LIST.substring(1));
+            if (listFile.exists()) {
+                try (InputStream is = new FileInputStream(listFile)) {
+                    entries.addAll(BenchmarkList.readBenchmarkList(is));
+                } catch (Exception exc) {
+                    LOGGER.error("Failed to read module benchmark list: {}, reason: {}", listFile,
+                            exc.getLocalizedMessage());
+                }
+            }
+            Collection<String> moduleHints = module.readCompilerHints();
+            if (moduleHints != null) {
+                compilerHints.addAll(moduleHints);
+            }
+        }
+
+        File listFile = new File(combinedDir, BenchmarkList.BENCHMARK_LIST.substring(1));
+        File hintsFile = new File(combinedDir, CompilerHints.LIST.substring(1));
+        try {
+            Files.createDirectories(listFile.getParentFile().toPath());
+            try (OutputStream os = new FileOutputStream(listFile)) {
+                BenchmarkList.writeBenchmarkList(os, entries);
+            }
+            Files.write(hintsFile.toPath(), compilerHints, StandardCharsets.UTF_8);
+            LOGGER.info("Combined {} benchmarks of {} modules into: {}", entries.size(), modules.size(), listFile);
+        } catch (Exception exc) {
+            LOGGER.error("Failed to write combined benchmark list, reason: {}", exc.getLocalizedMessage());
+        }
+    }
+
     public static Multimap<ClassInfo, MethodInfo> buildT2BAnnotatedSet() {
+        Test2Benchmark t2b = current();
+        return t2b == null || !t2b.generating ? null : t2b.buildAnnotatedSet();
+    }
+
+    private Multimap<ClassInfo, MethodInfo> buildAnnotatedSet() {
+        stats.start(TranslationStats.PHASE_TRANSFORM);
+        try {
+            return transformClasses();
+        } finally {
+            stats.end(TranslationStats.PHASE_TRANSFORM);
+        }
+    }
+
+    private Multimap<ClassInfo, MethodInfo> transformClasses() {
         Multimap<ClassInfo, MethodInfo> result = new HashMultimap<>();
-        Collection<ClassInfo> testClasses = t2bGeneratorSource.getClasses();
+        List<ClassInfo> testClasses = new ArrayList<>(t2bGeneratorSource.getClasses());
+        TestClassTransformer[] transformers = new TestClassTransformer[testClasses.size()];
+        int threads = getThreads(System.getProperty(SYS_PROP_TRANSLATE_THREADS), "translate", 1);
         LOGGER.info("Starting Test Classes Analysis: >>>>>>>>>>>>>>>>>>>>");
-        for (ClassInfo classInfo : testClasses) {
-            if (classInfo.isAbstract()) {
-                continue;
+        if (threads > 1 && testClasses.size() > 1) {
+            LOGGER.info("Transforming {} test classes using {} workers", testClasses.size(), threads);
+            Throwable[] failures = new Throwable[testClasses.size()];
+            ForkJoinPool transformPool = new ForkJoinPool(threads);
+            try {
+                transformPool.invoke(new TransformTask(this, testClasses, transformers, failures, 0,
+                        testClasses.size(), Math.max(1, testClasses.size() / (threads * 4))));
+            } finally {
+                transformPool.shutdown();
             }
+            rethrowFirst(failures);
+        } else {
+            for (int i = 0; i < testClasses.size(); i++) {
+                transformers[i] = transformClass(testClasses.get(i), classPool, null);
+            }
+        }
 
-            TestClassTransformer clsTransform = new TestClassTransformer(classInfo);
-            clsTransform.doTransform(T2B_MAPPERS);
-            clsTransform.storeTransformedClass(BENCH_DIR);
-
-            if (clsTransform.hasBenchmarks()) {
-                result.putAll(clsTransform.getClassInfo(), clsTransform.getBenchmarkMethods());
+        // Collected in discovery order, so result is the same as for sequential run
+        for (TestClassTransformer clsTransform : transformers) {
+            if (clsTransform != null && clsTransform.hasBenchmarks()) {
+                Collection<MethodInfo> benchmarkMethods = clsTransform.getBenchmarkMethods();
+                result.putAll(clsTransform.getClassInfo(), benchmarkMethods);
+                stats.count(TranslationStats.PHASE_TRANSFORM, "benchmarkClasses", 1);
+                stats.count(TranslationStats.PHASE_TRANSFORM, "benchmarks", benchmarkMethods.size());
             }
         }
+        stats.count(TranslationStats.PHASE_TRANSFORM, "classes", testClasses.size());
         LOGGER.info("Completed Test Classes Analysis: <<<<<<<<<<<<<<<<<<<");
 
         return result;
     }
 
+    private TestClassTransformer transformClass(ClassInfo classInfo, ClassPool classPool, Object storeLock) {
+        if (classInfo.isAbstract()) {
+            return null;
+        }
+
+        // Altered classes get defined by javassist in thread context class loader
+        Thread thread = Thread.currentThread();
+        ClassLoader prevLoader = thread.getContextClassLoader();
+        if (isolated) {
+            thread.setContextClassLoader(classLoader);
+        }
+        TranslationStats.Sample sample = new TranslationStats.Sample();
+        int benchmarks = 0;
+        try {
+            TestClassTransformer clsTransform = new TestClassTransformer(classInfo, classPool);
+            clsTransform.doTransform(T2B_MAPPERS);
+            if (storeLock == null) {
+                clsTransform.storeTransformedClass(benchDir);
+            } else {
+                // Altered classes are defined in the same class loader, so keep it one class at a time
+                synchronized (storeLock) {
+                    clsTransform.storeTransformedClass(benchDir);
+                }
+            }
+            benchmarks = clsTransform.getBenchmarksCount();
+
+            return clsTransform;
+        } finally {
+            stats.addClass(sample, classInfo.getQualifiedName(), benchmarks);
+            thread.setContextClassLoader(prevLoader);
+        }
+    }
+
+    // Fails the same way sequential run does: on failure of the first failing class in discovery order
+    private static void rethrowFirst(Throwable[] failures) {
+        Throwable first = null;
+        for (Throwable failure : failures) {
+            if (failure == null) {
+                continue;
+            }
+            if (first == null) {
+                first = failure;
+            } else {
+                first.addSuppressed(failure);
+            }
+        }
+        if (first instanceof RuntimeException) {
+            throw (RuntimeException) first;
+        }
+        if (first instanceof Error) {
+            throw (Error) first;
+        }
+        if (first != null) {
+            throw new IllegalStateException(first);
+        }
+    }
+
+    static int getThreads(String threadsArg, String threadsName, int defaultThreads) {
+        if (threadsArg == null || threadsArg.isEmpty()) {
+            return defaultThreads;
+        }
+        if (threadsArg.equalsIgnoreCase("auto")) {
+            return Runtime.getRuntime().availableProcessors();
+        }
+        try {
+            int threads = Integer.parseInt(threadsArg.trim());
+            return threads <= 0 ? Runtime.getRuntime().availableProcessors() : threads;
+        } catch (NumberFormatException exc) {
+            LOGGER.warn("Invalid {} threads count: {}, will use {} threads", threadsName, threadsArg,
+                    defaultThreads);
+            return defaultThreads;
+        }
+    }
+
+    // Every worker thread uses own class pool, so altered classes do not compete over shared default pool
+    static class TransformTask extends RecursiveAction {
+        private static final long serialVersionUID = -2875640587227459071L;
+
+        private final Test2Benchmark t2b;
+        private final List<ClassInfo> classes;
+        private final TestClassTransformer[] transformers;
+        private final Throwable[] failures;
+        private final int from;
+        private final int to;
+        private final int batchSize;
+
+        TransformTask(Test2Benchmark t2b, List<ClassInfo> classes, TestClassTransformer[] transformers,
+                Throwable[] failures, int from, int to, int batchSize) {
+            this.t2b = t2b;
+            this.classes = classes;
+            this.transformers = transformers;
+            this.failures = failures;
+            this.from = from;
+            this.to = to;
+            this.batchSize = batchSize;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= batchSize) {
+                ClassPool classPool = t2b.workerPools.get();
+                for (int i = from; i < to; i++) {
+                    try {
+                        transformers[i] = t2b.transformClass(classes.get(i), classPool, t2b.storeLock);
+                    } catch (Throwable t) {
+                        failures[i] = t;
+                    }
+                }
+            } else {
+                int mid = (from + to) >>> 1;
+                invokeAll(new TransformTask(t2b, classes, transformers, failures, from, mid, batchSize),
+                        new TransformTask(t2b, classes, transformers, failures, mid, to, batchSize));
+            }
+        }
+    }
+
     public static BenchmarkList getBenchmarkList() {
-        return BenchmarkList.fromFile(BENCH_DIR + "/META-INF/BenchmarkList");
+        Test2Benchmark t2b = current();
+        return t2b == null ? null : BenchmarkList.fromFile(t2b.benchDir + "/META-INF/BenchmarkList");
     }
 
     /*
@@ -264,20 +875,41 @@ public class Test2Benchmark {
      */
 
     public static CompilerHints getCompilerHints() {
-        return CompilerHints.fromFile(BENCH_DIR + "/META-INF/CompilerHints");
+        Test2Benchmark t2b = current();
+        return t2b == null ? null : CompilerHints.fromFile(t2b.benchDir + "/META-INF/CompilerHints");
     }
 
     private void buildBenchmarks() throws Exception {
+        primary = this;
+        TranslationStats globalStats = new TranslationStats(null);
         generateBenchmarkList();
-        Test2BenchmarkAgent.restoreJMHCode();
-        CompileProcess compileProcess = new CompileProcess.APICompileProcess();
-        compileProcess.compile();
-        String cp = getT2BClassPath();
-        writePropsToFile(BENCH_DIR, cp);
-        cleanup();
+        globalStats.measure(TranslationStats.PHASE_RESTORE, Test2Benchmark::restoreJMHCode);
+        compileBenchmarks();
+        completeTranslation(globalStats, Collections.singletonList(stats), benchDir, t2bClassPath, fileSink(null));
     }
 
-    private void cleanup() {
+    private void compileBenchmarks() throws Exception {
+        boolean compiled = true;
+        stats.start(TranslationStats.PHASE_COMPILE);
+        try {
+            if (t2bDestination != null && t2bDestination.hasGeneratedClasses()) {
+                stats.count(TranslationStats.PHASE_COMPILE, "sources",
+                        t2bDestination.getGeneratedClasses().size());
+                CompileProcess compileProcess = CompileProcess.getCompileProcess();
+                compiled = compileProcess.compile();
+            } else {
+                LOGGER.info("No benchmark sources generated, skipping compilation");
+            }
+        } finally {
+            stats.end(TranslationStats.PHASE_COMPILE);
+        }
+        if (manifest != null && compiled) {
+            stats.measure(TranslationStats.PHASE_MANIFEST, this::updateManifest);
+        }
+        closeTestArchives();
+    }
+
+    private static void cleanup() {
         // remove JMH compiler generated empty files
         File tFile = new File("BenchmarkList");
         boolean deleted = tFile.delete();
@@ -285,7 +917,18 @@ public class Test2Benchmark {
         deleted = tFile.delete();
     }
 
-    private static String getT2BClassPath() {
+    private void closeTestArchives() {
+        for (FileSystem archiveFs : testArchives) {
+            try {
+                archiveFs.close();
+            } catch (IOException exc) {
+                LOGGER.warn("Failed to close test archive: {}, reason: {}", archiveFs, exc.getLocalizedMessage());
+            }
+        }
+        testArchives.clear();
+    }
+
+    private String getT2BClassPath() {
         StringBuilder sb = new StringBuilder();
         for (String cpStr : t2bClassPath) {
             if (sb.length() > 0) {
@@ -297,13 +940,74 @@ public class Test2Benchmark {
         return sb.toString();
     }
 
+    static TranslationStats getStats() {
+        return current().stats;
+    }
+
+    static String getBenchDir() {
+        return current().benchDir;
+    }
+
+    static String getCompileClassPath() {
+        return System.getProperty("java.class.path") + File.pathSeparator + getModuleClassPath();
+    }
+
+    // Class path entries of translation, that may be not in application class path
+    static String getModuleClassPath() {
+        StringBuilder cp = new StringBuilder();
+        for (String cpStr : sharedClassPath) {
+            cp.append(cpStr).append(File.pathSeparator);
+        }
+        cp.append(current().getT2BClassPath());
+
+        return cp.toString();
+    }
+
     private void generateBenchmarkList() throws Exception {
-        File prodF = new File(BENCH_DIR);
-        FileSystemDestination dst = new FileSystemDestination(prodF, prodF);
-        BenchmarkGenerator gen = new BenchmarkGenerator();
+        boolean impact = ImpactAnalyzer.isEnabled();
+        if (impact && manifest != null) {
+            restoreFullBenchmarkList();
+        }
+        generateBenchmarks();
+        if (impact) {
+            stats.measure(TranslationStats.PHASE_IMPACT, this::selectImpactedBenchmarks);
+        }
+    }
+
+    private void generateBenchmarks() throws Exception {
+        File prodF = new File(benchDir);
+        T2BGeneratorDestination dst = new T2BGeneratorDestination(prodF, prodF, CompileProcess.isInMemory());
+        // Agent patched JMH generator is needed only if T2B generator is not compatible with JMH version in use
+        BenchmarkGenerator gen = T2BBenchmarkGenerator.isSupported()
+                ? new T2BBenchmarkGenerator(this::buildAnnotatedSet) : new BenchmarkGenerator();
         t2bGeneratorSource = new T2BGeneratorSource();
-        gen.generate(t2bGeneratorSource, dst);
-        gen.complete(t2bGeneratorSource, dst);
+        stats.measure(TranslationStats.PHASE_DISCOVERY, t2bGeneratorSource::getClasses);
+        if (manifest != null && t2bGeneratorSource.getClasses().isEmpty() && staleUserClasses.isEmpty()) {
+            LOGGER.info("No test classes changed since last translation, skipping benchmarks generation");
+            return;
+        }
+        t2bDestination = dst;
+        Collection<String> prevCompilerHints = manifest == null ? null : readCompilerHints();
+        generating = true;
+        stats.start(TranslationStats.PHASE_GENERATE);
+        try {
+            gen.generate(t2bGeneratorSource, dst);
+            gen.complete(t2bGeneratorSource, dst);
+        } finally {
+            stats.end(TranslationStats.PHASE_GENERATE);
+            generating = false;
+        }
+        stats.count(TranslationStats.PHASE_GENERATE, "generatedClasses", dst.getGeneratedClasses().size());
+
+        if (manifest != null) {
+            // JMH merges BenchmarkList entries of regenerated classes, stale ones has to be dropped by us
+            Set<String> staleClasses = new HashSet<>(staleUserClasses);
+            for (String originatingClass : dst.getOriginatingClasses()) {
+                staleClasses.remove(toQualifiedName(originatingClass));
+            }
+            pruneBenchmarkList(staleClasses);
+            mergeCompilerHints(prevCompilerHints);
+        }
 
         if (dst.hasErrors()) {
             for (SourceError se : dst.getErrors()) {
@@ -317,9 +1021,334 @@ public class Test2Benchmark {
         }
     }
 
-    private void writePropsToFile(String benchDir, String classPath) {
+    static Collection<File> getGeneratedSources() {
+        T2BGeneratorDestination t2bDestination = current().t2bDestination;
+        List<File> sources = new ArrayList<>();
+        if (t2bDestination != null) {
+            for (String className : t2bDestination.getGeneratedClasses().keySet()) {
+                sources.add(t2bDestination.getSourceFile(className));
+            }
+        }
+
+        return sources;
+    }
+
+    static Map<String, String> getGeneratedSourceCode() {
+        T2BGeneratorDestination t2bDestination = current().t2bDestination;
+        return t2bDestination == null ? Collections.<String, String> emptyMap() : t2bDestination.getSources();
+    }
+
+    static File getGeneratedSourceFile(String className) {
+        return current().t2bDestination.getSourceFile(className);
+    }
+
+    // originating (user benchmark) class name -> generated class names
+    static Map<String, List<String>> getGeneratedClassGroups() {
+        T2BGeneratorDestination t2bDestination = current().t2bDestination;
+        Map<String, List<String>> groups = new LinkedHashMap<>();
+        if (t2bDestination != null) {
+            for (Map.Entry<String, String> gce : t2bDestination.getGeneratedClasses().entrySet()) {
+                String originatingClass = gce.getValue() == null ? "" : gce.getValue();
+                List<String> group = groups.get(originatingClass);
+                if (group == null) {
+                    group = new ArrayList<>();
+                    groups.put(originatingClass, group);
+                }
+                group.add(gce.getKey());
+            }
+        }
+
+        return groups;
+    }
+
+    private Collection<TestClassIndex.Entry> selectChangedClasses(List<TestClassIndex.Entry> testClasses,
+            TestClassIndex classIndex, ClassLoader classLoader) {
+        if (manifest == null) {
+            return testClasses;
+        }
+
+        Set<String> removedClasses = manifest.getClassNames();
+        List<TestClassIndex.Entry> changedClasses = new ArrayList<>();
+        for (TestClassIndex.Entry testClass : testClasses) {
+            String className = testClass.getClassName();
+            removedClasses.remove(className);
+            String classHash = manifest.computeClassHash(testClass, classIndex, classLoader);
+            if (manifest.isUnchanged(className, classHash)) {
+                continue;
+            }
+            removeStaleOutput(className);
+            changedClassHashes.put(className, classHash);
+            changedClasses.add(testClass);
+        }
+        for (String className : removedClasses) {
+            removeStaleOutput(className);
+            manifest.removeClass(className);
+        }
+        LOGGER.info("Incremental translation: {} changed, {} unchanged, {} removed test classes",
+                changedClasses.size(), testClasses.size() - changedClasses.size(), removedClasses.size());
+
+        return changedClasses;
+    }
+
+    private void removeStaleOutput(String className) {
+        String alteredClassName = TestClassTransformer.getAlteredClassName(className);
+        deleteBenchFile(alteredClassName, ".class");
+        for (String generatedClass : manifest.getGeneratedClasses(className)) {
+            deleteBenchFile(generatedClass, ".java");
+            deleteBenchFile(generatedClass, ".class");
+        }
+        staleUserClasses.add(toQualifiedName(alteredClassName));
+    }
+
+    private void deleteBenchFile(String className, String extension) {
+        File file = new File(benchDir, className.replace('.', File.separatorChar) + extension);
+        if (file.exists() && !file.delete()) {
+            LOGGER.warn("Failed to delete stale benchmark file: {}", file);
+        }
+    }
+
+    private static String toQualifiedName(String className) {
+        return className.replace('$', '.');
+    }
+
+    private void updateManifest() {
+        Map<String, List<String>> generatedByUserClass = new HashMap<>();
+        if (t2bDestination != null) {
+            for (Map.Entry<String, String> gce : t2bDestination.getGeneratedClasses().entrySet()) {
+                generatedByUserClass.computeIfAbsent(toQualifiedName(gce.getValue()), k -> new ArrayList<>())
+                        .add(gce.getKey());
+            }
+        }
+        for (Map.Entry<String, String> cce : changedClassHashes.entrySet()) {
+            String userClass = toQualifiedName(TestClassTransformer.getAlteredClassName(cce.getKey()));
+            manifest.putGeneratedClasses(cce.getKey(), generatedByUserClass.get(userClass));
+            if (cce.getValue() != null) {
+                manifest.putClass(cce.getKey(), cce.getValue());
+            }
+        }
+        manifest.store(configHash);
+    }
+
+    private void pruneBenchmarkList(Set<String> staleClasses) {
+        File listFile = new File(benchDir, BenchmarkList.BENCHMARK_LIST.substring(1));
+        if (staleClasses.isEmpty() || !listFile.exists()) {
+            return;
+        }
+
         try {
-            File f = new File(".benchRunProps");
+            List<BenchmarkListEntry> entries;
+            try (InputStream is = new FileInputStream(listFile)) {
+                entries = new ArrayList<>(BenchmarkList.readBenchmarkList(is));
+            }
+            if (entries.removeIf(ble -> staleClasses.contains(ble.getUserClassQName()))) {
+                try (OutputStream os = new FileOutputStream(listFile)) {
+                    BenchmarkList.writeBenchmarkList(os, entries);
+                }
+            }
+        } catch (Exception exc) {
+            LOGGER.error("Failed to remove stale entries from benchmark list, reason: {}", exc.getLocalizedMessage());
+        }
+    }
+
+    // Incremental translation merges regenerated entries into complete benchmark list, not into selected one
+    private void restoreFullBenchmarkList() {
+        File fullListFile = new File(benchDir, ImpactAnalyzer.FULL_LIST_FILE);
+        if (fullListFile.exists()) {
+            try {
+                Files.copy(fullListFile.toPath(),
+                        new File(benchDir, BenchmarkList.BENCHMARK_LIST.substring(1)).toPath(),
+                        StandardCopyOption.REPLACE_EXISTING);
+            } catch (IOException exc) {
+                LOGGER.error("Failed to restore complete benchmark list, reason: {}", exc.getLocalizedMessage());
+            }
+        }
+    }
+
+    // Keeps only benchmarks of test methods reaching test or main code changed since previous translation
+    private void selectImpactedBenchmarks() {
+        File listFile = new File(benchDir, BenchmarkList.BENCHMARK_LIST.substring(1));
+        TestClassIndex classIndex = t2bGeneratorSource.getClassIndex();
+        if (!listFile.exists() || classIndex == null) {
+            return;
+        }
+
+        ImpactAnalyzer analyzer = new ImpactAnalyzer(classIndex);
+        for (TestClassIndex.Entry entry : classIndex.getEntries()) {
+            analyzer.addClass(entry.getSource());
+        }
+        for (File mainClassDir : mainClassDirs) {
+            analyzer.addClassDir(mainClassDir);
+        }
+        for (String sharedDir : sharedClassPath) {
+            analyzer.addClassDir(new File(sharedDir));
+        }
+        if (mainClassDirs.isEmpty() && sharedClassPath.isEmpty()) {
+            // Changes of not analyzed main classes can't be detected, so no benchmark can be proven unaffected
+            LOGGER.warn("Change impact analysis: main classes location is unknown, set {} to define it, selecting"
+                    + " all benchmarks", SYS_PROP_MAIN_DIR);
+            return;
+        }
+        Map<String, String> hashes = analyzer.getHashes();
+        File stateFile = ImpactAnalyzer.getStateFile(workDir);
+        if (ImpactAnalyzer.isAccept()) {
+            ImpactAnalyzer.acceptPendingState(stateFile);
+        }
+        Map<String, String> prevHashes = ImpactAnalyzer.loadState(stateFile);
+        stats.count(TranslationStats.PHASE_IMPACT, "analyzedClasses", analyzer.size());
+        File pendingFile = ImpactAnalyzer.getPendingStateFile(stateFile);
+        // State of not accepted previous translation is dropped, failed selection shall not leave it for acceptance
+        pendingFile.delete();
+        try {
+            if (prevHashes.isEmpty()) {
+                LOGGER.info("Change impact analysis: no baseline state in: {}, selecting all benchmarks", stateFile);
+                ImpactAnalyzer.storeState(pendingFile, hashes);
+                return;
+            }
+
+            List<BenchmarkListEntry> entries;
+            try (InputStream is = new FileInputStream(listFile)) {
+                entries = new ArrayList<>(BenchmarkList.readBenchmarkList(is));
+            }
+            if (manifest != null) {
+                Files.copy(listFile.toPath(), new File(benchDir, ImpactAnalyzer.FULL_LIST_FILE).toPath(),
+                        StandardCopyOption.REPLACE_EXISTING);
+            }
+            Map<String, String> testClassByUserClass = new HashMap<>();
+            for (TestClassIndex.Entry testClass : classIndex.getTestClasses()) {
+                testClassByUserClass.put(toQualifiedName(TestClassTransformer.getAlteredClassName(
+                        testClass.getClassName())), testClass.getClassName());
+            }
+            Set<String> changed = ImpactAnalyzer.getChanged(prevHashes, hashes);
+            List<BenchmarkListEntry> selected = new ArrayList<>(entries.size());
+            for (BenchmarkListEntry ble : entries) {
+                String testClass = testClassByUserClass.get(ble.getUserClassQName());
+                String testMethod = ble.getUsername().substring(ble.getUserClassQName().length() + 1);
+                if (testClass == null || analyzer.isImpacted(testClass, testMethod, changed)) {
+                    selected.add(ble);
+                }
+            }
+            try (OutputStream os = new FileOutputStream(listFile)) {
+                BenchmarkList.writeBenchmarkList(os, selected);
+            }
+            stats.count(TranslationStats.PHASE_IMPACT, "changedMethods", changed.size());
+            stats.count(TranslationStats.PHASE_IMPACT, "selectedBenchmarks", selected.size());
+            LOGGER.info("Change impact analysis: {} changed methods, selected {} of {} benchmarks", changed.size(),
+                    selected.size(), entries.size());
+            // Baseline is kept until user accepts this state, after selected benchmarks have run
+            ImpactAnalyzer.storeState(pendingFile, hashes);
+        } catch (Exception exc) {
+            LOGGER.error("Failed to select impacted benchmarks, reason: {}", exc.getLocalizedMessage());
+        }
+    }
+
+    private Collection<String> readCompilerHints() {
+        File hintsFile = new File(benchDir, CompilerHints.LIST.substring(1));
+        if (!hintsFile.exists()) {
+            return null;
+        }
+
+        try {
+            return Files.readAllLines(hintsFile.toPath(), StandardCharsets.UTF_8);
+        } catch (IOException exc) {
+            LOGGER.warn("Failed to read compiler hints, reason: {}", exc.getLocalizedMessage());
+            return null;
+        }
+    }
+
+    private void mergeCompilerHints(Collection<String> prevCompilerHints) {
+        Collection<String> compilerHints = readCompilerHints();
+        if (prevCompilerHints == null || compilerHints == null) {
+            return;
+        }
+
+        Set<String> mergedHints = new LinkedHashSet<>(compilerHints);
+        mergedHints.addAll(prevCompilerHints);
+        try {
+            Files.write(new File(benchDir, CompilerHints.LIST.substring(1)).toPath(), mergedHints,
+                    StandardCharsets.UTF_8);
+        } catch (IOException exc) {
+            LOGGER.warn("Failed to merge compiler hints, reason: {}", exc.getLocalizedMessage());
+        }
+    }
+
+    // Packaged benchmarks jar if enabled, translation class path otherwise
+    private static String getRunClassPath(TranslationStats globalStats, String benchDir, Collection<String> classPath)
+            throws IOException {
+        File benchJar = BenchmarkJarPackager.getBenchJarFile(benchDir);
+        if (benchJar != null) {
+            BenchmarkJarPackager packager = new BenchmarkJarPackager(benchJar);
+            globalStats.start(TranslationStats.PHASE_PACKAGE);
+            boolean packed;
+            try {
+                packed = packager.pack(benchDir, classPath);
+            } finally {
+                globalStats.end(TranslationStats.PHASE_PACKAGE);
+            }
+            if (packed) {
+                return benchJar.getCanonicalPath();
+            }
+        }
+
+        return String.join(File.pathSeparator, classPath);
+    }
+
+    // Class data sharing archive of packaged benchmarks jar if enabled, empty otherwise
+    private static String getRunJvmArgs(TranslationStats globalStats, String runClassPath) {
+        File benchJar = new File(runClassPath);
+        if (!SharedArchiveBuilder.isEnabled()) {
+            return "";
+        }
+        if (!benchJar.isFile()) {
+            LOGGER.warn("Class data sharing archive requires packaged benchmarks jar, set t2b.bench.jar to make one");
+            return "";
+        }
+        globalStats.start(TranslationStats.PHASE_CDS);
+        File archive;
+        try {
+            archive = new SharedArchiveBuilder(benchJar).build();
+        } finally {
+            globalStats.end(TranslationStats.PHASE_CDS);
+        }
+
+        return archive == null ? "" : "-XX:SharedArchiveFile=" + archive.getAbsolutePath();
+    }
+
+    private static void completeTranslation(TranslationStats globalStats, List<TranslationStats> moduleStats,
+            String benchDir, Collection<String> classPath, TranslationSink sink) throws Exception {
+        String runClassPath = getRunClassPath(globalStats, benchDir, classPath);
+        String runJvmArgs = getRunJvmArgs(globalStats, runClassPath);
+        globalStats.measure(TranslationStats.PHASE_CLEANUP, () -> {
+            sink.runConfig(benchDir, runClassPath, runJvmArgs);
+            cleanup();
+        });
+        sink.stats(globalStats, moduleStats);
+    }
+
+    // Receives translation outcome: benchmarks run configuration and translation stats
+    interface TranslationSink {
+        void runConfig(String benchDir, String classPath, String jvmArgs) throws Exception;
+
+        void stats(TranslationStats globalStats, List<TranslationStats> moduleStats);
+    }
+
+    // Shell hand-off: run configuration and stats are written to files in props dir
+    private static TranslationSink fileSink(String propsDir) {
+        return new TranslationSink() {
+            @Override
+            public void runConfig(String benchDir, String classPath, String jvmArgs) {
+                writePropsToFile(propsDir, benchDir, classPath, jvmArgs);
+            }
+
+            @Override
+            public void stats(TranslationStats globalStats, List<TranslationStats> moduleStats) {
+                writeStats(propsDir, globalStats, moduleStats);
+            }
+        };
+    }
+
+    private static void writePropsToFile(String propsDir, String benchDir, String classPath, String jvmArgs) {
+        try {
+            File f = new File(propsDir, ".benchRunProps");
             if (f.exists()) {
                 f.delete();
             }
@@ -328,6 +1357,10 @@ public class Test2Benchmark {
                 fos.write('\n');
                 fos.write("T2B_CLASS_PATH=\"" + escapePath(classPath) + "\"");
                 fos.write('\n');
+                if (!jvmArgs.isEmpty()) {
+                    fos.write("T2B_JVM_ARGS=\"" + escapePath(jvmArgs) + "\"");
+                    fos.write('\n');
+                }
                 fos.flush();
             }
         } catch (IOException exc) {
@@ -335,11 +1368,26 @@ public class Test2Benchmark {
         }
     }
 
+    private static void writeStats(String propsDir, TranslationStats globalStats,
+            Collection<TranslationStats> moduleStats) {
+        TranslationStats.write(new File(propsDir, TranslationStats.STATS_FILE), globalStats, moduleStats);
+    }
+
+    private static Collection<String> getTestAnnotations() {
+        Collection<String> annotations = new ArrayList<>(T2B_MAPPERS.length);
+        for (T2BMapper mapper : T2B_MAPPERS) {
+            annotations.add(mapper.getAnnotation().getName());
+        }
+
+        return annotations;
+    }
+
     private static String escapePath(String path) {
         return path == null ? path : path.replace("\\", "/");
     }
 
     class T2BGeneratorSource implements GeneratorSource {
+        private TestClassIndex classIndex;
 
         @Override
         public Collection<ClassInfo> getClasses() {
@@ -347,35 +1395,76 @@ public class Test2Benchmark {
                 return benchmarkClassList;
             }
             benchmarkClassList = new ArrayList<>();
-            File testDir = new File(Test2Benchmark.TEST_DIR).getAbsoluteFile();
-            String testDirPath = testDir.getPath();
-            if (!testDirPath.endsWith(File.separator)) {
-                testDirPath += File.separator;
+
+            LOGGER.info("Starting Test Classes Search: >>>>>>>>>>>>>>>>>>>>>>");
+            classIndex = new TestClassIndex(getTestAnnotations());
+            for (File testPath : testPaths) {
+                if (!testPath.exists()) {
+                    LOGGER.error("Test dir does not exist: {}", testPath);
+                } else if (T2BUtils.isArchive(testPath)) {
+                    indexArchive(testPath);
+                } else {
+                    indexDir(testPath);
+                }
             }
+            List<TestClassIndex.Entry> testClasses = classIndex.getTestClasses();
+            LOGGER.info("Indexed {} class files, found {} test classes", classIndex.size(), testClasses.size());
+            TestFilter testFilter = TestFilter.getInstance();
+            if (!testFilter.isEmpty()) {
+                testClasses.removeIf(tc -> !testFilter.isClassIncluded(tc.getClassName()));
+                LOGGER.info("{} test classes left after applying filters", testClasses.size());
+            }
+            stats.count(TranslationStats.PHASE_DISCOVERY, "indexedClasses", classIndex.size());
+            stats.count(TranslationStats.PHASE_DISCOVERY, "testClasses", testClasses.size());
 
-            if (!testDir.exists()) {
-                LOGGER.error("Test dir does not exist: {}", testDir);
-            } else {
-                LOGGER.info("Starting Test Classes Search: >>>>>>>>>>>>>>>>>>>>>>");
-                Collection<File> includeClassFiles = T2BUtils.getUTClasses(testDir);
-                for (File classFile : includeClassFiles) {
+            // Only classes having test methods gets loaded, and they are not initialized at this point
+            Collection<TestClassIndex.Entry> translateClasses = selectChangedClasses(testClasses, classIndex,
+                    classLoader);
+            for (TestClassIndex.Entry testClass : translateClasses) {
+                try {
+                    Class<?> clazz = Class.forName(testClass.getClassName(), false, classLoader);
+                    LOGGER.info("Found Test Class: {}", clazz);
+                    benchmarkClassList.add(new T2BClassInfo(clazz));
+                } catch (Throwable t) {
+                    LOGGER.error("Can''t get test class: {}", t.getLocalizedMessage());
+                }
+            }
+            stats.count(TranslationStats.PHASE_DISCOVERY, "loadedTestClasses", benchmarkClassList.size());
+            LOGGER.info("Completed Test Classes Search: <<<<<<<<<<<<<<<<<<<<<");
+            return benchmarkClassList;
+        }
+
+        private void indexDir(File testDir) {
+            Collection<File> includeClassFiles = T2BUtils.getUTClasses(testDir);
+            for (File classFile : includeClassFiles) {
+                try {
+                    classIndex.scan(classFile.toPath());
+                } catch (Throwable t) {
+                    LOGGER.error("Can''t read class file: {}, reason: {}", classFile, t.getLocalizedMessage());
+                }
+            }
+        }
+
+        private void indexArchive(File testArchive) {
+            try {
+                // Archive file system stays open until translation completes: class hashing reads entries later
+                FileSystem archiveFs = T2BUtils.openArchive(testArchive);
+                testArchives.add(archiveFs);
+                for (Path classFile : T2BUtils.getUTClasses(archiveFs)) {
                     try {
-                        String path = classFile.getAbsolutePath();
-                        int index = path.indexOf(testDirPath);
-                        String className = path.replace(File.separator, ".") //
-                                .substring(index + testDirPath.length(), path.length() - ".class".length());
-                        // TODO far from bulletproof
-
-                        Class<?> clazz = Class.forName(className);
-                        LOGGER.info("Found Test Class: {}", clazz);
-                        benchmarkClassList.add(new T2BClassInfo(clazz));
+                        classIndex.scan(classFile);
                     } catch (Throwable t) {
-                        LOGGER.error("Can''t get test class: {}", t.getLocalizedMessage());
+                        LOGGER.error("Can''t read class file: {}!{}, reason: {}", testArchive, classFile,
+                                t.getLocalizedMessage());
                     }
                 }
-                LOGGER.info("Completed Test Classes Search: <<<<<<<<<<<<<<<<<<<<<");
+            } catch (Throwable t) {
+                LOGGER.error("Can''t read test archive: {}, reason: {}", testArchive, t.getLocalizedMessage());
             }
-            return benchmarkClassList;
+        }
+
+        public TestClassIndex getClassIndex() {
+            return classIndex;
         }
 
         @Override
@@ -25,6 +25,7 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.lang.instrument.ClassDefinition;
 import java.lang.instrument.Instrumentation;
+import java.net.JarURLConnection;
 import java.net.URL;
 import java.nio.file.Paths;
 import java.util.UUID;
@@ -32,6 +33,7 @@ import java.util.jar.JarEntry;
 import java.util.jar.JarFile;
 
 import org.apache.commons.lang3.StringUtils;
+import org.openjdk.jmh.generators.core.T2BBenchmarkGenerator;
 import org.slf4j.Logger;
 
 import com.gocypher.cybench.t2b.aop.AOPConfigHandler;
@@ -51,9 +53,10 @@ public class Test2BenchmarkAgent {
 
     static Instrumentation instrumentation;
 
-    private static String PLUG_T2B_ANNOTATIONS = "Object value=com.gocypher.cybench.Test2Benchmark.buildT2BAnnotatedSet();return value;";
-    private static String PLUG_T2B_BENCHMARK_LIST = "Object value=com.gocypher.cybench.Test2Benchmark.getBenchmarkList();return value;";
-    private static String PLUG_T2B_COMPILER_HINTS = "Object value=com.gocypher.cybench.Test2Benchmark.getCompilerHints();return value;";
+    // Patched methods fall through to JMH implementation when T2B returns null (no translation running)
+    private static String PLUG_T2B_ANNOTATIONS = "Object value=com.gocypher.cybench.Test2Benchmark.buildT2BAnnotatedSet();if (value != null) return value;";
+    private static String PLUG_T2B_BENCHMARK_LIST = "Object value=com.gocypher.cybench.Test2Benchmark.getBenchmarkList();if (value != null) return value;";
+    private static String PLUG_T2B_COMPILER_HINTS = "Object value=com.gocypher.cybench.Test2Benchmark.getCompilerHints();if (value != null) return value;";
 
     private static String BENCHMARK_GENERATOR_CLASS = "org.openjdk.jmh.generators.core.BenchmarkGenerator";
     private static String BENCHMARK_LIST_CLASS = "org.openjdk.jmh.runner.BenchmarkList";
@@ -109,13 +112,17 @@ public class Test2BenchmarkAgent {
     }
 
     private static void translateAgent() {
+        if (T2BBenchmarkGenerator.isSupported()) {
+            // Translation plugs in over own benchmark generator, no JMH classes redefinition needed
+            LOGGER.info("Using T2B benchmark generator, JMH classes are left intact");
+            return;
+        }
         try {
             Class<?> klass = org.openjdk.jmh.annotations.Benchmark.class;
             URL location = klass.getResource('/' + klass.getName().replace('.', '/') + ".class");
             // jar:file:/C:/Users/slabs/.m2/repository/org/openjdk/jmh/jmh-core/1.35/jmh-core-1.35.jar!/org/openjdk/jmh/annotations/Benchmark.class
-            String[] split = location.toString().replaceFirst("jar:file:/", "").split("!");
-            LOGGER.info("JMH: {}", split[0]);
-            File file = Paths.get(split[0]).toFile();
+            URL jarLocation = ((JarURLConnection) location.openConnection()).getJarFileURL();
+            File file = Paths.get(jarLocation.toURI()).toFile();
             LOGGER.info("JMH: {}", file.getAbsolutePath());
 
             JarFile jarFile = new JarFile(file);
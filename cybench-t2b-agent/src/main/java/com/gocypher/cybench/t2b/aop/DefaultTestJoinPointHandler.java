@@ -22,16 +22,21 @@ package com.gocypher.cybench.t2b.aop;
 import java.lang.instrument.ClassDefinition;
 import java.lang.instrument.Instrumentation;
 import java.lang.reflect.Method;
+import java.util.List;
 
 import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.weaver.loadtime.Agent;
 import org.openjdk.jmh.generators.core.ClassInfo;
 import org.openjdk.jmh.generators.reflection.T2BClassInfo;
+import org.openjdk.jmh.runner.options.Options;
 import org.slf4j.Logger;
 
+import com.gocypher.cybench.T2BConfig;
+import com.gocypher.cybench.T2BMapper;
 import com.gocypher.cybench.t2b.aop.benchmark.T2BTestBenchmark;
 import com.gocypher.cybench.t2b.aop.benchmark.runner.BenchmarkRunnerWrapper;
 import com.gocypher.cybench.t2b.transform.BenchmarkClassTransformer;
+import com.gocypher.cybench.t2b.transform.BenchmarkConfig;
 import com.gocypher.cybench.t2b.utils.LogUtils;
 
 public class DefaultTestJoinPointHandler implements TestJoinPointHandler {
@@ -41,16 +46,24 @@ public class DefaultTestJoinPointHandler implements TestJoinPointHandler {
 
     @Override
     public void runTestAsBenchmark(Method testMethod, ProceedingJoinPoint testPoint) {
+        runTestAsBenchmark(null, testMethod, null, testPoint);
+    }
+
+    @Override
+    public void runTestAsBenchmark(T2BMapper testMapper, Method testMethod, String testName,
+            ProceedingJoinPoint testPoint) {
         Thread testRunnerThread = new Thread(new Runnable() {
             @Override
             public void run() {
-                alterBenchmarkClass(testMethod);
+                alterBenchmarkClass(testMethod, testName);
 
                 try {
+                    benchmarkRunner.setBenchmarkOptions(getBenchmarkOptions(testMapper, testMethod));
                     benchmarkRunner.run(testPoint);
                 } catch (Throwable exc) {
                     LOGGER.error("Benchmark run failed, reason: ", exc);
                 } finally {
+                    benchmarkRunner.setBenchmarkOptions(null);
                     benchmarkRunner.cleanup();
                 }
             }
@@ -62,11 +75,29 @@ public class DefaultTestJoinPointHandler implements TestJoinPointHandler {
         }
     }
 
+    // Same options translated benchmark gets as annotations: configuration template, test annotation implied ones and
+    // @T2BConfig, in merge order
+    protected static Options getBenchmarkOptions(T2BMapper testMapper, Method testMethod) {
+        T2BConfig classCfg = testMethod.getDeclaringClass().getAnnotation(T2BConfig.class);
+        T2BConfig methodCfg = testMethod.getAnnotation(T2BConfig.class);
+        List<String> optionsList = BenchmarkConfig.getOptions(testMethod.getDeclaringClass().getName(),
+                testMethod.getName(), testMapper == null ? null : testMapper.getBenchmarkOptions(testMethod),
+                classCfg == null ? null : classCfg.value(), methodCfg == null ? null : methodCfg.value());
+
+        return optionsList.isEmpty() ? null
+                : BenchmarkConfig.toOptions(optionsList,
+                        testMethod.getDeclaringClass().getName() + "#" + testMethod.getName());
+    }
+
     protected static void alterBenchmarkClass(Method testMethod) {
+        alterBenchmarkClass(testMethod, null);
+    }
+
+    protected static void alterBenchmarkClass(Method testMethod, String testName) {
         try {
             ClassInfo bClsInfo = new T2BClassInfo(T2BTestBenchmark.class);
             BenchmarkClassTransformer clsTransform = new BenchmarkClassTransformer(bClsInfo);
-            clsTransform.doTransform(testMethod);
+            clsTransform.doTransform(testMethod, testName);
             byte[] clsBytes = clsTransform.getClassBytes();
 
             Instrumentation instrumentation = Agent.getInstrumentation();
@@ -0,0 +1,109 @@
+/*
+ * Copyright (C) 2020-2022, K2N.IO.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA
+ *
+ */
+
+package com.gocypher.cybench.t2b.aop;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.Signature;
+import org.aspectj.lang.reflect.SourceLocation;
+import org.aspectj.runtime.internal.AroundClosure;
+import org.junit.jupiter.api.function.Executable;
+
+// Join point of dynamic test made by test factory: proceeding runs dynamic test executable, while rest of join point
+// data comes from test factory method join point
+public class DynamicTestJoinPoint implements ProceedingJoinPoint {
+    private final ProceedingJoinPoint factoryPoint;
+    private final String testName;
+    private final Executable executable;
+
+    public DynamicTestJoinPoint(ProceedingJoinPoint factoryPoint, String testName, Executable executable) {
+        this.factoryPoint = factoryPoint;
+        this.testName = testName;
+        this.executable = executable;
+    }
+
+    public String getTestName() {
+        return testName;
+    }
+
+    @Override
+    public void set$AroundClosure(AroundClosure arc) {
+    }
+
+    @Override
+    public Object proceed() throws Throwable {
+        executable.execute();
+        return null;
+    }
+
+    @Override
+    public Object proceed(Object[] args) throws Throwable {
+        return proceed();
+    }
+
+    @Override
+    public String toShortString() {
+        return factoryPoint.toShortString() + "[" + testName + "]";
+    }
+
+    @Override
+    public String toLongString() {
+        return factoryPoint.toLongString() + "[" + testName + "]";
+    }
+
+    @Override
+    public Object getThis() {
+        return factoryPoint.getThis();
+    }
+
+    @Override
+    public Object getTarget() {
+        return factoryPoint.getTarget();
+    }
+
+    @Override
+    public Object[] getArgs() {
+        return factoryPoint.getArgs();
+    }
+
+    @Override
+    public Signature getSignature() {
+        return factoryPoint.getSignature();
+    }
+
+    @Override
+    public SourceLocation getSourceLocation() {
+        return factoryPoint.getSourceLocation();
+    }
+
+    @Override
+    public String getKind() {
+        return factoryPoint.getKind();
+    }
+
+    @Override
+    public StaticPart getStaticPart() {
+        return factoryPoint.getStaticPart();
+    }
+
+    @Override
+    public String toString() {
+        return factoryPoint.toString() + "[" + testName + "]";
+    }
+}
@@ -19,8 +19,11 @@
 
 package com.gocypher.cybench.t2b.aop;
 
+import java.lang.reflect.Array;
 import java.lang.reflect.Method;
-import java.util.Arrays;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
 
 import org.aspectj.lang.JoinPoint;
 import org.aspectj.lang.ProceedingJoinPoint;
@@ -29,10 +32,18 @@ import org.aspectj.lang.annotation.Around;
 import org.aspectj.lang.annotation.Aspect;
 import org.aspectj.lang.reflect.MethodSignature;
 import org.aspectj.lang.reflect.SourceLocation;
+import org.junit.jupiter.api.DynamicContainer;
+import org.junit.jupiter.api.DynamicNode;
+import org.junit.jupiter.api.DynamicTest;
+import org.junit.jupiter.api.function.Executable;
 import org.slf4j.Logger;
+import org.testng.ITestResult;
+import org.testng.Reporter;
+import org.testng.internal.TestResult;
 
 import com.gocypher.cybench.T2BMapper;
 import com.gocypher.cybench.Test2Benchmark;
+import com.gocypher.cybench.t2b.transform.DynamicTests;
 import com.gocypher.cybench.t2b.utils.LogUtils;
 
 public class TestAspects {
@@ -40,13 +51,20 @@ public class TestAspects {
 
     public abstract static class AbstractT2BAspect {
 
-        static final TestJoinPointHandler testJoinPointHandler = new DefaultTestJoinPointHandler();
+        private static final TestJoinPointHandler DEFAULT_HANDLER = new DefaultTestJoinPointHandler();
+        final TestJoinPointHandler testJoinPointHandler;
         final T2BMapper testMapper;
 
         public AbstractT2BAspect(T2BMapper t2BMapper) {
+            this(t2BMapper, DEFAULT_HANDLER);
+        }
+
+        // Handler running benchmarks can be replaced, e.g. by tests
+        AbstractT2BAspect(T2BMapper t2BMapper, TestJoinPointHandler testJoinPointHandler) {
             LOGGER.info("Initiating aspect {} ...", getClass().getSimpleName());
 
             testMapper = t2BMapper;
+            this.testJoinPointHandler = testJoinPointHandler;
         }
 
         // @Pointcut("execution(@org.junit.jupiter.api.Test * *(..))")
@@ -63,7 +81,7 @@ public class TestAspects {
             T2BMapper.MethodState state = testMapper.isValid(testMethod);
 
             if (state == T2BMapper.MethodState.VALID) {
-                testJoinPointHandler.runTestAsBenchmark(testMethod, testPoint);
+                testJoinPointHandler.runTestAsBenchmark(testMapper, testMethod, null, testPoint);
             } else {
                 LOGGER.warn("Skipping test: {}", testPoint.getSignature().getName());
             }
@@ -102,18 +120,136 @@ public class TestAspects {
         }
     }
 
+    // Repeated test method is benchmarked once, on its first repetition: repetitions count is benchmark batch size
+    @Aspect
+    public static class JU5RepeatedTestAspect extends AbstractT2BAspect {
+        private static final String TEST_ANNOTATION_CLASS = "org.junit.jupiter.api.RepeatedTest";
+
+        private final Set<Method> benchmarkedTests = ConcurrentHashMap.newKeySet();
+
+        public JU5RepeatedTestAspect() {
+            super(Test2Benchmark.JUNIT5_REPEATED_MAPPER);
+        }
+
+        JU5RepeatedTestAspect(TestJoinPointHandler testJoinPointHandler) {
+            super(Test2Benchmark.JUNIT5_REPEATED_MAPPER, testJoinPointHandler);
+        }
+
+        @Override
+        @Around("@annotation(" + TEST_ANNOTATION_CLASS + ")")
+        public void aroundTest(ProceedingJoinPoint testPoint) {
+            Method testMethod = ((MethodSignature) testPoint.getSignature()).getMethod();
+            if (benchmarkedTests.add(testMethod)) {
+                super.aroundTest(testPoint);
+            } else {
+                LOGGER.debug("Skipping repetition of benchmarked test: {}", testPoint.getSignature().getName());
+            }
+        }
+    }
+
+    // Test factory makes dynamic tests as usual, but every dynamic test runs its executable as benchmark
+    @Aspect
+    public static class JU5TestFactoryAspect extends AbstractT2BAspect {
+        private static final String TEST_ANNOTATION_CLASS = "org.junit.jupiter.api.TestFactory";
+
+        public JU5TestFactoryAspect() {
+            super(Test2Benchmark.JUNIT5_FACTORY_MAPPER);
+        }
+
+        JU5TestFactoryAspect(TestJoinPointHandler testJoinPointHandler) {
+            super(Test2Benchmark.JUNIT5_FACTORY_MAPPER, testJoinPointHandler);
+        }
+
+        @Around("@annotation(" + TEST_ANNOTATION_CLASS + ")")
+        public Object aroundTestFactory(ProceedingJoinPoint testPoint) throws Throwable {
+            Method testMethod = ((MethodSignature) testPoint.getSignature()).getMethod();
+            Object nodes = testPoint.proceed();
+            if (testMapper.isValid(testMethod) != T2BMapper.MethodState.VALID) {
+                LOGGER.warn("Skipping test: {}", testPoint.getSignature().getName());
+                return nodes;
+            }
+
+            return toBenchmarkNodes(nodes, testMethod, null, testPoint);
+        }
+
+        // Keeps type of test factory result: stream, collection, iterable, iterator, array or single node
+        private Object toBenchmarkNodes(Object nodes, Method testMethod, String path, ProceedingJoinPoint testPoint) {
+            if (nodes instanceof Stream) {
+                return ((Stream<?>) nodes).map(node -> toBenchmarkNode(node, testMethod, path, testPoint));
+            } else if (nodes instanceof Iterable || nodes instanceof Iterator) {
+                Iterator<?> it = nodes instanceof Iterator ? (Iterator<?>) nodes : ((Iterable<?>) nodes).iterator();
+                Collection<Object> benchmarkNodes = nodes instanceof Set ? new LinkedHashSet<>() : new ArrayList<>();
+                while (it.hasNext()) {
+                    benchmarkNodes.add(toBenchmarkNode(it.next(), testMethod, path, testPoint));
+                }
+                return nodes instanceof Iterator ? benchmarkNodes.iterator() : benchmarkNodes;
+            } else if (nodes != null && nodes.getClass().isArray()) {
+                Object benchmarkNodes = Array.newInstance(nodes.getClass().getComponentType(), Array.getLength(nodes));
+                for (int i = 0; i < Array.getLength(nodes); i++) {
+                    Array.set(benchmarkNodes, i, toBenchmarkNode(Array.get(nodes, i), testMethod, path, testPoint));
+                }
+                return benchmarkNodes;
+            }
+
+            return toBenchmarkNode(nodes, testMethod, path, testPoint);
+        }
+
+        private DynamicNode toBenchmarkNode(Object node, Method testMethod, String path,
+                ProceedingJoinPoint testPoint) {
+            DynamicNode dNode = (DynamicNode) node;
+            String name = path == null ? dNode.getDisplayName()
+                    : path + DynamicTests.PATH_SEPARATOR + dNode.getDisplayName();
+            if (dNode instanceof DynamicContainer) {
+                return DynamicContainer.dynamicContainer(dNode.getDisplayName(), ((DynamicContainer) dNode)
+                        .getChildren().map(child -> toBenchmarkNode(child, testMethod, name, testPoint)));
+            }
+            Executable executable = ((DynamicTest) dNode).getExecutable();
+            return DynamicTest.dynamicTest(dNode.getDisplayName(), () -> testJoinPointHandler.runTestAsBenchmark(
+                    testMapper, testMethod, name, new DynamicTestJoinPoint(testPoint, name, executable)));
+        }
+    }
+
+    // Test having invocation count is benchmarked once per arguments set: invocations count and thread pool size are
+    // benchmark batch size and threads
     @Aspect
     public static class NGTestAspect extends AbstractT2BAspect {
         private static final String TEST_ANNOTATION_CLASS = "org.testng.annotations.Test";
 
+        // Keyed by arguments set index, so arguments are not kept reachable after test run
+        private final Set<Map.Entry<Method, Integer>> benchmarkedTests = ConcurrentHashMap.newKeySet();
+
         public NGTestAspect() {
             super(Test2Benchmark.TESTNG_MAPPER);
         }
 
+        NGTestAspect(TestJoinPointHandler testJoinPointHandler) {
+            super(Test2Benchmark.TESTNG_MAPPER, testJoinPointHandler);
+        }
+
         @Override
         @Around("@annotation(" + TEST_ANNOTATION_CLASS + ")")
         public void aroundTest(ProceedingJoinPoint testPoint) {
-            super.aroundTest(testPoint);
+            Method testMethod = ((MethodSignature) testPoint.getSignature()).getMethod();
+            org.testng.annotations.Test tAnn = testMethod.getAnnotation(org.testng.annotations.Test.class);
+            if (tAnn == null || tAnn.invocationCount() <= 1 || benchmarkedTests
+                    .add(new AbstractMap.SimpleImmutableEntry<>(testMethod, getArgumentsIndex(testPoint)))) {
+                super.aroundTest(testPoint);
+            } else {
+                LOGGER.debug("Skipping invocation of benchmarked test: {}", testPoint.getSignature().getName());
+            }
+        }
+
+        static int getArgumentsIndex(ProceedingJoinPoint testPoint) {
+            try {
+                ITestResult testResult = Reporter.getCurrentTestResult();
+                if (testResult instanceof TestResult) {
+                    return ((TestResult) testResult).getParameterIndex();
+                }
+            } catch (LinkageError exc) {
+                LOGGER.debug("TestNG version has no arguments set index, reason: {}", exc.getLocalizedMessage());
+            }
+            // arguments hash does not keep them reachable either
+            return Arrays.deepHashCode(testPoint.getArgs());
         }
     }
 
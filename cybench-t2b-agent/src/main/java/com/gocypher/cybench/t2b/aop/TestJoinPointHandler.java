@@ -23,7 +23,13 @@ import java.lang.reflect.Method;
 
 import org.aspectj.lang.ProceedingJoinPoint;
 
+import com.gocypher.cybench.T2BMapper;
+
 public interface TestJoinPointHandler {
 
     public void runTestAsBenchmark(Method testMethod, ProceedingJoinPoint testPoint);
+
+    // Test mapper defines test annotation implied benchmark options, test name is set for dynamic test
+    public void runTestAsBenchmark(T2BMapper testMapper, Method testMethod, String testName,
+            ProceedingJoinPoint testPoint);
 }
@@ -33,7 +33,7 @@ public class T2BTestBenchmark {
     @Benchmark
     public void testBenchmark(Blackhole b) throws Throwable {
         if (testPoint != null) {
-            testPoint.proceed();
+            b.consume(testPoint.proceed());
         }
     }
 
@@ -22,6 +22,10 @@ package com.gocypher.cybench.t2b.aop.benchmark.runner;
 import java.util.concurrent.atomic.AtomicReference;
 
 import org.aspectj.lang.ProceedingJoinPoint;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.Options;
+
+import com.gocypher.cybench.t2b.transform.BenchmarkConfig;
 
 public abstract class AbstractBenchmarkRunnerWrapper implements BenchmarkRunnerWrapper {
 
@@ -29,6 +33,7 @@ public abstract class AbstractBenchmarkRunnerWrapper implements BenchmarkRunnerW
 
     private static final AtomicReference<ProceedingJoinPoint> testPoint = new AtomicReference<>();
     protected final String[] args;
+    private Options benchmarkOptions;
 
     public AbstractBenchmarkRunnerWrapper(String args) {
         this.args = args == null ? EMPTY_ARGS : args.split("\\s");
@@ -42,6 +47,22 @@ public abstract class AbstractBenchmarkRunnerWrapper implements BenchmarkRunnerW
         AbstractBenchmarkRunnerWrapper.testPoint.set(testPoint);
     }
 
+    @Override
+    public void setBenchmarkOptions(Options benchmarkOptions) {
+        this.benchmarkOptions = benchmarkOptions;
+    }
+
+    // Sets benchmark options, not defined by runner configuration options
+    protected void applyBenchmarkOptions(ChainedOptionsBuilder options, Options runnerOptions) {
+        if (benchmarkOptions != null) {
+            BenchmarkConfig.mergeOptions(options, benchmarkOptions, runnerOptions);
+        }
+    }
+
+    protected boolean hasBenchmarkOptions() {
+        return benchmarkOptions != null;
+    }
+
     protected void cleanContext() {
         System.runFinalization();
         System.gc();
@@ -20,10 +20,15 @@
 package com.gocypher.cybench.t2b.aop.benchmark.runner;
 
 import org.aspectj.lang.ProceedingJoinPoint;
+import org.openjdk.jmh.runner.options.Options;
 
 public interface BenchmarkRunnerWrapper {
     void run(ProceedingJoinPoint testPoint) throws Throwable;
 
+    // Benchmark options of next run test, having lower precedence than runner configured ones
+    default void setBenchmarkOptions(Options options) {
+    }
+
     void cleanup();
 
     void complete();
@@ -19,10 +19,12 @@
 
 package com.gocypher.cybench.t2b.aop.benchmark.runner;
 
+import java.lang.reflect.Method;
 import java.util.Collection;
 
 import org.aspectj.lang.ProceedingJoinPoint;
 import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
 import org.slf4j.Logger;
 
 import com.gocypher.cybench.launcher.BenchmarkRunner;
@@ -32,6 +34,9 @@ import com.gocypher.cybench.t2b.utils.LogUtils;
 public class CybenchRunnerWrapper extends AbstractBenchmarkRunnerWrapper {
     private static Logger LOGGER = LogUtils.getLogger(CybenchRunnerWrapper.class);
 
+    private static final String OPTIONS_BUILDER_GETTER = "getOptBuilder";
+    private static final String OPTIONS_BUILDER_SETTER = "setOptBuilder";
+
     protected final BenchmarkingContext benchmarkContext;
 
     public CybenchRunnerWrapper(String args) {
@@ -60,16 +65,57 @@ public class CybenchRunnerWrapper extends AbstractBenchmarkRunnerWrapper {
         cleanContext();
 
         LOGGER.info("Starting CyBench Runner...");
+        OptionsBuilder runnerOptions = hasBenchmarkOptions() ? getOptionsBuilder() : null;
+        boolean testOptions = runnerOptions != null && setOptionsBuilder(getTestOptionsBuilder(runnerOptions));
         try {
             BenchmarkRunner.analyzeBenchmarkClasses(benchmarkContext);
 
             Collection<RunResult> results = BenchmarkRunner.runBenchmarks(benchmarkContext);
             BenchmarkRunner.processResults(benchmarkContext, results);
         } finally {
+            if (testOptions) {
+                setOptionsBuilder(runnerOptions);
+            }
             LOGGER.info("CyBench Runner completed!..");
         }
     }
 
+    // Test benchmark options get on top of CyBench configuration options, so runner configured ones are kept
+    private OptionsBuilder getTestOptionsBuilder(OptionsBuilder runnerOptions) {
+        OptionsBuilder testOptions = new OptionsBuilder();
+        applyBenchmarkOptions(testOptions, runnerOptions);
+        testOptions.parent(runnerOptions);
+        return testOptions;
+    }
+
+    // Benchmarking context options builder is accessed reflectively, since not all CyBench runner versions expose it
+    private OptionsBuilder getOptionsBuilder() {
+        if (benchmarkContext == null) {
+            return null;
+        }
+        try {
+            Method getter = benchmarkContext.getClass().getMethod(OPTIONS_BUILDER_GETTER);
+            Object options = getter.invoke(benchmarkContext);
+            return options instanceof OptionsBuilder ? (OptionsBuilder) options : null;
+        } catch (Exception exc) {
+            LOGGER.warn("Benchmark options are not supported by CyBench runner, reason: {}",
+                    exc.getLocalizedMessage());
+            return null;
+        }
+    }
+
+    private boolean setOptionsBuilder(OptionsBuilder options) {
+        try {
+            Method setter = benchmarkContext.getClass().getMethod(OPTIONS_BUILDER_SETTER, OptionsBuilder.class);
+            setter.invoke(benchmarkContext, options);
+            return true;
+        } catch (Exception exc) {
+            LOGGER.warn("Benchmark options are not supported by CyBench runner, reason: {}",
+                    exc.getLocalizedMessage());
+            return false;
+        }
+    }
+
     @Override
     public void complete() {
         if (benchmarkContext != null) {
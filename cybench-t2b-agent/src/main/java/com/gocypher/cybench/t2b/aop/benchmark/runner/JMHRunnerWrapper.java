@@ -46,7 +46,10 @@ public class JMHRunnerWrapper extends AbstractBenchmarkRunnerWrapper {
 
         if (args != null) {
             CommandLineOptions cliOptions = new CommandLineOptions(args);
+            applyBenchmarkOptions(options, cliOptions);
             options.parent(cliOptions);
+        } else {
+            applyBenchmarkOptions(options, null);
         }
 
         options.build();
@@ -0,0 +1,618 @@
+/*
+ * Copyright (C) 2020-2022, K2N.IO.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA
+ *
+ */
+
+package com.gocypher.cybench.t2b.discovery;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystem;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+
+import org.slf4j.Logger;
+
+import com.gocypher.cybench.t2b.utils.LogUtils;
+import com.gocypher.cybench.t2b.utils.T2BUtils;
+
+import javassist.bytecode.*;
+
+// Change impact analysis: builds static call graph from test methods into test and main classes bytecode, and
+// compares hashes of reachable methods against ones stored by previous translation. Virtual calls are resolved over
+// class hierarchy of analyzed classes. Classes outside of analyzed ones (JDK, dependencies) are not walked, so
+// methods of instantiated classes that may be called back by them are treated as reachable.
+public class ImpactAnalyzer {
+    private static Logger LOGGER = LogUtils.getLogger(ImpactAnalyzer.class);
+
+    public static final String SYS_PROP_IMPACT = "t2b.impact";
+    public static final String SYS_PROP_STATE = "t2b.impact.state";
+    // Set when benchmarks selected by previous translation have run: its state becomes baseline of this one
+    public static final String SYS_PROP_ACCEPT = "t2b.impact.accept";
+    public static final String STATE_FILE = ".t2bImpact";
+    private static final String PENDING_STATE_SUFFIX = ".pending";
+    // Complete benchmark list, kept for incremental translation while run list holds only selected benchmarks
+    public static final String FULL_LIST_FILE = ".t2bBenchmarkList";
+
+    private static final String HEADER = "<header>";
+    private static final String CLINIT = "<clinit>()V";
+    private static final String OBJECT_CLASS = "java.lang.Object";
+    private static final Set<String> OBJECT_METHODS = new HashSet<>(Arrays.asList( //
+            "equals(Ljava/lang/Object;)Z", "hashCode()I", "toString()Ljava/lang/String;", "finalize()V",
+            "clone()Ljava/lang/Object;"));
+
+    private final TestClassIndex classIndex;
+    private final Map<String, ClassNode> classes = new HashMap<>();
+    private final Map<String, Set<String>> subClasses = new HashMap<>();
+
+    public ImpactAnalyzer(TestClassIndex classIndex) {
+        this.classIndex = classIndex;
+    }
+
+    public static boolean isEnabled() {
+        return Boolean.getBoolean(SYS_PROP_IMPACT);
+    }
+
+    public static File getStateFile(String workDir) {
+        String statePath = System.getProperty(SYS_PROP_STATE);
+        return statePath == null || statePath.isEmpty() ? new File(workDir, STATE_FILE) : new File(statePath);
+    }
+
+    // Translation state waiting to become baseline, so changes are not lost if selected benchmarks did not run
+    public static File getPendingStateFile(File stateFile) {
+        return new File(stateFile.getPath() + PENDING_STATE_SUFFIX);
+    }
+
+    public static boolean isAccept() {
+        return Boolean.getBoolean(SYS_PROP_ACCEPT);
+    }
+
+    public static void acceptPendingState(File stateFile) {
+        File pendingFile = getPendingStateFile(stateFile);
+        if (!pendingFile.exists()) {
+            LOGGER.warn("No pending impact analysis state to accept: {}", pendingFile);
+            return;
+        }
+        try {
+            Files.move(pendingFile.toPath(), stateFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            LOGGER.info("Accepted impact analysis state as baseline: {}", stateFile);
+        } catch (IOException exc) {
+            LOGGER.error("Failed to accept impact analysis state: {}, reason: {}", pendingFile,
+                    exc.getLocalizedMessage());
+        }
+    }
+
+    public void addClassDir(File classDir) {
+        if (T2BUtils.isArchive(classDir)) {
+            try (FileSystem archiveFs = T2BUtils.openArchive(classDir)) {
+                for (Path classFile : T2BUtils.getUTClasses(archiveFs)) {
+                    addClass(classFile);
+                }
+            } catch (IOException exc) {
+                LOGGER.error("Failed to analyze classes archive: {}, reason: {}", classDir,
+                        exc.getLocalizedMessage());
+            }
+            return;
+        }
+        for (File classFile : T2BUtils.getUTClasses(classDir)) {
+            addClass(classFile.toPath());
+        }
+    }
+
+    public void addClass(Path classFile) {
+        try {
+            ClassFile cf = new ClassFile(new DataInputStream(new ByteArrayInputStream(Files.readAllBytes(classFile))));
+            if (classes.containsKey(cf.getName())) {
+                return;
+            }
+            ClassNode node = new ClassNode(cf);
+            classes.put(node.name, node);
+            for (String superType : node.getSuperTypes()) {
+                subClasses.computeIfAbsent(superType, k -> new HashSet<>()).add(node.name);
+            }
+        } catch (Exception exc) {
+            LOGGER.error("Failed to analyze class file: {}, reason: {}", classFile, exc.getLocalizedMessage());
+        }
+    }
+
+    public int size() {
+        return classes.size();
+    }
+
+    // "className#methodNameDescriptor" -> hash of method bytecode, class header is keyed as "className#<header>"
+    public Map<String, String> getHashes() {
+        Map<String, String> hashes = new TreeMap<>();
+        for (ClassNode node : classes.values()) {
+            hashes.put(node.name + "#" + HEADER, node.headerHash);
+            for (MethodNode method : node.methods.values()) {
+                hashes.put(node.name + "#" + method.key, method.hash);
+            }
+        }
+
+        return hashes;
+    }
+
+    // Removed methods are changed too: their callers get resolved to other implementation, reached over changed
+    // header of class having method removed
+    public static Set<String> getChanged(Map<String, String> prevHashes, Map<String, String> hashes) {
+        Set<String> changed = new HashSet<>();
+        for (Map.Entry<String, String> he : hashes.entrySet()) {
+            if (!he.getValue().equals(prevHashes.get(he.getKey()))) {
+                changed.add(he.getKey());
+            }
+        }
+        for (String prevKey : prevHashes.keySet()) {
+            if (!hashes.containsKey(prevKey)) {
+                changed.add(prevKey);
+            }
+        }
+
+        return changed;
+    }
+
+    // Test method reaches changed code itself, or over test class instantiation and its fixture methods
+    public boolean isImpacted(String testClassName, String testMethodName, Set<String> changed) {
+        testMethodName = getTestMethodName(testClassName, testMethodName);
+        Deque<String> roots = new ArrayDeque<>();
+        String className = testClassName;
+        while (className != null && classes.containsKey(className)) {
+            ClassNode node = classes.get(className);
+            TestClassIndex.Entry entry = classIndex.getEntry(className);
+            Set<String> testMethods = entry == null ? Collections.emptySet() : entry.getTestMethods().keySet();
+            for (MethodNode method : node.methods.values()) {
+                // Annotated non-test methods are fixtures run around test method
+                if (method.name.equals(testMethodName) || method.name.equals("<init>")
+                        || method.annotated && !testMethods.contains(method.key)) {
+                    roots.add(node.name + "#" + method.key);
+                }
+            }
+            className = node.superName;
+        }
+        if (roots.isEmpty()) {
+            // Not analyzed test class can't be proven unaffected
+            return true;
+        }
+        instantiate(testClassName, roots);
+
+        Set<String> visited = new HashSet<>();
+        Set<String> visitedClasses = new HashSet<>();
+        while (!roots.isEmpty()) {
+            String methodId = roots.poll();
+            if (!visited.add(methodId)) {
+                continue;
+            }
+            if (changed.contains(methodId)) {
+                LOGGER.debug("Test {}#{} reaches changed method: {}", testClassName, testMethodName, methodId);
+                return true;
+            }
+            int idx = methodId.indexOf('#');
+            String owner = methodId.substring(0, idx);
+            if (visitedClasses.add(owner) && reachClass(owner, roots, visitedClasses, changed)) {
+                return true;
+            }
+            MethodNode method = classes.get(owner).methods.get(methodId.substring(idx + 1));
+            if (method == null) {
+                continue;
+            }
+            for (String className2 : method.usedClasses) {
+                if (visitedClasses.add(className2) && reachClass(className2, roots, visitedClasses, changed)) {
+                    return true;
+                }
+            }
+            for (String instantiated : method.instantiated) {
+                instantiate(instantiated, roots);
+            }
+            for (MemberRef call : method.calls) {
+                resolveCall(call, roots);
+            }
+        }
+
+        return false;
+    }
+
+    // Parameterized test benchmark is named "<testMethod>_<argumentsLabel>", and is not present in test class
+    private String getTestMethodName(String testClassName, String benchmarkName) {
+        String name = benchmarkName;
+        while (!hasMethod(testClassName, name)) {
+            int idx = name.lastIndexOf('_');
+            if (idx <= 0) {
+                return benchmarkName;
+            }
+            name = name.substring(0, idx);
+        }
+
+        return name;
+    }
+
+    private boolean hasMethod(String className, String methodName) {
+        while (className != null && classes.containsKey(className)) {
+            ClassNode node = classes.get(className);
+            for (MethodNode method : node.methods.values()) {
+                if (method.name.equals(methodName)) {
+                    return true;
+                }
+            }
+            className = node.superName;
+        }
+
+        return false;
+    }
+
+    // Class initialization and header: any change there affects all code using class
+    private boolean reachClass(String className, Deque<String> roots, Set<String> visitedClasses,
+            Set<String> changed) {
+        ClassNode node = classes.get(className);
+        while (node != null) {
+            if (changed.contains(node.name + "#" + HEADER)) {
+                LOGGER.debug("Changed class header: {}", node.name);
+                return true;
+            }
+            if (node.methods.containsKey(CLINIT)) {
+                roots.add(node.name + "#" + CLINIT);
+            }
+            node = node.superName == null ? null : classes.get(node.superName);
+            if (node != null && !visitedClasses.add(node.name)) {
+                break;
+            }
+        }
+
+        return false;
+    }
+
+    // Instances may be handed to code outside of analyzed classes, which calls back overridden methods
+    private void instantiate(String className, Deque<String> roots) {
+        boolean libraryType = hasLibrarySuperType(className, new HashSet<>());
+        String cn = className;
+        while (cn != null && classes.containsKey(cn)) {
+            ClassNode node = classes.get(cn);
+            for (MethodNode method : node.methods.values()) {
+                if (method.isVirtual() && (libraryType || OBJECT_METHODS.contains(method.key))) {
+                    roots.add(node.name + "#" + method.key);
+                }
+            }
+            cn = node.superName;
+        }
+    }
+
+    private boolean hasLibrarySuperType(String className, Set<String> visited) {
+        if (className == null || OBJECT_CLASS.equals(className) || !visited.add(className)) {
+            return false;
+        }
+        ClassNode node = classes.get(className);
+        if (node == null) {
+            return true;
+        }
+        for (String superType : node.getSuperTypes()) {
+            if (hasLibrarySuperType(superType, visited)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private void resolveCall(MemberRef call, Deque<String> roots) {
+        String methodKey = call.name + call.descriptor;
+        // Declared or inherited implementation
+        String declaring = findDeclaring(call.owner, methodKey, new HashSet<>());
+        if (declaring != null) {
+            roots.add(declaring + "#" + methodKey);
+        }
+        if (call.virtual) {
+            // Overrides within analyzed sub classes
+            Deque<String> subs = new ArrayDeque<>(subClasses.getOrDefault(call.owner, Collections.emptySet()));
+            Set<String> visited = new HashSet<>();
+            while (!subs.isEmpty()) {
+                String sub = subs.poll();
+                if (!visited.add(sub)) {
+                    continue;
+                }
+                ClassNode node = classes.get(sub);
+                if (node != null && node.methods.containsKey(methodKey)) {
+                    roots.add(sub + "#" + methodKey);
+                }
+                subs.addAll(subClasses.getOrDefault(sub, Collections.emptySet()));
+            }
+        }
+    }
+
+    private String findDeclaring(String className, String methodKey, Set<String> visited) {
+        if (className == null || !visited.add(className)) {
+            return null;
+        }
+        ClassNode node = classes.get(className);
+        if (node == null) {
+            return null;
+        }
+        if (node.methods.containsKey(methodKey)) {
+            return node.name;
+        }
+        for (String superType : node.getSuperTypes()) {
+            String declaring = findDeclaring(superType, methodKey, visited);
+            if (declaring != null) {
+                return declaring;
+            }
+        }
+
+        return null;
+    }
+
+    public static Map<String, String> loadState(File stateFile) {
+        Map<String, String> hashes = new HashMap<>();
+        if (!stateFile.exists()) {
+            return hashes;
+        }
+        Properties props = new Properties();
+        try (Reader rdr = new BufferedReader(
+                new InputStreamReader(new FileInputStream(stateFile), StandardCharsets.UTF_8))) {
+            props.load(rdr);
+        } catch (IOException exc) {
+            LOGGER.error("Failed to load impact analysis state from: {}, reason: {}", stateFile,
+                    exc.getLocalizedMessage());
+        }
+        for (String key : props.stringPropertyNames()) {
+            hashes.put(key, props.getProperty(key));
+        }
+
+        return hashes;
+    }
+
+    public static void storeState(File stateFile, Map<String, String> hashes) {
+        Properties props = new Properties();
+        props.putAll(hashes);
+        try (Writer wrt = new BufferedWriter(
+                new OutputStreamWriter(new FileOutputStream(stateFile), StandardCharsets.UTF_8))) {
+            props.store(wrt, "CyBench T2B change impact analysis state");
+        } catch (IOException exc) {
+            LOGGER.error("Failed to store impact analysis state to: {}, reason: {}", stateFile,
+                    exc.getLocalizedMessage());
+        }
+    }
+
+    private static class MemberRef {
+        private final String owner;
+        private final String name;
+        private final String descriptor;
+        private final boolean virtual;
+
+        MemberRef(String owner, String name, String descriptor, boolean virtual) {
+            this.owner = owner;
+            this.name = name;
+            this.descriptor = descriptor;
+            this.virtual = virtual;
+        }
+    }
+
+    private static class ClassNode {
+        private final String name;
+        private final String superName;
+        private final String[] interfaces;
+        private final String headerHash;
+        private final Map<String, MethodNode> methods = new HashMap<>();
+
+        ClassNode(ClassFile cf) {
+            name = cf.getName();
+            superName = cf.isInterface() ? null : cf.getSuperclass();
+            interfaces = cf.getInterfaces();
+
+            StringBuilder header = new StringBuilder();
+            header.append(cf.getAccessFlags()).append(' ').append(superName).append(' ')
+                    .append(String.join(",", interfaces));
+            for (FieldInfo field : cf.getFields()) {
+                header.append('\n').append(field.getAccessFlags()).append(' ').append(field.getName()).append(' ')
+                        .append(field.getDescriptor());
+                if (field.getConstantValue() != 0) {
+                    header.append(" = ").append(field.getConstPool().getLdcValue(field.getConstantValue()));
+                }
+            }
+
+            BootstrapMethodsAttribute bootstrap = (BootstrapMethodsAttribute) cf
+                    .getAttribute(BootstrapMethodsAttribute.tag);
+            for (MethodInfo method : cf.getMethods()) {
+                MethodNode node = new MethodNode(method, bootstrap);
+                methods.put(node.key, node);
+            }
+            // Adding or removing non-private method changes resolution of calls made over class or its sub classes
+            for (String methodKey : new TreeSet<>(methods.keySet())) {
+                MethodNode method = methods.get(methodKey);
+                if ((method.accessFlags & AccessFlag.PRIVATE) == 0 && !method.name.startsWith("<")) {
+                    header.append('\n').append(method.accessFlags).append(' ').append(methodKey);
+                }
+            }
+            headerHash = hash(header.toString().getBytes(StandardCharsets.UTF_8));
+        }
+
+        Collection<String> getSuperTypes() {
+            List<String> superTypes = new ArrayList<>(interfaces.length + 1);
+            if (superName != null) {
+                superTypes.add(superName);
+            }
+            superTypes.addAll(Arrays.asList(interfaces));
+
+            return superTypes;
+        }
+    }
+
+    private static class MethodNode {
+        private final String name;
+        private final String key;
+        private final int accessFlags;
+        private final boolean annotated;
+        private final String hash;
+        private final List<MemberRef> calls = new ArrayList<>();
+        private final Set<String> usedClasses = new HashSet<>();
+        private final Set<String> instantiated = new HashSet<>();
+
+        MethodNode(MethodInfo method, BootstrapMethodsAttribute bootstrap) {
+            name = method.getName();
+            key = name + method.getDescriptor();
+            accessFlags = method.getAccessFlags();
+            annotated = method.getAttribute(AnnotationsAttribute.visibleTag) != null;
+            // Constant pool indexes differ between compilations, so referenced constants are hashed resolved
+            StringBuilder code = new StringBuilder();
+            code.append(accessFlags).append(' ').append(key);
+            CodeAttribute codeAttr = method.getCodeAttribute();
+            if (codeAttr != null) {
+                try {
+                    walkCode(codeAttr, method.getConstPool(), bootstrap, code);
+                } catch (BadBytecode exc) {
+                    code.append("\nbad:").append(Arrays.hashCode(codeAttr.getCode()));
+                }
+            }
+            hash = hash(code.toString().getBytes(StandardCharsets.UTF_8));
+        }
+
+        boolean isVirtual() {
+            return (accessFlags & (AccessFlag.STATIC | AccessFlag.PRIVATE)) == 0 && !name.startsWith("<");
+        }
+
+        private void walkCode(CodeAttribute codeAttr, ConstPool cp, BootstrapMethodsAttribute bootstrap,
+                StringBuilder code) throws BadBytecode {
+            byte[] bytes = codeAttr.getCode();
+            CodeIterator it = codeAttr.iterator();
+            while (it.hasNext()) {
+                int idx = it.next();
+                int next = it.hasNext() ? it.lookAhead() : bytes.length;
+                int op = it.byteAt(idx);
+                code.append('\n').append(op);
+                switch (op) {
+                case Opcode.INVOKEVIRTUAL:
+                case Opcode.INVOKEINTERFACE:
+                case Opcode.INVOKESPECIAL:
+                case Opcode.INVOKESTATIC:
+                    MemberRef call = memberRef(cp, it.u16bitAt(idx + 1),
+                            op == Opcode.INVOKEVIRTUAL || op == Opcode.INVOKEINTERFACE);
+                    calls.add(call);
+                    usedClasses.add(call.owner);
+                    code.append(' ').append(call.owner).append('#').append(call.name).append(call.descriptor);
+                    break;
+                case Opcode.GETSTATIC:
+                case Opcode.PUTSTATIC:
+                case Opcode.GETFIELD:
+                case Opcode.PUTFIELD:
+                    MemberRef field = memberRef(cp, it.u16bitAt(idx + 1), false);
+                    usedClasses.add(field.owner);
+                    code.append(' ').append(field.owner).append('#').append(field.name).append(field.descriptor);
+                    break;
+                case Opcode.NEW:
+                    String newClass = cp.getClassInfo(it.u16bitAt(idx + 1));
+                    instantiated.add(newClass);
+                    usedClasses.add(newClass);
+                    code.append(' ').append(newClass);
+                    break;
+                case Opcode.CHECKCAST:
+                case Opcode.INSTANCEOF:
+                case Opcode.ANEWARRAY:
+                case Opcode.MULTIANEWARRAY:
+                    code.append(' ').append(cp.getClassInfo(it.u16bitAt(idx + 1)));
+                    code.append(' ').append(bytesString(bytes, idx + 3, next));
+                    break;
+                case Opcode.LDC:
+                    code.append(' ').append(constant(cp, it.byteAt(idx + 1)));
+                    break;
+                case Opcode.LDC_W:
+                case Opcode.LDC2_W:
+                    code.append(' ').append(constant(cp, it.u16bitAt(idx + 1)));
+                    break;
+                case Opcode.INVOKEDYNAMIC:
+                    walkInvokeDynamic(cp, it.u16bitAt(idx + 1), bootstrap, code);
+                    break;
+                default:
+                    code.append(' ').append(bytesString(bytes, idx + 1, next));
+                }
+            }
+            ExceptionTable exceptions = codeAttr.getExceptionTable();
+            for (int i = 0; i < exceptions.size(); i++) {
+                code.append("\ncatch ").append(exceptions.startPc(i)).append(' ').append(exceptions.endPc(i))
+                        .append(' ').append(exceptions.handlerPc(i)).append(' ')
+                        .append(exceptions.catchType(i) == 0 ? "*" : cp.getClassInfo(exceptions.catchType(i)));
+            }
+        }
+
+        // Lambdas and method references: implementation method handle is passed as bootstrap argument
+        private void walkInvokeDynamic(ConstPool cp, int cpIdx, BootstrapMethodsAttribute bootstrap,
+                StringBuilder code) {
+            int nameAndType = cp.getInvokeDynamicNameAndType(cpIdx);
+            code.append(' ').append(cp.getUtf8Info(cp.getNameAndTypeName(nameAndType)))
+                    .append(cp.getUtf8Info(cp.getNameAndTypeDescriptor(nameAndType)));
+            if (bootstrap == null) {
+                return;
+            }
+            BootstrapMethodsAttribute.BootstrapMethod bsm = bootstrap.getMethods()[cp
+                    .getInvokeDynamicBootstrap(cpIdx)];
+            code.append(' ').append(methodHandle(cp, bsm.methodRef, null));
+            for (int arg : bsm.arguments) {
+                if (cp.getTag(arg) == ConstPool.CONST_MethodHandle) {
+                    code.append(' ').append(methodHandle(cp, arg, calls));
+                } else {
+                    code.append(' ').append(constant(cp, arg));
+                }
+            }
+        }
+
+        private String methodHandle(ConstPool cp, int cpIdx, List<MemberRef> handleCalls) {
+            MemberRef ref = memberRef(cp, cp.getMethodHandleIndex(cpIdx), true);
+            if (handleCalls != null) {
+                handleCalls.add(ref);
+                usedClasses.add(ref.owner);
+                if (ref.name.equals("<init>")) {
+                    instantiated.add(ref.owner);
+                }
+            }
+
+            return cp.getMethodHandleKind(cpIdx) + ":" + ref.owner + "#" + ref.name + ref.descriptor;
+        }
+
+        private static MemberRef memberRef(ConstPool cp, int cpIdx, boolean virtual) {
+            int nameAndType = cp.getMemberNameAndType(cpIdx);
+            return new MemberRef(cp.getClassInfo(cp.getMemberClass(cpIdx)),
+                    cp.getUtf8Info(cp.getNameAndTypeName(nameAndType)),
+                    cp.getUtf8Info(cp.getNameAndTypeDescriptor(nameAndType)), virtual);
+        }
+
+        private static String constant(ConstPool cp, int cpIdx) {
+            switch (cp.getTag(cpIdx)) {
+            case ConstPool.CONST_Class:
+                return "class " + cp.getClassInfo(cpIdx);
+            case ConstPool.CONST_MethodType:
+                return "type " + cp.getUtf8Info(cp.getMethodTypeInfo(cpIdx));
+            case ConstPool.CONST_MethodHandle:
+                MemberRef ref = memberRef(cp, cp.getMethodHandleIndex(cpIdx), false);
+                return "handle " + ref.owner + "#" + ref.name + ref.descriptor;
+            default:
+                return String.valueOf(cp.getLdcValue(cpIdx));
+            }
+        }
+
+        private static String bytesString(byte[] bytes, int from, int to) {
+            return Arrays.toString(Arrays.copyOfRange(bytes, from, Math.max(from, to)));
+        }
+    }
+
+    private static String hash(byte[] bytes) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(bytes);
+            return Base64.getEncoder().withoutPadding().encodeToString(Arrays.copyOf(digest, 16));
+        } catch (NoSuchAlgorithmException exc) {
+            throw new IllegalStateException(exc);
+        }
+    }
+}
@@ -0,0 +1,199 @@
+/*
+ * Copyright (C) 2020-2022, K2N.IO.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA
+ *
+ */
+
+package com.gocypher.cybench.t2b.discovery;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+import org.slf4j.Logger;
+
+import com.gocypher.cybench.t2b.utils.LogUtils;
+
+import javassist.bytecode.*;
+import javassist.bytecode.annotation.Annotation;
+
+public class TestClassIndex {
+    private static Logger LOGGER = LogUtils.getLogger(TestClassIndex.class);
+
+    private final Set<String> testAnnotations;
+    private final Set<String> testAnnotationDescriptors;
+    private final Map<String, Entry> entries = new LinkedHashMap<>();
+
+    public TestClassIndex(Collection<String> testAnnotations) {
+        this.testAnnotations = new HashSet<>(testAnnotations);
+        this.testAnnotationDescriptors = new HashSet<>(testAnnotations.size());
+        for (String annotation : testAnnotations) {
+            testAnnotationDescriptors.add(Descriptor.of(annotation));
+        }
+    }
+
+    public Entry scan(Path classFile) throws IOException {
+        return index(Files.readAllBytes(classFile), classFile);
+    }
+
+    public Entry index(byte[] classBytes, Path source) throws IOException {
+        ClassFile classFile = new ClassFile(new DataInputStream(new ByteArrayInputStream(classBytes)));
+        if (classFile.isInterface() || isSyntheticOrAnnotation(classFile)
+                || classFile.getName().endsWith("module-info") || classFile.getName().endsWith("package-info")) {
+            return null;
+        }
+
+        Entry entry = new Entry(classFile.getName(), classFile.getSuperclass(), source,
+                classFile.isAbstract());
+        // Cheap rejection: if none of test annotation types is referenced by constant pool, there is no need to walk
+        // methods attributes
+        if (hasTestAnnotationReference(classFile.getConstPool())) {
+            for (MethodInfo methodInfo : classFile.getMethods()) {
+                Set<String> methodAnnotations = getTestAnnotations(methodInfo);
+                if (!methodAnnotations.isEmpty()) {
+                    entry.testMethods.put(methodInfo.getName() + methodInfo.getDescriptor(), methodAnnotations);
+                }
+            }
+        }
+        entries.put(entry.getClassName(), entry);
+
+        return entry;
+    }
+
+    private static boolean isSyntheticOrAnnotation(ClassFile classFile) {
+        int flags = classFile.getAccessFlags();
+        return (flags & AccessFlag.ANNOTATION) != 0 || (flags & AccessFlag.SYNTHETIC) != 0;
+    }
+
+    private boolean hasTestAnnotationReference(ConstPool constPool) {
+        for (int i = 1; i < constPool.getSize(); i++) {
+            if (constPool.getTag(i) == ConstPool.CONST_Utf8
+                    && testAnnotationDescriptors.contains(constPool.getUtf8Info(i))) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private Set<String> getTestAnnotations(MethodInfo methodInfo) {
+        AnnotationsAttribute annotationsAttribute = (AnnotationsAttribute) methodInfo
+                .getAttribute(AnnotationsAttribute.visibleTag);
+        if (annotationsAttribute == null) {
+            return Collections.emptySet();
+        }
+
+        Set<String> methodAnnotations = new LinkedHashSet<>(2);
+        for (Annotation annotation : annotationsAttribute.getAnnotations()) {
+            if (testAnnotations.contains(annotation.getTypeName())) {
+                methodAnnotations.add(annotation.getTypeName());
+            }
+        }
+
+        return methodAnnotations;
+    }
+
+    public Entry getEntry(String className) {
+        return entries.get(className);
+    }
+
+    public Collection<Entry> getEntries() {
+        return entries.values();
+    }
+
+    public boolean isTestClass(String className) {
+        Entry entry = entries.get(className);
+        if (entry == null || entry.isAbstract()) {
+            return false;
+        }
+
+        Set<String> visited = new HashSet<>();
+        // Test methods can be inherited from indexed (abstract) super classes
+        while (entry != null && visited.add(entry.getClassName())) {
+            if (entry.hasTestMethods()) {
+                return true;
+            }
+            entry = entries.get(entry.getSuperClassName());
+        }
+
+        return false;
+    }
+
+    public List<Entry> getTestClasses() {
+        List<Entry> testClasses = new ArrayList<>();
+        for (Entry entry : entries.values()) {
+            if (isTestClass(entry.getClassName())) {
+                testClasses.add(entry);
+            } else {
+                LOGGER.debug("Skipping non-test class: {}", entry.getClassName());
+            }
+        }
+
+        return testClasses;
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public static class Entry {
+        private final String className;
+        private final String superClassName;
+        private final Path source;
+        private final boolean isAbstract;
+        private final Map<String, Set<String>> testMethods = new LinkedHashMap<>();
+
+        Entry(String className, String superClassName, Path source, boolean isAbstract) {
+            this.className = className;
+            this.superClassName = superClassName;
+            this.source = source;
+            this.isAbstract = isAbstract;
+        }
+
+        public String getClassName() {
+            return className;
+        }
+
+        public String getSuperClassName() {
+            return superClassName;
+        }
+
+        public Path getSource() {
+            return source;
+        }
+
+        public boolean isAbstract() {
+            return isAbstract;
+        }
+
+        public boolean hasTestMethods() {
+            return !testMethods.isEmpty();
+        }
+
+        // method name and descriptor -> test annotation types
+        public Map<String, Set<String>> getTestMethods() {
+            return testMethods;
+        }
+
+        @Override
+        public String toString() {
+            return className;
+        }
+    }
+}
@@ -0,0 +1,223 @@
+/*
+ * Copyright (C) 2020-2022, K2N.IO.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA
+ *
+ */
+
+package com.gocypher.cybench.t2b.discovery;
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+import java.util.regex.Pattern;
+
+import org.slf4j.Logger;
+
+import com.gocypher.cybench.t2b.utils.LogUtils;
+
+// Filters translated test classes and methods. Patterns are comma separated, having form
+// "classPattern[#methodPattern]". Class pattern is a glob over qualified class name: "*" matches within package
+// segment, "**" matches any chars, "?" matches single char. Class pattern without dots is matched against simple
+// class name. Pattern prefixed with "regex:" is a regular expression over "qualifiedClassName#methodName".
+public class TestFilter {
+    private static Logger LOGGER = LogUtils.getLogger(TestFilter.class);
+
+    public static final String SYS_PROP_INCLUDE = "t2b.include";
+    public static final String SYS_PROP_EXCLUDE = "t2b.exclude";
+    private static final String SYS_PROP_CONFIG = "t2b.aop.cfg.path";
+    private static final String DEFAULT_CONFIG_PATH = "config/t2b.properties";
+
+    private static TestFilter instance;
+
+    private final List<FilterPattern> includes;
+    private final List<FilterPattern> excludes;
+
+    public TestFilter(String includes, String excludes) {
+        this.includes = parsePatterns(includes);
+        this.excludes = parsePatterns(excludes);
+    }
+
+    public static synchronized TestFilter getInstance() {
+        if (instance == null) {
+            instance = load();
+        }
+        return instance;
+    }
+
+    // Reads filters configuration again, e.g. on new daemon translation request
+    public static synchronized void reload() {
+        instance = load();
+    }
+
+    private static TestFilter load() {
+        Properties cfgProps = new Properties();
+        String cfgPath = System.getProperty(SYS_PROP_CONFIG, DEFAULT_CONFIG_PATH);
+        if (new File(cfgPath).exists()) {
+            try (Reader rdr = new BufferedReader(new FileReader(cfgPath))) {
+                cfgProps.load(rdr);
+            } catch (IOException exc) {
+                LOGGER.error("Failed to load filters config from: {}, reason: {}", cfgPath,
+                        exc.getLocalizedMessage());
+            }
+        }
+
+        String includes = System.getProperty(SYS_PROP_INCLUDE, cfgProps.getProperty(SYS_PROP_INCLUDE));
+        String excludes = System.getProperty(SYS_PROP_EXCLUDE, cfgProps.getProperty(SYS_PROP_EXCLUDE));
+        TestFilter filter = new TestFilter(includes, excludes);
+        if (!filter.isEmpty()) {
+            LOGGER.info("Using test filters: include={}, exclude={}", includes, excludes);
+        }
+        return filter;
+    }
+
+    public boolean isEmpty() {
+        return includes.isEmpty() && excludes.isEmpty();
+    }
+
+    // Class is included when any of its methods may be included, and it is not excluded as whole
+    public boolean isClassIncluded(String className) {
+        String name = normalize(className);
+        if (!includes.isEmpty()) {
+            boolean included = false;
+            for (FilterPattern pattern : includes) {
+                if (pattern.matchesClass(name)) {
+                    included = true;
+                    break;
+                }
+            }
+            if (!included) {
+                return false;
+            }
+        }
+        for (FilterPattern pattern : excludes) {
+            if (pattern.isClassPattern() && pattern.matchesClass(name)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public boolean isMethodIncluded(String className, String methodName) {
+        String name = normalize(className);
+        if (!includes.isEmpty()) {
+            boolean included = false;
+            for (FilterPattern pattern : includes) {
+                if (pattern.matches(name, methodName)) {
+                    included = true;
+                    break;
+                }
+            }
+            if (!included) {
+                return false;
+            }
+        }
+        for (FilterPattern pattern : excludes) {
+            if (pattern.matches(name, methodName)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String normalize(String className) {
+        return className.replace('$', '.');
+    }
+
+    private static List<FilterPattern> parsePatterns(String patterns) {
+        if (patterns == null || patterns.trim().isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<FilterPattern> patternList = new ArrayList<>();
+        for (String pattern : patterns.split(",")) {
+            pattern = pattern.trim();
+            if (!pattern.isEmpty()) {
+                try {
+                    patternList.add(new FilterPattern(pattern));
+                } catch (Exception exc) {
+                    LOGGER.error("Invalid test filter pattern: {}, reason: {}", pattern, exc.getLocalizedMessage());
+                }
+            }
+        }
+        return patternList;
+    }
+
+    static Pattern globToRegex(String glob) {
+        StringBuilder regex = new StringBuilder();
+        for (int i = 0; i < glob.length(); i++) {
+            char c = glob.charAt(i);
+            if (c == '*') {
+                if (i + 1 < glob.length() && glob.charAt(i + 1) == '*') {
+                    regex.append(".*");
+                    i++;
+                } else {
+                    regex.append("[^.]*");
+                }
+            } else if (c == '?') {
+                regex.append("[^.]");
+            } else {
+                regex.append(Pattern.quote(String.valueOf(c)));
+            }
+        }
+        return Pattern.compile(regex.toString());
+    }
+
+    private static class FilterPattern {
+        private final Pattern regex;
+        private final Pattern classPattern;
+        private final Pattern methodPattern;
+
+        FilterPattern(String pattern) {
+            if (pattern.startsWith("regex:")) {
+                regex = Pattern.compile(pattern.substring("regex:".length()));
+                classPattern = null;
+                methodPattern = null;
+            } else {
+                regex = null;
+                int methodIdx = pattern.indexOf('#');
+                String classGlob = methodIdx < 0 ? pattern : pattern.substring(0, methodIdx);
+                String methodGlob = methodIdx < 0 ? null : pattern.substring(methodIdx + 1);
+                // Simple name (nested one included, e.g. Outer$Inner) matches class in any package
+                boolean simpleName = classGlob.indexOf('.') < 0;
+                Pattern classRegex = globToRegex(classGlob.isEmpty() ? "**" : normalize(classGlob));
+                classPattern = simpleName ? Pattern.compile("(?:.*\\.)?" + classRegex.pattern()) : classRegex;
+                methodPattern = methodGlob == null || methodGlob.isEmpty() || "*".equals(methodGlob) ? null
+                        : globToRegex(methodGlob);
+            }
+        }
+
+        // Pattern not limiting methods, so it applies to class as whole
+        boolean isClassPattern() {
+            return regex == null && methodPattern == null;
+        }
+
+        boolean matchesClass(String className) {
+            if (regex != null) {
+                // Can't tell methods part of regex, so class may only be rejected by method match
+                return true;
+            }
+            return classPattern.matcher(className).matches();
+        }
+
+        boolean matches(String className, String methodName) {
+            if (regex != null) {
+                return regex.matcher(className + "#" + methodName).matches();
+            }
+            return matchesClass(className) && (methodPattern == null || methodPattern.matcher(methodName).matches());
+        }
+    }
+}
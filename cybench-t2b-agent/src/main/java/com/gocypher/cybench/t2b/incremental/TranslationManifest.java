@@ -0,0 +1,306 @@
+/*
+ * Copyright (C) 2020-2022, K2N.IO.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA
+ *
+ */
+
+package com.gocypher.cybench.t2b.incremental;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+
+import org.slf4j.Logger;
+
+import com.gocypher.cybench.t2b.discovery.TestClassIndex;
+import com.gocypher.cybench.t2b.utils.LogUtils;
+
+import javassist.bytecode.AnnotationsAttribute;
+import javassist.bytecode.AttributeInfo;
+import javassist.bytecode.ClassFile;
+import javassist.bytecode.MethodInfo;
+import javassist.bytecode.annotation.*;
+
+public class TranslationManifest {
+    private static Logger LOGGER = LogUtils.getLogger(TranslationManifest.class);
+
+    public static final String MANIFEST_FILE = ".t2bManifest";
+
+    private static final String CONFIG_HASH_KEY = "config.hash";
+    private static final String CLASS_HASH_PREFIX = "class.";
+    private static final String GENERATED_PREFIX = "generated.";
+
+    private static final String JUNIT5_PARAMS_PACKAGE = "org.junit.jupiter.params.";
+    private static final String TESTNG_ANNOTATIONS_PACKAGE = "org.testng.annotations.";
+    private static final String METHOD_SOURCE_ANNOTATION = "org.junit.jupiter.params.provider.MethodSource";
+
+    private static final String[] CONFIG_FILE_PROPS = { //
+            "t2b.metadata.cfg.path", "config/metadata.properties" //
+            , "t2b.aop.cfg.path", "config/t2b.properties" //
+            , "t2b.benchmark.cfg.path", "config/t2b-benchmarks.properties" //
+    };
+    private static final String[] NON_CONFIG_SYS_PROPS = { //
+            "t2b.session.", "t2b.build.dir", "t2b.test.dir", "t2b.main.dir", "t2b.bench.dir", "t2b.translate.threads" //
+            , "t2b.daemon.", "t2b.props.dir", "t2b.bench.jar", "t2b.stats.", "t2b.cds", "t2b.impact" //
+    };
+
+    private final File manifestFile;
+    private final Properties entries = new Properties();
+    private final Map<String, String> superClassHashes = new HashMap<>();
+
+    private TranslationManifest(File benchDir) {
+        this.manifestFile = new File(benchDir, MANIFEST_FILE);
+    }
+
+    public static TranslationManifest load(File benchDir) {
+        TranslationManifest manifest = new TranslationManifest(benchDir);
+        if (manifest.manifestFile.exists()) {
+            try (Reader rdr = new BufferedReader(new InputStreamReader(new FileInputStream(manifest.manifestFile),
+                    StandardCharsets.UTF_8))) {
+                manifest.entries.load(rdr);
+            } catch (IOException exc) {
+                LOGGER.error("Failed to load translation manifest from: {}, reason: {}", manifest.manifestFile,
+                        exc.getLocalizedMessage());
+                manifest.entries.clear();
+            }
+        }
+
+        return manifest;
+    }
+
+    public static boolean isReusable(File benchDir, String configHash) {
+        TranslationManifest manifest = load(benchDir);
+        return configHash.equals(manifest.entries.getProperty(CONFIG_HASH_KEY));
+    }
+
+    public void store(String configHash) {
+        entries.setProperty(CONFIG_HASH_KEY, configHash);
+        try (Writer wrt = new BufferedWriter(
+                new OutputStreamWriter(new FileOutputStream(manifestFile), StandardCharsets.UTF_8))) {
+            entries.store(wrt, "CyBench T2B translation manifest");
+        } catch (IOException exc) {
+            LOGGER.error("Failed to store translation manifest to: {}, reason: {}", manifestFile,
+                    exc.getLocalizedMessage());
+        }
+    }
+
+    public boolean isUnchanged(String className, String classHash) {
+        return classHash != null && classHash.equals(entries.getProperty(CLASS_HASH_PREFIX + className));
+    }
+
+    public void putClass(String className, String classHash) {
+        entries.setProperty(CLASS_HASH_PREFIX + className, classHash);
+    }
+
+    public void removeClass(String className) {
+        entries.remove(CLASS_HASH_PREFIX + className);
+        entries.remove(GENERATED_PREFIX + className);
+    }
+
+    public Set<String> getClassNames() {
+        Set<String> classNames = new LinkedHashSet<>();
+        for (String key : entries.stringPropertyNames()) {
+            if (key.startsWith(CLASS_HASH_PREFIX)) {
+                classNames.add(key.substring(CLASS_HASH_PREFIX.length()));
+            }
+        }
+
+        return classNames;
+    }
+
+    public Collection<String> getGeneratedClasses(String className) {
+        String generated = entries.getProperty(GENERATED_PREFIX + className);
+        if (generated == null || generated.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        return Arrays.asList(generated.split(","));
+    }
+
+    public void putGeneratedClasses(String className, Collection<String> generatedClasses) {
+        if (generatedClasses == null || generatedClasses.isEmpty()) {
+            entries.remove(GENERATED_PREFIX + className);
+        } else {
+            entries.setProperty(GENERATED_PREFIX + className, String.join(",", generatedClasses));
+        }
+    }
+
+    public String computeClassHash(TestClassIndex.Entry classEntry, TestClassIndex classIndex,
+            ClassLoader classLoader) {
+        try {
+            MessageDigest digest = newDigest();
+            byte[] classBytes = Files.readAllBytes(classEntry.getSource());
+            digest.update(classBytes);
+            digest.update(getSuperClassHash(classEntry.getSuperClassName(), classIndex, classLoader)
+                    .getBytes(StandardCharsets.UTF_8));
+            ClassFile classFile = new ClassFile(new DataInputStream(new ByteArrayInputStream(classBytes)));
+            for (String sourceClass : getArgumentSourceClasses(classFile)) {
+                digest.update(getSuperClassHash(sourceClass, classIndex, classLoader).getBytes(StandardCharsets.UTF_8));
+            }
+
+            return toHex(digest.digest());
+        } catch (Exception exc) {
+            LOGGER.warn("Failed to compute hash for class: {}, reason: {}", classEntry.getClassName(),
+                    exc.getLocalizedMessage());
+            return null;
+        }
+    }
+
+    // Classes providing test arguments (external factory methods, data provider classes, enums) define benchmarks too
+    static Set<String> getArgumentSourceClasses(ClassFile classFile) {
+        Set<String> classNames = new TreeSet<>();
+        addArgumentSourceClasses(classFile.getAttribute(AnnotationsAttribute.visibleTag), classNames);
+        for (MethodInfo method : classFile.getMethods()) {
+            addArgumentSourceClasses(method.getAttribute(AnnotationsAttribute.visibleTag), classNames);
+        }
+        classNames.remove(classFile.getName());
+
+        return classNames;
+    }
+
+    private static void addArgumentSourceClasses(AttributeInfo attr, Set<String> classNames) {
+        if (!(attr instanceof AnnotationsAttribute)) {
+            return;
+        }
+        for (Annotation ann : ((AnnotationsAttribute) attr).getAnnotations()) {
+            String annType = ann.getTypeName();
+            if ((annType.startsWith(JUNIT5_PARAMS_PACKAGE) || annType.startsWith(TESTNG_ANNOTATIONS_PACKAGE))
+                    && ann.getMemberNames() != null) {
+                for (String member : ann.getMemberNames()) {
+                    addClassNames(ann.getMemberValue(member), annType.equals(METHOD_SOURCE_ANNOTATION), classNames);
+                }
+            }
+        }
+    }
+
+    private static void addClassNames(MemberValue value, boolean methodSource, Set<String> classNames) {
+        if (value instanceof ClassMemberValue) {
+            classNames.add(((ClassMemberValue) value).getValue());
+        } else if (value instanceof ArrayMemberValue) {
+            for (MemberValue element : ((ArrayMemberValue) value).getValue()) {
+                addClassNames(element, methodSource, classNames);
+            }
+        } else if (methodSource && value instanceof StringMemberValue) {
+            // fully qualified factory method: "pkg.Factory#method"
+            String factoryMethod = ((StringMemberValue) value).getValue();
+            int idx = factoryMethod.indexOf('#');
+            if (idx > 0) {
+                classNames.add(factoryMethod.substring(0, idx));
+            }
+        }
+    }
+
+    private String getSuperClassHash(String className, TestClassIndex classIndex, ClassLoader classLoader)
+            throws Exception {
+        if (className == null || className.startsWith("java.") || className.startsWith("javax.")) {
+            return "";
+        }
+        String hash = superClassHashes.get(className);
+        if (hash != null) {
+            return hash;
+        }
+
+        byte[] classBytes;
+        String superClassName;
+        TestClassIndex.Entry classEntry = classIndex.getEntry(className);
+        if (classEntry != null) {
+            classBytes = Files.readAllBytes(classEntry.getSource());
+            superClassName = classEntry.getSuperClassName();
+        } else {
+            try (InputStream is = classLoader.getResourceAsStream(className.replace('.', '/') + ".class")) {
+                if (is == null) {
+                    return "";
+                }
+                classBytes = readBytes(is);
+            }
+            superClassName = new ClassFile(new DataInputStream(new ByteArrayInputStream(classBytes)))
+                    .getSuperclass();
+        }
+
+        MessageDigest digest = newDigest();
+        digest.update(classBytes);
+        digest.update(getSuperClassHash(superClassName, classIndex, classLoader).getBytes(StandardCharsets.UTF_8));
+        hash = toHex(digest.digest());
+        superClassHashes.put(className, hash);
+
+        return hash;
+    }
+
+    public static String computeConfigHash(String t2bVersion) {
+        MessageDigest digest = newDigest();
+        digest.update(String.valueOf(t2bVersion).getBytes(StandardCharsets.UTF_8));
+        for (int i = 0; i < CONFIG_FILE_PROPS.length; i += 2) {
+            File cfgFile = new File(System.getProperty(CONFIG_FILE_PROPS[i], CONFIG_FILE_PROPS[i + 1]));
+            if (cfgFile.exists()) {
+                try {
+                    digest.update(Files.readAllBytes(cfgFile.toPath()));
+                } catch (IOException exc) {
+                    LOGGER.warn("Failed to read configuration file: {}, reason: {}", cfgFile,
+                            exc.getLocalizedMessage());
+                }
+            }
+        }
+        Properties sysProps = System.getProperties();
+        for (String propName : new TreeSet<>(sysProps.stringPropertyNames())) {
+            if (propName.startsWith("t2b.") && !isNonConfigProperty(propName)) {
+                digest.update((propName + "=" + sysProps.getProperty(propName)).getBytes(StandardCharsets.UTF_8));
+            }
+        }
+
+        return toHex(digest.digest());
+    }
+
+    private static boolean isNonConfigProperty(String propName) {
+        for (String ncp : NON_CONFIG_SYS_PROPS) {
+            if (propName.startsWith(ncp)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException exc) {
+            throw new IllegalStateException(exc);
+        }
+    }
+
+    private static byte[] readBytes(InputStream is) throws IOException {
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int len;
+        while ((len = is.read(buffer)) != -1) {
+            os.write(buffer, 0, len);
+        }
+
+        return os.toByteArray();
+    }
+
+    private static String toHex(byte[] bytes) {
+        StringBuilder sb = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            sb.append(String.format("%02x", b));
+        }
+
+        return sb.toString();
+    }
+}
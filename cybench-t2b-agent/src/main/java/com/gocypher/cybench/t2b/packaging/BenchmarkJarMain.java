@@ -0,0 +1,77 @@
+/*
+ * Copyright (C) 2020-2022, K2N.IO.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA
+ *
+ */
+
+package com.gocypher.cybench.t2b.packaging;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+// Benchmarks jar entry point: runs JMH passing class data sharing archive made for running JVM to benchmark forks.
+// Packed into benchmarks jar as is, so it shall not depend on anything, but JMH.
+public class BenchmarkJarMain {
+
+    static final String ARCHIVE_EXTENSION = ".jsa";
+
+    private static final String JVM_ARGS_APPEND = "-jvmArgsAppend";
+
+    public static void main(String... args) throws Exception {
+        org.openjdk.jmh.Main.main(withSharedArchive(args));
+    }
+
+    static String[] withSharedArchive(String[] args) {
+        String classPath = System.getProperty("java.class.path", "");
+        String vmVersion = System.getProperty("java.vm.version");
+        if (classPath.isEmpty() || vmVersion == null) {
+            return args;
+        }
+        // Started as "java -jar", so benchmarks jar is the only class path entry
+        String jarPath = classPath.split(File.pathSeparator)[0];
+        File benchJar = new File(jarPath).getAbsoluteFile();
+        File archive = getArchiveFile(benchJar, vmVersion);
+        if (!archive.exists()) {
+            return args;
+        }
+
+        // Forks get class path of this JVM, and archive accepts only same class path it was dumped with
+        System.setProperty("java.class.path", benchJar.getPath() + classPath.substring(jarPath.length()));
+        String jvmArg = "-XX:SharedArchiveFile=" + archive.getAbsolutePath();
+        List<String> argList = new ArrayList<>(Arrays.asList(args));
+        int idx = argList.indexOf(JVM_ARGS_APPEND);
+        if (idx >= 0 && idx + 1 < argList.size()) {
+            argList.set(idx + 1, argList.get(idx + 1) + " " + jvmArg);
+        } else {
+            argList.add(0, jvmArg);
+            argList.add(0, JVM_ARGS_APPEND);
+        }
+        return argList.toArray(new String[0]);
+    }
+
+    // Archive is valid only for same JVM build, so its version makes part of the archive name
+    static File getArchiveFile(File benchJar, String vmVersion) {
+        String jarName = benchJar.getName();
+        if (jarName.toLowerCase(Locale.ROOT).endsWith(".jar")) {
+            jarName = jarName.substring(0, jarName.length() - ".jar".length());
+        }
+        return new File(benchJar.getAbsoluteFile().getParentFile(),
+                jarName + "-" + vmVersion.replaceAll("[^\\w.-]", "_") + ARCHIVE_EXTENSION);
+    }
+}
@@ -0,0 +1,400 @@
+/*
+ * Copyright (C) 2020-2022, K2N.IO.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA
+ *
+ */
+
+package com.gocypher.cybench.t2b.packaging;
+
+import java.io.*;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.*;
+import java.util.jar.Attributes;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
+import java.util.stream.Collectors;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import org.slf4j.Logger;
+
+import com.gocypher.cybench.t2b.utils.LogUtils;
+import com.gocypher.cybench.t2b.utils.T2BUtils;
+
+// Packs translated benchmarks, test and main classes (and optionally dependency jars) into single executable jar.
+// Not bundled dependency jars are copied into "<jar name>-lib" dir next to it.
+public class BenchmarkJarPackager {
+    private static Logger LOGGER = LogUtils.getLogger(BenchmarkJarPackager.class);
+
+    static final String SYS_PROP_BENCH_JAR = "t2b.bench.jar";
+    static final String SYS_PROP_BUNDLE_DEPS = "t2b.bench.jar.deps";
+    static final String SYS_PROP_MAIN_CLASS = "t2b.bench.jar.main.class";
+    private static final String DEFAULT_MAIN_CLASS = "org.openjdk.jmh.Main";
+
+    private static final String DEFAULT_JAR_NAME = "t2b-benchmarks.jar";
+    private static final String LIB_DIR_SUFFIX = "-lib";
+    private static final String INDEX_LIST = "META-INF/INDEX.LIST";
+    private static final String SERVICES_DIR = "META-INF/services/";
+    private static final String VERSIONS_DIR = "META-INF/versions/";
+
+    private final File jarFile;
+    private final boolean bundleDeps;
+    // JMH started over wrapper passing class data sharing archive to benchmark forks
+    private final boolean jarMain;
+    private final String mainClass;
+    private final Set<String> entryNames = new HashSet<>();
+    // Not bundled dependency jars copied into lib dir next to packed jar, keyed by path relative to packed jar
+    private final Map<String, File> libJars = new LinkedHashMap<>();
+    // JarIndex packages of lib dir jars. Packed jar itself is not indexed, so it can be renamed
+    private final Map<String, Set<String>> index = new LinkedHashMap<>();
+    private final Map<String, ByteArrayOutputStream> services = new LinkedHashMap<>();
+    private final Set<File> classPathDirs = new HashSet<>();
+    private JarOutputStream jarOut;
+    private int duplicates;
+
+    public BenchmarkJarPackager(File jarFile) {
+        this.jarFile = jarFile;
+        this.bundleDeps = Boolean.getBoolean(SYS_PROP_BUNDLE_DEPS);
+        this.jarMain = SharedArchiveBuilder.isEnabled() && System.getProperty(SYS_PROP_MAIN_CLASS) == null;
+        this.mainClass = jarMain ? BenchmarkJarMain.class.getName()
+                : System.getProperty(SYS_PROP_MAIN_CLASS, DEFAULT_MAIN_CLASS);
+    }
+
+    // Returns null if benchmarks jar packaging is not enabled
+    public static File getBenchJarFile(String benchDir) {
+        String benchJarArg = System.getProperty(SYS_PROP_BENCH_JAR);
+        if (benchJarArg == null || benchJarArg.isEmpty() || benchJarArg.equalsIgnoreCase("false")) {
+            return null;
+        }
+        if (benchJarArg.equalsIgnoreCase("true")) {
+            return new File(new File(benchDir).getParentFile(), DEFAULT_JAR_NAME);
+        }
+        return new File(benchJarArg);
+    }
+
+    public boolean pack(String benchDir, Collection<String> classPath) {
+        // Benchmarks dir goes first, so its META-INF/BenchmarkList wins over any other
+        Collection<File> packPaths = new LinkedHashSet<>();
+        packPaths.add(new File(benchDir));
+        for (String cpEntry : classPath) {
+            packPaths.add(new File(cpEntry));
+        }
+        for (File packPath : packPaths) {
+            if (packPath.isDirectory()) {
+                classPathDirs.add(packPath.getAbsoluteFile());
+            }
+        }
+        List<File> depJars = getDependencyJars(packPaths);
+        if (!bundleDeps && !copyLibJars(depJars)) {
+            return false;
+        }
+
+        File tmpFile = new File(jarFile.getPath() + ".tmp");
+        try {
+            jarFile.getAbsoluteFile().getParentFile().mkdirs();
+            LOGGER.info("Packing benchmarks into jar: {}, main class: {}, bundled dependencies: {}",
+                    jarFile.getAbsolutePath(), mainClass, bundleDeps ? depJars.size() : 0);
+            try (JarOutputStream out = new JarOutputStream(new BufferedOutputStream(new FileOutputStream(tmpFile)),
+                    makeManifest())) {
+                jarOut = out;
+                for (File packPath : packPaths) {
+                    addPath(packPath);
+                }
+                if (jarMain) {
+                    addClass(BenchmarkJarMain.class);
+                }
+                if (bundleDeps) {
+                    for (File depJar : depJars) {
+                        addArchive(depJar);
+                    }
+                } else {
+                    for (Map.Entry<String, File> le : libJars.entrySet()) {
+                        indexArchive(le.getKey(), le.getValue());
+                    }
+                }
+                writeServices();
+                if (!index.isEmpty()) {
+                    writeIndex();
+                }
+            }
+            Files.move(tmpFile.toPath(), jarFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            LOGGER.info("Packed {} entries into benchmarks jar, skipped {} duplicate entries", entryNames.size(),
+                    duplicates);
+            return true;
+        } catch (IOException exc) {
+            LOGGER.error("Failed to pack benchmarks jar: {}, reason: {}", jarFile.getAbsolutePath(),
+                    exc.getLocalizedMessage());
+            tmpFile.delete();
+            return false;
+        }
+    }
+
+    private Manifest makeManifest() {
+        Manifest manifest = new Manifest();
+        Attributes attributes = manifest.getMainAttributes();
+        attributes.put(Attributes.Name.MANIFEST_VERSION, "1.0");
+        attributes.put(new Attributes.Name("Created-By"), "CyBench T2B");
+        attributes.put(Attributes.Name.MAIN_CLASS, mainClass);
+        if (!libJars.isEmpty()) {
+            attributes.put(Attributes.Name.CLASS_PATH,
+                    libJars.keySet().stream().map(BenchmarkJarPackager::toUrlPath).collect(Collectors.joining(" ")));
+        }
+        return manifest;
+    }
+
+    // Jars of application class path, that are not packed as translation class path entries
+    private List<File> getDependencyJars(Collection<File> packPaths) {
+        List<File> depJars = new ArrayList<>();
+        File libDir = getLibDir(jarFile);
+        for (String cpEntry : System.getProperty("java.class.path", "").split(File.pathSeparator)) {
+            File cpFile = new File(cpEntry).getAbsoluteFile();
+            if (cpFile.isFile() && T2BUtils.isArchive(cpFile) && !packPaths.contains(cpFile)
+                    && !cpFile.equals(jarFile.getAbsoluteFile()) && !libDir.equals(cpFile.getParentFile())
+                    && !depJars.contains(cpFile)) {
+                depJars.add(cpFile);
+            }
+        }
+        return depJars;
+    }
+
+    static File getLibDir(File jarFile) {
+        String name = jarFile.getName();
+        int extIdx = name.lastIndexOf('.');
+        return new File(jarFile.getAbsoluteFile().getParentFile(),
+                (extIdx > 0 ? name.substring(0, extIdx) : name) + LIB_DIR_SUFFIX);
+    }
+
+    // Dependency jars get copied next to packed jar and referenced by relative paths, so jar and its lib dir can be
+    // shipped to other machine
+    private boolean copyLibJars(List<File> depJars) {
+        File libDir = getLibDir(jarFile);
+        try {
+            if (libDir.exists()) {
+                Files.walk(libDir.toPath()).sorted(Comparator.reverseOrder()).map(Path::toFile)
+                        .forEach(File::delete);
+            }
+            if (depJars.isEmpty()) {
+                return true;
+            }
+            Files.createDirectories(libDir.toPath());
+            Set<String> libNames = new HashSet<>();
+            for (File depJar : depJars) {
+                String libName = depJar.getName();
+                // Same named jars of different dirs (e.g. versions of module jars) get numbered
+                for (int i = 1; !libNames.add(libName.toLowerCase(Locale.ROOT)); i++) {
+                    libName = i + "-" + depJar.getName();
+                }
+                File libJar = new File(libDir, libName);
+                Files.copy(depJar.toPath(), libJar.toPath(), StandardCopyOption.REPLACE_EXISTING);
+                libJars.put(libDir.getName() + "/" + libName, libJar);
+            }
+            LOGGER.info("Copied {} dependency jars into benchmarks jar lib dir: {}", libJars.size(), libDir);
+            return true;
+        } catch (IOException exc) {
+            LOGGER.error("Failed to copy dependency jars into: {}, reason: {}", libDir, exc.getLocalizedMessage());
+            return false;
+        }
+    }
+
+    // Class-Path entries are relative URLs
+    private static String toUrlPath(String path) {
+        try {
+            return new URI(null, null, path, null).getRawPath();
+        } catch (URISyntaxException exc) {
+            return path.replace(" ", "%20");
+        }
+    }
+
+    private void addPath(File path) throws IOException {
+        if (!path.exists()) {
+            LOGGER.debug("Skipping non existing benchmarks jar entry: {}", path);
+        } else if (path.isDirectory()) {
+            addDir(path.getAbsoluteFile());
+        } else if (T2BUtils.isArchive(path)) {
+            addArchive(path);
+        }
+    }
+
+    private void addDir(File dir) throws IOException {
+        Path dirPath = dir.toPath();
+        List<Path> files = new ArrayList<>();
+        Files.walkFileTree(dirPath, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path subDir, BasicFileAttributes attrs) {
+                // Other class path dirs nested in this one are packed on their own
+                if (!subDir.equals(dirPath) && classPathDirs.contains(subDir.toFile())) {
+                    return FileVisitResult.SKIP_SUBTREE;
+                }
+                files.add(subDir);
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                files.add(file);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+        Collections.sort(files);
+
+        for (Path file : files) {
+            if (file.equals(dirPath)) {
+                continue;
+            }
+            String name = dirPath.relativize(file).toString().replace(File.separatorChar, '/');
+            if (Files.isDirectory(file)) {
+                addEntry(name + "/", null, Files.getLastModifiedTime(file).toMillis());
+            } else if (!isTranslationFile(name) && !file.toFile().equals(jarFile.getAbsoluteFile())) {
+                try (InputStream is = new BufferedInputStream(Files.newInputStream(file))) {
+                    addEntry(name, is, Files.getLastModifiedTime(file).toMillis());
+                }
+            }
+        }
+    }
+
+    private void addArchive(File archive) throws IOException {
+        try (ZipFile zipFile = new ZipFile(archive)) {
+            Enumeration<? extends ZipEntry> entries = zipFile.entries();
+            while (entries.hasMoreElements()) {
+                ZipEntry entry = entries.nextElement();
+                if (entry.isDirectory()) {
+                    addEntry(entry.getName(), null, entry.getTime());
+                } else {
+                    try (InputStream is = zipFile.getInputStream(entry)) {
+                        addEntry(entry.getName(), is, entry.getTime());
+                    }
+                }
+            }
+        }
+    }
+
+    private void indexArchive(String libPath, File archive) throws IOException {
+        Set<String> archivePackages = index.computeIfAbsent(toUrlPath(libPath), k -> new TreeSet<>());
+        try (ZipFile zipFile = new ZipFile(archive)) {
+            Enumeration<? extends ZipEntry> entries = zipFile.entries();
+            while (entries.hasMoreElements()) {
+                addIndexEntry(archivePackages, entries.nextElement().getName());
+            }
+        }
+    }
+
+    private void addClass(Class<?> cls) throws IOException {
+        String name = cls.getName().replace('.', '/') + ".class";
+        try (InputStream is = cls.getClassLoader().getResourceAsStream(name)) {
+            if (is == null) {
+                throw new FileNotFoundException(name);
+            }
+            addEntry(name, is, 0);
+        }
+    }
+
+    private void addEntry(String name, InputStream is, long time) throws IOException {
+        if (isSkippedEntry(name)) {
+            return;
+        }
+        if (is != null && name.startsWith(SERVICES_DIR)) {
+            // Service providers of all packed paths are merged
+            ByteArrayOutputStream serviceOut = services.computeIfAbsent(name, k -> new ByteArrayOutputStream());
+            copy(is, serviceOut);
+            serviceOut.write('\n');
+            return;
+        }
+        if (!entryNames.add(name)) {
+            if (is != null) {
+                duplicates++;
+                LOGGER.debug("Skipping duplicate benchmarks jar entry: {}", name);
+            }
+            return;
+        }
+
+        JarEntry jarEntry = new JarEntry(name);
+        if (time > 0) {
+            jarEntry.setTime(time);
+        }
+        jarOut.putNextEntry(jarEntry);
+        if (is != null) {
+            copy(is, jarOut);
+        }
+        jarOut.closeEntry();
+    }
+
+    private void writeServices() throws IOException {
+        for (Map.Entry<String, ByteArrayOutputStream> se : services.entrySet()) {
+            entryNames.add(se.getKey());
+            jarOut.putNextEntry(new JarEntry(se.getKey()));
+            se.getValue().writeTo(jarOut);
+            jarOut.closeEntry();
+        }
+    }
+
+    // Same layout as produced by "jar -i", except for packed jar section: its own entries are looked up before index.
+    // JVM (up to Java 20) resolves packages using index instead of opening all Class-Path jars one by one
+    private void writeIndex() throws IOException {
+        StringBuilder sb = new StringBuilder("JarIndex-Version: 1.0\n\n");
+        for (Map.Entry<String, Set<String>> ie : index.entrySet()) {
+            sb.append(ie.getKey()).append('\n');
+            for (String pkg : ie.getValue()) {
+                sb.append(pkg).append('\n');
+            }
+            sb.append('\n');
+        }
+        entryNames.add(INDEX_LIST);
+        jarOut.putNextEntry(new JarEntry(INDEX_LIST));
+        jarOut.write(sb.toString().getBytes("UTF-8"));
+        jarOut.closeEntry();
+    }
+
+    private static void addIndexEntry(Set<String> indexPackages, String name) {
+        if (name.endsWith("/") || name.equals(INDEX_LIST) || name.equalsIgnoreCase(JarFile.MANIFEST_NAME)
+                || name.startsWith(VERSIONS_DIR)) {
+            return;
+        }
+        int idx = name.lastIndexOf('/');
+        indexPackages.add(idx > 0 ? name.substring(0, idx) : name);
+    }
+
+    private static boolean isSkippedEntry(String name) {
+        String upperName = name.toUpperCase(Locale.ROOT);
+        if (upperName.equals(JarFile.MANIFEST_NAME) || upperName.equals(INDEX_LIST) || upperName.equals("META-INF/")) {
+            return true;
+        }
+        // Signatures of bundled jars are not valid for packed jar
+        if (upperName.startsWith("META-INF/") && upperName.indexOf('/', "META-INF/".length()) < 0
+                && (upperName.endsWith(".SF") || upperName.endsWith(".DSA") || upperName.endsWith(".RSA")
+                        || upperName.endsWith(".EC"))) {
+            return true;
+        }
+        return name.endsWith("module-info.class");
+    }
+
+    // Generated sources and T2B state files are not needed to run benchmarks
+    private static boolean isTranslationFile(String name) {
+        return name.endsWith(".java") || name.startsWith(".") || name.contains("/.");
+    }
+
+    private static void copy(InputStream is, OutputStream os) throws IOException {
+        byte[] buffer = new byte[8192];
+        int len;
+        while ((len = is.read(buffer)) != -1) {
+            os.write(buffer, 0, len);
+        }
+    }
+}
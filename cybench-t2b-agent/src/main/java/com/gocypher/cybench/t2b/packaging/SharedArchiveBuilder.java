@@ -0,0 +1,213 @@
+/*
+ * Copyright (C) 2020-2022, K2N.IO.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA
+ *
+ */
+
+package com.gocypher.cybench.t2b.packaging;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.jar.JarFile;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.openjdk.jmh.runner.BenchmarkList;
+import org.slf4j.Logger;
+
+import com.gocypher.cybench.t2b.utils.LogUtils;
+
+// Makes class data sharing archive of benchmarks jar classes by short training run of packed benchmarks. Application
+// classes archiving is available since Java 10, dynamic archive (single training run) since Java 13.
+public class SharedArchiveBuilder {
+    private static Logger LOGGER = LogUtils.getLogger(SharedArchiveBuilder.class);
+
+    static final String SYS_PROP_CDS = "t2b.cds";
+    static final String SYS_PROP_CDS_JAVA = "t2b.cds.java";
+    static final String SYS_PROP_TRAINING_ARGS = "t2b.cds.training.args";
+    static final String SYS_PROP_TIMEOUT = "t2b.cds.timeout";
+    // Single invocation of every benchmark: archive gets classes loaded by benchmark setup and test code run once,
+    // while time spent does not depend on benchmark modes and measurement times
+    private static final String DEFAULT_TRAINING_ARGS = "-f 0 -wi 0 -i 1 -bm ss -bs 1 -t 1";
+    // Default timeout grows with benchmarks count
+    private static final long BASE_TIMEOUT = TimeUnit.MINUTES.toMillis(2);
+    private static final long BENCHMARK_TIMEOUT = TimeUnit.SECONDS.toMillis(10);
+
+    private static final String JMH_MAIN_CLASS = "org.openjdk.jmh.Main";
+    private static final Pattern SETTINGS_PROPERTY = Pattern.compile("^\\s+([\\w.]+) = (.*)$");
+
+    private final File benchJar;
+
+    public SharedArchiveBuilder(File benchJar) {
+        this.benchJar = benchJar;
+    }
+
+    public static boolean isEnabled() {
+        return Boolean.getBoolean(SYS_PROP_CDS);
+    }
+
+    // Returns created archive file or null if archive can't be made
+    public File build() {
+        String java = getJavaExecutable();
+        Map<String, String> javaProps = getJavaProperties(java);
+        String vmVersion = javaProps.get("java.vm.version");
+        int javaVersion = getMajorVersion(javaProps.get("java.specification.version"));
+        if (vmVersion == null || javaVersion < 10) {
+            LOGGER.warn("Class data sharing archive of application classes requires Java 10+, found: {} ({}), "
+                    + "use t2b.cds.java to define other java executable", javaProps.get("java.version"), java);
+            return null;
+        }
+
+        // training arguments come as single string, while paths are passed as is since they may contain spaces
+        List<String> trainingArgs = Arrays
+                .asList(System.getProperty(SYS_PROP_TRAINING_ARGS, DEFAULT_TRAINING_ARGS).trim().split("\\s+"));
+        File archive = BenchmarkJarMain.getArchiveFile(benchJar, vmVersion);
+        File logFile = new File(archive.getPath() + ".log");
+        long timeout = getTimeout(getBenchmarksCount());
+        archive.delete();
+        LOGGER.info("Making class data sharing archive: {} using Java {}", archive, javaProps.get("java.version"));
+        boolean success;
+        if (javaVersion >= 13) {
+            success = run(logFile, false, timeout, trainingArgs, java, "-XX:ArchiveClassesAtExit=" + archive.getAbsolutePath(),
+                    "-cp", benchJar.getAbsolutePath(), JMH_MAIN_CLASS);
+        } else {
+            File classList = new File(archive.getPath() + ".lst");
+            // Java 10 requires application class data sharing to be unlocked
+            String appCDS = javaVersion == 10 ? "-XX:+UseAppCDS" : "";
+            success = run(logFile, false, timeout, trainingArgs, java, appCDS, "-Xshare:off",
+                    "-XX:DumpLoadedClassList=" + classList.getAbsolutePath(), "-cp", benchJar.getAbsolutePath(),
+                    JMH_MAIN_CLASS)
+                    && run(logFile, true, timeout, Collections.emptyList(), java, appCDS, "-Xshare:dump",
+                            "-XX:SharedClassListFile=" + classList.getAbsolutePath(),
+                            "-XX:SharedArchiveFile=" + archive.getAbsolutePath(), "-cp", benchJar.getAbsolutePath());
+            classList.delete();
+        }
+
+        if (success && archive.exists()) {
+            LOGGER.info("Created class data sharing archive: {} ({} bytes)", archive, archive.length());
+            return archive;
+        }
+        LOGGER.error("Failed to make class data sharing archive, see training run log: {}", logFile);
+        archive.delete();
+        return null;
+    }
+
+    private static String getJavaExecutable() {
+        String cdsJava = System.getProperty(SYS_PROP_CDS_JAVA);
+        if (cdsJava != null && !cdsJava.isEmpty()) {
+            return cdsJava;
+        }
+        String javaHome = System.getProperty("t2b.jdk.home");
+        if (javaHome == null || javaHome.isEmpty()) {
+            javaHome = System.getProperty("java.home");
+        }
+        return javaHome + File.separator + "bin" + File.separator + "java";
+    }
+
+    static Map<String, String> getJavaProperties(String java) {
+        Map<String, String> props = new HashMap<>();
+        try {
+            Process process = new ProcessBuilder(java, "-XshowSettings:properties", "-version")
+                    .redirectErrorStream(true).start();
+            try (BufferedReader rdr = new BufferedReader(
+                    new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = rdr.readLine()) != null) {
+                    Matcher matcher = SETTINGS_PROPERTY.matcher(line);
+                    if (matcher.matches()) {
+                        props.put(matcher.group(1), matcher.group(2).trim());
+                    }
+                }
+            }
+            process.waitFor();
+        } catch (Exception exc) {
+            LOGGER.error("Failed to get java properties of: {}, reason: {}", java, exc.getLocalizedMessage());
+        }
+        return props;
+    }
+
+    static int getMajorVersion(String specVersion) {
+        if (specVersion == null) {
+            return -1;
+        }
+        try {
+            // 1.8 for Java 8, plain number since Java 9
+            return specVersion.startsWith("1.") ? Integer.parseInt(specVersion.substring(2))
+                    : Integer.parseInt(specVersion);
+        } catch (NumberFormatException exc) {
+            return -1;
+        }
+    }
+
+    private static boolean run(File logFile, boolean append, long timeout, List<String> trainingArgs, String java,
+            String... args) {
+        List<String> command = new ArrayList<>();
+        command.add(java);
+        for (String arg : args) {
+            if (!arg.isEmpty()) {
+                command.add(arg);
+            }
+        }
+        for (String arg : trainingArgs) {
+            if (!arg.isEmpty()) {
+                command.add(arg);
+            }
+        }
+        LOGGER.info("Running: {}", String.join(" ", command));
+        try {
+            Process process = new ProcessBuilder(command).redirectErrorStream(true)
+                    .redirectOutput(append ? ProcessBuilder.Redirect.appendTo(logFile)
+                            : ProcessBuilder.Redirect.to(logFile))
+                    .start();
+            if (!process.waitFor(timeout, TimeUnit.MILLISECONDS)) {
+                process.destroyForcibly();
+                LOGGER.error("Class data sharing training run exceeded timeout of {} ms", timeout);
+                return false;
+            }
+            return process.exitValue() == 0;
+        } catch (Exception exc) {
+            LOGGER.error("Failed to run class data sharing training, reason: {}", exc.getLocalizedMessage());
+            return false;
+        }
+    }
+
+    int getBenchmarksCount() {
+        try (JarFile jar = new JarFile(benchJar);
+                InputStream is = jar.getInputStream(jar.getEntry(BenchmarkList.BENCHMARK_LIST.substring(1)))) {
+            return BenchmarkList.readBenchmarkList(is).size();
+        } catch (Exception exc) {
+            LOGGER.warn("Failed to count benchmarks of: {}, reason: {}", benchJar, exc.getLocalizedMessage());
+            return 0;
+        }
+    }
+
+    static long getTimeout(int benchmarksCount) {
+        long defaultTimeout = BASE_TIMEOUT + BENCHMARK_TIMEOUT * benchmarksCount;
+        String timeoutArg = System.getProperty(SYS_PROP_TIMEOUT);
+        if (timeoutArg == null || timeoutArg.isEmpty()) {
+            return defaultTimeout;
+        }
+        try {
+            return TimeUnit.MINUTES.toMillis(Long.parseLong(timeoutArg.trim()));
+        } catch (NumberFormatException exc) {
+            LOGGER.warn("Invalid class data sharing training timeout (minutes): {}, will use {} ms", timeoutArg,
+                    defaultTimeout);
+            return defaultTimeout;
+        }
+    }
+}
@@ -0,0 +1,339 @@
+/*
+ * Copyright (C) 2020-2022, K2N.IO.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA
+ *
+ */
+
+package com.gocypher.cybench.t2b.stats;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ClassLoadingMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.*;
+
+import org.slf4j.Logger;
+
+import com.gocypher.cybench.t2b.utils.LogUtils;
+
+// Wall time, CPU time, allocated bytes and class counts of translation phases. Nested phase time is not included
+// into enclosing phase. CPU time and allocations are measured per thread: thread running the phase and workers
+// reporting their usage, so concurrently translated modules do not count each other.
+public class TranslationStats {
+    private static Logger LOGGER = LogUtils.getLogger(TranslationStats.class);
+
+    public static final String STATS_FILE = ".benchRunStats.json";
+
+    public static final String PHASE_PREPARE = "prepare";
+    public static final String PHASE_DISCOVERY = "discovery";
+    public static final String PHASE_TRANSFORM = "transform";
+    public static final String PHASE_GENERATE = "generate";
+    public static final String PHASE_IMPACT = "impact";
+    public static final String PHASE_RESTORE = "restore";
+    public static final String PHASE_COMPILE = "compile";
+    public static final String PHASE_MANIFEST = "manifest";
+    public static final String PHASE_COMBINE = "combine";
+    public static final String PHASE_PACKAGE = "package";
+    public static final String PHASE_CDS = "cds";
+    public static final String PHASE_CLEANUP = "cleanup";
+
+    static final String SYS_PROP_TOP_CLASSES = "t2b.stats.top.classes";
+    private static final int DEFAULT_TOP_CLASSES = 10;
+
+    private static final ThreadMXBean THREAD_BEAN = ManagementFactory.getThreadMXBean();
+    private static final ClassLoadingMXBean CLASS_LOADING_BEAN = ManagementFactory.getClassLoadingMXBean();
+
+    private final String name;
+    private final long startTime = System.nanoTime();
+    private final Map<String, Phase> phases = new LinkedHashMap<>();
+    private final Deque<Phase> running = new ArrayDeque<>();
+    private final List<ClassStats> classes = new ArrayList<>();
+
+    public TranslationStats(String name) {
+        this.name = name;
+    }
+
+    public synchronized void start(String phaseName) {
+        Phase parent = running.peek();
+        if (parent != null) {
+            parent.pause();
+        }
+        Phase phase = phases.computeIfAbsent(phaseName, Phase::new);
+        phase.resume();
+        running.push(phase);
+    }
+
+    public synchronized void end(String phaseName) {
+        Phase phase = running.peek();
+        if (phase == null || !phase.name.equals(phaseName)) {
+            LOGGER.warn("Translation phase {} is not running, current phase: {}", phaseName,
+                    phase == null ? null : phase.name);
+            return;
+        }
+        phase.pause();
+        running.pop();
+        Phase parent = running.peek();
+        if (parent != null) {
+            parent.resume();
+        }
+    }
+
+    public void measure(String phaseName, Step step) throws Exception {
+        start(phaseName);
+        try {
+            step.run();
+        } finally {
+            end(phaseName);
+        }
+    }
+
+    public synchronized void count(String phaseName, String counter, long value) {
+        phases.computeIfAbsent(phaseName, Phase::new).counts.merge(counter, value, Long::sum);
+    }
+
+    // Usage of worker thread since sample was taken gets added to running phase
+    public synchronized void addWorkerUsage(Sample sample) {
+        Phase phase = running.peek();
+        if (phase != null && phase.sample.thread != sample.thread) {
+            phase.cpuNanos += threadCpuTime() - sample.cpuStart;
+            phase.allocatedBytes += threadAllocatedBytes() - sample.allocStart;
+        }
+    }
+
+    public synchronized void addClass(Sample sample, String className, int benchmarks) {
+        ClassStats cs = new ClassStats(className, benchmarks);
+        cs.wallNanos = System.nanoTime() - sample.wallStart;
+        cs.cpuNanos = threadCpuTime() - sample.cpuStart;
+        cs.allocatedBytes = threadAllocatedBytes() - sample.allocStart;
+        classes.add(cs);
+        addWorkerUsage(sample);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public static void write(File statsFile, TranslationStats global, Collection<TranslationStats> modules) {
+        long startTime = global.startTime;
+        long cpuNanos = global.getCpuNanos();
+        long allocatedBytes = global.getAllocatedBytes();
+        for (TranslationStats module : modules) {
+            startTime = Math.min(startTime, module.startTime);
+            cpuNanos += module.getCpuNanos();
+            allocatedBytes += module.getAllocatedBytes();
+        }
+        long wallNanos = System.nanoTime() - startTime;
+
+        StringBuilder json = new StringBuilder(2048);
+        json.append("{\n");
+        json.append("  \"sessionId\": ").append(quote(System.getProperty("t2b.session.id"))).append(",\n");
+        json.append("  \"wallTimeMs\": ").append(millis(wallNanos)).append(",\n");
+        json.append("  \"cpuTimeMs\": ").append(millis(cpuNanos)).append(",\n");
+        json.append("  \"allocatedBytes\": ").append(allocatedBytes).append(",\n");
+        json.append("  \"phases\": ");
+        global.appendPhases(json, "  ");
+        json.append(",\n");
+        json.append("  \"modules\": [");
+        int i = 0;
+        for (TranslationStats module : modules) {
+            json.append(i++ == 0 ? "\n" : ",\n");
+            module.appendModule(json, "    ");
+        }
+        json.append(modules.isEmpty() ? "]\n" : "\n  ]\n");
+        json.append("}\n");
+
+        try {
+            Files.write(statsFile.toPath(), json.toString().getBytes(StandardCharsets.UTF_8));
+            LOGGER.info("Translation took {} ms (CPU {} ms, allocated {} bytes), stats written to: {}",
+                    millis(wallNanos), millis(cpuNanos), allocatedBytes, statsFile);
+        } catch (IOException exc) {
+            LOGGER.error("Failed to write translation stats to: {}, reason: {}", statsFile,
+                    exc.getLocalizedMessage());
+        }
+    }
+
+    private synchronized long getCpuNanos() {
+        long cpuNanos = 0;
+        for (Phase phase : phases.values()) {
+            cpuNanos += phase.cpuNanos;
+        }
+        return cpuNanos;
+    }
+
+    private synchronized long getAllocatedBytes() {
+        long allocatedBytes = 0;
+        for (Phase phase : phases.values()) {
+            allocatedBytes += phase.allocatedBytes;
+        }
+        return allocatedBytes;
+    }
+
+    private synchronized void appendModule(StringBuilder json, String indent) {
+        json.append(indent).append("{\n");
+        json.append(indent).append("  \"workDir\": ").append(quote(name)).append(",\n");
+        json.append(indent).append("  \"phases\": ");
+        appendPhases(json, indent + "  ");
+        json.append(",\n");
+        json.append(indent).append("  \"slowestClasses\": [");
+        List<ClassStats> slowest = new ArrayList<>(classes);
+        slowest.sort(Comparator.comparingLong((ClassStats cs) -> cs.wallNanos).reversed());
+        slowest = slowest.subList(0, Math.min(slowest.size(), getTopClasses()));
+        for (int i = 0; i < slowest.size(); i++) {
+            ClassStats cs = slowest.get(i);
+            json.append(i == 0 ? "\n" : ",\n");
+            json.append(indent).append("    { \"className\": ").append(quote(cs.className)) //
+                    .append(", \"wallTimeMs\": ").append(millis(cs.wallNanos)) //
+                    .append(", \"cpuTimeMs\": ").append(millis(cs.cpuNanos)) //
+                    .append(", \"allocatedBytes\": ").append(cs.allocatedBytes) //
+                    .append(", \"benchmarks\": ").append(cs.benchmarks).append(" }");
+        }
+        json.append(slowest.isEmpty() ? "]\n" : "\n" + indent + "  ]\n");
+        json.append(indent).append("}");
+    }
+
+    private synchronized void appendPhases(StringBuilder json, String indent) {
+        json.append("[");
+        int i = 0;
+        for (Phase phase : phases.values()) {
+            json.append(i++ == 0 ? "\n" : ",\n");
+            json.append(indent).append("  { \"name\": ").append(quote(phase.name)) //
+                    .append(", \"wallTimeMs\": ").append(millis(phase.wallNanos)) //
+                    .append(", \"cpuTimeMs\": ").append(millis(phase.cpuNanos)) //
+                    .append(", \"allocatedBytes\": ").append(phase.allocatedBytes) //
+                    .append(", \"loadedClasses\": ").append(phase.loadedClasses);
+            for (Map.Entry<String, Long> ce : phase.counts.entrySet()) {
+                json.append(", ").append(quote(ce.getKey())).append(": ").append(ce.getValue());
+            }
+            json.append(" }");
+        }
+        json.append(phases.isEmpty() ? "]" : "\n" + indent + "]");
+    }
+
+    private static int getTopClasses() {
+        String topClassesArg = System.getProperty(SYS_PROP_TOP_CLASSES);
+        if (topClassesArg == null || topClassesArg.isEmpty()) {
+            return DEFAULT_TOP_CLASSES;
+        }
+        try {
+            return Math.max(0, Integer.parseInt(topClassesArg.trim()));
+        } catch (NumberFormatException exc) {
+            LOGGER.warn("Invalid stats top classes count: {}, will use {}", topClassesArg, DEFAULT_TOP_CLASSES);
+            return DEFAULT_TOP_CLASSES;
+        }
+    }
+
+    private static String millis(long nanos) {
+        return String.format(Locale.ROOT, "%.3f", nanos / 1000000.0);
+    }
+
+    private static String quote(String str) {
+        if (str == null) {
+            return "null";
+        }
+        StringBuilder sb = new StringBuilder(str.length() + 2).append('"');
+        for (char c : str.toCharArray()) {
+            switch (c) {
+            case '"':
+                sb.append("\\\"");
+                break;
+            case '\\':
+                sb.append("\\\\");
+                break;
+            default:
+                if (c < 0x20) {
+                    sb.append(String.format("\\u%04x", (int) c));
+                } else {
+                    sb.append(c);
+                }
+            }
+        }
+        return sb.append('"').toString();
+    }
+
+    static long threadCpuTime() {
+        try {
+            return THREAD_BEAN.isCurrentThreadCpuTimeSupported() ? THREAD_BEAN.getCurrentThreadCpuTime() : 0;
+        } catch (UnsupportedOperationException exc) {
+            return 0;
+        }
+    }
+
+    static long threadAllocatedBytes() {
+        if (THREAD_BEAN instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean threadBean = (com.sun.management.ThreadMXBean) THREAD_BEAN;
+            if (threadBean.isThreadAllocatedMemorySupported() && threadBean.isThreadAllocatedMemoryEnabled()) {
+                return threadBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+            }
+        }
+        return 0;
+    }
+
+    public interface Step {
+        void run() throws Exception;
+    }
+
+    // Usage of current thread at the moment of creation
+    public static class Sample {
+        private final Thread thread = Thread.currentThread();
+        private final long wallStart = System.nanoTime();
+        private final long cpuStart = threadCpuTime();
+        private final long allocStart = threadAllocatedBytes();
+    }
+
+    private static class Phase {
+        private final String name;
+        private final Map<String, Long> counts = new LinkedHashMap<>();
+        private long wallNanos;
+        private long cpuNanos;
+        private long allocatedBytes;
+        private long loadedClasses;
+
+        private Sample sample;
+        private long loadedStart;
+
+        Phase(String name) {
+            this.name = name;
+        }
+
+        void resume() {
+            sample = new Sample();
+            loadedStart = CLASS_LOADING_BEAN.getTotalLoadedClassCount();
+        }
+
+        void pause() {
+            wallNanos += System.nanoTime() - sample.wallStart;
+            cpuNanos += threadCpuTime() - sample.cpuStart;
+            allocatedBytes += threadAllocatedBytes() - sample.allocStart;
+            loadedClasses += CLASS_LOADING_BEAN.getTotalLoadedClassCount() - loadedStart;
+        }
+    }
+
+    private static class ClassStats {
+        private final String className;
+        private final int benchmarks;
+        private long wallNanos;
+        private long cpuNanos;
+        private long allocatedBytes;
+
+        ClassStats(String className, int benchmarks) {
+            this.className = className;
+            this.benchmarks = benchmarks;
+        }
+    }
+}
@@ -43,9 +43,7 @@ import com.gocypher.cybench.t2b.utils.LogUtils;
 import com.gocypher.cybench.t2b.utils.T2BUtils;
 
 import javassist.CtClass;
-import javassist.CtConstructor;
-import javassist.CtMethod;
-import javassist.Modifier;
+import javassist.NotFoundException;
 import javassist.bytecode.*;
 
 public abstract class AbstractClassTransformer {
@@ -174,17 +172,26 @@ public abstract class AbstractClassTransformer {
                 metaDataList);
     }
 
-    private static Map<String, Pair<String, String>> LEVEL_ANNOTATION_MEMBERS = new LinkedHashMap<>();
-    static {
-        LEVEL_ANNOTATION_MEMBERS.put("value", new Pair<>(Level.class.getName(), Level.Trial.name()));
+    static Map<String, Pair<String, String>> getLevelAnnotationMembers(Level level) {
+        Map<String, Pair<String, String>> levelMembers = new LinkedHashMap<>();
+        levelMembers.put("value", new Pair<>(Level.class.getName(), level.name()));
+        return levelMembers;
     }
 
     public void annotateMethodSetup(org.openjdk.jmh.generators.core.MethodInfo methodInfo) {
-        annotateStateMethod(methodInfo, Setup.class.getName(), LEVEL_ANNOTATION_MEMBERS);
+        annotateMethodSetup(methodInfo, Level.Trial);
+    }
+
+    public void annotateMethodSetup(org.openjdk.jmh.generators.core.MethodInfo methodInfo, Level level) {
+        annotateStateMethod(methodInfo, Setup.class.getName(), getLevelAnnotationMembers(level));
     }
 
     public void annotateMethodTearDown(org.openjdk.jmh.generators.core.MethodInfo methodInfo) {
-        annotateStateMethod(methodInfo, TearDown.class.getName(), LEVEL_ANNOTATION_MEMBERS);
+        annotateMethodTearDown(methodInfo, Level.Trial);
+    }
+
+    public void annotateMethodTearDown(org.openjdk.jmh.generators.core.MethodInfo methodInfo, Level level) {
+        annotateStateMethod(methodInfo, TearDown.class.getName(), getLevelAnnotationMembers(level));
     }
 
     public String getClassName() {
@@ -249,6 +256,19 @@ public abstract class AbstractClassTransformer {
         }
     }
 
+    public void annotateBenchmarkMethod(org.openjdk.jmh.generators.core.MethodInfo method,
+            AnnotationBuilder<?> annotationBuilder) {
+        String annotationName = annotationBuilder.getAnnotationType();
+        try {
+            addMethodAnnotation(method.getName(), annotationBuilder);
+            LOGGER.info(String.format("%-20.20s: %s", "Added",
+                    "@" + annotationName + " annotation for method " + method.getQualifiedName()));
+        } catch (Exception exc) {
+            LOGGER.error(MessageFormat.format("Failed to add @{0} annotation for method {1}", annotationName,
+                    method.getQualifiedName()), exc);
+        }
+    }
+
     public void annotateBenchmarkMethod(org.openjdk.jmh.generators.core.MethodInfo method, String arrayAnnotationName,
             String annotationsName, List<Map<String, String>> memberList) {
         try {
@@ -331,56 +351,56 @@ public abstract class AbstractClassTransformer {
         }
     }
 
-    private static void alterClass(CtClass ctClass) throws Exception {
-        if (ctClass.isFrozen()) {
-            ctClass.defrost();
-        }
-
-        makeClassPublic(ctClass);
-        makeConstructorPublic(ctClass);
+    private static void alterClass(ClassFile classFile) {
+        makeClassPublic(classFile);
+        makeConstructorPublic(classFile);
     }
 
-    private static void makeClassPublic(CtClass ctClass) {
-        if (!isNestedClass(ctClass) && !Modifier.isPublic(ctClass.getModifiers())) {
-            ctClass.setModifiers(ctClass.getModifiers() | Modifier.PUBLIC);
+    private static void makeClassPublic(ClassFile classFile) {
+        if (!isNestedClass(classFile) && !AccessFlag.isPublic(classFile.getAccessFlags())) {
+            classFile.setAccessFlags(classFile.getAccessFlags() | AccessFlag.PUBLIC);
             LOGGER.info(
-                    String.format("%-20.20s: %s", "Changed", "visibility to PUBLIC for class " + ctClass.getName()));
+                    String.format("%-20.20s: %s", "Changed", "visibility to PUBLIC for class " + classFile.getName()));
         }
     }
 
-    private static void makeConstructorPublic(CtClass ctClass) throws Exception {
-        for (CtConstructor constructor : ctClass.getConstructors()) {
-            if (constructor.getParameterTypes().length < 2) {
-                if (!Modifier.isPublic(constructor.getModifiers())) {
-                    constructor.setModifiers(constructor.getModifiers() | Modifier.PUBLIC);
+    private static void makeConstructorPublic(ClassFile classFile) {
+        for (MethodInfo constructor : classFile.getMethods()) {
+            if (constructor.isConstructor() && Descriptor.numOfParameters(constructor.getDescriptor()) < 2) {
+                if (!AccessFlag.isPublic(constructor.getAccessFlags())) {
+                    constructor.setAccessFlags(constructor.getAccessFlags() | AccessFlag.PUBLIC);
                     LOGGER.info(String.format("%-20.20s: %s", "Changed",
-                            "visibility to PUBLIC for constructor " + constructor.getLongName()));
+                            "visibility to PUBLIC for constructor " + getLongName(classFile, constructor)));
                 }
             }
         }
     }
 
-    public CtClass addClassEnumAnnotation(String className, String annotationName,
+    private static String getLongName(ClassFile classFile, MethodInfo methodInfo) {
+        return classFile.getName() + (methodInfo.isConstructor() ? "" : "." + methodInfo.getName())
+                + Descriptor.toString(methodInfo.getDescriptor());
+    }
+
+    public ClassFile addClassEnumAnnotation(String className, String annotationName,
             Map<String, Pair<String, String>> membersMap) throws Exception {
         return addClassAnnotation(className, new EnumAnnotationBuilder(annotationName, membersMap));
     }
 
-    public CtClass addClassAnnotation(String className, String annotationName, Map<String, String> membersMap)
+    public ClassFile addClassAnnotation(String className, String annotationName, Map<String, String> membersMap)
             throws Exception {
         return addClassAnnotation(className, new StringAnnotationBuilder(annotationName, membersMap));
     }
 
-    public CtClass addClassAnnotation(String className, String arrayAnnotationName, String annotationsName,
+    public ClassFile addClassAnnotation(String className, String arrayAnnotationName, String annotationsName,
             List<Map<String, String>> memberList) throws Exception {
         return addClassAnnotation(className, new ArrayAnnotationBuilder(arrayAnnotationName,
                 new DefaultAnnotationArrayBuilder<>(new StringAnnotationBuilder(annotationsName), memberList)));
     }
 
-    public CtClass addClassAnnotation(String className, AnnotationBuilder<?> annotationBuilder) throws Exception {
-        CtClass ctClass = getCtClass(className);
-        alterClass(ctClass);
+    public ClassFile addClassAnnotation(String className, AnnotationBuilder<?> annotationBuilder) throws Exception {
+        ClassFile classFile = getAlteredClassFile(className);
+        alterClass(classFile);
 
-        ClassFile classFile = ctClass.getClassFile();
         ConstPool constPool = classFile.getConstPool();
 
         List<AttributeInfo> classFileAttributes = classFile.getAttributes();
@@ -393,41 +413,43 @@ public abstract class AbstractClassTransformer {
 
         annotationsAttribute.addAnnotation(annotationBuilder.buildAnnotation(constPool));
 
-        return ctClass;
+        return classFile;
     }
 
-    public CtClass addMethodAnnotation(String methodName, String annotationName, Map<String, String> membersMap)
+    public ClassFile addMethodAnnotation(String methodName, String annotationName, Map<String, String> membersMap)
             throws Exception {
         return addMethodAnnotation(methodName, new StringAnnotationBuilder(annotationName, membersMap));
     }
 
-    public CtClass addMethodEnumAnnotation(String methodName, String annotationName,
+    public ClassFile addMethodEnumAnnotation(String methodName, String annotationName,
             Map<String, Pair<String, String>> membersMap) throws Exception {
         return addMethodAnnotation(methodName, new EnumAnnotationBuilder(annotationName, membersMap));
     }
 
-    public CtClass addMethodArrayAnnotation(String methodName, String arrayAnnotationName, String annotationsName,
+    public ClassFile addMethodArrayAnnotation(String methodName, String arrayAnnotationName, String annotationsName,
             List<Map<String, String>> memberList) throws Exception {
         return addMethodAnnotation(methodName, new ArrayAnnotationBuilder(arrayAnnotationName,
                 new DefaultAnnotationArrayBuilder<>(new StringAnnotationBuilder(annotationsName), memberList)));
     }
 
-    private static void makeMethodPublic(CtMethod method) {
-        if (!Modifier.isPublic(method.getModifiers())) {
-            method.setModifiers(method.getModifiers() | Modifier.PUBLIC);
+    private static void makeMethodPublic(ClassFile classFile, MethodInfo method) {
+        if (!AccessFlag.isPublic(method.getAccessFlags())) {
+            method.setAccessFlags(method.getAccessFlags() | AccessFlag.PUBLIC);
             LOGGER.info(String.format("%-20.20s: %s", "Changed",
-                    "visibility to PUBLIC for method " + method.getLongName()));
+                    "visibility to PUBLIC for method " + getLongName(classFile, method)));
         }
     }
 
-    public CtClass addMethodAnnotation(String methodName, AnnotationBuilder<?> annotationBuilder) throws Exception {
-        CtClass ctClass = getCtClass(getClassName());
-        alterClass(ctClass);
+    public ClassFile addMethodAnnotation(String methodName, AnnotationBuilder<?> annotationBuilder) throws Exception {
+        ClassFile classFile = getAlteredClassFile(getClassName());
+        alterClass(classFile);
 
-        CtMethod method = ctClass.getDeclaredMethod(methodName);
-        makeMethodPublic(method);
+        MethodInfo methodInfo = classFile.getMethod(methodName);
+        if (methodInfo == null) {
+            throw new NotFoundException(methodName + "(..) is not found in " + classFile.getName());
+        }
+        makeMethodPublic(classFile, methodInfo);
 
-        MethodInfo methodInfo = method.getMethodInfo();
         ConstPool constPool = methodInfo.getConstPool();
 
         List<AttributeInfo> methodAttributes = methodInfo.getAttributes();
@@ -440,11 +462,21 @@ public abstract class AbstractClassTransformer {
 
         annotationsAttribute.addAnnotation(annotationBuilder.buildAnnotation(constPool));
 
-        return ctClass;
+        return classFile;
     }
 
     protected abstract CtClass getCtClass(String className) throws Exception;
 
+    // Class file of altered class to add annotations and change visibility
+    protected ClassFile getAlteredClassFile(String className) throws Exception {
+        CtClass ctClass = getCtClass(className);
+        if (ctClass.isFrozen()) {
+            ctClass.defrost();
+        }
+
+        return ctClass.getClassFile();
+    }
+
     static AnnotationsAttribute getAnnotationAttribute(List<AttributeInfo> attributes) {
         for (Object object : attributes) {
             if (AnnotationsAttribute.class.isAssignableFrom(object.getClass())) {
@@ -455,7 +487,7 @@ public abstract class AbstractClassTransformer {
         return null;
     }
 
-    private static boolean isNestedClass(CtClass cls) {
+    private static boolean isNestedClass(ClassFile cls) {
         return cls.getName().contains("$");
     }
 }
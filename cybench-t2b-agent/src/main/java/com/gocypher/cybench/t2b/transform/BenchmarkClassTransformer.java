@@ -21,6 +21,7 @@ package com.gocypher.cybench.t2b.transform;
 
 import java.lang.annotation.Annotation;
 import java.lang.reflect.Method;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 
@@ -42,6 +43,11 @@ public class BenchmarkClassTransformer extends AbstractClassTransformer {
     }
 
     public void doTransform(Method testMethod) {
+        doTransform(testMethod, null);
+    }
+
+    // Dynamic test (having test name) benchmark is tagged by test factory method signature and test name
+    public void doTransform(Method testMethod, String testName) {
         if (hasNonStaticFields()) {
             annotateClassState();
         }
@@ -51,7 +57,7 @@ public class BenchmarkClassTransformer extends AbstractClassTransformer {
         for (org.openjdk.jmh.generators.core.MethodInfo methodInfo : getClsInfo().getMethods()) {
             Annotation bAnnotation = methodInfo.getAnnotation(Benchmark.class);
             if (bAnnotation != null) {
-                annotateMethod(methodInfo, testMethod);
+                annotateMethod(methodInfo, testMethod, testName);
             }
         }
     }
@@ -61,13 +67,27 @@ public class BenchmarkClassTransformer extends AbstractClassTransformer {
     }
 
     public void annotateBenchmarkTag(org.openjdk.jmh.generators.core.MethodInfo methodInfo, Method testMethod) {
+        annotateBenchmarkTag(methodInfo, testMethod, null);
+    }
+
+    public void annotateBenchmarkTag(org.openjdk.jmh.generators.core.MethodInfo methodInfo, Method testMethod,
+            String testName) {
         String methodSignature = getSignature(testMethod);
-        annotateBenchmarkTag(methodInfo, methodSignature);
+        annotateBenchmarkTag(methodInfo, testName == null ? methodSignature : methodSignature + "[" + testName + "]");
     }
 
     public void annotateBenchmarkMetadataList(org.openjdk.jmh.generators.core.MethodInfo methodInfo,
             Method testMethod) {
-        annotateBenchmarkMetadataList(methodInfo, getMetadata(testMethod));
+        annotateBenchmarkMetadataList(methodInfo, testMethod, null);
+    }
+
+    public void annotateBenchmarkMetadataList(org.openjdk.jmh.generators.core.MethodInfo methodInfo,
+            Method testMethod, String testName) {
+        List<Map<String, String>> metaDataList = getMetadata(testMethod);
+        if (testName != null) {
+            metaDataList.addAll(makeMetadataList(Collections.singletonMap("dynamicTestName", testName)));
+        }
+        annotateBenchmarkMetadataList(methodInfo, metaDataList);
     }
 
     public List<Map<String, String>> getMetadata(Method method) {
@@ -91,7 +111,11 @@ public class BenchmarkClassTransformer extends AbstractClassTransformer {
     }
 
     public void annotateMethod(org.openjdk.jmh.generators.core.MethodInfo mi, Method testMethod) {
-        annotateBenchmarkTag(mi, testMethod);
-        annotateBenchmarkMetadataList(mi, testMethod);
+        annotateMethod(mi, testMethod, null);
+    }
+
+    public void annotateMethod(org.openjdk.jmh.generators.core.MethodInfo mi, Method testMethod, String testName) {
+        annotateBenchmarkTag(mi, testMethod, testName);
+        annotateBenchmarkMetadataList(mi, testMethod, testName);
     }
 }
@@ -0,0 +1,246 @@
+/*
+ * Copyright (C) 2020-2022, K2N.IO.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA
+ *
+ */
+
+package com.gocypher.cybench.t2b.transform;
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.math3.util.Pair;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.options.*;
+import org.openjdk.jmh.util.Optional;
+import org.slf4j.Logger;
+
+import com.gocypher.cybench.t2b.discovery.TestFilter;
+import com.gocypher.cybench.t2b.utils.LogUtils;
+
+// JMH configuration of single translated benchmark: annotation type mapped to its members. Configuration is defined
+// as JMH command line options coming from benchmarks configuration template entries (in file order) matching test
+// method, class level @T2BConfig and method level @T2BConfig. Later defined option overrides earlier one.
+public class BenchmarkConfig {
+    private static Logger LOGGER = LogUtils.getLogger(BenchmarkConfig.class);
+
+    public static final String SYS_PROP_CONFIG = "t2b.benchmark.cfg.path";
+    public static final String DEFAULT_CONFIG_PATH = "config/t2b-benchmarks.properties";
+
+    private static List<Pair<TestFilter, String>> template;
+
+    private final Map<String, Map<String, Object>> annotations = new LinkedHashMap<>();
+
+    public static synchronized List<Pair<TestFilter, String>> getTemplate() {
+        if (template == null) {
+            template = loadTemplate();
+        }
+        return template;
+    }
+
+    // Reads benchmarks configuration template again, e.g. on new daemon translation request
+    public static synchronized void reload() {
+        template = loadTemplate();
+    }
+
+    // Template is properties file, where key is "classPattern[#methodPattern]" test filter pattern, and value is JMH
+    // command line options, e.g.: com.company.parser.**=-bm avgt -tu us -wi 3 -w 200ms
+    private static List<Pair<TestFilter, String>> loadTemplate() {
+        List<Pair<TestFilter, String>> entries = new ArrayList<>();
+        String cfgPath = System.getProperty(SYS_PROP_CONFIG, DEFAULT_CONFIG_PATH);
+        if (new File(cfgPath).exists()) {
+            // Keeps entries order, so later entries can override earlier ones
+            Properties cfgProps = new Properties() {
+                private static final long serialVersionUID = 2807254326495163420L;
+
+                @Override
+                public synchronized Object put(Object key, Object value) {
+                    entries.add(new Pair<>(new TestFilter(String.valueOf(key), null), String.valueOf(value)));
+                    return super.put(key, value);
+                }
+            };
+            try (Reader rdr = new BufferedReader(new FileReader(cfgPath))) {
+                cfgProps.load(rdr);
+                LOGGER.info("Loaded {} benchmark configuration template entries from: {}", entries.size(), cfgPath);
+            } catch (IOException exc) {
+                LOGGER.error("Failed to load benchmark configuration template from: {}, reason: {}", cfgPath,
+                        exc.getLocalizedMessage());
+                entries.clear();
+            }
+        }
+
+        return entries;
+    }
+
+    public static BenchmarkConfig resolve(String className, String methodName, String... cfgOptions) {
+        BenchmarkConfig cfg = new BenchmarkConfig();
+        for (String options : getOptions(className, methodName, cfgOptions)) {
+            cfg.merge(options, className + "#" + methodName);
+        }
+
+        return cfg;
+    }
+
+    // JMH command line options of template entries matching test method, followed by given ones, in merge order
+    public static List<String> getOptions(String className, String methodName, String... cfgOptions) {
+        List<String> optionsList = new ArrayList<>();
+        for (Pair<TestFilter, String> te : getTemplate()) {
+            if (te.getKey().isMethodIncluded(className, methodName)) {
+                optionsList.add(te.getValue());
+            }
+        }
+        if (cfgOptions != null) {
+            for (String options : cfgOptions) {
+                if (options != null && !options.trim().isEmpty()) {
+                    optionsList.add(options);
+                }
+            }
+        }
+
+        return optionsList;
+    }
+
+    // Runtime (AOP runner) counterpart of benchmark annotations: options merged in given order. Options get merged
+    // from last to first ones, so option already defined by later options is not overridden
+    public static Options toOptions(List<String> optionsList, String source) {
+        OptionsBuilder merged = new OptionsBuilder();
+        for (int i = optionsList.size() - 1; i >= 0; i--) {
+            String options = optionsList.get(i);
+            try {
+                mergeOptions(merged, new CommandLineOptions(options.trim().split("\\s+")), merged);
+            } catch (CommandLineOptionException | IllegalStateException exc) {
+                LOGGER.error("Invalid benchmark configuration \"{}\" for: {}, reason: {}", options, source,
+                        exc.getLocalizedMessage());
+            }
+        }
+
+        return merged;
+    }
+
+    // Copies options defined by source and not defined by base (if any) to target. Forks are left to runner, since AOP
+    // runner runs benchmark within test JVM
+    public static void mergeOptions(ChainedOptionsBuilder target, Options source, Options base) {
+        if (!source.getBenchModes().isEmpty() && (base == null || base.getBenchModes().isEmpty())) {
+            for (Mode mode : source.getBenchModes()) {
+                target.mode(mode);
+            }
+        }
+        if (isMissing(source.getTimeUnit(), base == null ? null : base.getTimeUnit())) {
+            target.timeUnit(source.getTimeUnit().get());
+        }
+        if (isMissing(source.getWarmupIterations(), base == null ? null : base.getWarmupIterations())) {
+            target.warmupIterations(source.getWarmupIterations().get());
+        }
+        if (isMissing(source.getWarmupTime(), base == null ? null : base.getWarmupTime())) {
+            target.warmupTime(source.getWarmupTime().get());
+        }
+        if (isMissing(source.getWarmupBatchSize(), base == null ? null : base.getWarmupBatchSize())) {
+            target.warmupBatchSize(source.getWarmupBatchSize().get());
+        }
+        if (isMissing(source.getMeasurementIterations(), base == null ? null : base.getMeasurementIterations())) {
+            target.measurementIterations(source.getMeasurementIterations().get());
+        }
+        if (isMissing(source.getMeasurementTime(), base == null ? null : base.getMeasurementTime())) {
+            target.measurementTime(source.getMeasurementTime().get());
+        }
+        if (isMissing(source.getMeasurementBatchSize(), base == null ? null : base.getMeasurementBatchSize())) {
+            target.measurementBatchSize(source.getMeasurementBatchSize().get());
+        }
+        if (isMissing(source.getThreads(), base == null ? null : base.getThreads())) {
+            target.threads(source.getThreads().get());
+        }
+        if (isMissing(source.getTimeout(), base == null ? null : base.getTimeout())) {
+            target.timeout(source.getTimeout().get());
+        }
+    }
+
+    private static boolean isMissing(Optional<?> value, Optional<?> baseValue) {
+        return value.hasValue() && (baseValue == null || !baseValue.hasValue());
+    }
+
+    public boolean merge(String options, String source) {
+        if (options == null || options.trim().isEmpty()) {
+            return true;
+        }
+        try {
+            merge(new CommandLineOptions(options.trim().split("\\s+")));
+            return true;
+        } catch (CommandLineOptionException | IllegalStateException exc) {
+            LOGGER.error("Invalid benchmark configuration \"{}\" for: {}, reason: {}", options, source,
+                    exc.getLocalizedMessage());
+            return false;
+        }
+    }
+
+    public void merge(CommandLineOptions options) {
+        if (!options.getBenchModes().isEmpty()) {
+            set(BenchmarkMode.class, "value", options.getBenchModes().toArray(new Mode[0]));
+        }
+        if (options.getTimeUnit().hasValue()) {
+            set(OutputTimeUnit.class, "value", options.getTimeUnit().get());
+        }
+        setIterations(Warmup.class, options.getWarmupIterations(), options.getWarmupTime(),
+                options.getWarmupBatchSize());
+        setIterations(Measurement.class, options.getMeasurementIterations(), options.getMeasurementTime(),
+                options.getMeasurementBatchSize());
+        if (options.getForkCount().hasValue()) {
+            set(Fork.class, "value", options.getForkCount().get());
+        }
+        if (options.getThreads().hasValue()) {
+            set(Threads.class, "value", options.getThreads().get());
+        }
+        if (options.getTimeout().hasValue()) {
+            setTime(Timeout.class, options.getTimeout().get());
+        }
+        if (!options.getIncludes().isEmpty()) {
+            LOGGER.warn("Benchmark configuration does not support benchmark patterns, ignoring: {}",
+                    options.getIncludes());
+        }
+    }
+
+    private void setIterations(Class<? extends java.lang.annotation.Annotation> annotationType,
+            Optional<Integer> iterations, Optional<TimeValue> time, Optional<Integer> batchSize) {
+        if (iterations.hasValue()) {
+            set(annotationType, "iterations", iterations.get());
+        }
+        if (time.hasValue()) {
+            setTime(annotationType, time.get());
+        }
+        if (batchSize.hasValue()) {
+            set(annotationType, "batchSize", batchSize.get());
+        }
+    }
+
+    private void setTime(Class<? extends java.lang.annotation.Annotation> annotationType, TimeValue time) {
+        TimeUnit timeUnit = time.getTimeUnit();
+        // JMH command line parses time as int, so it fits annotation member
+        set(annotationType, "time", (int) time.getTime());
+        set(annotationType, "timeUnit", timeUnit);
+    }
+
+    public void set(Class<? extends java.lang.annotation.Annotation> annotationType, String member, Object value) {
+        annotations.computeIfAbsent(annotationType.getName(), k -> new LinkedHashMap<>()).put(member, value);
+    }
+
+    public boolean isEmpty() {
+        return annotations.isEmpty();
+    }
+
+    public Map<String, Map<String, Object>> getAnnotations() {
+        return annotations;
+    }
+}
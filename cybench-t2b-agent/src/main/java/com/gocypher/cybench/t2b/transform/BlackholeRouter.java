@@ -0,0 +1,598 @@
+/*
+ * Copyright (C) 2020-2022, K2N.IO.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA
+ *
+ */
+
+package com.gocypher.cybench.t2b.transform;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.TypeVariable;
+import java.util.*;
+
+import org.slf4j.Logger;
+
+import com.gocypher.cybench.t2b.utils.LogUtils;
+
+import javassist.bytecode.*;
+
+// Protects translated test method bodies from dead code elimination: benchmark method gets JMH Blackhole parameter,
+// and values computed by test are consumed by it. Consumed are results of calls dropped from operand stack, values
+// stored into never read local variables, and arguments of static assertion calls (those get routed over synthetic
+// bridge method consuming arguments before calling assertion itself). In assertion stripping mode bridges only consume
+// arguments: void static assertions and fluent AssertJ calls returning assertion itself are not called at all.
+public class BlackholeRouter {
+    private static Logger LOGGER = LogUtils.getLogger(BlackholeRouter.class);
+
+    public static final String SYS_PROP_BLACKHOLE = "t2b.blackhole";
+
+    static final String BLACKHOLE_CLASS = "org.openjdk.jmh.infra.Blackhole";
+    private static final String BRIDGE_PREFIX = "t2b$consume$";
+    private static final String STRIP_BRIDGE_PREFIX = "t2b$strip$";
+    private static final String FLUENT_ASSERTION_PACKAGE = "org.assertj.core.api.";
+    private static final Set<String> ASSERTION_CLASSES = new HashSet<>(Arrays.asList( //
+            "org.junit.Assert", //
+            "junit.framework.Assert", //
+            "junit.framework.TestCase", //
+            "org.junit.jupiter.api.Assertions", //
+            "org.testng.Assert", //
+            "org.testng.AssertJUnit", //
+            "org.hamcrest.MatcherAssert" //
+    ));
+    // Assertions controlling test flow or running code under test (passed as lambdas) are never stripped
+    private static final Set<String> KEPT_ASSERTIONS = new HashSet<>(Arrays.asList("fail", "assertAll"));
+    private static final String[] CODE_RUNNING_PARAMS = { //
+            "Lorg/junit/jupiter/api/function/", //
+            "Lorg/junit/function/", //
+            "Lorg/testng/Assert$ThrowingRunnable;", //
+            "Lorg/assertj/core/api/ThrowableAssert$ThrowingCallable;" //
+    };
+
+    private final ClassFile classFile;
+    private final ConstPool cp;
+    private final boolean stripAssertions;
+    private final ClassLoader classLoader;
+    private final Map<String, String> bridges = new HashMap<>();
+    private final Map<String, Boolean> fluentAssertions = new HashMap<>();
+
+    public BlackholeRouter(ClassFile classFile) {
+        this(classFile, false, null);
+    }
+
+    public BlackholeRouter(ClassFile classFile, boolean stripAssertions, ClassLoader classLoader) {
+        this.classFile = classFile;
+        this.cp = classFile.getConstPool();
+        this.stripAssertions = stripAssertions;
+        this.classLoader = classLoader;
+    }
+
+    public static boolean isEnabled() {
+        return Boolean.parseBoolean(System.getProperty(SYS_PROP_BLACKHOLE, "true"));
+    }
+
+    // Method having parameters or called by other methods of class can't get its descriptor changed
+    public boolean canRoute(MethodInfo method) throws BadBytecode {
+        return method.getCodeAttribute() != null && Descriptor.numOfParameters(method.getDescriptor()) == 0
+                && !isCalledByClass(method);
+    }
+
+    // Returns number of assertion calls stripped from method body
+    public int route(MethodInfo method) throws BadBytecode {
+        CodeAttribute codeAttr = method.getCodeAttribute();
+        int bhSlot = (method.getAccessFlags() & AccessFlag.STATIC) != 0 ? 0 : 1;
+        addBlackholeParameter(method, codeAttr, bhSlot);
+
+        Set<Integer> loadedSlots = getLoadedSlots(codeAttr);
+        List<int[]> edits = new ArrayList<>();
+        CodeIterator it = codeAttr.iterator();
+        int prevIdx = -1;
+        while (it.hasNext()) {
+            int idx = it.next();
+            int op = it.byteAt(idx);
+            if (isDroppedResult(it, op, prevIdx)) {
+                edits.add(new int[] { idx, op, prevIdx });
+            } else if (isStore(op) && !loadedSlots.contains(getSlot(it, idx, op))) {
+                edits.add(new int[] { idx, op, -1 });
+            } else if (op == Opcode.INVOKESTATIC && isAssertion(it.u16bitAt(idx + 1))) {
+                edits.add(new int[] { idx, op, -1 });
+            } else if ((op == Opcode.INVOKEVIRTUAL || op == Opcode.INVOKEINTERFACE)
+                    && isFluentAssertion(it.u16bitAt(idx + 1))) {
+                edits.add(new int[] { idx, op, -1 });
+            }
+            prevIdx = idx;
+        }
+
+        int stripped = 0;
+        // Edits go from method end, so pending edit positions are not shifted by inserted code
+        for (int i = edits.size() - 1; i >= 0; i--) {
+            int[] edit = edits.get(i);
+            int pos = edit[0];
+            int op = edit[1];
+            if (op == Opcode.POP || op == Opcode.POP2) {
+                String type = getReturnDescriptor(it, edit[2]);
+                it.writeByte(Opcode.NOP, pos);
+                it.insertAt(pos, consumeCode(bhSlot, type, false));
+            } else if (op == Opcode.INVOKESTATIC) {
+                int mRef = it.u16bitAt(pos + 1);
+                boolean strip = isStrippable(mRef);
+                it.write16bit(getBridge(mRef, strip, false), pos + 1);
+                it.insertAt(pos, loadBlackhole(bhSlot));
+                stripped += strip ? 1 : 0;
+            } else if (op == Opcode.INVOKEVIRTUAL || op == Opcode.INVOKEINTERFACE) {
+                // Receiver becomes first bridge argument, so stack layout stays same
+                it.write16bit(getBridge(it.u16bitAt(pos + 1), true, true), pos + 1);
+                it.writeByte(Opcode.INVOKESTATIC, pos);
+                if (op == Opcode.INVOKEINTERFACE) {
+                    it.writeByte(Opcode.NOP, pos + 3);
+                    it.writeByte(Opcode.NOP, pos + 4);
+                }
+                it.insertAt(pos, loadBlackhole(bhSlot));
+                stripped++;
+            } else {
+                it.insertAt(pos, consumeCode(bhSlot, getStoreDescriptor(op), true));
+            }
+        }
+        codeAttr.setMaxStack(codeAttr.computeMaxStack());
+
+        return stripped;
+    }
+
+    // Reason why method body looks prone to dead code elimination, or null if it does not
+    public String getDeadCodeRisk(MethodInfo method, boolean routed) throws BadBytecode {
+        CodeAttribute codeAttr = method.getCodeAttribute();
+        if (codeAttr == null) {
+            return null;
+        }
+        Set<Integer> loadedSlots = getLoadedSlots(codeAttr);
+        int calls = 0;
+        int sideEffects = 0;
+        int consumable = 0;
+        int instructions = 0;
+        CodeIterator it = codeAttr.iterator();
+        int prevIdx = -1;
+        while (it.hasNext()) {
+            int idx = it.next();
+            int op = it.byteAt(idx);
+            instructions++;
+            if (isInvoke(op)) {
+                calls++;
+                if (op == Opcode.INVOKESTATIC && isAssertion(it.u16bitAt(idx + 1))) {
+                    consumable++;
+                } else if (getReturnDescriptor(it, idx).equals("V")) {
+                    sideEffects++;
+                }
+            } else if (isDroppedResult(it, op, prevIdx)
+                    || isStore(op) && !loadedSlots.contains(getSlot(it, idx, op))) {
+                consumable++;
+            } else if (op == Opcode.PUTFIELD || op == Opcode.PUTSTATIC || op == Opcode.ATHROW
+                    || op == Opcode.MONITORENTER || op >= Opcode.IASTORE && op <= Opcode.SASTORE) {
+                sideEffects++;
+            }
+            prevIdx = idx;
+        }
+
+        if (instructions <= 1) {
+            return "body is empty";
+        }
+        if (calls == 0) {
+            return "body makes no calls, JIT may fold its computation";
+        }
+        if (!routed && consumable > 0) {
+            return consumable + " computed values are not consumed by Blackhole";
+        }
+        if (sideEffects == 0 && consumable == 0) {
+            return "computed values are never used";
+        }
+
+        return null;
+    }
+
+    // Blackhole parameter is appended to descriptor, so locals of method body get shifted by one slot
+    private void addBlackholeParameter(MethodInfo method, CodeAttribute codeAttr, int bhSlot) throws BadBytecode {
+        method.setDescriptor(Descriptor.appendParameter(BLACKHOLE_CLASS, method.getDescriptor()));
+        codeAttr.insertLocalVar(bhSlot, 1);
+        LocalVariableAttribute lva = (LocalVariableAttribute) codeAttr.getAttribute(LocalVariableAttribute.tag);
+        if (lva != null) {
+            lva.shiftIndex(bhSlot, 1);
+        }
+        LocalVariableAttribute lvta = (LocalVariableAttribute) codeAttr
+                .getAttribute(LocalVariableTypeAttribute.tag);
+        if (lvta != null) {
+            lvta.shiftIndex(bhSlot, 1);
+        }
+        StackMapTable smt = (StackMapTable) codeAttr.getAttribute(StackMapTable.tag);
+        if (smt != null) {
+            smt.insertLocal(bhSlot, StackMapTable.OBJECT, cp.addClassInfo(BLACKHOLE_CLASS));
+        }
+        StackMap sm = (StackMap) codeAttr.getAttribute(StackMap.tag);
+        if (sm != null) {
+            sm.insertLocal(bhSlot, StackMap.OBJECT, cp.addClassInfo(BLACKHOLE_CLASS));
+        }
+    }
+
+    private boolean isCalledByClass(MethodInfo method) throws BadBytecode {
+        for (MethodInfo other : classFile.getMethods()) {
+            CodeAttribute codeAttr = other.getCodeAttribute();
+            if (codeAttr == null) {
+                continue;
+            }
+            CodeIterator it = codeAttr.iterator();
+            while (it.hasNext()) {
+                int idx = it.next();
+                int op = it.byteAt(idx);
+                if (isInvoke(op) && op != Opcode.INVOKEDYNAMIC) {
+                    int mRef = it.u16bitAt(idx + 1);
+                    if (method.getName().equals(cp.getMethodrefName(mRef))
+                            && method.getDescriptor().equals(cp.getMethodrefType(mRef))) {
+                        return true;
+                    }
+                } else if (op == Opcode.INVOKEDYNAMIC && referencesMethod(method, it.u16bitAt(idx + 1))) {
+                    return true;
+                }
+            }
+        }
+
+        return false;
+    }
+
+    // Method reference to test method (e.g. in lambda bootstrap arguments) binds its descriptor too
+    private boolean referencesMethod(MethodInfo method, int indyIdx) {
+        BootstrapMethodsAttribute bsma = (BootstrapMethodsAttribute) classFile
+                .getAttribute(BootstrapMethodsAttribute.tag);
+        if (bsma == null) {
+            return false;
+        }
+        for (int arg : bsma.getMethods()[cp.getInvokeDynamicBootstrap(indyIdx)].arguments) {
+            if (cp.getTag(arg) == ConstPool.CONST_MethodHandle) {
+                int mRef = cp.getMethodHandleIndex(arg);
+                int nameAndType = cp.getMemberNameAndType(mRef);
+                if (method.getName().equals(cp.getUtf8Info(cp.getNameAndTypeName(nameAndType)))
+                        && method.getDescriptor().equals(cp.getUtf8Info(cp.getNameAndTypeDescriptor(nameAndType)))) {
+                    return true;
+                }
+            }
+        }
+
+        return false;
+    }
+
+    private boolean isAssertion(int mRef) {
+        return ASSERTION_CLASSES.contains(cp.getClassInfo(cp.getMemberClass(mRef)));
+    }
+
+    // Only void static assertions get stripped: returned value (e.g. thrown exception) may be used by test
+    private boolean isStrippable(int mRef) {
+        if (!stripAssertions) {
+            return false;
+        }
+        String name = cp.getMethodrefName(mRef);
+        String desc = cp.getMethodrefType(mRef);
+        return desc.endsWith(")V") && !KEPT_ASSERTIONS.contains(name) && !hasCodeRunningParams(desc);
+    }
+
+    private static boolean hasCodeRunningParams(String desc) {
+        for (String param : getParameterDescriptors(desc)) {
+            String type = param.replace("[", "");
+            for (String crp : CODE_RUNNING_PARAMS) {
+                if (type.startsWith(crp)) {
+                    return true;
+                }
+            }
+        }
+
+        return false;
+    }
+
+    // AssertJ assertion object call returning void or assertion itself (declared as SELF type variable), so call
+    // chain can continue on same object
+    private boolean isFluentAssertion(int mRef) {
+        String owner = cp.getClassInfo(cp.getMemberClass(mRef));
+        if (!stripAssertions || !owner.startsWith(FLUENT_ASSERTION_PACKAGE)) {
+            return false;
+        }
+        int nameAndType = cp.getMemberNameAndType(mRef);
+        String name = cp.getUtf8Info(cp.getNameAndTypeName(nameAndType));
+        String desc = cp.getUtf8Info(cp.getNameAndTypeDescriptor(nameAndType));
+        if (hasCodeRunningParams(desc)) {
+            return false;
+        }
+        String key = owner + "#" + name + desc;
+        Boolean fluent = fluentAssertions.get(key);
+        if (fluent == null) {
+            fluent = false;
+            try {
+                Class<?> ownerCls = Class.forName(owner, false, classLoader);
+                for (Method m : ownerCls.getMethods()) {
+                    if (!m.isBridge() && m.getName().equals(name) && getDescriptor(m).equals(desc)) {
+                        fluent = m.getReturnType() == void.class || m.getGenericReturnType() instanceof TypeVariable
+                                && m.getReturnType().isAssignableFrom(ownerCls);
+                        break;
+                    }
+                }
+            } catch (Throwable exc) {
+                LOGGER.warn("Failed to resolve assertion method: {}.{}, reason: {}", owner, name,
+                        exc.getLocalizedMessage());
+            }
+            fluentAssertions.put(key, fluent);
+        }
+
+        return fluent;
+    }
+
+    private static String getDescriptor(Method method) {
+        StringBuilder sb = new StringBuilder("(");
+        for (Class<?> pType : method.getParameterTypes()) {
+            sb.append(getDescriptor(pType));
+        }
+
+        return sb.append(')').append(getDescriptor(method.getReturnType())).toString();
+    }
+
+    private static String getDescriptor(Class<?> cls) {
+        if (cls.isArray()) {
+            return cls.getName().replace('.', '/');
+        }
+        if (cls.isPrimitive()) {
+            return Descriptor.of(cls.getName());
+        }
+
+        return "L" + cls.getName().replace('.', '/') + ";";
+    }
+
+    // Private static bridge: consumes all arguments of assertion (receiver included) and calls it, or just returns
+    // (receiver for fluent assertion) if stripped, having Blackhole as last parameter
+    private int getBridge(int mRef, boolean strip, boolean instance) {
+        String owner = cp.getClassInfo(cp.getMemberClass(mRef));
+        int nameAndType = cp.getMemberNameAndType(mRef);
+        String name = cp.getUtf8Info(cp.getNameAndTypeName(nameAndType));
+        String desc = cp.getUtf8Info(cp.getNameAndTypeDescriptor(nameAndType));
+        String key = (strip ? "strip:" : "") + owner + "#" + name + desc;
+        String bridgeName = bridges.get(key);
+        String staticDesc = instance ? Descriptor.insertParameter(owner, desc) : desc;
+        String bridgeDesc = Descriptor.appendParameter(BLACKHOLE_CLASS, staticDesc);
+        if (bridgeName == null) {
+            bridgeName = (strip ? STRIP_BRIDGE_PREFIX : BRIDGE_PREFIX) + bridges.size() + "$" + name;
+            while (classFile.getMethod(bridgeName) != null) {
+                bridgeName += "$";
+            }
+            bridges.put(key, bridgeName);
+            addBridge(bridgeName, bridgeDesc, owner, name, staticDesc, strip);
+        }
+
+        return cp.addMethodrefInfo(cp.addClassInfo(classFile.getName()), bridgeName, bridgeDesc);
+    }
+
+    private void addBridge(String bridgeName, String bridgeDesc, String owner, String name, String desc,
+            boolean strip) {
+        List<String> params = getParameterDescriptors(desc);
+        int bhSlot = Descriptor.paramSize(desc);
+        Bytecode code = new Bytecode(cp, 0, bhSlot + 1);
+        int slot = 0;
+        for (String param : params) {
+            code.addAload(bhSlot);
+            slot += addLoad(code, param, slot);
+            code.addInvokevirtual(BLACKHOLE_CLASS, "consume", "(" + getConsumeDescriptor(param) + ")V");
+        }
+        String returnType = desc.substring(desc.indexOf(')') + 1);
+        if (strip) {
+            // Stripped bridge returns nothing, or receiver of fluent assertion
+            if (!returnType.equals("V")) {
+                code.addAload(0);
+            }
+        } else {
+            slot = 0;
+            for (String param : params) {
+                slot += addLoad(code, param, slot);
+            }
+            code.addInvokestatic(owner, name, desc);
+        }
+        addReturn(code, returnType);
+
+        MethodInfo bridge = new MethodInfo(cp, bridgeName, bridgeDesc);
+        bridge.setAccessFlags(AccessFlag.PRIVATE | AccessFlag.STATIC | AccessFlag.SYNTHETIC);
+        bridge.setCodeAttribute(code.toCodeAttribute());
+        try {
+            classFile.addMethod(bridge);
+        } catch (DuplicateMemberException exc) {
+            throw new IllegalStateException(exc);
+        }
+    }
+
+    private static int addLoad(Bytecode code, String type, int slot) {
+        switch (type.charAt(0)) {
+        case 'J':
+            code.addLload(slot);
+            return 2;
+        case 'D':
+            code.addDload(slot);
+            return 2;
+        case 'F':
+            code.addFload(slot);
+            return 1;
+        case 'L':
+        case '[':
+            code.addAload(slot);
+            return 1;
+        default:
+            code.addIload(slot);
+            return 1;
+        }
+    }
+
+    static void addReturn(Bytecode code, String type) {
+        switch (type.charAt(0)) {
+        case 'V':
+            code.addOpcode(Opcode.RETURN);
+            break;
+        case 'J':
+            code.addOpcode(Opcode.LRETURN);
+            break;
+        case 'D':
+            code.addOpcode(Opcode.DRETURN);
+            break;
+        case 'F':
+            code.addOpcode(Opcode.FRETURN);
+            break;
+        case 'L':
+        case '[':
+            code.addOpcode(Opcode.ARETURN);
+            break;
+        default:
+            code.addOpcode(Opcode.IRETURN);
+        }
+    }
+
+    static List<String> getParameterDescriptors(String desc) {
+        List<String> params = new ArrayList<>();
+        int i = 1;
+        while (desc.charAt(i) != ')') {
+            int start = i;
+            while (desc.charAt(i) == '[') {
+                i++;
+            }
+            if (desc.charAt(i) == 'L') {
+                i = desc.indexOf(';', i);
+            }
+            i++;
+            params.add(desc.substring(start, i));
+        }
+
+        return params;
+    }
+
+    // Value on top of stack: consumed by Blackhole, and kept on stack for following store if needed
+    private byte[] consumeCode(int bhSlot, String type, boolean keepValue) {
+        boolean wide = type.equals("J") || type.equals("D");
+        Bytecode code = new Bytecode(cp);
+        if (keepValue) {
+            code.addOpcode(wide ? Opcode.DUP2 : Opcode.DUP);
+        }
+        code.addAload(bhSlot);
+        if (wide) {
+            code.addOpcode(Opcode.DUP_X2);
+            code.addOpcode(Opcode.POP);
+        } else {
+            code.addOpcode(Opcode.SWAP);
+        }
+        code.addInvokevirtual(BLACKHOLE_CLASS, "consume", "(" + getConsumeDescriptor(type) + ")V");
+
+        return code.get();
+    }
+
+    private byte[] loadBlackhole(int bhSlot) {
+        Bytecode code = new Bytecode(cp);
+        code.addAload(bhSlot);
+        return code.get();
+    }
+
+    private static String getConsumeDescriptor(String type) {
+        char t = type.charAt(0);
+        return t == 'L' || t == '[' ? "Ljava/lang/Object;" : String.valueOf(t);
+    }
+
+    private String getReturnDescriptor(CodeIterator it, int invokeIdx) {
+        int mRef = it.u16bitAt(invokeIdx + 1);
+        String desc = it.byteAt(invokeIdx) == Opcode.INVOKEDYNAMIC ? cp.getInvokeDynamicType(mRef)
+                : cp.getUtf8Info(cp.getNameAndTypeDescriptor(cp.getMemberNameAndType(mRef)));
+        return desc.substring(desc.indexOf(')') + 1);
+    }
+
+    private static String getStoreDescriptor(int op) {
+        switch (op) {
+        case Opcode.LSTORE:
+        case Opcode.LSTORE_0:
+        case Opcode.LSTORE_1:
+        case Opcode.LSTORE_2:
+        case Opcode.LSTORE_3:
+            return "J";
+        case Opcode.DSTORE:
+        case Opcode.DSTORE_0:
+        case Opcode.DSTORE_1:
+        case Opcode.DSTORE_2:
+        case Opcode.DSTORE_3:
+            return "D";
+        case Opcode.FSTORE:
+        case Opcode.FSTORE_0:
+        case Opcode.FSTORE_1:
+        case Opcode.FSTORE_2:
+        case Opcode.FSTORE_3:
+            return "F";
+        case Opcode.ASTORE:
+        case Opcode.ASTORE_0:
+        case Opcode.ASTORE_1:
+        case Opcode.ASTORE_2:
+        case Opcode.ASTORE_3:
+            return "Ljava/lang/Object;";
+        default:
+            return "I";
+        }
+    }
+
+    // Call result popped right away: pop size has to match result size, as other values may be popped too
+    private boolean isDroppedResult(CodeIterator it, int op, int prevIdx) {
+        if (op != Opcode.POP && op != Opcode.POP2 || prevIdx < 0 || !isInvoke(it.byteAt(prevIdx))) {
+            return false;
+        }
+        String type = getReturnDescriptor(it, prevIdx);
+        boolean wide = type.equals("J") || type.equals("D");
+
+        return !type.equals("V") && wide == (op == Opcode.POP2);
+    }
+
+    private static boolean isInvoke(int op) {
+        return op == Opcode.INVOKEVIRTUAL || op == Opcode.INVOKEINTERFACE || op == Opcode.INVOKESTATIC
+                || op == Opcode.INVOKESPECIAL || op == Opcode.INVOKEDYNAMIC;
+    }
+
+    private static boolean isStore(int op) {
+        return op >= Opcode.ISTORE && op <= Opcode.ASTORE_3;
+    }
+
+    private static boolean isLoad(int op) {
+        return op >= Opcode.ILOAD && op <= Opcode.ALOAD_3 || op == Opcode.IINC || op == Opcode.RET;
+    }
+
+    private static int getSlot(CodeIterator it, int idx, int op) {
+        if (op == Opcode.WIDE) {
+            return it.u16bitAt(idx + 2);
+        }
+        if (op >= Opcode.ISTORE_0 && op <= Opcode.ASTORE_3) {
+            return (op - Opcode.ISTORE_0) % 4;
+        }
+        if (op >= Opcode.ILOAD_0 && op <= Opcode.ALOAD_3) {
+            return (op - Opcode.ILOAD_0) % 4;
+        }
+        return it.byteAt(idx + 1);
+    }
+
+    private static Set<Integer> getLoadedSlots(CodeAttribute codeAttr) throws BadBytecode {
+        Set<Integer> slots = new HashSet<>();
+        CodeIterator it = codeAttr.iterator();
+        while (it.hasNext()) {
+            int idx = it.next();
+            int op = it.byteAt(idx);
+            if (op == Opcode.WIDE) {
+                if (isLoad(it.byteAt(idx + 1))) {
+                    slots.add(it.u16bitAt(idx + 2));
+                }
+            } else if (isLoad(op)) {
+                slots.add(getSlot(it, idx, op));
+            }
+        }
+
+        return slots;
+    }
+}
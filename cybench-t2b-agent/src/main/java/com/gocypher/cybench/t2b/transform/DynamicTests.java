@@ -0,0 +1,94 @@
+/*
+ * Copyright (C) 2020-2022, K2N.IO.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA
+ *
+ */
+
+package com.gocypher.cybench.t2b.transform;
+
+import java.lang.reflect.Method;
+import java.util.*;
+
+import org.junit.jupiter.api.DynamicContainer;
+import org.junit.jupiter.api.DynamicNode;
+import org.junit.jupiter.api.DynamicTest;
+
+// Resolves dynamic tests made by JUnit5 @TestFactory method: display name path (container names joined by "/") mapped
+// to test Executable. Used at translation to make benchmark per dynamic test, and by translated benchmark trial setup
+// to get executables to run.
+public final class DynamicTests {
+    public static final String PATH_SEPARATOR = "/";
+
+    private DynamicTests() {
+    }
+
+    // Called by translated benchmark trial setup: executables of dynamic tests made by test factory method
+    public static Object[] resolve(Object test, String methodName, int expectedCount) throws Exception {
+        Method method = findMethod(test.getClass(), methodName);
+        if (method == null) {
+            throw new NoSuchMethodException(test.getClass().getName() + "." + methodName + "()");
+        }
+        List<Map.Entry<String, Object>> tests = getDynamicTests(method, test);
+        if (tests.size() != expectedCount) {
+            throw new IllegalStateException("Test factory " + method + " makes " + tests.size()
+                    + " dynamic tests, while translated benchmarks expect " + expectedCount);
+        }
+        Object[] executables = new Object[tests.size()];
+        for (int i = 0; i < executables.length; i++) {
+            executables[i] = tests.get(i).getValue();
+        }
+
+        return executables;
+    }
+
+    public static Method findMethod(Class<?> cls, String methodName) {
+        for (Class<?> c = cls; c != null; c = c.getSuperclass()) {
+            for (Method m : c.getDeclaredMethods()) {
+                if (m.getName().equals(methodName) && m.getParameterTypes().length == 0) {
+                    return m;
+                }
+            }
+        }
+
+        return null;
+    }
+
+    // Test instance is needed for non-static factory method only: if null, test class instance gets created
+    public static List<Map.Entry<String, Object>> getDynamicTests(Method method, Object test) throws Exception {
+        Class<?> testClass = test == null ? method.getDeclaringClass() : test.getClass();
+        List<Object> nodes = new ArrayList<>();
+        TestArguments.addAll(TestArguments.invoke(method, testClass, test, new Object[0]), nodes);
+
+        List<Map.Entry<String, Object>> tests = new ArrayList<>();
+        addDynamicTests(nodes, null, tests);
+
+        return tests;
+    }
+
+    private static void addDynamicTests(Collection<?> nodes, String path, List<Map.Entry<String, Object>> tests) {
+        for (Object node : nodes) {
+            String name = ((DynamicNode) node).getDisplayName();
+            String nodePath = path == null ? name : path + PATH_SEPARATOR + name;
+            if (node instanceof DynamicTest) {
+                tests.add(new AbstractMap.SimpleImmutableEntry<>(nodePath, ((DynamicTest) node).getExecutable()));
+            } else if (node instanceof DynamicContainer) {
+                List<Object> children = new ArrayList<>();
+                ((DynamicContainer) node).getChildren().forEachOrdered(children::add);
+                addDynamicTests(children, nodePath, tests);
+            }
+        }
+    }
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright (C) 2020-2022, K2N.IO.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA
+ *
+ */
+
+package com.gocypher.cybench.t2b.transform;
+
+import java.io.*;
+import java.util.*;
+
+import org.openjdk.jmh.annotations.Level;
+import org.slf4j.Logger;
+
+import com.gocypher.cybench.t2b.discovery.TestFilter;
+import com.gocypher.cybench.t2b.utils.LogUtils;
+
+// JMH level of per test fixture methods (e.g. @Before, @BeforeEach, @BeforeMethod). Default level is defined by
+// "t2b.fixture.level", and overridden by comma separated "pattern=level" entries of "t2b.fixture.level.overrides",
+// where pattern has same form as test filter one: "classPattern[#methodPattern]" over fixture method. First matching
+// override wins.
+public class FixtureLevels {
+    private static Logger LOGGER = LogUtils.getLogger(FixtureLevels.class);
+
+    public static final String SYS_PROP_LEVEL = "t2b.fixture.level";
+    public static final String SYS_PROP_LEVEL_OVERRIDES = "t2b.fixture.level.overrides";
+    private static final String SYS_PROP_CONFIG = "t2b.aop.cfg.path";
+    private static final String DEFAULT_CONFIG_PATH = "config/t2b.properties";
+
+    private static FixtureLevels instance;
+
+    private final Level defaultLevel;
+    private final Map<TestFilter, Level> overrides = new LinkedHashMap<>();
+
+    public FixtureLevels(String defaultLevel, String overrides) {
+        this.defaultLevel = parseLevel(defaultLevel, Level.Invocation);
+        if (overrides != null) {
+            for (String override : overrides.split(",")) {
+                int levelIdx = override.lastIndexOf('=');
+                if (levelIdx < 0 || override.substring(0, levelIdx).trim().isEmpty()) {
+                    if (!override.trim().isEmpty()) {
+                        LOGGER.warn("Invalid fixture level override: {}, expected form: pattern=level", override);
+                    }
+                    continue;
+                }
+                Level level = parseLevel(override.substring(levelIdx + 1), null);
+                if (level != null) {
+                    this.overrides.put(new TestFilter(override.substring(0, levelIdx).trim(), null), level);
+                }
+            }
+        }
+    }
+
+    public static synchronized FixtureLevels getInstance() {
+        if (instance == null) {
+            instance = load();
+        }
+        return instance;
+    }
+
+    // Reads fixture levels configuration again, e.g. on new daemon translation request
+    public static synchronized void reload() {
+        instance = load();
+    }
+
+    private static FixtureLevels load() {
+        Properties cfgProps = new Properties();
+        String cfgPath = System.getProperty(SYS_PROP_CONFIG, DEFAULT_CONFIG_PATH);
+        if (new File(cfgPath).exists()) {
+            try (Reader rdr = new BufferedReader(new FileReader(cfgPath))) {
+                cfgProps.load(rdr);
+            } catch (IOException exc) {
+                LOGGER.error("Failed to load fixture levels config from: {}, reason: {}", cfgPath,
+                        exc.getLocalizedMessage());
+            }
+        }
+
+        String level = System.getProperty(SYS_PROP_LEVEL, cfgProps.getProperty(SYS_PROP_LEVEL));
+        String overrides = System.getProperty(SYS_PROP_LEVEL_OVERRIDES,
+                cfgProps.getProperty(SYS_PROP_LEVEL_OVERRIDES));
+        FixtureLevels levels = new FixtureLevels(level, overrides);
+        LOGGER.info("Using test fixture levels: default={}, overrides={}", levels.defaultLevel,
+                overrides == null ? "" : overrides);
+        return levels;
+    }
+
+    public Level getLevel(String className, String methodName) {
+        for (Map.Entry<TestFilter, Level> oe : overrides.entrySet()) {
+            if (oe.getKey().isMethodIncluded(className, methodName)) {
+                return oe.getValue();
+            }
+        }
+
+        return defaultLevel;
+    }
+
+    private static Level parseLevel(String level, Level defaultLevel) {
+        if (level == null || level.trim().isEmpty()) {
+            return defaultLevel;
+        }
+        for (Level l : Level.values()) {
+            if (l.name().equalsIgnoreCase(level.trim())) {
+                return l;
+            }
+        }
+        LOGGER.warn("Unknown fixture level: {}, expected one of: {}", level, Arrays.toString(Level.values()));
+        return defaultLevel;
+    }
+}
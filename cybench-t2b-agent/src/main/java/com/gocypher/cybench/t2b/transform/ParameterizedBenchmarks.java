@@ -0,0 +1,283 @@
+/*
+ * Copyright (C) 2020-2022, K2N.IO.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA
+ *
+ */
+
+package com.gocypher.cybench.t2b.transform;
+
+import java.util.*;
+
+import javassist.bytecode.*;
+
+// Makes parameterized test method a set of benchmarks: every argument set gets no-arguments wrapper method calling
+// test method with arguments taken from synthetic array field. Array fields get filled by trial setup method over
+// TestArguments at benchmark runtime, so arguments are same objects as test framework would pass to test method.
+// Test factory method is made a set of benchmarks same way: every dynamic test gets wrapper method running its
+// executable, taken from array field filled over DynamicTests.
+public class ParameterizedBenchmarks {
+    private static final String ARGS_FIELD_PREFIX = "t2b$args$";
+    private static final String ARGS_FIELD_DESC = "[[Ljava/lang/Object;";
+    private static final String SETUP_METHOD_NAME = "t2b$setupArguments";
+    private static final String TEST_ARGUMENTS_CLASS = TestArguments.class.getName();
+    private static final String TESTS_FIELD_PREFIX = "t2b$tests$";
+    private static final String TESTS_FIELD_DESC = "[Ljava/lang/Object;";
+    private static final String DYNAMIC_TESTS_CLASS = DynamicTests.class.getName();
+    private static final String EXECUTABLE_CLASS = "org.junit.jupiter.api.function.Executable";
+    private static final int MAX_LABEL_LENGTH = 32;
+
+    private final ClassFile classFile;
+    private final ConstPool cp;
+    private final Map<String, Integer> argFields = new LinkedHashMap<>();
+    private final Map<String, Integer> testFields = new LinkedHashMap<>();
+
+    public ParameterizedBenchmarks(ClassFile classFile) {
+        this.classFile = classFile;
+        this.cp = classFile.getConstPool();
+    }
+
+    // Returns names of wrapper methods, one per argument set
+    public List<String> addBenchmarks(MethodInfo method, List<Object[]> argSets) throws DuplicateMemberException {
+        String fieldName = ARGS_FIELD_PREFIX + method.getName();
+        FieldInfo field = new FieldInfo(cp, fieldName, ARGS_FIELD_DESC);
+        field.setAccessFlags(AccessFlag.PRIVATE | AccessFlag.SYNTHETIC);
+        classFile.addField(field);
+        argFields.put(method.getName(), argSets.size());
+
+        List<String> labels = getLabels(argSets);
+        List<String> names = new ArrayList<>(argSets.size());
+        for (int i = 0; i < argSets.size(); i++) {
+            String name = method.getName() + "_" + labels.get(i);
+            while (classFile.getMethod(name) != null) {
+                name += "_";
+            }
+            addWrapper(name, method, fieldName, i);
+            names.add(name);
+        }
+
+        return names;
+    }
+
+    // Returns names of wrapper methods, one per dynamic test
+    public List<String> addDynamicBenchmarks(MethodInfo factory, List<String> testNames)
+            throws DuplicateMemberException {
+        String fieldName = TESTS_FIELD_PREFIX + factory.getName();
+        FieldInfo field = new FieldInfo(cp, fieldName, TESTS_FIELD_DESC);
+        field.setAccessFlags(AccessFlag.PRIVATE | AccessFlag.SYNTHETIC);
+        classFile.addField(field);
+        testFields.put(factory.getName(), testNames.size());
+
+        List<Object[]> labelArgs = new ArrayList<>(testNames.size());
+        for (String testName : testNames) {
+            labelArgs.add(new Object[] { testName });
+        }
+        List<String> labels = getLabels(labelArgs);
+        List<String> names = new ArrayList<>(testNames.size());
+        for (int i = 0; i < testNames.size(); i++) {
+            String name = factory.getName() + "_" + labels.get(i);
+            while (classFile.getMethod(name) != null) {
+                name += "_";
+            }
+            Bytecode code = new Bytecode(cp, 0, 1);
+            code.addAload(0);
+            code.addGetfield(classFile.getName(), fieldName, TESTS_FIELD_DESC);
+            code.addIconst(i);
+            code.addOpcode(Opcode.AALOAD);
+            code.addCheckcast(EXECUTABLE_CLASS);
+            code.addInvokeinterface(EXECUTABLE_CLASS, "execute", "()V", 1);
+            code.addOpcode(Opcode.RETURN);
+
+            MethodInfo wrapper = new MethodInfo(cp, name, "()V");
+            wrapper.setAccessFlags(AccessFlag.PUBLIC);
+            wrapper.setCodeAttribute(code.toCodeAttribute());
+            wrapper.setExceptionsAttribute(newExceptionsAttribute(Throwable.class));
+            classFile.addMethod(wrapper);
+            names.add(name);
+        }
+
+        return names;
+    }
+
+    public boolean hasBenchmarks() {
+        return !argFields.isEmpty() || !testFields.isEmpty();
+    }
+
+    // Trial setup method, filling argument fields of all parameterized test methods
+    public String addSetup() throws DuplicateMemberException {
+        String name = SETUP_METHOD_NAME;
+        while (classFile.getMethod(name) != null) {
+            name += "$";
+        }
+        Bytecode code = new Bytecode(cp, 0, 1);
+        for (Map.Entry<String, Integer> afe : argFields.entrySet()) {
+            code.addAload(0);
+            code.addAload(0);
+            code.addLdc(afe.getKey());
+            code.addIconst(afe.getValue());
+            code.addInvokestatic(TEST_ARGUMENTS_CLASS, "resolve",
+                    "(Ljava/lang/Object;Ljava/lang/String;I)" + ARGS_FIELD_DESC);
+            code.addPutfield(classFile.getName(), ARGS_FIELD_PREFIX + afe.getKey(), ARGS_FIELD_DESC);
+        }
+        for (Map.Entry<String, Integer> tfe : testFields.entrySet()) {
+            code.addAload(0);
+            code.addAload(0);
+            code.addLdc(tfe.getKey());
+            code.addIconst(tfe.getValue());
+            code.addInvokestatic(DYNAMIC_TESTS_CLASS, "resolve",
+                    "(Ljava/lang/Object;Ljava/lang/String;I)" + TESTS_FIELD_DESC);
+            code.addPutfield(classFile.getName(), TESTS_FIELD_PREFIX + tfe.getKey(), TESTS_FIELD_DESC);
+        }
+        code.addOpcode(Opcode.RETURN);
+
+        MethodInfo setup = new MethodInfo(cp, name, "()V");
+        setup.setAccessFlags(AccessFlag.PUBLIC);
+        setup.setCodeAttribute(code.toCodeAttribute());
+        setup.setExceptionsAttribute(newExceptionsAttribute(Exception.class));
+        classFile.addMethod(setup);
+
+        return name;
+    }
+
+    private ExceptionsAttribute newExceptionsAttribute(Class<? extends Throwable> exceptionType) {
+        ExceptionsAttribute exceptions = new ExceptionsAttribute(cp);
+        exceptions.setExceptions(new String[] { exceptionType.getName() });
+        return exceptions;
+    }
+
+    private void addWrapper(String name, MethodInfo method, String fieldName, int argsIdx)
+            throws DuplicateMemberException {
+        String desc = method.getDescriptor();
+        boolean isStatic = (method.getAccessFlags() & AccessFlag.STATIC) != 0;
+        List<String> params = BlackholeRouter.getParameterDescriptors(desc);
+        String returnType = desc.substring(desc.indexOf(')') + 1);
+        Bytecode code = new Bytecode(cp, 0, 1);
+        if (!isStatic) {
+            code.addAload(0);
+        }
+        for (int i = 0; i < params.size(); i++) {
+            code.addAload(0);
+            code.addGetfield(classFile.getName(), fieldName, ARGS_FIELD_DESC);
+            code.addIconst(argsIdx);
+            code.addOpcode(Opcode.AALOAD);
+            code.addIconst(i);
+            code.addOpcode(Opcode.AALOAD);
+            addCast(code, params.get(i));
+        }
+        if (isStatic) {
+            code.addInvokestatic(classFile.getName(), method.getName(), desc);
+        } else if ((method.getAccessFlags() & AccessFlag.PRIVATE) != 0) {
+            code.addInvokespecial(classFile.getName(), method.getName(), desc);
+        } else {
+            code.addInvokevirtual(classFile.getName(), method.getName(), desc);
+        }
+        BlackholeRouter.addReturn(code, returnType);
+
+        MethodInfo wrapper = new MethodInfo(cp, name, "()" + returnType);
+        wrapper.setAccessFlags(AccessFlag.PUBLIC);
+        wrapper.setCodeAttribute(code.toCodeAttribute());
+        wrapper.setExceptionsAttribute(newExceptionsAttribute(Exception.class));
+        classFile.addMethod(wrapper);
+    }
+
+    // Argument is Object: primitive ones get unboxed from wrapper type, reference ones get cast to parameter type
+    private static void addCast(Bytecode code, String type) {
+        String boxed;
+        String unbox;
+        switch (type.charAt(0)) {
+        case 'Z':
+            boxed = "java.lang.Boolean";
+            unbox = "booleanValue";
+            break;
+        case 'B':
+            boxed = "java.lang.Byte";
+            unbox = "byteValue";
+            break;
+        case 'C':
+            boxed = "java.lang.Character";
+            unbox = "charValue";
+            break;
+        case 'S':
+            boxed = "java.lang.Short";
+            unbox = "shortValue";
+            break;
+        case 'I':
+            boxed = "java.lang.Integer";
+            unbox = "intValue";
+            break;
+        case 'J':
+            boxed = "java.lang.Long";
+            unbox = "longValue";
+            break;
+        case 'F':
+            boxed = "java.lang.Float";
+            unbox = "floatValue";
+            break;
+        case 'D':
+            boxed = "java.lang.Double";
+            unbox = "doubleValue";
+            break;
+        default:
+            if (!type.equals("Ljava/lang/Object;")) {
+                code.addCheckcast(type.charAt(0) == '[' ? type : Descriptor.toJavaName(type.substring(1,
+                        type.length() - 1)));
+            }
+            return;
+        }
+        code.addCheckcast(boxed);
+        code.addInvokevirtual(boxed, unbox, "()" + type);
+    }
+
+    // Argument set label: arguments joined by "_" having all non-identifier chars replaced, or set index if label is
+    // empty, too long, same as for other argument set or not stable between runs (argument has identity based
+    // Object.toString())
+    static List<String> getLabels(List<Object[]> argSets) {
+        List<String> labels = new ArrayList<>(argSets.size());
+        Set<String> used = new HashSet<>();
+        for (Object[] args : argSets) {
+            String label = hasIdentityText(args) ? "" : Arrays.deepToString(args);
+            label = label.substring(Math.min(1, label.length()), Math.max(0, label.length() - 1))
+                    .replace(", ", "_").replaceAll("[^A-Za-z0-9_]", "_");
+            labels.add(label.length() > MAX_LABEL_LENGTH || !used.add(label) ? null : label);
+        }
+        for (int i = 0; i < labels.size(); i++) {
+            if (labels.get(i) == null || labels.get(i).replace("_", "").isEmpty()) {
+                labels.set(i, String.valueOf(i));
+            }
+        }
+
+        return labels;
+    }
+
+    private static boolean hasIdentityText(Object[] args) {
+        for (Object arg : args) {
+            if (arg instanceof Object[]) {
+                if (hasIdentityText((Object[]) arg)) {
+                    return true;
+                }
+            } else if (arg != null && !arg.getClass().isArray()) {
+                try {
+                    if (arg.getClass().getMethod("toString").getDeclaringClass() == Object.class) {
+                        return true;
+                    }
+                } catch (NoSuchMethodException exc) {
+                    return true;
+                }
+            }
+        }
+
+        return false;
+    }
+}
@@ -0,0 +1,485 @@
+/*
+ * Copyright (C) 2020-2022, K2N.IO.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA
+ *
+ */
+
+package com.gocypher.cybench.t2b.transform;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.*;
+import java.util.*;
+import java.util.regex.Pattern;
+import java.util.stream.BaseStream;
+
+// Resolves argument sets of parameterized test method: JUnit5 @ValueSource, @EnumSource, @CsvSource and @MethodSource
+// sources, and TestNG data provider. Used at translation to make benchmark per argument set, and by translated
+// benchmark trial setup to get arguments passed to test method, so it shall depend on nothing, but test frameworks.
+// JUnit5 source annotations are read reflectively, so members missing in older JUnit versions fall back to defaults.
+public final class TestArguments {
+    private static final String JU5_PROVIDER_PACKAGE = "org.junit.jupiter.params.provider.";
+    private static final String JU5_VALUE_SOURCE = JU5_PROVIDER_PACKAGE + "ValueSource";
+    private static final String JU5_ENUM_SOURCE = JU5_PROVIDER_PACKAGE + "EnumSource";
+    private static final String JU5_CSV_SOURCE = JU5_PROVIDER_PACKAGE + "CsvSource";
+    private static final String JU5_METHOD_SOURCE = JU5_PROVIDER_PACKAGE + "MethodSource";
+    private static final String JU5_ARGUMENTS = JU5_PROVIDER_PACKAGE + "Arguments";
+    private static final String JU5_NULL_ENUM = JU5_PROVIDER_PACKAGE + "NullEnum";
+    private static final String TESTNG_TEST = "org.testng.annotations.Test";
+    private static final String TESTNG_DATA_PROVIDER = "org.testng.annotations.DataProvider";
+    private static final String[] VALUE_SOURCE_MEMBERS = { "shorts", "bytes", "ints", "longs", "floats", "doubles",
+            "chars", "booleans", "strings", "classes" };
+
+    private TestArguments() {
+    }
+
+    // Called by translated benchmark trial setup: argument sets of its test method converted to parameter types
+    public static Object[][] resolve(Object test, String methodName, int expectedCount) throws Exception {
+        Method method = findMethod(test.getClass(), methodName);
+        if (method == null) {
+            throw new NoSuchMethodException(test.getClass().getName() + "." + methodName);
+        }
+        List<Object[]> argSets = getArguments(method, test);
+        if (argSets.size() != expectedCount) {
+            throw new IllegalStateException("Test method " + method + " has " + argSets.size()
+                    + " argument sets, while translated benchmarks expect " + expectedCount);
+        }
+
+        return argSets.toArray(new Object[0][]);
+    }
+
+    public static Method findMethod(Class<?> cls, String methodName) {
+        for (Class<?> c = cls; c != null; c = c.getSuperclass()) {
+            for (Method m : c.getDeclaredMethods()) {
+                if (m.getName().equals(methodName) && m.getParameterTypes().length > 0) {
+                    return m;
+                }
+            }
+        }
+
+        return null;
+    }
+
+    // Test instance is needed for non-static argument providers only: if null, test class instance gets created
+    public static List<Object[]> getArguments(Method method, Object test) throws Exception {
+        Class<?> testClass = test == null ? method.getDeclaringClass() : test.getClass();
+        List<Object> sources = new ArrayList<>();
+        for (Annotation ann : method.getAnnotations()) {
+            String annType = ann.annotationType().getName();
+            if (annType.equals(JU5_VALUE_SOURCE)) {
+                addValueSourceArguments(ann, sources);
+            } else if (annType.equals(JU5_ENUM_SOURCE)) {
+                addEnumSourceArguments(ann, method, sources);
+            } else if (annType.equals(JU5_CSV_SOURCE)) {
+                addCsvSourceArguments(ann, sources);
+            } else if (annType.equals(JU5_METHOD_SOURCE)) {
+                addMethodSourceArguments(ann, method, testClass, test, sources);
+            } else if (annType.equals(TESTNG_TEST)) {
+                addDataProviderArguments(ann, method, testClass, test, sources);
+            }
+        }
+
+        Class<?>[] pTypes = method.getParameterTypes();
+        List<Object[]> argSets = new ArrayList<>(sources.size());
+        for (Object source : sources) {
+            Object[] args = toArguments(source, pTypes);
+            // Arguments exceeding method parameters are ignored, same as JUnit does
+            if (args.length < pTypes.length) {
+                throw new IllegalArgumentException("Argument set " + Arrays.deepToString(args)
+                        + " does not provide all parameters of method " + method);
+            }
+            Object[] converted = new Object[pTypes.length];
+            for (int i = 0; i < pTypes.length; i++) {
+                converted[i] = convert(args[i], pTypes[i]);
+            }
+            argSets.add(converted);
+        }
+
+        return argSets;
+    }
+
+    private static Object[] toArguments(Object source, Class<?>[] pTypes) throws Exception {
+        if (source != null && isInstanceOf(source.getClass(), JU5_ARGUMENTS)) {
+            Method get = source.getClass().getMethod("get");
+            get.setAccessible(true);
+            return (Object[]) get.invoke(source);
+        }
+        // Object array is argument set, unless method takes single array parameter
+        if (source instanceof Object[] && !(pTypes.length == 1 && pTypes[0].isInstance(source))) {
+            return (Object[]) source;
+        }
+
+        return new Object[] { source };
+    }
+
+    private static boolean isInstanceOf(Class<?> cls, String typeName) {
+        if (cls == null) {
+            return false;
+        }
+        if (cls.getName().equals(typeName)) {
+            return true;
+        }
+        for (Class<?> iface : cls.getInterfaces()) {
+            if (isInstanceOf(iface, typeName)) {
+                return true;
+            }
+        }
+
+        return isInstanceOf(cls.getSuperclass(), typeName);
+    }
+
+    private static void addValueSourceArguments(Annotation ann, List<Object> sources) throws Exception {
+        for (String member : VALUE_SOURCE_MEMBERS) {
+            Object values = getMember(ann, member, null);
+            if (values != null) {
+                for (int i = 0; i < Array.getLength(values); i++) {
+                    sources.add(new Object[] { Array.get(values, i) });
+                }
+            }
+        }
+    }
+
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private static void addEnumSourceArguments(Annotation ann, Method method, List<Object> sources)
+            throws Exception {
+        Class<?> enumClass = getMember(ann, "value", null);
+        if (enumClass == null || enumClass.getName().equals(JU5_NULL_ENUM)) {
+            enumClass = method.getParameterTypes()[0];
+        }
+        String[] names = getMember(ann, "names", new String[0]);
+        Enum<?> mode = getMember(ann, "mode", null);
+        String modeName = mode == null ? "INCLUDE" : mode.name();
+        for (Object constant : enumClass.getEnumConstants()) {
+            String name = ((Enum) constant).name();
+            if (names.length == 0 || isEnumSelected(name, names, modeName)) {
+                sources.add(new Object[] { constant });
+            }
+        }
+    }
+
+    private static boolean isEnumSelected(String name, String[] names, String modeName) {
+        switch (modeName) {
+        case "EXCLUDE":
+            return !Arrays.asList(names).contains(name);
+        case "MATCH_ALL":
+            for (String regex : names) {
+                if (!Pattern.matches(regex, name)) {
+                    return false;
+                }
+            }
+            return true;
+        case "MATCH_ANY":
+            for (String regex : names) {
+                if (Pattern.matches(regex, name)) {
+                    return true;
+                }
+            }
+            return false;
+        default:
+            return Arrays.asList(names).contains(name);
+        }
+    }
+
+    private static void addCsvSourceArguments(Annotation ann, List<Object> sources) throws Exception {
+        List<String> lines = new ArrayList<>(Arrays.asList(getMember(ann, "value", new String[0])));
+        String textBlock = getMember(ann, "textBlock", "");
+        for (String line : textBlock.split("\\r?\\n")) {
+            if (!line.trim().isEmpty() && !line.trim().startsWith("#")) {
+                lines.add(line);
+            }
+        }
+        String delimiter = getMember(ann, "delimiterString", "");
+        if (delimiter.isEmpty()) {
+            char delimiterChar = getMember(ann, "delimiter", '\0');
+            delimiter = delimiterChar == '\0' ? "," : String.valueOf(delimiterChar);
+        }
+        char quote = getMember(ann, "quoteCharacter", '\'');
+        String emptyValue = getMember(ann, "emptyValue", "");
+        List<String> nullValues = Arrays.asList(getMember(ann, "nullValues", new String[0]));
+        boolean trim = getMember(ann, "ignoreLeadingAndTrailingWhitespace", true);
+        for (String line : lines) {
+            sources.add(parseCsvLine(line, delimiter, quote, emptyValue, nullValues, trim));
+        }
+    }
+
+    // Unquoted empty value is null, quoted empty value is "emptyValue"
+    static Object[] parseCsvLine(String line, String delimiter, char quote, String emptyValue,
+            List<String> nullValues, boolean trim) {
+        List<Object> values = new ArrayList<>();
+        StringBuilder value = new StringBuilder();
+        boolean quoted = false;
+        boolean inQuotes = false;
+        int i = 0;
+        while (i <= line.length()) {
+            if (i == line.length() || !inQuotes && line.startsWith(delimiter, i)) {
+                String str = quoted ? value.toString() : trim ? value.toString().trim() : value.toString();
+                if (nullValues.contains(str)) {
+                    values.add(null);
+                } else if (str.isEmpty()) {
+                    values.add(quoted ? emptyValue : null);
+                } else {
+                    values.add(str);
+                }
+                value.setLength(0);
+                quoted = false;
+                i += i == line.length() ? 1 : delimiter.length();
+                continue;
+            }
+            char c = line.charAt(i);
+            if (c == quote) {
+                if (inQuotes && i + 1 < line.length() && line.charAt(i + 1) == quote) {
+                    value.append(quote);
+                    i++;
+                } else {
+                    if (!inQuotes && !quoted) {
+                        // Whitespace before opening quote is not part of value
+                        value.setLength(0);
+                    }
+                    inQuotes = !inQuotes;
+                    quoted = true;
+                }
+            } else if (inQuotes || !quoted) {
+                value.append(c);
+            }
+            i++;
+        }
+
+        return values.toArray();
+    }
+
+    private static void addMethodSourceArguments(Annotation ann, Method method, Class<?> testClass, Object test,
+            List<Object> sources) throws Exception {
+        String[] factories = getMember(ann, "value", new String[0]);
+        if (factories.length == 0) {
+            factories = new String[] { "" };
+        }
+        for (String factory : factories) {
+            Class<?> factoryClass = testClass;
+            String factoryName = factory.trim();
+            int classIdx = factoryName.indexOf('#');
+            if (classIdx >= 0) {
+                factoryClass = Class.forName(factoryName.substring(0, classIdx), true,
+                        testClass.getClassLoader());
+                factoryName = factoryName.substring(classIdx + 1);
+            }
+            int paramsIdx = factoryName.indexOf('(');
+            if (paramsIdx >= 0) {
+                factoryName = factoryName.substring(0, paramsIdx);
+            }
+            if (factoryName.isEmpty()) {
+                factoryName = method.getName();
+            }
+            Method factoryMethod = findFactoryMethod(factoryClass, factoryName);
+            if (factoryMethod == null) {
+                throw new NoSuchMethodException(
+                        "Argument source method " + factoryClass.getName() + "." + factoryName + "()");
+            }
+            addAll(invoke(factoryMethod, factoryClass, test, new Object[0]), sources);
+        }
+    }
+
+    private static Method findFactoryMethod(Class<?> cls, String name) {
+        for (Class<?> c = cls; c != null; c = c.getSuperclass()) {
+            for (Method m : c.getDeclaredMethods()) {
+                if (m.getName().equals(name) && m.getParameterTypes().length == 0) {
+                    return m;
+                }
+            }
+        }
+
+        return null;
+    }
+
+    private static void addDataProviderArguments(Annotation ann, Method method, Class<?> testClass, Object test,
+            List<Object> sources) throws Exception {
+        String dataProvider = getMember(ann, "dataProvider", "");
+        if (dataProvider.isEmpty()) {
+            return;
+        }
+        Class<?> providerClass = getMember(ann, "dataProviderClass", Object.class);
+        if (providerClass == Object.class) {
+            providerClass = testClass;
+        }
+        Method providerMethod = null;
+        for (Class<?> c = providerClass; c != null && providerMethod == null; c = c.getSuperclass()) {
+            for (Method m : c.getDeclaredMethods()) {
+                Annotation dpAnn = getAnnotation(m, TESTNG_DATA_PROVIDER);
+                if (dpAnn != null) {
+                    String name = getMember(dpAnn, "name", "");
+                    if (dataProvider.equals(name.isEmpty() ? m.getName() : name)) {
+                        providerMethod = m;
+                        break;
+                    }
+                }
+            }
+        }
+        if (providerMethod == null) {
+            throw new NoSuchMethodException("Data provider " + dataProvider + " in " + providerClass.getName());
+        }
+        // Test method is the only data provider parameter available out of TestNG run
+        Class<?>[] pTypes = providerMethod.getParameterTypes();
+        Object[] args = new Object[pTypes.length];
+        for (int i = 0; i < pTypes.length; i++) {
+            args[i] = pTypes[i] == Method.class ? method : null;
+        }
+        addAll(invoke(providerMethod, providerClass, test, args), sources);
+    }
+
+    private static Annotation getAnnotation(Method method, String annType) {
+        for (Annotation ann : method.getAnnotations()) {
+            if (ann.annotationType().getName().equals(annType)) {
+                return ann;
+            }
+        }
+
+        return null;
+    }
+
+    static Object invoke(Method method, Class<?> cls, Object test, Object[] args) throws Exception {
+        method.setAccessible(true);
+        Object target = null;
+        if (!Modifier.isStatic(method.getModifiers())) {
+            if (test != null && cls.isInstance(test)) {
+                target = test;
+            } else {
+                Constructor<?> constructor = cls.getDeclaredConstructor();
+                constructor.setAccessible(true);
+                target = constructor.newInstance();
+            }
+        }
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException exc) {
+            Throwable cause = exc.getCause();
+            throw cause instanceof Exception ? (Exception) cause : exc;
+        }
+    }
+
+    static void addAll(Object values, List<Object> sources) {
+        Iterator<?> it;
+        if (values == null) {
+            return;
+        } else if (values instanceof BaseStream) {
+            it = ((BaseStream<?, ?>) values).iterator();
+        } else if (values instanceof Iterable) {
+            it = ((Iterable<?>) values).iterator();
+        } else if (values instanceof Iterator) {
+            it = (Iterator<?>) values;
+        } else if (values.getClass().isArray()) {
+            for (int i = 0; i < Array.getLength(values); i++) {
+                sources.add(Array.get(values, i));
+            }
+            return;
+        } else {
+            sources.add(values);
+            return;
+        }
+        while (it.hasNext()) {
+            sources.add(it.next());
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T getMember(Annotation ann, String member, T defaultValue) {
+        try {
+            return (T) ann.annotationType().getMethod(member).invoke(ann);
+        } catch (NoSuchMethodException exc) {
+            return defaultValue;
+        } catch (Exception exc) {
+            throw new IllegalStateException(
+                    "Failed to get " + ann.annotationType().getName() + " member: " + member, exc);
+        }
+    }
+
+    // Implicit conversion of argument to parameter type: primitive widening, and strings to primitives, enums,
+    // classes or types having static factory method or constructor taking single string
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    static Object convert(Object value, Class<?> type) throws Exception {
+        Class<?> boxedType = box(type);
+        if (value == null) {
+            if (type.isPrimitive()) {
+                throw new IllegalArgumentException("Can't pass null as primitive " + type + " argument");
+            }
+            return null;
+        }
+        if (boxedType.isInstance(value)) {
+            return value;
+        }
+        if (value instanceof Number && Number.class.isAssignableFrom(boxedType)) {
+            Number number = (Number) value;
+            if (boxedType == Long.class) {
+                return number.longValue();
+            } else if (boxedType == Integer.class) {
+                return number.intValue();
+            } else if (boxedType == Short.class) {
+                return number.shortValue();
+            } else if (boxedType == Double.class) {
+                return number.doubleValue();
+            } else if (boxedType == Float.class) {
+                return number.floatValue();
+            }
+        }
+        if (value instanceof String) {
+            String str = (String) value;
+            if (boxedType == Character.class && str.length() == 1) {
+                return str.charAt(0);
+            } else if (boxedType == Boolean.class) {
+                return Boolean.valueOf(str);
+            } else if (boxedType.isEnum()) {
+                return Enum.valueOf((Class<Enum>) boxedType, str);
+            } else if (boxedType == Class.class) {
+                return Class.forName(str);
+            }
+            // "valueOf" goes first: e.g. Long.getLong(String) is factory too, but reads system property
+            Method factory = getStringFactory(boxedType, "valueOf");
+            if (factory == null) {
+                factory = getStringFactory(boxedType, null);
+            }
+            if (factory != null) {
+                factory.setAccessible(true);
+                return factory.invoke(null, str);
+            }
+            try {
+                Constructor<?> constructor = boxedType.getDeclaredConstructor(String.class);
+                constructor.setAccessible(true);
+                return constructor.newInstance(str);
+            } catch (NoSuchMethodException exc) {
+                // Falls to conversion failure
+            }
+        }
+
+        throw new IllegalArgumentException(
+                "Can't convert argument " + value + " of type " + value.getClass().getName() + " to " + type);
+    }
+
+    private static Method getStringFactory(Class<?> type, String name) {
+        for (Method m : type.getDeclaredMethods()) {
+            if ((name == null || m.getName().equals(name)) && Modifier.isStatic(m.getModifiers())
+                    && !Modifier.isPrivate(m.getModifiers()) && m.getReturnType() == type
+                    && m.getParameterTypes().length == 1 && m.getParameterTypes()[0] == String.class) {
+                return m;
+            }
+        }
+
+        return null;
+    }
+
+    private static Class<?> box(Class<?> type) {
+        if (!type.isPrimitive()) {
+            return type;
+        }
+        return Array.get(Array.newInstance(type, 1), 0).getClass();
+    }
+}
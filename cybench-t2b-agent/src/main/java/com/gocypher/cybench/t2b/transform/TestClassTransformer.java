@@ -19,22 +19,34 @@
 
 package com.gocypher.cybench.t2b.transform;
 
-import java.io.File;
+import java.io.*;
+import java.lang.reflect.Method;
 import java.text.MessageFormat;
-import java.util.ArrayList;
-import java.util.Collection;
-import java.util.List;
+import java.util.*;
 
 import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Setup;
 import org.openjdk.jmh.generators.core.ClassInfo;
 import org.openjdk.jmh.generators.reflection.T2BClassInfo;
 import org.slf4j.Logger;
 
+import com.gocypher.cybench.T2BConfig;
 import com.gocypher.cybench.T2BMapper;
+import com.gocypher.cybench.core.annotation.BenchmarkMetaData;
+import com.gocypher.cybench.core.annotation.BenchmarkTag;
+import com.gocypher.cybench.core.annotation.CyBenchMetadataList;
+import com.gocypher.cybench.t2b.discovery.TestFilter;
+import com.gocypher.cybench.t2b.transform.annotation.*;
 import com.gocypher.cybench.t2b.utils.LogUtils;
 
 import javassist.ClassPool;
 import javassist.CtClass;
+import javassist.NotFoundException;
+import javassist.bytecode.ClassFile;
+import javassist.bytecode.InnerClassesAttribute;
+import javassist.bytecode.MethodInfo;
+import javassist.util.proxy.DefineClassHelper;
 
 public class TestClassTransformer extends AbstractClassTransformer {
     private static Logger LOGGER = LogUtils.getLogger(TestClassTransformer.class);
@@ -44,15 +56,39 @@ public class TestClassTransformer extends AbstractClassTransformer {
     private static String benchClassNameSuffix = System.getProperty(SYS_PROP_CLASS_NAME_SUFFIX,
             DEFAULT_CLASS_NAME_SUFFIX);
 
+    private static final String SYS_PROP_TRANSFORM_ENGINE = "t2b.transform.engine";
+    public static final String ENGINE_JAVASSIST = "javassist";
+    public static final String ENGINE_CLASS_FILE = "classfile";
+    // Assertion calls of benchmark methods routed to Blackhole get replaced by consume-only stubs
+    public static final String SYS_PROP_STRIP_ASSERTIONS = "t2b.strip.assertions";
+
     List<org.openjdk.jmh.generators.core.MethodInfo> benchmarksList = new ArrayList<>();
     private ClassInfo aClsInfo;
+    private final ClassPool classPool;
+    // Class file engine: test class file is read once, renamed and annotated without javassist class pool, so nothing
+    // is retained after altered class gets stored and defined
+    private ClassFile alteredClassFile;
+    private String alteredClassName;
+    private BlackholeRouter blackholeRouter;
+    private ParameterizedBenchmarks parameterizedBenchmarks;
+    // Benchmark methods generated for parameterized test argument sets, not present in test class
+    private final List<String> generatedBenchmarks = new ArrayList<>();
 
     public TestClassTransformer(ClassInfo clsInfo) {
+        this(clsInfo, ClassPool.getDefault());
+    }
+
+    public TestClassTransformer(ClassInfo clsInfo, ClassPool classPool) {
         super();
 
+        this.classPool = isClassFileEngine() ? null : classPool;
         setClassInfo(checkClassLoaderForAlteredClass(clsInfo));
     }
 
+    private static boolean isClassFileEngine() {
+        return ENGINE_CLASS_FILE.equalsIgnoreCase(System.getProperty(SYS_PROP_TRANSFORM_ENGINE, ENGINE_JAVASSIST));
+    }
+
     private ClassInfo checkClassLoaderForAlteredClass(ClassInfo clsInfo) {
         String clsName = getClassName(clsInfo);
         String alteredClassName = getAlteredClassName(clsName);
@@ -61,7 +97,11 @@ public class TestClassTransformer extends AbstractClassTransformer {
             return new T2BClassInfo(alteredCLClass);
         } catch (Exception exc) {
             try {
-                getCtClass(clsName);
+                if (classPool == null) {
+                    getAlteredClassFile(clsName);
+                } else {
+                    getCtClass(clsName);
+                }
             } catch (Exception exc2) {
                 exc2.printStackTrace(); // TODO:
             }
@@ -79,6 +119,10 @@ public class TestClassTransformer extends AbstractClassTransformer {
         for (org.openjdk.jmh.generators.core.MethodInfo methodInfo : getClsInfo().getMethods()) {
             annotateMethod(methodInfo, t2bMappers);
         }
+
+        if (parameterizedBenchmarks != null && parameterizedBenchmarks.hasBenchmarks()) {
+            annotateArgumentsSetup();
+        }
     }
 
     public void storeTransformedClass(String dir) {
@@ -86,6 +130,7 @@ public class TestClassTransformer extends AbstractClassTransformer {
             try {
                 storeClass(dir);
                 toClass();
+                alteredClassFile = null;
             } catch (Exception exc) {
                 LOGGER.error(MessageFormat.format("Failed to use altered class: {0}", getAlteredClassName()), exc);
             }
@@ -105,6 +150,218 @@ public class TestClassTransformer extends AbstractClassTransformer {
         annotateBenchmarkMetadataList(methodInfo, getMetadata(methodInfo));
     }
 
+    public void annotateBenchmarkConfig(org.openjdk.jmh.generators.core.MethodInfo methodInfo) {
+        annotateBenchmarkConfig(methodInfo, (String) null);
+    }
+
+    // Test annotation implied options override configuration template ones, while @T2BConfig overrides them
+    public void annotateBenchmarkConfig(org.openjdk.jmh.generators.core.MethodInfo methodInfo, String testOptions) {
+        for (Map.Entry<String, Map<String, Object>> ae : getBenchmarkConfig(methodInfo, testOptions).getAnnotations()
+                .entrySet()) {
+            annotateBenchmarkMethod(methodInfo, new ValueAnnotationBuilder(ae.getKey(), ae.getValue()));
+        }
+    }
+
+    private BenchmarkConfig getBenchmarkConfig(org.openjdk.jmh.generators.core.MethodInfo methodInfo,
+            String testOptions) {
+        T2BConfig classCfg = getClsInfo().getAnnotation(T2BConfig.class);
+        T2BConfig methodCfg = methodInfo.getAnnotation(T2BConfig.class);
+        return BenchmarkConfig.resolve(methodInfo.getDeclaringClass().getQualifiedName(), methodInfo.getName(),
+                testOptions, classCfg == null ? null : classCfg.value(),
+                methodCfg == null ? null : methodCfg.value());
+    }
+
+    // Every argument set of parameterized test gets own benchmark method, tag and metadata. Test method itself is
+    // left as is, and is called by generated benchmark methods
+    public boolean annotateParameterizedBenchmarks(org.openjdk.jmh.generators.core.MethodInfo methodInfo,
+            String testOptions) {
+        List<Object[]> argSets;
+        try {
+            Method method = TestArguments.findMethod(getClass(getClsInfo()), methodInfo.getName());
+            argSets = method == null ? Collections.emptyList() : TestArguments.getArguments(method, null);
+        } catch (Throwable exc) {
+            LOGGER.info(String.format("%-20.20s: %s", "Skipping", "test method " + methodInfo.getQualifiedName()
+                    + ", reason: failed to resolve arguments, " + exc));
+            return false;
+        }
+        if (argSets.isEmpty()) {
+            LOGGER.info(String.format("%-20.20s: %s", "Skipping",
+                    "test method " + methodInfo.getQualifiedName() + ", reason: no arguments found"));
+            return false;
+        }
+
+        List<String> names;
+        try {
+            ClassFile classFile = getAlteredClassFile(getClassName());
+            names = getParameterizedBenchmarks(classFile).addBenchmarks(classFile.getMethod(methodInfo.getName()),
+                    argSets);
+        } catch (Exception exc) {
+            LOGGER.error(MessageFormat.format("Failed to add benchmarks for parameterized method {0}",
+                    methodInfo.getQualifiedName()), exc);
+            return false;
+        }
+
+        List<String> tagKeys = new ArrayList<>(names.size());
+        List<Map<String, String>> metaDataList = new ArrayList<>(names.size());
+        for (int i = 0; i < names.size(); i++) {
+            tagKeys.add(names.get(i).substring(methodInfo.getName().length() + 1));
+            Map<String, String> argsMetaData = new LinkedHashMap<>();
+            argsMetaData.put("testArgumentsIndex", String.valueOf(i));
+            argsMetaData.put("testArguments", Arrays.deepToString(argSets.get(i)));
+            metaDataList.add(argsMetaData);
+        }
+        annotateGeneratedBenchmarks(methodInfo, testOptions, names, tagKeys, metaDataList);
+        LOGGER.info(String.format("%-20.20s: %s", "Added",
+                names.size() + " argument set benchmarks for method " + methodInfo.getQualifiedName()));
+
+        return true;
+    }
+
+    // Every dynamic test made by test factory gets own benchmark method, and tag derived from its display name, so
+    // it stays same while dynamic test names do
+    public boolean annotateDynamicBenchmarks(org.openjdk.jmh.generators.core.MethodInfo methodInfo,
+            String testOptions) {
+        List<Map.Entry<String, Object>> tests;
+        try {
+            Method method = DynamicTests.findMethod(getClass(getClsInfo()), methodInfo.getName());
+            tests = method == null ? Collections.emptyList() : DynamicTests.getDynamicTests(method, null);
+        } catch (Throwable exc) {
+            LOGGER.info(String.format("%-20.20s: %s", "Skipping", "test factory " + methodInfo.getQualifiedName()
+                    + ", reason: failed to make dynamic tests, " + exc));
+            return false;
+        }
+        if (tests.isEmpty()) {
+            LOGGER.info(String.format("%-20.20s: %s", "Skipping",
+                    "test factory " + methodInfo.getQualifiedName() + ", reason: no dynamic tests made"));
+            return false;
+        }
+
+        List<String> testNames = new ArrayList<>(tests.size());
+        for (Map.Entry<String, Object> test : tests) {
+            testNames.add(test.getKey());
+        }
+        List<String> names;
+        try {
+            ClassFile classFile = getAlteredClassFile(getClassName());
+            names = getParameterizedBenchmarks(classFile)
+                    .addDynamicBenchmarks(classFile.getMethod(methodInfo.getName()), testNames);
+        } catch (Exception exc) {
+            LOGGER.error(MessageFormat.format("Failed to add benchmarks for test factory {0}",
+                    methodInfo.getQualifiedName()), exc);
+            return false;
+        }
+
+        List<Map<String, String>> metaDataList = new ArrayList<>(names.size());
+        for (int i = 0; i < names.size(); i++) {
+            Map<String, String> testMetaData = new LinkedHashMap<>();
+            testMetaData.put("dynamicTestIndex", String.valueOf(i));
+            testMetaData.put("dynamicTestName", testNames.get(i));
+            metaDataList.add(testMetaData);
+        }
+        annotateGeneratedBenchmarks(methodInfo, testOptions, names, testNames, metaDataList);
+        LOGGER.info(String.format("%-20.20s: %s", "Added",
+                names.size() + " dynamic test benchmarks for test factory " + methodInfo.getQualifiedName()));
+
+        return true;
+    }
+
+    private ParameterizedBenchmarks getParameterizedBenchmarks(ClassFile classFile) {
+        if (parameterizedBenchmarks == null) {
+            parameterizedBenchmarks = new ParameterizedBenchmarks(classFile);
+        }
+        return parameterizedBenchmarks;
+    }
+
+    // Generated benchmark tag is derived from test method signature and key of benchmark within that method
+    private void annotateGeneratedBenchmarks(org.openjdk.jmh.generators.core.MethodInfo methodInfo,
+            String testOptions, List<String> names, List<String> tagKeys, List<Map<String, String>> metaDataList) {
+        String methodSignature = getSignature(methodInfo);
+        List<Map<String, String>> methodMetaDataList = getMetadata(methodInfo);
+        Map<String, Map<String, Object>> cfgAnnotations = getBenchmarkConfig(methodInfo, testOptions)
+                .getAnnotations();
+        for (int i = 0; i < names.size(); i++) {
+            String name = names.get(i);
+            String qualifiedName = methodInfo.getDeclaringClass().getQualifiedName() + "." + name;
+            annotateGeneratedMethod(name, qualifiedName, new StringAnnotationBuilder(Benchmark.class.getName(), null));
+
+            Map<String, String> tagMembers = new LinkedHashMap<>(1);
+            String tagSignature = methodSignature + "[" + tagKeys.get(i) + "]";
+            tagMembers.put("tag", UUID.nameUUIDFromBytes(tagSignature.getBytes()).toString());
+            annotateGeneratedMethod(name, qualifiedName,
+                    new StringAnnotationBuilder(BenchmarkTag.class.getName(), tagMembers));
+
+            List<Map<String, String>> benchMetaDataList = new ArrayList<>(methodMetaDataList);
+            benchMetaDataList.addAll(makeMetadataList(metaDataList.get(i)));
+            annotateGeneratedMethod(name, qualifiedName,
+                    new ArrayAnnotationBuilder(CyBenchMetadataList.class.getName(), new DefaultAnnotationArrayBuilder<>(
+                            new StringAnnotationBuilder(BenchmarkMetaData.class.getName()), benchMetaDataList)));
+
+            for (Map.Entry<String, Map<String, Object>> ae : cfgAnnotations.entrySet()) {
+                annotateGeneratedMethod(name, qualifiedName, new ValueAnnotationBuilder(ae.getKey(), ae.getValue()));
+            }
+            generatedBenchmarks.add(name);
+        }
+    }
+
+    private void annotateGeneratedMethod(String methodName, String qualifiedName,
+            AnnotationBuilder<?> annotationBuilder) {
+        String annotationName = annotationBuilder.getAnnotationType();
+        try {
+            addMethodAnnotation(methodName, annotationBuilder);
+            LOGGER.info(String.format("%-20.20s: %s", "Added",
+                    "@" + annotationName + " annotation for method " + qualifiedName));
+        } catch (Exception exc) {
+            LOGGER.error(MessageFormat.format("Failed to add @{0} annotation for method {1}", annotationName,
+                    qualifiedName), exc);
+        }
+    }
+
+    // Argument sets are resolved once per trial, before any benchmark method runs
+    private void annotateArgumentsSetup() {
+        String qualifiedName = getClsInfo().getQualifiedName() + ".<arguments setup>";
+        try {
+            String setupName = parameterizedBenchmarks.addSetup();
+            qualifiedName = getClsInfo().getQualifiedName() + "." + setupName;
+            addMethodEnumAnnotation(setupName, Setup.class.getName(), getLevelAnnotationMembers(Level.Trial));
+            LOGGER.info(String.format("%-20.20s: %s", "Added",
+                    "@" + Setup.class.getName() + " annotation for method " + qualifiedName));
+        } catch (Exception exc) {
+            LOGGER.error(MessageFormat.format("Failed to add arguments setup method {0}", qualifiedName), exc);
+        }
+
+        annotateClassState();
+    }
+
+    public void routeToBlackhole(org.openjdk.jmh.generators.core.MethodInfo methodInfo) {
+        try {
+            ClassFile classFile = getAlteredClassFile(getClassName());
+            MethodInfo method = classFile.getMethod(methodInfo.getName());
+            if (blackholeRouter == null) {
+                blackholeRouter = new BlackholeRouter(classFile,
+                        Boolean.parseBoolean(System.getProperty(SYS_PROP_STRIP_ASSERTIONS, "false")),
+                        getClassLoader());
+            }
+            boolean routable = BlackholeRouter.isEnabled() && blackholeRouter.canRoute(method);
+            String risk = blackholeRouter.getDeadCodeRisk(method, routable);
+            if (routable) {
+                int stripped = blackholeRouter.route(method);
+                LOGGER.info(String.format("%-20.20s: %s", "Added",
+                        "Blackhole consuming results of method " + methodInfo.getQualifiedName()));
+                if (stripped > 0) {
+                    LOGGER.info(String.format("%-20.20s: %s", "Stripped",
+                            stripped + " assertion calls of method " + methodInfo.getQualifiedName()));
+                }
+            }
+            if (risk != null) {
+                LOGGER.warn(String.format("%-20.20s: %s", "Dead code risk",
+                        "benchmark " + methodInfo.getQualifiedName() + " may be optimized away, " + risk));
+            }
+        } catch (Exception exc) {
+            LOGGER.error(MessageFormat.format("Failed to add Blackhole for method {0}", methodInfo.getQualifiedName()),
+                    exc);
+        }
+    }
+
     public static String getAlteredClassName(String className) {
         if (className.contains("$")) {
             String[] cnt = className.split("\\$");
@@ -118,8 +375,8 @@ public class TestClassTransformer extends AbstractClassTransformer {
     @Override
     protected CtClass getCtClass(String className) throws Exception {
         if (getAlteredClass() == null) {
-            ClassPool pool = ClassPool.getDefault();
-            CtClass ctClass = pool.getAndRename(className, getAlteredClassName(className));
+            CtClass ctClass = classPool.getAndRename(className, getAlteredClassName(className));
+            makeTopLevel(ctClass.getClassFile());
             LOGGER.info(String.format("%-15.15s: %s", "Rename",
                     "altering class " + className + " and named it " + ctClass.getName()));
             setAlteredClass(ctClass);
@@ -130,8 +387,60 @@ public class TestClassTransformer extends AbstractClassTransformer {
         return getAlteredClass();
     }
 
+    @Override
+    protected ClassFile getAlteredClassFile(String className) throws Exception {
+        if (classPool != null) {
+            return super.getAlteredClassFile(className);
+        }
+        if (alteredClassFile == null) {
+            String resourceName = className.replace('.', '/') + ".class";
+            try (InputStream is = getClassLoader().getResourceAsStream(resourceName)) {
+                if (is == null) {
+                    throw new NotFoundException(className);
+                }
+                alteredClassFile = new ClassFile(new DataInputStream(new BufferedInputStream(is)));
+            }
+            alteredClassName = getAlteredClassName(className);
+            alteredClassFile.setName(alteredClassName);
+            makeTopLevel(alteredClassFile);
+            LOGGER.info(String.format("%-15.15s: %s", "Rename",
+                    "altering class " + className + " and named it " + alteredClassName));
+        }
+
+        return alteredClassFile;
+    }
+
+    // Altered nested class can't stay nested: its declaring class does not list it as inner one (it is not altered
+    // or altered under other name), so JVM fails to resolve declaring class of it
+    private static void makeTopLevel(ClassFile classFile) {
+        InnerClassesAttribute innerClasses = (InnerClassesAttribute) classFile
+                .getAttribute(InnerClassesAttribute.tag);
+        int idx;
+        while (innerClasses != null && (idx = innerClasses.find(classFile.getName())) >= 0) {
+            innerClasses.remove(idx);
+        }
+    }
+
+    private static ClassLoader getClassLoader() {
+        ClassLoader cl = Thread.currentThread().getContextClassLoader();
+        return cl == null ? TestClassTransformer.class.getClassLoader() : cl;
+    }
+
+    private static byte[] toBytecode(ClassFile classFile) throws IOException {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream(4096);
+        try (DataOutputStream out = new DataOutputStream(bos)) {
+            classFile.write(out);
+        }
+        return bos.toByteArray();
+    }
+
     public void toClass() throws Exception {
-        if (getAlteredClass() != null) {
+        if (alteredClassFile != null) {
+            // Same as javassist CtClass.toClass(): defined in thread context class loader
+            Class<?> cls = DefineClassHelper.toClass(alteredClassName, null, getClassLoader(), null,
+                    toBytecode(alteredClassFile));
+            aClsInfo = new T2BClassInfo(cls);
+        } else if (getAlteredClass() != null) {
             Class<?> cls = getAlteredClass().toClass();
             aClsInfo = new T2BClassInfo(cls);
         }
@@ -142,19 +451,36 @@ public class TestClassTransformer extends AbstractClassTransformer {
     }
 
     public boolean isClassAltered() {
-        return getAlteredClass() != null;
+        return alteredClassName != null || getAlteredClass() != null;
     }
 
     public void storeClass(String classDir) throws Exception {
-        getAlteredClass().writeFile(new File(classDir).getCanonicalPath());
+        if (alteredClassFile != null) {
+            File classFile = new File(new File(classDir).getCanonicalFile(),
+                    alteredClassName.replace('.', File.separatorChar) + ".class");
+            classFile.getParentFile().mkdirs();
+            try (DataOutputStream out = new DataOutputStream(
+                    new BufferedOutputStream(new FileOutputStream(classFile)))) {
+                alteredClassFile.write(out);
+            }
+        } else {
+            getAlteredClass().writeFile(new File(classDir).getCanonicalPath());
+        }
     }
 
     public String getAlteredClassName() {
+        if (alteredClassName != null) {
+            return alteredClassName;
+        }
         return getAlteredClass() == null ? "null" : getAlteredClass().getName();
     }
 
     public boolean hasBenchmarks() {
-        return !benchmarksList.isEmpty();
+        return !benchmarksList.isEmpty() || !generatedBenchmarks.isEmpty();
+    }
+
+    public int getBenchmarksCount() {
+        return benchmarksList.size() + generatedBenchmarks.size();
     }
 
     public Collection<org.openjdk.jmh.generators.core.MethodInfo> getBenchmarkMethods() {
@@ -167,6 +493,15 @@ public class TestClassTransformer extends AbstractClassTransformer {
                     benchmarksList.set(i, ami);
                 }
             }
+            if (!generatedBenchmarks.isEmpty()) {
+                List<org.openjdk.jmh.generators.core.MethodInfo> benchmarks = new ArrayList<>(benchmarksList);
+                for (org.openjdk.jmh.generators.core.MethodInfo ami : amil) {
+                    if (generatedBenchmarks.contains(ami.getName())) {
+                        benchmarks.add(ami);
+                    }
+                }
+                return benchmarks;
+            }
         }
 
         return benchmarksList;
@@ -186,15 +521,27 @@ public class TestClassTransformer extends AbstractClassTransformer {
 
     public void annotateMethod(org.openjdk.jmh.generators.core.MethodInfo mi, T2BMapper... t2BMappers) {
         T2BMapper.MethodState testValid = isValidTest(mi, t2BMappers);
-        if (testValid == T2BMapper.MethodState.VALID) {
+        if (testValid == T2BMapper.MethodState.VALID && !TestFilter.getInstance()
+                .isMethodIncluded(mi.getDeclaringClass().getQualifiedName(), mi.getName())) {
+            testValid = T2BMapper.MethodState.FILTERED;
+        }
+        T2BMapper testMapper = getTestMapper(mi, t2BMappers);
+        T2BMapper fixtureMapper;
+        if (testValid == T2BMapper.MethodState.VALID && testMapper.isParameterized(mi)) {
+            annotateParameterizedBenchmarks(mi, testMapper.getBenchmarkOptions(mi));
+        } else if (testValid == T2BMapper.MethodState.VALID && testMapper.isTestFactory(mi)) {
+            annotateDynamicBenchmarks(mi, testMapper.getBenchmarkOptions(mi));
+        } else if (testValid == T2BMapper.MethodState.VALID) {
             annotateBenchmark(mi);
             annotateBenchmarkTag(mi);
             annotateBenchmarkMetadataList(mi);
+            annotateBenchmarkConfig(mi, testMapper.getBenchmarkOptions(mi));
+            routeToBlackhole(mi);
             benchmarksList.add(mi);
-        } else if (isSetupMethod(mi, t2BMappers)) {
-            annotateMethodSetup(mi);
-        } else if (isTearDownMethod(mi, t2BMappers)) {
-            annotateMethodTearDown(mi);
+        } else if ((fixtureMapper = getSetupMapper(mi, t2BMappers)) != null) {
+            annotateMethodSetup(mi, fixtureMapper.getFixtureLevel(mi));
+        } else if ((fixtureMapper = getTearDownMapper(mi, t2BMappers)) != null) {
+            annotateMethodTearDown(mi, fixtureMapper.getFixtureLevel(mi));
         } else if (testValid != T2BMapper.MethodState.NOT_TEST) {
             LOGGER.info(String.format("%-20.20s: %s", "Skipping",
                     "test method " + mi.getQualifiedName() + ", reason: " + testValid.name()));
@@ -217,30 +564,44 @@ public class TestClassTransformer extends AbstractClassTransformer {
         return T2BMapper.MethodState.NOT_TEST;
     }
 
-    private static boolean isSetupMethod(org.openjdk.jmh.generators.core.MethodInfo mi, T2BMapper... t2bMappers) {
+    // Mapper of test framework method is test of, or null if it is not test
+    private static T2BMapper getTestMapper(org.openjdk.jmh.generators.core.MethodInfo mi, T2BMapper... t2bMappers) {
         if (t2bMappers != null) {
             for (T2BMapper mapper : t2bMappers) {
-                boolean setupMethod = mapper.isSetupMethod(mi);
-                if (setupMethod) {
-                    return true;
+                if (mapper.isValid(mi) != T2BMapper.MethodState.NOT_TEST) {
+                    return mapper;
                 }
             }
         }
 
-        return false;
+        return null;
     }
 
-    private static boolean isTearDownMethod(org.openjdk.jmh.generators.core.MethodInfo mi, T2BMapper... t2bMappers) {
+    private static T2BMapper getSetupMapper(org.openjdk.jmh.generators.core.MethodInfo mi, T2BMapper... t2bMappers) {
         if (t2bMappers != null) {
             for (T2BMapper mapper : t2bMappers) {
-                boolean setupMethod = mapper.isTearDownMethod(mi);
+                boolean setupMethod = mapper.isSetupMethod(mi) || mapper.isClassSetupMethod(mi);
                 if (setupMethod) {
-                    return true;
+                    return mapper;
                 }
             }
         }
 
-        return false;
+        return null;
+    }
+
+    private static T2BMapper getTearDownMapper(org.openjdk.jmh.generators.core.MethodInfo mi,
+            T2BMapper... t2bMappers) {
+        if (t2bMappers != null) {
+            for (T2BMapper mapper : t2bMappers) {
+                boolean tearDownMethod = mapper.isTearDownMethod(mi) || mapper.isClassTearDownMethod(mi);
+                if (tearDownMethod) {
+                    return mapper;
+                }
+            }
+        }
+
+        return null;
     }
 
 }
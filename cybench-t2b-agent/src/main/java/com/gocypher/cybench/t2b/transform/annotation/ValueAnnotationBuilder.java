@@ -0,0 +1,76 @@
+/*
+ * Copyright (C) 2020-2022, K2N.IO.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA
+ *
+ */
+
+package com.gocypher.cybench.t2b.transform.annotation;
+
+import java.util.Map;
+
+import javassist.bytecode.ConstPool;
+import javassist.bytecode.annotation.*;
+
+// Builds annotation having typed member values: Integer, Long, Boolean, String, Enum and arrays of those
+public class ValueAnnotationBuilder extends AbstractAnnotationBuilder<Map<String, Object>> {
+    public ValueAnnotationBuilder(String annotationType) {
+        super(annotationType);
+    }
+
+    public ValueAnnotationBuilder(String annotationType, Map<String, Object> members) {
+        super(annotationType, members);
+    }
+
+    @Override
+    javassist.bytecode.annotation.Annotation buildAnnotation(String annotationType, ConstPool constPool,
+            Map<String, Object> membersMap) {
+        javassist.bytecode.annotation.Annotation annotation = new javassist.bytecode.annotation.Annotation(
+                annotationType, constPool);
+        if (membersMap != null) {
+            for (Map.Entry<String, Object> me : membersMap.entrySet()) {
+                annotation.addMemberValue(me.getKey(), toMemberValue(me.getValue(), constPool));
+            }
+        }
+
+        return annotation;
+    }
+
+    static MemberValue toMemberValue(Object value, ConstPool constPool) {
+        if (value instanceof Integer) {
+            return new IntegerMemberValue(constPool, (Integer) value);
+        } else if (value instanceof Long) {
+            return new LongMemberValue((Long) value, constPool);
+        } else if (value instanceof Boolean) {
+            return new BooleanMemberValue((Boolean) value, constPool);
+        } else if (value instanceof Enum) {
+            EnumMemberValue emv = new EnumMemberValue(constPool);
+            emv.setType(((Enum<?>) value).getDeclaringClass().getName());
+            emv.setValue(((Enum<?>) value).name());
+            return emv;
+        } else if (value instanceof Object[]) {
+            Object[] values = (Object[]) value;
+            MemberValue[] memberValues = new MemberValue[values.length];
+            for (int i = 0; i < values.length; i++) {
+                memberValues[i] = toMemberValue(values[i], constPool);
+            }
+            ArrayMemberValue amv = new ArrayMemberValue(constPool);
+            amv.setValue(memberValues);
+            return amv;
+        } else {
+            return new StringMemberValue(String.valueOf(value), constPool);
+        }
+    }
+}
@@ -76,6 +76,12 @@ public class BenchmarkMetadata {
     private BenchmarkMetadata() {
     }
 
+    // Reads metadata configuration again, e.g. on new daemon translation request
+    public static void reload() {
+        configPath = System.getProperty(SYS_PROP_METADATA_CONFIG, DEFAULT_METADATA_CONFIG_PATH);
+        loadConfig(configPath);
+    }
+
     protected static void loadConfig(String cfgPath) {
         Properties metaDataCfgProps = new Properties();
         if (new File(cfgPath).exists()) {
@@ -199,7 +205,9 @@ public class BenchmarkMetadata {
 
     protected static String fillMetadataValue(String value, MetadataInfo metadataInfo) {
         if (isVariableValue(value)) {
-            return VARIABLE_EXP_RANGE_PATTERN.matcher(value).replaceAll(resolveVarExpressionValue(value, metadataInfo));
+            // resolved value may contain '$', e.g. nested class name
+            return VARIABLE_EXP_RANGE_PATTERN.matcher(value)
+                    .replaceAll(Matcher.quoteReplacement(resolveVarExpressionValue(value, metadataInfo)));
         }
 
         return value;
@@ -207,7 +215,9 @@ public class BenchmarkMetadata {
 
     protected static String fillMetadataValue(String value, Method method) {
         if (isVariableValue(value)) {
-            return VARIABLE_EXP_RANGE_PATTERN.matcher(value).replaceAll(resolveVarExpressionValue(value, method));
+            // resolved value may contain '$', e.g. nested class name
+            return VARIABLE_EXP_RANGE_PATTERN.matcher(value)
+                    .replaceAll(Matcher.quoteReplacement(resolveVarExpressionValue(value, method)));
         }
 
         return value;
@@ -20,12 +20,21 @@
 package com.gocypher.cybench.t2b.utils;
 
 import java.io.File;
+import java.io.IOException;
 import java.lang.reflect.Field;
 import java.lang.reflect.Method;
 import java.net.URL;
 import java.net.URLClassLoader;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
 import java.util.Set;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -136,4 +145,59 @@ public final class T2BUtils {
         }
         return fileTree;
     }
+
+    public static boolean isArchive(File file) {
+        String name = file.getName().toLowerCase(Locale.ROOT);
+        return file.isFile() && (name.endsWith(".jar") || name.endsWith(".zip"));
+    }
+
+    public static FileSystem openArchive(File archive) throws IOException {
+        return FileSystems.newFileSystem(archive.toPath(), (ClassLoader) null);
+    }
+
+    // Archive entries are read through zip file system, so class bytes get streamed without extracting archive
+    public static Collection<Path> getUTClasses(FileSystem archiveFs) throws IOException {
+        List<Path> classFiles = new ArrayList<>();
+        for (Path root : archiveFs.getRootDirectories()) {
+            try (Stream<Path> paths = Files.walk(root)) {
+                paths.filter(p -> !p.startsWith(root.resolve("META-INF"))) //
+                        .filter(p -> p.toString().endsWith(".class")) //
+                        .filter(Files::isRegularFile) //
+                        .forEach(classFiles::add);
+            }
+        }
+        return classFiles;
+    }
+
+    private static final int MODULE_SCAN_MAX_DEPTH = 8;
+
+    // Maven (target/test-classes) and Gradle (build/classes/java/test) module build dirs found under root dir
+    public static List<File> findModuleBuildDirs(File rootDir) {
+        List<File> buildDirs = new ArrayList<>();
+        findModuleBuildDirs(rootDir, buildDirs, 0);
+        return buildDirs;
+    }
+
+    private static void findModuleBuildDirs(File dir, List<File> buildDirs, int depth) {
+        if (isModuleBuildDir(dir)) {
+            buildDirs.add(dir);
+            return;
+        }
+        File[] subDirs = dir.listFiles(File::isDirectory);
+        if (subDirs == null || depth >= MODULE_SCAN_MAX_DEPTH) {
+            return;
+        }
+        Arrays.sort(subDirs);
+        for (File subDir : subDirs) {
+            String name = subDir.getName();
+            if (name.startsWith(".") || name.equals("src") || name.equals("node_modules")) {
+                continue;
+            }
+            findModuleBuildDirs(subDir, buildDirs, depth + 1);
+        }
+    }
+
+    public static boolean isModuleBuildDir(File dir) {
+        return new File(dir, "test-classes").isDirectory() || new File(dir, "classes/java/test").isDirectory();
+    }
 }
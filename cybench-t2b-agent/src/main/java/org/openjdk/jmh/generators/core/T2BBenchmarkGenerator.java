@@ -0,0 +1,134 @@
+/*
+ * Copyright (C) 2020-2022, K2N.IO.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA
+ *
+ */
+
+package org.openjdk.jmh.generators.core;
+
+import java.lang.reflect.AccessibleObject;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.Collection;
+import java.util.Set;
+import java.util.function.Supplier;
+
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.util.Multimap;
+
+// Benchmark generator taking benchmark methods from T2B translation instead of scanning for JMH annotations, so
+// translation needs no JMH classes patched by agent. Generator internals are reused over reflection, thus JMH itself
+// writes benchmark list and compiler hints on complete.
+public class T2BBenchmarkGenerator extends BenchmarkGenerator {
+    private static final String JMH_STUB_SUFFIX = "_jmhStub";
+
+    private static final Field BENCHMARK_INFOS;
+    private static final Field PROCESSED_BENCHMARKS;
+    private static final Field COMPILER_CONTROL;
+    private static final Method VALIDATE_BENCHMARK;
+    private static final Method MAKE_BENCHMARK_INFO;
+    private static final Method GENERATE_CLASS;
+
+    static {
+        Field benchmarkInfos = null;
+        Field processedBenchmarks = null;
+        Field compilerControl = null;
+        Method validateBenchmark = null;
+        Method makeBenchmarkInfo = null;
+        Method generateClass = null;
+        try {
+            Class<?> genClass = BenchmarkGenerator.class;
+            benchmarkInfos = accessible(genClass.getDeclaredField("benchmarkInfos"));
+            processedBenchmarks = accessible(genClass.getDeclaredField("processedBenchmarks"));
+            compilerControl = accessible(genClass.getDeclaredField("compilerControl"));
+            validateBenchmark = accessible(
+                    genClass.getDeclaredMethod("validateBenchmark", ClassInfo.class, Collection.class));
+            makeBenchmarkInfo = accessible(
+                    genClass.getDeclaredMethod("makeBenchmarkInfo", ClassInfo.class, Collection.class));
+            generateClass = accessible(genClass.getDeclaredMethod("generateClass", GeneratorDestination.class,
+                    ClassInfo.class, BenchmarkInfo.class));
+        } catch (Exception exc) {
+            // Incompatible JMH version: generator patched by agent has to be used
+            benchmarkInfos = null;
+        }
+        BENCHMARK_INFOS = benchmarkInfos;
+        PROCESSED_BENCHMARKS = processedBenchmarks;
+        COMPILER_CONTROL = compilerControl;
+        VALIDATE_BENCHMARK = validateBenchmark;
+        MAKE_BENCHMARK_INFO = makeBenchmarkInfo;
+        GENERATE_CLASS = generateClass;
+    }
+
+    private final Supplier<Multimap<ClassInfo, MethodInfo>> annotatedSet;
+
+    public T2BBenchmarkGenerator(Supplier<Multimap<ClassInfo, MethodInfo>> annotatedSet) {
+        this.annotatedSet = annotatedSet;
+    }
+
+    public static boolean isSupported() {
+        return BENCHMARK_INFOS != null;
+    }
+
+    private static <T extends AccessibleObject> T accessible(T member) {
+        member.setAccessible(true);
+        return member;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void generate(GeneratorSource source, GeneratorDestination destination) {
+        try {
+            Set<BenchmarkInfo> benchmarkInfos = (Set<BenchmarkInfo>) BENCHMARK_INFOS.get(this);
+            Set<String> processedBenchmarks = (Set<String>) PROCESSED_BENCHMARKS.get(this);
+            CompilerControlPlugin compilerControl = (CompilerControlPlugin) COMPILER_CONTROL.get(this);
+
+            Multimap<ClassInfo, MethodInfo> clazzes = annotatedSet.get();
+            for (ClassInfo clazz : clazzes.keys()) {
+                if (!processedBenchmarks.add(clazz.getQualifiedName())) {
+                    continue;
+                }
+                try {
+                    invoke(VALIDATE_BENCHMARK, clazz, clazzes.get(clazz));
+                    Collection<BenchmarkInfo> infos = (Collection<BenchmarkInfo>) invoke(MAKE_BENCHMARK_INFO, clazz,
+                            clazzes.get(clazz));
+                    for (BenchmarkInfo info : infos) {
+                        invoke(GENERATE_CLASS, destination, clazz, info);
+                    }
+                    benchmarkInfos.addAll(infos);
+                } catch (GenerationException ge) {
+                    destination.printError(ge.getMessage(), ge.getElement());
+                }
+            }
+
+            for (Mode mode : Mode.values()) {
+                compilerControl.alwaysDontInline("*", "*_" + mode.shortLabel() + JMH_STUB_SUFFIX);
+            }
+
+            compilerControl.process(source, destination);
+        } catch (Throwable t) {
+            destination.printError("Annotation generator had thrown the exception.", t);
+        }
+    }
+
+    private Object invoke(Method method, Object... args) throws Throwable {
+        try {
+            return method.invoke(this, args);
+        } catch (InvocationTargetException exc) {
+            throw exc.getCause();
+        }
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright (C) 2020-2022, K2N.IO.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA
+ *
+ */
+
+package com.gocypher.cybench;
+
+import static org.testng.Assert.*;
+
+import java.lang.reflect.Method;
+
+import org.testng.annotations.Test;
+
+public class Test2BenchmarkTest {
+
+    @Test
+    public void mapsInvocationCountToBatchSize() throws Exception {
+        assertEquals(getNgOptions("sequential"), "-bm ss -wbs 5 -bs 5");
+        assertNull(getNgOptions("plain"));
+    }
+
+    @Test
+    public void mapsThreadPoolSizeToThreads() throws Exception {
+        // Every thread makes ceil(invocationCount / threadPoolSize) invocations per operation
+        assertEquals(getNgOptions("pooled"), "-t 3 -bm ss -wbs 4 -bs 4 -to 400ms");
+        assertEquals(getNgOptions("threadPerInvocation"), "-t 2");
+        // Pool is not larger than invocations count
+        assertNull(getNgOptions("poolOnly"));
+    }
+
+    @Test
+    public void mapsTimeOutToBatchTimeout() throws Exception {
+        assertEquals(getNgOptions("timed"), "-to 50ms");
+        assertEquals(getNgOptions("sequentialTimed"), "-bm ss -wbs 3 -bs 3 -to 60ms");
+    }
+
+    @Test
+    public void mapsRepetitionsToBatchSize() throws Exception {
+        assertEquals(Test2Benchmark.JUNIT5_REPEATED_MAPPER.getBenchmarkOptions(Ju5Sample.class.getDeclaredMethod(
+                "repeated")), "-bm ss -wbs 4 -bs 4");
+        assertNull(Test2Benchmark.JUNIT5_REPEATED_MAPPER.getBenchmarkOptions(Ju5Sample.class.getDeclaredMethod(
+                "repeatedOnce")));
+    }
+
+    private static String getNgOptions(String methodName) throws Exception {
+        Method method = NgSample.class.getDeclaredMethod(methodName);
+        return Test2Benchmark.TESTNG_MAPPER.getBenchmarkOptions(method);
+    }
+
+    static class Ju5Sample {
+        @org.junit.jupiter.api.RepeatedTest(4)
+        public void repeated() {
+        }
+
+        @org.junit.jupiter.api.RepeatedTest(1)
+        public void repeatedOnce() {
+        }
+    }
+
+    // Abstract, so TestNG does not run it
+    abstract static class NgSample {
+        @org.testng.annotations.Test
+        public void plain() {
+        }
+
+        @org.testng.annotations.Test(invocationCount = 5)
+        public void sequential() {
+        }
+
+        @org.testng.annotations.Test(invocationCount = 10, threadPoolSize = 3, timeOut = 100)
+        public void pooled() {
+        }
+
+        @org.testng.annotations.Test(invocationCount = 2, threadPoolSize = 8)
+        public void threadPerInvocation() {
+        }
+
+        @org.testng.annotations.Test(threadPoolSize = 4)
+        public void poolOnly() {
+        }
+
+        @org.testng.annotations.Test(timeOut = 50)
+        public void timed() {
+        }
+
+        @org.testng.annotations.Test(invocationCount = 3, timeOut = 20)
+        public void sequentialTimed() {
+        }
+    }
+}
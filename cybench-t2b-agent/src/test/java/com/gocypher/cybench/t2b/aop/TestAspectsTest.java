@@ -0,0 +1,257 @@
+/*
+ * Copyright (C) 2020-2022, K2N.IO.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA
+ *
+ */
+
+package com.gocypher.cybench.t2b.aop;
+
+import static org.testng.Assert.*;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.junit.jupiter.api.DynamicContainer;
+import org.junit.jupiter.api.DynamicNode;
+import org.junit.jupiter.api.DynamicTest;
+import org.junit.jupiter.api.RepeatedTest;
+import org.junit.jupiter.api.TestFactory;
+import org.testng.ITestResult;
+import org.testng.Reporter;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import org.testng.internal.TestResult;
+
+import com.gocypher.cybench.T2BMapper;
+
+public class TestAspectsTest {
+    private ITestResult currentResult;
+
+    @BeforeMethod
+    public void saveTestResult() {
+        currentResult = Reporter.getCurrentTestResult();
+    }
+
+    @AfterMethod
+    public void restoreTestResult() {
+        Reporter.setCurrentTestResult(currentResult);
+    }
+
+    @Test
+    public void keysInvocationsByParameterIndex() throws Exception {
+        setParameterIndex(3);
+        assertEquals(TestAspects.NGTestAspect.getArgumentsIndex(joinPoint("counted", "a")), 3);
+    }
+
+    @Test
+    public void keysInvocationsByArgumentsHash() throws Exception {
+        Reporter.setCurrentTestResult(null);
+        Object[] args = { "a", new int[] { 1, 2 } };
+        assertEquals(TestAspects.NGTestAspect.getArgumentsIndex(joinPoint("counted", args)), Arrays.deepHashCode(args));
+    }
+
+    @Test
+    public void benchmarksInvocationCountOncePerArguments() throws Exception {
+        RecordingHandler handler = new RecordingHandler();
+        TestAspects.NGTestAspect aspect = new TestAspects.NGTestAspect(handler);
+        for (int index = 0; index < 2; index++) {
+            setParameterIndex(index);
+            for (int i = 0; i < 3; i++) {
+                aspect.aroundTest(joinPoint("counted", "arg" + index));
+            }
+        }
+        assertEquals(handler.tests, Arrays.asList("counted", "counted"));
+    }
+
+    @Test
+    public void benchmarksEverySingleInvocationTest() throws Exception {
+        RecordingHandler handler = new RecordingHandler();
+        TestAspects.NGTestAspect aspect = new TestAspects.NGTestAspect(handler);
+        setParameterIndex(0);
+        aspect.aroundTest(joinPoint("single"));
+        aspect.aroundTest(joinPoint("single"));
+        assertEquals(handler.tests, Arrays.asList("single", "single"));
+    }
+
+    @Test
+    public void benchmarksFirstRepetitionOnly() throws Exception {
+        RecordingHandler handler = new RecordingHandler();
+        TestAspects.JU5RepeatedTestAspect aspect = new TestAspects.JU5RepeatedTestAspect(handler);
+        for (int i = 0; i < 5; i++) {
+            aspect.aroundTest(joinPoint("repeated"));
+        }
+        aspect.aroundTest(joinPoint("repeatedOther"));
+        assertEquals(handler.tests, Arrays.asList("repeated", "repeatedOther"));
+    }
+
+    @Test
+    public void benchmarksNestedDynamicTests() throws Throwable {
+        List<String> executed = new ArrayList<>();
+        Stream<DynamicNode> nodes = Stream.of(DynamicTest.dynamicTest("a", () -> executed.add("a")),
+                DynamicContainer.dynamicContainer("group", Stream.of(
+                        DynamicTest.dynamicTest("b", () -> executed.add("b")),
+                        DynamicContainer.dynamicContainer("inner",
+                                Collections.singletonList(DynamicTest.dynamicTest("c", () -> executed.add("c")))))));
+        RecordingHandler handler = new RecordingHandler();
+        Object result = new TestAspects.JU5TestFactoryAspect(handler)
+                .aroundTestFactory(joinPoint("factory", () -> nodes));
+
+        assertTrue(result instanceof Stream);
+        List<String> names = new ArrayList<>();
+        for (Object node : ((Stream<?>) result).collect(Collectors.toList())) {
+            execute((DynamicNode) node, names);
+        }
+        // Display names are kept, while benchmark test name is path of display names
+        assertEquals(names, Arrays.asList("a", "group", "b", "inner", "c"));
+        assertEquals(handler.tests, Arrays.asList("a", "group/b", "group/inner/c"));
+        assertEquals(executed, Arrays.asList("a", "b", "c"));
+        for (ProceedingJoinPoint testPoint : handler.testPoints) {
+            assertTrue(testPoint instanceof DynamicTestJoinPoint);
+            assertEquals(testPoint.getSignature().getName(), "factory");
+        }
+    }
+
+    @Test
+    public void keepsTestFactoryResultType() throws Throwable {
+        RecordingHandler handler = new RecordingHandler();
+        TestAspects.JU5TestFactoryAspect aspect = new TestAspects.JU5TestFactoryAspect(handler);
+        DynamicTest test = DynamicTest.dynamicTest("a", () -> {
+        });
+        assertTrue(aspect.aroundTestFactory(joinPoint("factory", () -> Arrays.asList(test))) instanceof List);
+        assertTrue(aspect.aroundTestFactory(joinPoint("factory", () -> Collections.singleton(test))) instanceof Set);
+        assertTrue(aspect.aroundTestFactory(
+                joinPoint("factory", () -> Arrays.asList(test).iterator())) instanceof Iterator);
+        Object array = aspect.aroundTestFactory(joinPoint("factory", () -> new DynamicTest[] { test }));
+        assertEquals(array.getClass(), DynamicTest[].class);
+        assertTrue(aspect.aroundTestFactory(joinPoint("factory", () -> test)) instanceof DynamicTest);
+        assertTrue(handler.tests.isEmpty());
+    }
+
+    private static void execute(DynamicNode node, List<String> names) throws Throwable {
+        names.add(node.getDisplayName());
+        if (node instanceof DynamicContainer) {
+            for (DynamicNode child : ((DynamicContainer) node).getChildren().collect(Collectors.toList())) {
+                execute(child, names);
+            }
+        } else {
+            ((DynamicTest) node).getExecutable().execute();
+        }
+    }
+
+    private static void setParameterIndex(int index) {
+        TestResult testResult = TestResult.newEmptyTestResult();
+        testResult.setParameterIndex(index);
+        Reporter.setCurrentTestResult(testResult);
+    }
+
+    static ProceedingJoinPoint joinPoint(String methodName, Object... args) throws Exception {
+        return joinPoint(methodName, () -> null, args);
+    }
+
+    static ProceedingJoinPoint joinPoint(String methodName, Callable<Object> proceed, Object... args)
+            throws Exception {
+        Method method = null;
+        for (Method m : Samples.class.getDeclaredMethods()) {
+            if (m.getName().equals(methodName)) {
+                method = m;
+            }
+        }
+        assertNotNull(method, methodName);
+        Method testMethod = method;
+        MethodSignature signature = (MethodSignature) Proxy.newProxyInstance(TestAspectsTest.class.getClassLoader(),
+                new Class<?>[] { MethodSignature.class }, (proxy, m, mArgs) -> {
+                    switch (m.getName()) {
+                    case "getMethod":
+                        return testMethod;
+                    case "getName":
+                        return testMethod.getName();
+                    case "getDeclaringType":
+                        return testMethod.getDeclaringClass();
+                    default:
+                        throw new UnsupportedOperationException(m.getName());
+                    }
+                });
+        return (ProceedingJoinPoint) Proxy.newProxyInstance(TestAspectsTest.class.getClassLoader(),
+                new Class<?>[] { ProceedingJoinPoint.class }, (proxy, m, mArgs) -> {
+                    switch (m.getName()) {
+                    case "getSignature":
+                        return signature;
+                    case "getArgs":
+                        return args;
+                    case "proceed":
+                        return proceed.call();
+                    case "toString":
+                        return "joinPoint(" + methodName + ")";
+                    default:
+                        throw new UnsupportedOperationException(m.getName());
+                    }
+                });
+    }
+
+    // Records benchmarked tests and runs them once instead of running them as benchmarks
+    static class RecordingHandler implements TestJoinPointHandler {
+        final List<String> tests = new ArrayList<>();
+        final List<ProceedingJoinPoint> testPoints = new ArrayList<>();
+
+        @Override
+        public void runTestAsBenchmark(Method testMethod, ProceedingJoinPoint testPoint) {
+            runTestAsBenchmark(null, testMethod, null, testPoint);
+        }
+
+        @Override
+        public void runTestAsBenchmark(T2BMapper testMapper, Method testMethod, String testName,
+                ProceedingJoinPoint testPoint) {
+            tests.add(testName == null ? testMethod.getName() : testName);
+            testPoints.add(testPoint);
+            try {
+                testPoint.proceed();
+            } catch (Throwable exc) {
+                throw new IllegalStateException(exc);
+            }
+        }
+    }
+
+    // Abstract, so TestNG does not run it
+    abstract static class Samples {
+        @org.testng.annotations.Test(invocationCount = 3)
+        public void counted(String arg) {
+        }
+
+        @org.testng.annotations.Test
+        public void single() {
+        }
+
+        @RepeatedTest(5)
+        public void repeated() {
+        }
+
+        @RepeatedTest(2)
+        public void repeatedOther() {
+        }
+
+        @TestFactory
+        public Stream<DynamicNode> factory() {
+            return Stream.empty();
+        }
+    }
+}
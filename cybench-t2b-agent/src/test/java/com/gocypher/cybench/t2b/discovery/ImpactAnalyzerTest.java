@@ -0,0 +1,195 @@
+/*
+ * Copyright (C) 2020-2022, K2N.IO.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA
+ *
+ */
+
+package com.gocypher.cybench.t2b.discovery;
+
+import static org.testng.Assert.*;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.Test;
+
+public class ImpactAnalyzerTest {
+    private static final String BASE = "package sample; public class Base { public int foo() { return 1; } }";
+    private static final String IMPL = "package sample; public class Impl extends Base { "
+            + "public int foo() { return 2; } }";
+    private static final String FACTORY = "package sample; public class Factory { "
+            + "public static Base create() { return new Impl(); } }";
+    private static final String OTHER = "package sample; public class Other { public int bar() { return 1; } }";
+    private static final String TEST = "package sample; public class ImplTest { "
+            + "@org.junit.Test public void viaBase() { Factory.create().foo(); } "
+            + "@org.junit.Test public void viaOther() { new Other().bar(); } }";
+
+    @AfterMethod
+    public void clearProperties() {
+        System.clearProperty(ImpactAnalyzer.SYS_PROP_STATE);
+        System.clearProperty(ImpactAnalyzer.SYS_PROP_ACCEPT);
+    }
+
+    @Test
+    public void detectsRemovedOverride() throws Exception {
+        ImpactAnalyzer prev = analyze(BASE, IMPL, FACTORY, OTHER, TEST);
+        ImpactAnalyzer analyzer = analyze(BASE, "package sample; public class Impl extends Base { }", FACTORY, OTHER,
+                TEST);
+        Set<String> changed = ImpactAnalyzer.getChanged(prev.getHashes(), analyzer.getHashes());
+        assertTrue(changed.contains("sample.Impl#foo()I"));
+        assertTrue(changed.contains("sample.Impl#<header>"));
+        assertTrue(analyzer.isImpacted("sample.ImplTest", "viaBase", changed));
+        assertFalse(analyzer.isImpacted("sample.ImplTest", "viaOther", changed));
+    }
+
+    @Test
+    public void detectsChangedOverride() throws Exception {
+        ImpactAnalyzer prev = analyze(BASE, IMPL, FACTORY, OTHER, TEST);
+        ImpactAnalyzer analyzer = analyze(BASE,
+                "package sample; public class Impl extends Base { public int foo() { return 3; } }", FACTORY, OTHER,
+                TEST);
+        Set<String> changed = ImpactAnalyzer.getChanged(prev.getHashes(), analyzer.getHashes());
+        assertEquals(changed, Collections.singleton("sample.Impl#foo()I"));
+        // Factory returns Base, so Impl.foo is reached over virtual call of Base.foo
+        assertTrue(analyzer.isImpacted("sample.ImplTest", "viaBase", changed));
+        assertFalse(analyzer.isImpacted("sample.ImplTest", "viaOther", changed));
+    }
+
+    @Test
+    public void detectsAddedOverride() throws Exception {
+        ImpactAnalyzer prev = analyze(BASE, "package sample; public class Impl extends Base { }", FACTORY, OTHER,
+                TEST);
+        ImpactAnalyzer analyzer = analyze(BASE, IMPL, FACTORY, OTHER, TEST);
+        Set<String> changed = ImpactAnalyzer.getChanged(prev.getHashes(), analyzer.getHashes());
+        assertTrue(analyzer.isImpacted("sample.ImplTest", "viaBase", changed));
+        assertFalse(analyzer.isImpacted("sample.ImplTest", "viaOther", changed));
+    }
+
+    @Test
+    public void detectsChangedHeader() throws Exception {
+        ImpactAnalyzer prev = analyze(BASE, IMPL, FACTORY, OTHER, TEST);
+        ImpactAnalyzer analyzer = analyze(BASE, IMPL, FACTORY,
+                "package sample; public class Other { static final int LIMIT = 5; public int bar() { return 1; } }",
+                TEST);
+        Set<String> changed = ImpactAnalyzer.getChanged(prev.getHashes(), analyzer.getHashes());
+        assertEquals(changed, Collections.singleton("sample.Other#<header>"));
+        assertTrue(analyzer.isImpacted("sample.ImplTest", "viaOther", changed));
+        assertFalse(analyzer.isImpacted("sample.ImplTest", "viaBase", changed));
+    }
+
+    @Test
+    public void ignoresUnchangedCode() throws Exception {
+        ImpactAnalyzer prev = analyze(BASE, IMPL, FACTORY, OTHER, TEST);
+        ImpactAnalyzer analyzer = analyze(BASE, IMPL, FACTORY, OTHER, TEST);
+        Set<String> changed = ImpactAnalyzer.getChanged(prev.getHashes(), analyzer.getHashes());
+        assertTrue(changed.isEmpty());
+        assertFalse(analyzer.isImpacted("sample.ImplTest", "viaBase", changed));
+        // Test class not analyzed can't be proven unaffected
+        assertTrue(analyzer.isImpacted("sample.MissingTest", "test", changed));
+    }
+
+    @Test
+    public void analyzesClassesArchive() throws Exception {
+        File classDir = compile(BASE, IMPL, FACTORY, OTHER, TEST);
+        File jarFile = File.createTempFile("t2b-impact", ".jar");
+        try (JarOutputStream out = new JarOutputStream(new FileOutputStream(jarFile))) {
+            for (File classFile : getClassFiles(classDir)) {
+                out.putNextEntry(new JarEntry("sample/" + classFile.getName()));
+                out.write(Files.readAllBytes(classFile.toPath()));
+                out.closeEntry();
+            }
+        }
+        ImpactAnalyzer dirAnalyzer = new ImpactAnalyzer(new TestClassIndex(Collections.emptySet()));
+        dirAnalyzer.addClassDir(classDir);
+        ImpactAnalyzer jarAnalyzer = new ImpactAnalyzer(new TestClassIndex(Collections.emptySet()));
+        jarAnalyzer.addClassDir(jarFile);
+        assertEquals(jarAnalyzer.size(), 5);
+        assertEquals(jarAnalyzer.getHashes(), dirAnalyzer.getHashes());
+        assertTrue(jarFile.delete());
+    }
+
+    @Test
+    public void acceptsPendingState() throws Exception {
+        File stateFile = new File(Files.createTempDirectory("t2b-impact").toFile(), ImpactAnalyzer.STATE_FILE);
+        System.setProperty(ImpactAnalyzer.SYS_PROP_STATE, stateFile.getPath());
+        assertEquals(ImpactAnalyzer.getStateFile("build"), stateFile);
+        assertTrue(ImpactAnalyzer.loadState(stateFile).isEmpty());
+
+        Map<String, String> baseline = Collections.singletonMap("sample.Other#bar()I", "a");
+        ImpactAnalyzer.storeState(stateFile, baseline);
+        File pendingFile = ImpactAnalyzer.getPendingStateFile(stateFile);
+        assertEquals(pendingFile.getName(), ImpactAnalyzer.STATE_FILE + ".pending");
+        Map<String, String> pending = Collections.singletonMap("sample.Other#bar()I", "b");
+        ImpactAnalyzer.storeState(pendingFile, pending);
+        // Pending state does not replace baseline until accepted
+        assertEquals(ImpactAnalyzer.loadState(stateFile), baseline);
+
+        assertFalse(ImpactAnalyzer.isAccept());
+        System.setProperty(ImpactAnalyzer.SYS_PROP_ACCEPT, "true");
+        assertTrue(ImpactAnalyzer.isAccept());
+        ImpactAnalyzer.acceptPendingState(stateFile);
+        assertEquals(ImpactAnalyzer.loadState(stateFile), pending);
+        assertFalse(pendingFile.exists());
+
+        // Nothing to accept: baseline is kept
+        ImpactAnalyzer.acceptPendingState(stateFile);
+        assertEquals(ImpactAnalyzer.loadState(stateFile), pending);
+        assertTrue(stateFile.delete());
+        assertTrue(stateFile.getParentFile().delete());
+    }
+
+    private static ImpactAnalyzer analyze(String... sources) throws Exception {
+        File classDir = compile(sources);
+        TestClassIndex classIndex = new TestClassIndex(Collections.singleton("org.junit.Test"));
+        for (File classFile : getClassFiles(classDir)) {
+            classIndex.scan(classFile.toPath());
+        }
+        ImpactAnalyzer analyzer = new ImpactAnalyzer(classIndex);
+        analyzer.addClassDir(classDir);
+        return analyzer;
+    }
+
+    private static File compile(String... sources) throws Exception {
+        Path srcDir = Files.createTempDirectory("t2b-impact-src");
+        File classDir = Files.createTempDirectory("t2b-impact-classes").toFile();
+        classDir.deleteOnExit();
+        List<String> args = new ArrayList<>(Arrays.asList("-d", classDir.getPath(), "-cp",
+                System.getProperty("java.class.path")));
+        for (String source : sources) {
+            String className = source.replaceAll("(?s).*? class (\\w+).*", "$1");
+            Path srcFile = srcDir.resolve(className + ".java");
+            Files.write(srcFile, source.getBytes(StandardCharsets.UTF_8));
+            args.add(srcFile.toString());
+        }
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        assertEquals(compiler.run(null, null, null, args.toArray(new String[0])), 0);
+        return classDir;
+    }
+
+    private static File[] getClassFiles(File classDir) {
+        return new File(classDir, "sample").listFiles();
+    }
+}
@@ -0,0 +1,145 @@
+/*
+ * Copyright (C) 2020-2022, K2N.IO.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA
+ *
+ */
+
+package com.gocypher.cybench.t2b.discovery;
+
+import static org.testng.Assert.*;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.Test;
+
+public class TestFilterTest {
+
+    @AfterMethod
+    public void clearProperties() {
+        System.clearProperty(TestFilter.SYS_PROP_INCLUDE);
+        System.clearProperty(TestFilter.SYS_PROP_EXCLUDE);
+        System.clearProperty("t2b.aop.cfg.path");
+        TestFilter.reload();
+    }
+
+    @Test
+    public void includesAllWhenEmpty() {
+        TestFilter filter = new TestFilter(null, " , ");
+        assertTrue(filter.isEmpty());
+        assertTrue(filter.isClassIncluded("com.acme.UserTest"));
+        assertTrue(filter.isMethodIncluded("com.acme.UserTest", "test"));
+    }
+
+    @Test
+    public void matchesSimpleClassName() {
+        TestFilter filter = new TestFilter("*ServiceTest", null);
+        assertTrue(filter.isClassIncluded("com.acme.UserServiceTest"));
+        assertTrue(filter.isClassIncluded("ServiceTest"));
+        assertFalse(filter.isClassIncluded("com.acme.UserTest"));
+    }
+
+    @Test
+    public void matchesQualifiedClassName() {
+        TestFilter filter = new TestFilter("com.acme.*Test", null);
+        assertTrue(filter.isClassIncluded("com.acme.UserTest"));
+        assertFalse(filter.isClassIncluded("com.acme.user.UserTest"));
+
+        filter = new TestFilter("com.acme.**Test", null);
+        assertTrue(filter.isClassIncluded("com.acme.UserTest"));
+        assertTrue(filter.isClassIncluded("com.acme.user.UserTest"));
+        assertFalse(filter.isClassIncluded("org.acme.UserTest"));
+
+        filter = new TestFilter("com.acme.User?est", null);
+        assertTrue(filter.isClassIncluded("com.acme.UserTest"));
+        assertFalse(filter.isClassIncluded("com.acme.UserTTest"));
+    }
+
+    @Test
+    public void matchesNestedClassName() {
+        TestFilter filter = new TestFilter("Outer$Inner, com.acme.Other.Nested", null);
+        assertTrue(filter.isClassIncluded("com.acme.Outer$Inner"));
+        assertTrue(filter.isClassIncluded("com.acme.Other$Nested"));
+        assertFalse(filter.isClassIncluded("com.acme.Outer"));
+    }
+
+    @Test
+    public void includesMethods() {
+        TestFilter filter = new TestFilter("UserTest#test*, OrderTest#*", null);
+        assertTrue(filter.isClassIncluded("com.acme.UserTest"));
+        assertTrue(filter.isMethodIncluded("com.acme.UserTest", "testLogin"));
+        assertFalse(filter.isMethodIncluded("com.acme.UserTest", "login"));
+        assertTrue(filter.isMethodIncluded("com.acme.OrderTest", "anything"));
+        assertFalse(filter.isClassIncluded("com.acme.CartTest"));
+    }
+
+    @Test
+    public void excludesMethodsAndClasses() {
+        TestFilter filter = new TestFilter(null, "UserTest#slow*, com.acme.legacy.**");
+        // Method pattern excludes only matching methods, not class as whole
+        assertTrue(filter.isClassIncluded("com.acme.UserTest"));
+        assertFalse(filter.isMethodIncluded("com.acme.UserTest", "slowLogin"));
+        assertTrue(filter.isMethodIncluded("com.acme.UserTest", "login"));
+        assertFalse(filter.isClassIncluded("com.acme.legacy.OldTest"));
+        assertFalse(filter.isMethodIncluded("com.acme.legacy.OldTest", "test"));
+    }
+
+    @Test
+    public void excludeOverridesInclude() {
+        TestFilter filter = new TestFilter("com.acme.**", "*IT");
+        assertTrue(filter.isClassIncluded("com.acme.UserTest"));
+        assertFalse(filter.isClassIncluded("com.acme.UserIT"));
+    }
+
+    @Test
+    public void matchesRegex() {
+        TestFilter filter = new TestFilter("regex:.*Test#fast.*", null);
+        // Regex can't be split into class and method parts, so class is rejected by method match only
+        assertTrue(filter.isClassIncluded("com.acme.Anything"));
+        assertTrue(filter.isMethodIncluded("com.acme.UserTest", "fastLogin"));
+        assertFalse(filter.isMethodIncluded("com.acme.UserTest", "slowLogin"));
+        assertFalse(filter.isMethodIncluded("com.acme.UserSpec", "fastLogin"));
+    }
+
+    @Test
+    public void skipsInvalidPattern() {
+        TestFilter filter = new TestFilter("regex:[, UserTest", null);
+        assertFalse(filter.isEmpty());
+        assertTrue(filter.isClassIncluded("com.acme.UserTest"));
+        assertFalse(filter.isClassIncluded("com.acme.OrderTest"));
+    }
+
+    @Test
+    public void reloadsConfiguration() throws Exception {
+        File cfgFile = File.createTempFile("t2b-filter", ".properties");
+        Files.write(cfgFile.toPath(), Arrays.asList("t2b.include=UserTest", "t2b.exclude=UserTest#slow*"),
+                StandardCharsets.ISO_8859_1);
+        System.setProperty("t2b.aop.cfg.path", cfgFile.getPath());
+        TestFilter.reload();
+        assertTrue(TestFilter.getInstance().isMethodIncluded("com.acme.UserTest", "login"));
+        assertFalse(TestFilter.getInstance().isMethodIncluded("com.acme.UserTest", "slowLogin"));
+        assertFalse(TestFilter.getInstance().isClassIncluded("com.acme.OrderTest"));
+
+        // System property overrides configuration file value
+        System.setProperty(TestFilter.SYS_PROP_INCLUDE, "OrderTest");
+        TestFilter.reload();
+        assertTrue(TestFilter.getInstance().isClassIncluded("com.acme.OrderTest"));
+        assertFalse(TestFilter.getInstance().isClassIncluded("com.acme.UserTest"));
+    }
+}
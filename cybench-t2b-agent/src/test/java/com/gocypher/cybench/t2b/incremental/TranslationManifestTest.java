@@ -0,0 +1,251 @@
+/*
+ * Copyright (C) 2020-2022, K2N.IO.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA
+ *
+ */
+
+package com.gocypher.cybench.t2b.incremental;
+
+import static org.testng.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.TreeSet;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import com.gocypher.cybench.t2b.discovery.TestClassIndex;
+
+import javassist.bytecode.ClassFile;
+
+public class TranslationManifestTest {
+
+    @AfterMethod
+    public void clearProperties() {
+        System.clearProperty("t2b.test.manifest");
+        System.clearProperty("t2b.session.id");
+        System.clearProperty("t2b.benchmark.cfg.path");
+    }
+
+    @Test
+    public void storesAndLoadsEntries() throws Exception {
+        File benchDir = Files.createTempDirectory("t2b-manifest").toFile();
+        TranslationManifest manifest = TranslationManifest.load(benchDir);
+        manifest.putClass("com.acme.UserTest", "hash1");
+        manifest.putGeneratedClasses("com.acme.UserTest", Arrays.asList("com.acme.A", "com.acme.B"));
+        manifest.putClass("com.acme.OrderTest", "hash2");
+        manifest.putGeneratedClasses("com.acme.OrderTest", Collections.singletonList("com.acme.C"));
+        manifest.store("config1");
+
+        assertTrue(TranslationManifest.isReusable(benchDir, "config1"));
+        assertFalse(TranslationManifest.isReusable(benchDir, "config2"));
+        TranslationManifest loaded = TranslationManifest.load(benchDir);
+        assertEquals(loaded.getClassNames(), new TreeSet<>(Arrays.asList("com.acme.UserTest", "com.acme.OrderTest")));
+        assertTrue(loaded.isUnchanged("com.acme.UserTest", "hash1"));
+        assertFalse(loaded.isUnchanged("com.acme.UserTest", "hash2"));
+        assertFalse(loaded.isUnchanged("com.acme.UserTest", null));
+        assertEquals(loaded.getGeneratedClasses("com.acme.UserTest"), Arrays.asList("com.acme.A", "com.acme.B"));
+
+        loaded.removeClass("com.acme.UserTest");
+        loaded.putGeneratedClasses("com.acme.OrderTest", Collections.emptyList());
+        assertEquals(loaded.getClassNames(), Collections.singleton("com.acme.OrderTest"));
+        assertTrue(loaded.getGeneratedClasses("com.acme.UserTest").isEmpty());
+        assertTrue(loaded.getGeneratedClasses("com.acme.OrderTest").isEmpty());
+    }
+
+    @Test
+    public void loadsMissingManifest() throws Exception {
+        File benchDir = Files.createTempDirectory("t2b-manifest").toFile();
+        TranslationManifest manifest = TranslationManifest.load(benchDir);
+        assertTrue(manifest.getClassNames().isEmpty());
+        assertFalse(manifest.isUnchanged("com.acme.UserTest", "hash1"));
+        assertFalse(TranslationManifest.isReusable(benchDir, "config1"));
+    }
+
+    @Test
+    public void hashesConfiguration() throws Exception {
+        String hash = TranslationManifest.computeConfigHash("1.0");
+        assertEquals(TranslationManifest.computeConfigHash("1.0"), hash);
+        assertNotEquals(TranslationManifest.computeConfigHash("1.1"), hash);
+
+        // Properties not affecting translated benchmarks are not part of configuration
+        System.setProperty("t2b.session.id", "session1");
+        assertEquals(TranslationManifest.computeConfigHash("1.0"), hash);
+
+        System.setProperty("t2b.test.manifest", "value1");
+        String propHash = TranslationManifest.computeConfigHash("1.0");
+        assertNotEquals(propHash, hash);
+
+        File cfgFile = File.createTempFile("t2b-benchmarks", ".properties");
+        System.setProperty("t2b.benchmark.cfg.path", cfgFile.getPath());
+        Files.write(cfgFile.toPath(), Collections.singletonList("**=-f 1"), StandardCharsets.UTF_8);
+        String cfgHash = TranslationManifest.computeConfigHash("1.0");
+        Files.write(cfgFile.toPath(), Collections.singletonList("**=-f 2"), StandardCharsets.UTF_8);
+        assertNotEquals(TranslationManifest.computeConfigHash("1.0"), cfgHash);
+    }
+
+    @Test
+    public void hashesSuperClasses() throws Exception {
+        Path classFile = Files.createTempFile("t2b-manifest", ".class");
+        Files.write(classFile, getClassBytes(Derived.class));
+        TestClassIndex classIndex = new TestClassIndex(Collections.emptyList());
+        TestClassIndex.Entry entry = classIndex.scan(classFile);
+        File benchDir = Files.createTempDirectory("t2b-manifest").toFile();
+
+        String hash = TranslationManifest.load(benchDir).computeClassHash(entry, classIndex,
+                getClass().getClassLoader());
+        assertNotNull(hash);
+        String changedHash = TranslationManifest.load(benchDir).computeClassHash(entry, classIndex,
+                new ChangedClassLoader(Base.class, Factory.class));
+        assertNotNull(changedHash);
+        assertNotEquals(changedHash, hash);
+    }
+
+    @Test
+    public void findsArgumentSourceClasses() throws Exception {
+        assertEquals(TranslationManifest.getArgumentSourceClasses(getClassFile(Ju5Sample.class)),
+                new TreeSet<>(Arrays.asList(Factory.class.getName(), Unit.class.getName())));
+        assertEquals(TranslationManifest.getArgumentSourceClasses(getClassFile(NgSample.class)),
+                Collections.singleton(Provider.class.getName()));
+    }
+
+    @Test
+    public void hashesArgumentSourceClasses() throws Exception {
+        Path classFile = Files.createTempFile("t2b-manifest", ".class");
+        Files.write(classFile, getClassBytes(NgSample.class));
+        TestClassIndex classIndex = new TestClassIndex(Collections.emptyList());
+        TestClassIndex.Entry entry = classIndex.scan(classFile);
+        File benchDir = Files.createTempDirectory("t2b-manifest").toFile();
+        ClassLoader classLoader = getClass().getClassLoader();
+
+        String hash = TranslationManifest.load(benchDir).computeClassHash(entry, classIndex, classLoader);
+        assertNotNull(hash);
+        assertEquals(TranslationManifest.load(benchDir).computeClassHash(entry, classIndex, classLoader), hash);
+        String changedHash = TranslationManifest.load(benchDir).computeClassHash(entry, classIndex,
+                new ChangedClassLoader(Provider.class, Factory.class));
+        assertNotNull(changedHash);
+        assertNotEquals(changedHash, hash);
+    }
+
+    private static ClassFile getClassFile(Class<?> cls) throws Exception {
+        return new ClassFile(new DataInputStream(new ByteArrayInputStream(getClassBytes(cls))));
+    }
+
+    private static byte[] getClassBytes(Class<?> cls) throws Exception {
+        try (InputStream in = cls.getResourceAsStream(
+                cls.getName().substring(cls.getName().lastIndexOf('.') + 1) + ".class")) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[4096];
+            int len;
+            while ((len = in.read(buffer)) != -1) {
+                out.write(buffer, 0, len);
+            }
+            return out.toByteArray();
+        }
+    }
+
+    // Resolves class bytes as changed since previous translation: returns bytes of other class instead
+    private static class ChangedClassLoader extends ClassLoader {
+        private final Class<?> changedClass;
+        private final Class<?> changedBytesClass;
+
+        ChangedClassLoader(Class<?> changedClass, Class<?> changedBytesClass) {
+            super(TranslationManifestTest.class.getClassLoader());
+            this.changedClass = changedClass;
+            this.changedBytesClass = changedBytesClass;
+        }
+
+        @Override
+        public InputStream getResourceAsStream(String name) {
+            if (name.equals(changedClass.getName().replace('.', '/') + ".class")) {
+                try {
+                    return new ByteArrayInputStream(getClassBytes(changedBytesClass));
+                } catch (Exception exc) {
+                    throw new IllegalStateException(exc);
+                }
+            }
+            return super.getResourceAsStream(name);
+        }
+    }
+
+    public static class Base {
+        protected int value() {
+            return 1;
+        }
+    }
+
+    public static class Derived extends Base {
+    }
+
+    public enum Unit {
+        MS, US
+    }
+
+    public static class Factory {
+        public static Stream<String> words() {
+            return Stream.of("a", "b");
+        }
+    }
+
+    public static class Provider {
+        @DataProvider
+        public static Object[][] numbers() {
+            return new Object[][] { { 1 }, { 2 } };
+        }
+    }
+
+    public static class Ju5Sample {
+        @ParameterizedTest
+        @MethodSource("com.gocypher.cybench.t2b.incremental.TranslationManifestTest$Factory#words")
+        public void word(String word) {
+        }
+
+        @ParameterizedTest
+        @MethodSource("localWords")
+        public void localWord(String word) {
+        }
+
+        @ParameterizedTest
+        @EnumSource(Unit.class)
+        public void unit(Unit unit) {
+        }
+
+        static Stream<String> localWords() {
+            return Stream.of("c");
+        }
+    }
+
+    // Abstract, so TestNG does not run it
+    public abstract static class NgSample {
+        @Test(dataProvider = "numbers", dataProviderClass = Provider.class)
+        public void number(int number) {
+        }
+    }
+}
@@ -0,0 +1,63 @@
+/*
+ * Copyright (C) 2020-2022, K2N.IO.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA
+ *
+ */
+
+package com.gocypher.cybench.t2b.packaging;
+
+import static org.testng.Assert.*;
+
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.Test;
+
+public class SharedArchiveBuilderTest {
+
+    @AfterMethod
+    public void clearProperties() {
+        System.clearProperty(SharedArchiveBuilder.SYS_PROP_TIMEOUT);
+    }
+
+    @Test
+    public void scalesDefaultTimeoutByBenchmarksCount() {
+        assertEquals(SharedArchiveBuilder.getTimeout(0), TimeUnit.MINUTES.toMillis(2));
+        assertEquals(SharedArchiveBuilder.getTimeout(30), TimeUnit.MINUTES.toMillis(7));
+    }
+
+    @Test
+    public void usesTimeoutProperty() {
+        System.setProperty(SharedArchiveBuilder.SYS_PROP_TIMEOUT, "3");
+        assertEquals(SharedArchiveBuilder.getTimeout(1000), TimeUnit.MINUTES.toMillis(3));
+        System.setProperty(SharedArchiveBuilder.SYS_PROP_TIMEOUT, "soon");
+        assertEquals(SharedArchiveBuilder.getTimeout(6), TimeUnit.MINUTES.toMillis(3));
+    }
+
+    @Test
+    public void countsNoBenchmarksOfMissingJar() {
+        assertEquals(new SharedArchiveBuilder(new File("missing-benchmarks.jar")).getBenchmarksCount(), 0);
+    }
+
+    @Test
+    public void parsesMajorVersion() {
+        assertEquals(SharedArchiveBuilder.getMajorVersion("1.8"), 8);
+        assertEquals(SharedArchiveBuilder.getMajorVersion("17"), 17);
+        assertEquals(SharedArchiveBuilder.getMajorVersion("x"), -1);
+        assertEquals(SharedArchiveBuilder.getMajorVersion(null), -1);
+    }
+}
@@ -0,0 +1,168 @@
+/*
+ * Copyright (C) 2020-2022, K2N.IO.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA
+ *
+ */
+
+package com.gocypher.cybench.t2b.transform;
+
+import static org.testng.Assert.*;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.Test;
+
+public class BenchmarkConfigTest {
+    private File cfgFile;
+
+    @AfterMethod
+    public void clearProperties() {
+        System.clearProperty(BenchmarkConfig.SYS_PROP_CONFIG);
+        BenchmarkConfig.reload();
+        if (cfgFile != null) {
+            assertTrue(cfgFile.delete());
+            cfgFile = null;
+        }
+    }
+
+    @Test
+    public void appliesTemplateEntriesInFileOrder() throws Exception {
+        loadTemplate("**=-bm avgt -wi 1 -i 2", "com.acme.*=-wi 3 -tu us", "UserTest#login=-wi 4",
+                "OrderTest=-wi 5");
+        BenchmarkConfig cfg = BenchmarkConfig.resolve("com.acme.UserTest", "login");
+        assertEquals(getMember(cfg, BenchmarkMode.class, "value"), new Mode[] { Mode.AverageTime });
+        assertEquals(getMember(cfg, Warmup.class, "iterations"), 4);
+        assertEquals(getMember(cfg, Measurement.class, "iterations"), 2);
+        assertEquals(getMember(cfg, OutputTimeUnit.class, "value"), TimeUnit.MICROSECONDS);
+
+        cfg = BenchmarkConfig.resolve("com.acme.UserTest", "logout");
+        assertEquals(getMember(cfg, Warmup.class, "iterations"), 3);
+        assertTrue(BenchmarkConfig.resolve("com.acme.UserTest", "login").getAnnotations()
+                .containsKey(Measurement.class.getName()));
+    }
+
+    @Test
+    public void appliesTestThenClassThenMethodOptions() throws Exception {
+        loadTemplate("UserTest=-bm avgt -wi 1 -i 1 -f 1");
+        assertEquals(BenchmarkConfig.getOptions("com.acme.UserTest", "login", "-bm ss -bs 10", "-wi 2 -i 2", "-wi 3"),
+                Arrays.asList("-bm avgt -wi 1 -i 1 -f 1", "-bm ss -bs 10", "-wi 2 -i 2", "-wi 3"));
+
+        BenchmarkConfig cfg = BenchmarkConfig.resolve("com.acme.UserTest", "login", "-bm ss -bs 10", "-wi 2 -i 2",
+                "-wi 3");
+        assertEquals(getMember(cfg, BenchmarkMode.class, "value"), new Mode[] { Mode.SingleShotTime });
+        assertEquals(getMember(cfg, Measurement.class, "batchSize"), 10);
+        assertEquals(getMember(cfg, Measurement.class, "iterations"), 2);
+        assertEquals(getMember(cfg, Warmup.class, "iterations"), 3);
+        assertEquals(getMember(cfg, Fork.class, "value"), 1);
+
+        Options options = BenchmarkConfig.toOptions(
+                BenchmarkConfig.getOptions("com.acme.UserTest", "login", "-bm ss -bs 10", "-wi 2 -i 2", "-wi 3"),
+                "test");
+        assertEquals(options.getBenchModes(), Collections.singleton(Mode.SingleShotTime));
+        assertEquals(options.getMeasurementBatchSize().get(), Integer.valueOf(10));
+        assertEquals(options.getMeasurementIterations().get(), Integer.valueOf(2));
+        assertEquals(options.getWarmupIterations().get(), Integer.valueOf(3));
+    }
+
+    @Test
+    public void skipsEmptyOptions() {
+        assertEquals(BenchmarkConfig.getOptions("com.acme.UserTest", "login", null, " ", "-wi 3"),
+                Collections.singletonList("-wi 3"));
+        assertTrue(BenchmarkConfig.resolve("com.acme.UserTest", "login", (String[]) null).isEmpty());
+    }
+
+    @Test
+    public void mergesOptionsNotDefinedByRunner() {
+        Options benchmarkOptions = BenchmarkConfig.toOptions(Arrays.asList("-wi 3 -i 4 -tu us", "-t 2 -to 5s"),
+                "test");
+        Options runnerOptions = new OptionsBuilder().warmupIterations(7).threads(1).build();
+        OptionsBuilder target = new OptionsBuilder();
+        BenchmarkConfig.mergeOptions(target, benchmarkOptions, runnerOptions);
+        assertFalse(target.getWarmupIterations().hasValue());
+        assertFalse(target.getThreads().hasValue());
+        assertEquals(target.getMeasurementIterations().get(), Integer.valueOf(4));
+        assertEquals(target.getTimeUnit().get(), TimeUnit.MICROSECONDS);
+        assertEquals(target.getTimeout().get(), TimeValue.seconds(5));
+
+        target = new OptionsBuilder();
+        BenchmarkConfig.mergeOptions(target, benchmarkOptions, null);
+        assertEquals(target.getWarmupIterations().get(), Integer.valueOf(3));
+        assertEquals(target.getThreads().get(), Integer.valueOf(2));
+    }
+
+    @Test
+    public void setsTimeMembers() {
+        BenchmarkConfig cfg = BenchmarkConfig.resolve("com.acme.UserTest", "login", "-r 2147483647ns -w 200ms -to 10m");
+        assertEquals(getMember(cfg, Measurement.class, "time"), Integer.MAX_VALUE);
+        assertEquals(getMember(cfg, Measurement.class, "timeUnit"), TimeUnit.NANOSECONDS);
+        assertEquals(getMember(cfg, Warmup.class, "time"), 200);
+        assertEquals(getMember(cfg, Warmup.class, "timeUnit"), TimeUnit.MILLISECONDS);
+        assertEquals(getMember(cfg, Timeout.class, "time"), 10);
+        assertEquals(getMember(cfg, Timeout.class, "timeUnit"), TimeUnit.MINUTES);
+    }
+
+    @Test
+    public void ignoresInvalidOptions() throws Exception {
+        loadTemplate("UserTest=-wi many", "com.acme.*=-i 2");
+        BenchmarkConfig cfg = BenchmarkConfig.resolve("com.acme.UserTest", "login", "-bm bogus", "-wi 3");
+        assertNull(cfg.getAnnotations().get(BenchmarkMode.class.getName()));
+        assertEquals(getMember(cfg, Warmup.class, "iterations"), 3);
+        assertEquals(getMember(cfg, Measurement.class, "iterations"), 2);
+        assertFalse(new BenchmarkConfig().merge("-f x", "test"));
+        // JMH parses time as int
+        assertFalse(new BenchmarkConfig().merge("-r 3000000000ns", "test"));
+        assertFalse(new BenchmarkConfig().merge("-tu years", "test"));
+        assertTrue(new BenchmarkConfig().merge(" ", "test"));
+
+        Options options = BenchmarkConfig.toOptions(Arrays.asList("-i 2", "-wi many", "-wi 3"), "test");
+        assertEquals(options.getWarmupIterations().get(), Integer.valueOf(3));
+        assertEquals(options.getMeasurementIterations().get(), Integer.valueOf(2));
+    }
+
+    @Test
+    public void reloadsTemplate() throws Exception {
+        loadTemplate("UserTest=-wi 2");
+        assertEquals(BenchmarkConfig.getTemplate().size(), 1);
+        assertTrue(cfgFile.delete());
+        cfgFile = null;
+        BenchmarkConfig.reload();
+        assertTrue(BenchmarkConfig.getTemplate().isEmpty());
+    }
+
+    private void loadTemplate(String... entries) throws Exception {
+        cfgFile = File.createTempFile("t2b-benchmarks", ".properties");
+        Files.write(cfgFile.toPath(), Arrays.asList(entries), StandardCharsets.ISO_8859_1);
+        System.setProperty(BenchmarkConfig.SYS_PROP_CONFIG, cfgFile.getPath());
+        BenchmarkConfig.reload();
+    }
+
+    private static Object getMember(BenchmarkConfig cfg, Class<?> annotationType, String member) {
+        Map<String, Object> members = cfg.getAnnotations().get(annotationType.getName());
+        assertNotNull(members, annotationType.getName());
+        return members.get(member);
+    }
+}
@@ -0,0 +1,238 @@
+/*
+ * Copyright (C) 2020-2022, K2N.IO.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA
+ *
+ */
+
+package com.gocypher.cybench.t2b.transform;
+
+import static org.testng.Assert.*;
+
+import java.io.*;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Supplier;
+
+import org.openjdk.jmh.infra.Blackhole;
+import org.testng.annotations.Test;
+
+import javassist.bytecode.*;
+
+public class BlackholeRouterTest {
+    private static final String BLACKHOLE_PASSWORD = "Today's password is swordfish. I understand instantiating "
+            + "Blackholes directly is dangerous.";
+
+    @Test
+    public void consumesTryCatchValues() throws Exception {
+        Routed routed = route("tryCatch", false);
+        // javac copies finally block into every path: try, catch and rethrowing handler
+        assertEquals(routed.getConsumed("tryCatch"), Arrays.asList("(I)V", "(Ljava/lang/Object;)V", "(I)V", "(I)V",
+                "(I)V", "(Ljava/lang/Object;)V"));
+        routed.invoke("tryCatch");
+    }
+
+    @Test
+    public void consumesWideLocals() throws Exception {
+        Routed routed = route("wideLocals", false);
+        assertEquals(routed.getConsumed("wideLocals"), Arrays.asList("(D)V", "(J)V"));
+        routed.invoke("wideLocals");
+    }
+
+    @Test
+    public void consumesLambdaResult() throws Exception {
+        Routed routed = route("lambda", false);
+        assertEquals(routed.getConsumed("lambda"), Arrays.asList("(Ljava/lang/Object;)V"));
+        assertEquals(routed.getConsumed("lambda$lambda$0"), Arrays.asList());
+        routed.invoke("lambda");
+    }
+
+    @Test
+    public void consumesPrivateHelperResult() throws Exception {
+        Routed routed = route("callsHelper", false);
+        assertFalse(routed.router.canRoute(routed.classFile.getMethod("helper")));
+        assertEquals(routed.getConsumed("callsHelper"), Arrays.asList("(I)V"));
+        routed.invoke("callsHelper");
+    }
+
+    @Test
+    public void routesStaticAssertion() throws Exception {
+        Routed routed = route("staticAssertion", false);
+        assertEquals(routed.stripped, 0);
+        List<String> bridges = routed.getCalledBridges("staticAssertion");
+        assertEquals(bridges.size(), 1);
+        assertEquals(routed.getConsumed(bridges.get(0)), Arrays.asList("(J)V", "(J)V"));
+        routed.invoke("staticAssertion");
+    }
+
+    @Test
+    public void stripsAssertJChain() throws Exception {
+        Routed routed = route("assertJChain", true);
+        assertEquals(routed.stripped, 2);
+        assertEquals(routed.getCalledBridges("assertJChain").size(), 2);
+        // Stripped assertion does not fail, while its argument is still computed and consumed
+        routed.invoke("assertJChain");
+    }
+
+    @Test
+    public void keepsAssertJChain() throws Exception {
+        Routed routed = route("assertJChain", false);
+        assertEquals(routed.stripped, 0);
+        assertEquals(routed.getConsumed("assertJChain"), Arrays.asList("(Ljava/lang/Object;)V"));
+        try {
+            routed.invoke("assertJChain");
+            fail("Assertion is not stripped, so it shall fail");
+        } catch (InvocationTargetException exc) {
+            assertTrue(exc.getCause() instanceof AssertionError);
+        }
+    }
+
+    private static Routed route(String methodName, boolean stripAssertions) throws Exception {
+        ClassFile classFile;
+        try (InputStream in = Sample.class.getResourceAsStream("BlackholeRouterTest$Sample.class")) {
+            classFile = new ClassFile(new DataInputStream(in));
+        }
+        BlackholeRouter router = new BlackholeRouter(classFile, stripAssertions,
+                BlackholeRouterTest.class.getClassLoader());
+        MethodInfo method = classFile.getMethod(methodName);
+        assertTrue(router.canRoute(method));
+
+        return new Routed(classFile, router, router.route(method));
+    }
+
+    private static class Routed {
+        final ClassFile classFile;
+        final BlackholeRouter router;
+        final int stripped;
+
+        Routed(ClassFile classFile, BlackholeRouter router, int stripped) {
+            this.classFile = classFile;
+            this.router = router;
+            this.stripped = stripped;
+        }
+
+        // Descriptors of Blackhole.consume calls in method body order
+        List<String> getConsumed(String methodName) throws BadBytecode {
+            List<String> consumed = new ArrayList<>();
+            for (int mRef : getCalls(methodName, Opcode.INVOKEVIRTUAL)) {
+                ConstPool cp = classFile.getConstPool();
+                if (cp.getMethodrefClassName(mRef).equals(BlackholeRouter.BLACKHOLE_CLASS)) {
+                    consumed.add(cp.getMethodrefType(mRef));
+                }
+            }
+            return consumed;
+        }
+
+        List<String> getCalledBridges(String methodName) throws BadBytecode {
+            List<String> bridges = new ArrayList<>();
+            for (int mRef : getCalls(methodName, Opcode.INVOKESTATIC)) {
+                String name = classFile.getConstPool().getMethodrefName(mRef);
+                if (name.startsWith("t2b$")) {
+                    bridges.add(name);
+                }
+            }
+            return bridges;
+        }
+
+        private List<Integer> getCalls(String methodName, int opcode) throws BadBytecode {
+            List<Integer> calls = new ArrayList<>();
+            CodeIterator it = classFile.getMethod(methodName).getCodeAttribute().iterator();
+            while (it.hasNext()) {
+                int idx = it.next();
+                if (it.byteAt(idx) == opcode) {
+                    calls.add(it.u16bitAt(idx + 1));
+                }
+            }
+            return calls;
+        }
+
+        // Loading routed class makes JVM verify its bytecode
+        void invoke(String methodName) throws Exception {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            classFile.write(new DataOutputStream(bytes));
+            Class<?> routedClass = new RoutedClassLoader(classFile.getName(), bytes.toByteArray())
+                    .loadClass(classFile.getName());
+            Method method = routedClass.getMethod(methodName, Blackhole.class);
+            method.invoke(routedClass.newInstance(), new Blackhole(BLACKHOLE_PASSWORD));
+        }
+    }
+
+    private static class RoutedClassLoader extends ClassLoader {
+        private final String className;
+        private final byte[] classBytes;
+
+        RoutedClassLoader(String className, byte[] classBytes) {
+            super(BlackholeRouterTest.class.getClassLoader());
+            this.className = className;
+            this.classBytes = classBytes;
+        }
+
+        @Override
+        protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+            if (!name.equals(className)) {
+                return super.loadClass(name, resolve);
+            }
+            synchronized (getClassLoadingLock(name)) {
+                Class<?> cls = findLoadedClass(name);
+                return cls != null ? cls : defineClass(name, classBytes, 0, classBytes.length);
+            }
+        }
+    }
+
+    public static class Sample {
+        // Local live across handlers makes stack map frames list it after Blackhole slot
+        public void tryCatch() {
+            int parsed = 0;
+            try {
+                parsed = Integer.parseInt("x");
+            } catch (NumberFormatException exc) {
+                Integer.parseInt("1");
+            } finally {
+                Integer.parseInt("2");
+            }
+            String.valueOf(parsed);
+        }
+
+        public void wideLocals() {
+            long nanos = System.nanoTime();
+            double root = Math.sqrt(nanos);
+            Math.abs(nanos);
+        }
+
+        public void lambda() {
+            Supplier<String> supplier = () -> String.valueOf(42);
+            supplier.get();
+        }
+
+        public void callsHelper() {
+            helper();
+        }
+
+        private int helper() {
+            return "helper".length();
+        }
+
+        public void staticAssertion() {
+            org.testng.Assert.assertEquals(System.nanoTime() > 0 ? 1L : 0L, 1L);
+        }
+
+        public void assertJChain() {
+            org.assertj.core.api.Assertions.assertThat(Integer.parseInt("5")).isPositive().isEqualTo(6);
+        }
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright (C) 2020-2022, K2N.IO.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA
+ *
+ */
+
+package com.gocypher.cybench.t2b.transform;
+
+import static org.testng.Assert.*;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+import org.openjdk.jmh.annotations.Level;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.Test;
+
+public class FixtureLevelsTest {
+
+    @AfterMethod
+    public void clearProperties() {
+        System.clearProperty(FixtureLevels.SYS_PROP_LEVEL);
+        System.clearProperty(FixtureLevels.SYS_PROP_LEVEL_OVERRIDES);
+        System.clearProperty("t2b.aop.cfg.path");
+        FixtureLevels.reload();
+    }
+
+    @Test
+    public void usesInvocationLevelByDefault() {
+        FixtureLevels levels = new FixtureLevels(null, null);
+        assertEquals(levels.getLevel("com.acme.UserTest", "setUp"), Level.Invocation);
+    }
+
+    @Test
+    public void parsesDefaultLevel() {
+        assertEquals(new FixtureLevels("trial", null).getLevel("com.acme.UserTest", "setUp"), Level.Trial);
+        assertEquals(new FixtureLevels(" Iteration ", null).getLevel("com.acme.UserTest", "setUp"),
+                Level.Iteration);
+        // Unknown level falls back to default one
+        assertEquals(new FixtureLevels("suite", null).getLevel("com.acme.UserTest", "setUp"), Level.Invocation);
+    }
+
+    @Test
+    public void firstMatchingOverrideWins() {
+        FixtureLevels levels = new FixtureLevels("iteration",
+                "UserTest#init*=trial, com.acme.*=invocation, UserTest=trial");
+        assertEquals(levels.getLevel("com.acme.UserTest", "initDb"), Level.Trial);
+        assertEquals(levels.getLevel("com.acme.UserTest", "setUp"), Level.Invocation);
+        assertEquals(levels.getLevel("com.other.UserTest", "setUp"), Level.Trial);
+        assertEquals(levels.getLevel("com.other.OrderTest", "setUp"), Level.Iteration);
+    }
+
+    @Test
+    public void skipsInvalidOverrides() {
+        FixtureLevels levels = new FixtureLevels("trial", "UserTest, =invocation, OrderTest=bogus, ,"
+                + "ItemTest=iteration");
+        assertEquals(levels.getLevel("com.acme.UserTest", "setUp"), Level.Trial);
+        assertEquals(levels.getLevel("com.acme.OrderTest", "setUp"), Level.Trial);
+        assertEquals(levels.getLevel("com.acme.ItemTest", "setUp"), Level.Iteration);
+    }
+
+    @Test
+    public void reloadsConfiguration() throws Exception {
+        File cfgFile = File.createTempFile("t2b-fixture", ".properties");
+        Files.write(cfgFile.toPath(),
+                Arrays.asList("t2b.fixture.level=trial", "t2b.fixture.level.overrides=UserTest#setUp=iteration"),
+                StandardCharsets.ISO_8859_1);
+        System.setProperty("t2b.aop.cfg.path", cfgFile.getPath());
+        FixtureLevels.reload();
+        assertEquals(FixtureLevels.getInstance().getLevel("com.acme.UserTest", "setUp"), Level.Iteration);
+        assertEquals(FixtureLevels.getInstance().getLevel("com.acme.UserTest", "tearDown"), Level.Trial);
+
+        // System property overrides configuration file value
+        System.setProperty(FixtureLevels.SYS_PROP_LEVEL_OVERRIDES, "UserTest=invocation");
+        FixtureLevels.reload();
+        assertEquals(FixtureLevels.getInstance().getLevel("com.acme.UserTest", "setUp"), Level.Invocation);
+        assertEquals(FixtureLevels.getInstance().getLevel("com.acme.OrderTest", "setUp"), Level.Trial);
+        assertTrue(cfgFile.delete());
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright (C) 2020-2022, K2N.IO.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA
+ *
+ */
+
+package com.gocypher.cybench.t2b.transform;
+
+import static org.testng.Assert.*;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.testng.annotations.Test;
+
+public class ParameterizedBenchmarksTest {
+
+    @Test
+    public void replacesNonIdentifierChars() {
+        List<String> labels = ParameterizedBenchmarks.getLabels(
+                Arrays.asList(new Object[] { 1, "a b" }, new Object[] { -2.5, "x/y" }));
+        assertEquals(labels, Arrays.asList("1_a_b", "_2_5_x_y"));
+    }
+
+    @Test
+    public void labelsNestedArrays() {
+        List<String> labels = ParameterizedBenchmarks
+                .getLabels(Collections.singletonList(new Object[] { new int[] { 1, 2 } }));
+        assertEquals(labels, Collections.singletonList("_1_2_"));
+    }
+
+    @Test
+    public void usesIndexOfDuplicateLabel() {
+        List<String> labels = ParameterizedBenchmarks
+                .getLabels(Arrays.asList(new Object[] { "a b" }, new Object[] { "a-b" }, new Object[] { "c" }));
+        assertEquals(labels, Arrays.asList("a_b", "1", "c"));
+    }
+
+    @Test
+    public void usesIndexOfTooLongLabel() {
+        String longText = "abcdefghijklmnopqrstuvwxyz0123456789";
+        List<String> labels = ParameterizedBenchmarks
+                .getLabels(Arrays.asList(new Object[] { "a" }, new Object[] { longText }));
+        assertEquals(labels, Arrays.asList("a", "1"));
+    }
+
+    @Test
+    public void usesIndexOfEmptyLabel() {
+        List<String> labels = ParameterizedBenchmarks
+                .getLabels(Arrays.asList(new Object[] { "" }, new Object[] { "!?" }, new Object[0]));
+        assertEquals(labels, Arrays.asList("0", "1", "2"));
+    }
+
+    @Test
+    public void usesIndexOfIdentityText() {
+        // Object.toString() differs between runs, so label would not be stable
+        List<String> labels = ParameterizedBenchmarks.getLabels(Arrays.asList(new Object[] { 1, new Object() },
+                new Object[] { new Object[] { new Object() } }, new Object[] { null, 2 }));
+        assertEquals(labels, Arrays.asList("0", "1", "null_2"));
+    }
+}
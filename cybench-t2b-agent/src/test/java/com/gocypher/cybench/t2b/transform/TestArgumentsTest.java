@@ -0,0 +1,99 @@
+/*
+ * Copyright (C) 2020-2022, K2N.IO.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA
+ *
+ */
+
+package com.gocypher.cybench.t2b.transform;
+
+import static org.testng.Assert.*;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+import org.testng.annotations.Test;
+
+public class TestArgumentsTest {
+
+    @Test
+    public void parsesTrimmedValues() {
+        assertEquals(parse("a, b ,c", true), new Object[] { "a", "b", "c" });
+    }
+
+    @Test
+    public void parsesUntrimmedValues() {
+        assertEquals(parse("a, b ,c", false), new Object[] { "a", " b ", "c" });
+    }
+
+    @Test
+    public void parsesQuotedValues() {
+        assertEquals(parse("'x, y',z", true), new Object[] { "x, y", "z" });
+        assertEquals(parse("'it''s', ' a ' ", true), new Object[] { "it's", " a " });
+    }
+
+    @Test
+    public void parsesEmptyValues() {
+        Object[] values = TestArguments.parseCsvLine("'',, ", ",", '\'', "EMPTY", Collections.emptyList(), true);
+        assertEquals(values, new Object[] { "EMPTY", null, null });
+    }
+
+    @Test
+    public void parsesNullValues() {
+        Object[] values = TestArguments.parseCsvLine("N/A, 1 ,'N/A'", ",", '\'', "",
+                Collections.singletonList("N/A"), true);
+        assertEquals(values, new Object[] { null, "1", null });
+    }
+
+    @Test
+    public void parsesDelimiterString() {
+        Object[] values = TestArguments.parseCsvLine("a::\"b::c\"::d", "::", '"', "", Collections.emptyList(),
+                true);
+        assertEquals(values, new Object[] { "a", "b::c", "d" });
+    }
+
+    @Test
+    public void convertsArguments() throws Exception {
+        assertEquals(TestArguments.convert("5", int.class), 5);
+        assertEquals(TestArguments.convert(5, long.class), 5L);
+        assertEquals(TestArguments.convert("x", char.class), 'x');
+        assertEquals(TestArguments.convert("true", Boolean.class), Boolean.TRUE);
+        assertEquals(TestArguments.convert("SECONDS", java.util.concurrent.TimeUnit.class),
+                java.util.concurrent.TimeUnit.SECONDS);
+        assertEquals(TestArguments.convert("java.lang.String", Class.class), String.class);
+        UUID uuid = UUID.randomUUID();
+        assertEquals(TestArguments.convert(uuid.toString(), UUID.class), uuid);
+        assertEquals(TestArguments.convert("1.50", BigDecimal.class), new BigDecimal("1.50"));
+        assertNull(TestArguments.convert(null, String.class));
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void failsNullPrimitive() throws Exception {
+        TestArguments.convert(null, int.class);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void failsUnconvertible() throws Exception {
+        TestArguments.convert(Arrays.asList(1, 2), int.class);
+    }
+
+    private static Object[] parse(String line, boolean trim) {
+        List<String> nullValues = Collections.emptyList();
+        return TestArguments.parseCsvLine(line, ",", '\'', "", nullValues, trim);
+    }
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright (C) 2020-2022, K2N.IO.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA
+ *
+ */
+
+package com.gocypher.cybench.t2b.transform;
+
+import static org.testng.Assert.*;
+
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+import org.openjdk.jmh.generators.reflection.T2BClassInfo;
+import org.testng.annotations.Test;
+
+import com.gocypher.cybench.Test2Benchmark;
+
+import javassist.ClassPool;
+import javassist.bytecode.ClassFile;
+import javassist.bytecode.InnerClassesAttribute;
+
+public class TestClassTransformerTest {
+
+    @Test
+    public void altersNestedClassAsTopLevel() throws Exception {
+        File classDir = Files.createTempDirectory("t2b-transform").toFile();
+        TestClassTransformer transformer = new TestClassTransformer(new T2BClassInfo(Outer.Nested.class),
+                ClassPool.getDefault());
+        transformer.doTransform(Test2Benchmark.T2B_MAPPERS);
+        transformer.storeTransformedClass(classDir.getPath());
+
+        String alteredName = TestClassTransformer.getAlteredClassName(Outer.Nested.class.getName());
+        assertEquals(transformer.getAlteredClassName(), alteredName);
+        try (DataInputStream in = new DataInputStream(
+                new FileInputStream(new File(classDir, alteredName.replace('.', '/') + ".class")))) {
+            InnerClassesAttribute innerClasses = (InnerClassesAttribute) new ClassFile(in)
+                    .getAttribute(InnerClassesAttribute.tag);
+            assertTrue(innerClasses == null || innerClasses.find(alteredName) < 0);
+        }
+
+        // JVM resolves declaring class of nested class: it shall not refer unaltered or missing outer class
+        Class<?> alteredClass = AbstractClassTransformer.getClass(transformer.getClassInfo());
+        assertEquals(alteredClass.getName(), alteredName);
+        assertNull(alteredClass.getDeclaringClass());
+        assertTrue(Arrays.stream(alteredClass.getMethods()).anyMatch(m -> m.getName().equals("test")));
+    }
+
+    public static class Outer {
+        public static class Nested {
+            @org.junit.Test
+            public void test() {
+            }
+        }
+    }
+}
@@ -0,0 +1,64 @@
+/*
+ * Copyright (C) 2020-2022, K2N.IO.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA
+ *
+ */
+
+package com.gocypher.cybench.t2b.transform.metadata;
+
+import static org.testng.Assert.assertEquals;
+
+import java.lang.reflect.Method;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.Test;
+
+public class BenchmarkMetadataTest {
+    private static final String VALUE_PROP = "t2b.test.metadata.value";
+
+    @AfterMethod
+    public void clearValue() {
+        System.clearProperty(VALUE_PROP);
+    }
+
+    @Test
+    public void fillsNestedClassName() throws Exception {
+        Method method = Nested.class.getDeclaredMethod("test");
+
+        assertEquals(BenchmarkMetadata.fillMetadataValue("Class ${method.class}", method),
+                "Class " + BenchmarkMetadataTest.class.getName() + "$Nested");
+    }
+
+    @Test
+    public void fillsValueWithReplacementChars() throws Exception {
+        System.setProperty(VALUE_PROP, "price: $1 \\ each");
+        Method method = Nested.class.getDeclaredMethod("test");
+
+        assertEquals(BenchmarkMetadata.fillMetadataValue("${sys#" + VALUE_PROP + "}", method), "price: $1 \\ each");
+    }
+
+    @Test
+    public void fillsDefaultValue() throws Exception {
+        Method method = Nested.class.getDeclaredMethod("test");
+
+        assertEquals(BenchmarkMetadata.fillMetadataValue("${sys#" + VALUE_PROP + "}:{none}", method), "none");
+    }
+
+    static class Nested {
+        void test() {
+        }
+    }
+}